@@ -0,0 +1,175 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.util.PgVector;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recall frente a latencia de la búsqueda de documentos similares con el
+ * índice HNSW, para distintos valores de hnsw.ef_search.
+ *
+ * Necesita un PostgreSQL local con pgvector; la conexión se configura con
+ * -Dbench.jdbc.url, -Dbench.jdbc.user y -Dbench.jdbc.password. Crea la tabla
+ * hnsw_benchmark_documents con embeddings sintéticos de 384 dimensiones
+ * agrupados en clústeres y repartidos en colecciones, igual que documents, y
+ * usa la misma consulta que {@link AgentRepositoryCustomImpl}. El recall@5
+ * frente a la búsqueda exacta se imprime al preparar cada valor de ef_search;
+ * JMH mide la latencia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HnswSearchBenchmark {
+
+    private static final int DIMENSIONS = 384;
+    private static final int COLLECTIONS = 10;
+    private static final int CLUSTERS = 50;
+    private static final int QUERIES = 100;
+    private static final int TOP_K = 5;
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private static final String TABLE = "hnsw_benchmark_documents";
+    private static final String SEARCH = "SELECT d.id, d.embedding <-> CAST(? AS vector) AS distance FROM " + TABLE
+            + " d WHERE d.collection_id = ? AND d.embedding IS NOT NULL ORDER BY distance LIMIT ?";
+
+    private static final PgVector VECTOR_TYPE = new PgVector();
+
+    @Param({ "20000" })
+    private int rows;
+
+    @Param({ "10", "40", "100", "200", "400" })
+    private int efSearch;
+
+    private Connection connection;
+    private PreparedStatement search;
+    private float[][] queries;
+    private long[] queryCollections;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/postgres"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+
+        Random random = new Random(42);
+        float[][] centers = new float[CLUSTERS][];
+        for (int i = 0; i < CLUSTERS; i++) {
+            centers[i] = randomVector(random, null, 1.0);
+        }
+        loadData(random, centers);
+
+        queries = new float[QUERIES][];
+        queryCollections = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = randomVector(random, centers[random.nextInt(CLUSTERS)], 0.3);
+            queryCollections[i] = random.nextInt(COLLECTIONS);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET hnsw.ef_search = " + efSearch);
+        }
+        search = connection.prepareStatement(SEARCH);
+        System.out.printf("%nef_search=%d recall@%d=%.3f%n", efSearch, TOP_K, recall());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        search.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public int search() throws SQLException {
+        int i = next++ % QUERIES;
+        return search(queries[i], queryCollections[i]).size();
+    }
+
+    private Set<Long> search(float[] query, long collectionId) throws SQLException {
+        VECTOR_TYPE.nullSafeSet(search, query, 1, null);
+        search.setLong(2, collectionId);
+        search.setInt(3, TOP_K);
+        Set<Long> ids = new HashSet<>();
+        try (ResultSet rs = search.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    // Fracción de los TOP_K vecinos exactos que devuelve la búsqueda con el índice
+    private double recall() throws SQLException {
+        int found = 0;
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i < QUERIES; i++) {
+                Set<Long> approximate = search(queries[i], queryCollections[i]);
+                statement.execute("SET enable_indexscan = off");
+                Set<Long> exact = search(queries[i], queryCollections[i]);
+                statement.execute("RESET enable_indexscan");
+                exact.retainAll(approximate);
+                found += exact.size();
+            }
+        }
+        return found / (double) (QUERIES * TOP_K);
+    }
+
+    // Reutiliza la tabla si ya tiene el número de filas pedido
+    private void loadData(Random random, float[][] centers) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + TABLE
+                    + " (id BIGSERIAL PRIMARY KEY, collection_id BIGINT NOT NULL, embedding vector(" + DIMENSIONS + "))");
+            try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM " + TABLE)) {
+                rs.next();
+                if (rs.getLong(1) == rows) {
+                    return;
+                }
+            }
+            statement.execute("TRUNCATE " + TABLE);
+            statement.execute("DROP INDEX IF EXISTS " + TABLE + "_embedding_idx");
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + TABLE + " (collection_id, embedding) VALUES (?, CAST(? AS vector))")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setLong(1, i % COLLECTIONS);
+                VECTOR_TYPE.nullSafeSet(insert, randomVector(random, centers[random.nextInt(CLUSTERS)], 0.3), 2, null);
+                insert.addBatch();
+                if ((i + 1) % INSERT_BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+
+        // Mismos parámetros que la migración V9
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX " + TABLE + "_embedding_idx ON " + TABLE
+                    + " USING hnsw (embedding vector_l2_ops) WITH (m = 16, ef_construction = 64)");
+            statement.execute("ANALYZE " + TABLE);
+        }
+    }
+
+    // Vector aleatorio alrededor de center (o del origen), normalizado
+    private static float[] randomVector(Random random, float[] center, double noise) {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            double value = (center != null ? center[i] : 0) + random.nextGaussian() * noise / Math.sqrt(DIMENSIONS);
+            vector[i] = (float) value;
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] /= (float) norm;
+        }
+        return vector;
+    }
+}
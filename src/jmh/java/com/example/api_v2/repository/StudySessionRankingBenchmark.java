@@ -0,0 +1,215 @@
+package com.example.api_v2.repository;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selección de las 25 flashcards de una sesión de estudio: ordenadas en
+ * PostgreSQL con {@link FlashcardRepository#findTopForReview} frente a cargar
+ * la colección y el progreso y ordenarlos en Java, como se hacía antes.
+ *
+ * Necesita un PostgreSQL local; la conexión se configura con -Dbench.jdbc.url,
+ * -Dbench.jdbc.user y -Dbench.jdbc.password. Crea las tablas
+ * study_benchmark_flashcards y study_benchmark_progress con el índice de la
+ * migración V4; el 80% de las tarjetas tiene progreso del usuario y el resto
+ * cuenta como nueva. Ambas variantes leen las columnas de la tabla de
+ * flashcards que se mapean a la entidad.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StudySessionRankingBenchmark {
+
+    private static final int SESSION_SIZE = 25;
+    private static final int INSERT_BATCH_SIZE = 1000;
+    private static final long COLLECTION_ID = 1;
+    private static final String USER_ID = "bench-user";
+
+    private static final String FLASHCARDS = "study_benchmark_flashcards";
+    private static final String PROGRESS = "study_benchmark_progress";
+
+    // La consulta de FlashcardRepository#findTopForReview sobre las tablas del benchmark
+    private static final String TOP_FOR_REVIEW = """
+            SELECT f.*
+            FROM %s f
+            LEFT JOIN %s ufp ON ufp.flashcard_id = f.id AND ufp.user_id = ?
+            WHERE f.collection_id = ?
+            ORDER BY
+                (ufp.id IS NOT NULL AND ufp.next_review_date IS NULL) DESC,
+                TRUNC(EXTRACT(EPOCH FROM (CAST(? AS timestamp)
+                    - COALESCE(ufp.next_review_date, f.created_at))) / 3600) / 24.0 * 0.5
+                    + (5.0 - COALESCE(ufp.ease_factor, 2.5)) * 0.3
+                    + COALESCE(ufp.failure_count, 0) * 0.5 * 0.2 DESC,
+                f.id
+            LIMIT ?
+            """.formatted(FLASHCARDS, PROGRESS);
+
+    private static final String ALL_FLASHCARDS = "SELECT f.* FROM " + FLASHCARDS + " f WHERE f.collection_id = ?";
+    private static final String ALL_PROGRESS = "SELECT flashcard_id, next_review_date, ease_factor, failure_count FROM "
+            + PROGRESS + " WHERE collection_id = ? AND user_id = ?";
+
+    @Param({ "1000", "10000", "100000" })
+    private int cards;
+
+    private Connection connection;
+    private PreparedStatement topForReview;
+    private PreparedStatement allFlashcards;
+    private PreparedStatement allProgress;
+    private Timestamp now;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/postgres"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+        now = Timestamp.valueOf(LocalDateTime.of(2025, 1, 15, 12, 0));
+        loadData(new Random(42));
+
+        topForReview = connection.prepareStatement(TOP_FOR_REVIEW);
+        allFlashcards = connection.prepareStatement(ALL_FLASHCARDS);
+        allProgress = connection.prepareStatement(ALL_PROGRESS);
+
+        List<Long> database = databaseRanked();
+        List<Long> java = javaRanked();
+        System.out.printf("%ncards=%d mismas %d tarjetas en el mismo orden: %b%n", cards, SESSION_SIZE,
+                database.equals(java));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        topForReview.close();
+        allFlashcards.close();
+        allProgress.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> databaseRanked() throws SQLException {
+        topForReview.setString(1, USER_ID);
+        topForReview.setLong(2, COLLECTION_ID);
+        topForReview.setTimestamp(3, now);
+        topForReview.setInt(4, SESSION_SIZE);
+        List<Long> ids = new ArrayList<>(SESSION_SIZE);
+        try (ResultSet rs = topForReview.executeQuery()) {
+            while (rs.next()) {
+                ids.add(readFlashcard(rs));
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<Long> javaRanked() throws SQLException {
+        List<Long> flashcardIds = new ArrayList<>();
+        allFlashcards.setLong(1, COLLECTION_ID);
+        try (ResultSet rs = allFlashcards.executeQuery()) {
+            while (rs.next()) {
+                flashcardIds.add(readFlashcard(rs));
+            }
+        }
+
+        Map<Long, double[]> progressByFlashcard = new HashMap<>();
+        allProgress.setLong(1, COLLECTION_ID);
+        allProgress.setString(2, USER_ID);
+        try (ResultSet rs = allProgress.executeQuery()) {
+            while (rs.next()) {
+                Timestamp nextReviewDate = rs.getTimestamp(2);
+                progressByFlashcard.put(rs.getLong(1), new double[] {
+                        nextReviewDate != null
+                                ? ChronoUnit.HOURS.between(nextReviewDate.toLocalDateTime(), now.toLocalDateTime()) / 24.0
+                                : Double.MAX_VALUE,
+                        rs.getDouble(3), rs.getInt(4) });
+            }
+        }
+
+        // Mismos pesos que calculatePriority; sin progreso, pendiente desde su creación (now en estos datos)
+        List<double[]> ranked = new ArrayList<>(flashcardIds.size());
+        for (Long id : flashcardIds) {
+            double[] progress = progressByFlashcard.getOrDefault(id, new double[] { 0, 2.5, 0 });
+            ranked.add(new double[] {
+                    progress[0] * 0.5 + (5.0 - progress[1]) * 0.3 + progress[2] * 0.5 * 0.2, id });
+        }
+        ranked.sort((a, b) -> a[0] != b[0] ? Double.compare(b[0], a[0]) : Double.compare(a[1], b[1]));
+
+        List<Long> ids = new ArrayList<>(SESSION_SIZE);
+        for (int i = 0; i < Math.min(SESSION_SIZE, ranked.size()); i++) {
+            ids.add((long) ranked.get(i)[1]);
+        }
+        return ids;
+    }
+
+    // Lee las columnas que Hibernate mapea a Flashcard para que ambas variantes paguen lo mismo por fila
+    private static long readFlashcard(ResultSet rs) throws SQLException {
+        rs.getString("question");
+        rs.getString("answer");
+        rs.getTimestamp("created_at");
+        return rs.getLong("id");
+    }
+
+    // Reutiliza las tablas si ya tienen el número de tarjetas pedido
+    private void loadData(Random random) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + FLASHCARDS + " (id BIGSERIAL PRIMARY KEY, "
+                    + "collection_id BIGINT NOT NULL, question TEXT, answer TEXT, created_at TIMESTAMP)");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + PROGRESS + " (id BIGSERIAL PRIMARY KEY, "
+                    + "flashcard_id BIGINT NOT NULL, user_id VARCHAR(255) NOT NULL, collection_id BIGINT NOT NULL, "
+                    + "next_review_date TIMESTAMP, ease_factor DOUBLE PRECISION, failure_count INTEGER)");
+            try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM " + FLASHCARDS)) {
+                rs.next();
+                if (rs.getLong(1) == cards) {
+                    return;
+                }
+            }
+            statement.execute("TRUNCATE " + FLASHCARDS + ", " + PROGRESS + " RESTART IDENTITY");
+            // Mismo índice que la migración V4
+            statement.execute("CREATE INDEX IF NOT EXISTS " + PROGRESS + "_review_queue_idx ON " + PROGRESS
+                    + " (user_id, collection_id, next_review_date)");
+        }
+
+        try (PreparedStatement insertFlashcard = connection.prepareStatement("INSERT INTO " + FLASHCARDS
+                + " (collection_id, question, answer, created_at) VALUES (?, ?, ?, ?)");
+                PreparedStatement insertProgress = connection.prepareStatement("INSERT INTO " + PROGRESS
+                        + " (flashcard_id, user_id, collection_id, next_review_date, ease_factor, failure_count) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= cards; i++) {
+                insertFlashcard.setLong(1, COLLECTION_ID);
+                insertFlashcard.setString(2, "Pregunta " + i);
+                insertFlashcard.setString(3, "Respuesta " + i);
+                insertFlashcard.setTimestamp(4, now);
+                insertFlashcard.addBatch();
+                if (random.nextDouble() < 0.8) {
+                    insertProgress.setLong(1, i);
+                    insertProgress.setString(2, USER_ID);
+                    insertProgress.setLong(3, COLLECTION_ID);
+                    // Repasos entre 30 días atrás y 30 días adelante
+                    insertProgress.setTimestamp(4, Timestamp.valueOf(
+                            now.toLocalDateTime().plusMinutes(random.nextInt(60 * 24 * 60) - 60 * 24 * 30)));
+                    insertProgress.setDouble(5, 1.3 + random.nextDouble() * 1.7);
+                    insertProgress.setInt(6, random.nextInt(5));
+                    insertProgress.addBatch();
+                }
+                if (i % INSERT_BATCH_SIZE == 0) {
+                    insertFlashcard.executeBatch();
+                    insertProgress.executeBatch();
+                }
+            }
+            insertFlashcard.executeBatch();
+            insertProgress.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE " + FLASHCARDS);
+            statement.execute("ANALYZE " + PROGRESS);
+        }
+    }
+}
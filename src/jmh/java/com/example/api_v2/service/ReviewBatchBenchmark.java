@@ -0,0 +1,170 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.ApiV2Application;
+import com.example.api_v2.dto.FlashcardReviewDto;
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.PermissionType;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.Workspace;
+import com.example.api_v2.model.WorkspaceUser;
+import com.example.api_v2.repository.CollectionRepository;
+import com.example.api_v2.repository.FlashcardRepository;
+import com.example.api_v2.repository.UserRepository;
+import com.example.api_v2.repository.WorkspaceRepository;
+import com.example.api_v2.repository.WorkspaceUserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revisiones por segundo al sincronizar una sesión de estudio: una llamada a
+ * {@link FlashcardService#processReview} por revisión, como hace el cliente con
+ * PUT /{flashcardId}/review, frente a una llamada a
+ * {@link FlashcardService#processReviews} con el lote completo.
+ *
+ * Arranca la aplicación sin servidor web contra un PostgreSQL, así que mide
+ * los servicios y repositorios reales con sus transacciones. La conexión se
+ * configura con -Dbench.jdbc.url, -Dbench.jdbc.user y -Dbench.jdbc.password;
+ * Hibernate crea o actualiza el esquema, por lo que conviene una base de datos
+ * dedicada con la extensión vector disponible.
+ *
+ * Cada operación procesa {@code batchSize} revisiones de tarjetas al azar de
+ * una colección de 2000, así que las puntuaciones de ambas variantes se
+ * comparan directamente y multiplicadas por {@code batchSize} dan revisiones/s.
+ * Con {@code progress = NEW} se borra el progreso del usuario antes de cada
+ * operación, de modo que cada revisión crea su fila de progreso (en el lote,
+ * con saveAll sobre IDs IDENTITY, que Hibernate no agrupa en batches).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReviewBatchBenchmark {
+
+    private static final int FLASHCARDS = 2000;
+    private static final String[] RESULTS = { "MAL", "REGULAR", "BIEN" };
+
+    public enum Progress {
+        EXISTING,
+        NEW
+    }
+
+    @Param({ "50", "500" })
+    private int batchSize;
+
+    @Param({ "EXISTING", "NEW" })
+    private Progress progress;
+
+    private ConfigurableApplicationContext context;
+    private FlashcardService flashcardService;
+    private JdbcTemplate jdbcTemplate;
+    private String userId;
+    private Long collectionId;
+    private List<Long> flashcardIds;
+    private List<FlashcardReviewDto> reviews;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ApiV2Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + System.getProperty("bench.jdbc.url",
+                                "jdbc:postgresql://localhost:5432/postgres"),
+                        "spring.datasource.username=" + System.getProperty("bench.jdbc.user", "postgres"),
+                        "spring.datasource.password=" + System.getProperty("bench.jdbc.password", "postgres"),
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        // Que la cola de trabajos no compita por la base de datos durante la medición
+                        "jobs.worker.poll-interval-ms=3600000")
+                .run();
+        flashcardService = context.getBean(FlashcardService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(tx -> loadData());
+
+        Random random = new Random(42);
+        reviews = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            FlashcardReviewDto review = new FlashcardReviewDto();
+            review.setFlashcardId(flashcardIds.get(random.nextInt(FLASHCARDS)));
+            review.setResult(RESULTS[random.nextInt(RESULTS.length)]);
+            review.setTimeSpentMs(5000L);
+            reviews.add(review);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void resetProgress() {
+        if (progress == Progress.NEW) {
+            jdbcTemplate.update("DELETE FROM user_flashcard_progress WHERE user_id = ?", userId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int oneByOne() {
+        for (FlashcardReviewDto review : reviews) {
+            flashcardService.processReview(review.getFlashcardId(), review, userId);
+        }
+        return reviews.size();
+    }
+
+    @Benchmark
+    public int batch() {
+        return flashcardService.processReviews(collectionId, reviews, userId).size();
+    }
+
+    // Un usuario nuevo por ejecución, miembro del workspace de una colección de FLASHCARDS tarjetas
+    private void loadData() {
+        User user = new User();
+        user.setId("bench-" + UUID.randomUUID());
+        user.setName("Benchmark");
+        user.setEmail(user.getId() + "@example.com");
+        context.getBean(UserRepository.class).save(user);
+        userId = user.getId();
+
+        Workspace workspace = new Workspace();
+        workspace.setName("Benchmark");
+        context.getBean(WorkspaceRepository.class).save(workspace);
+
+        WorkspaceUser member = new WorkspaceUser();
+        member.setUser(user);
+        member.setWorkspace(workspace);
+        member.setPermissionType(PermissionType.OWNER);
+        context.getBean(WorkspaceUserRepository.class).save(member);
+
+        Collection collection = new Collection();
+        collection.setName("Benchmark");
+        collection.setWorkspace(workspace);
+        collection.setCreatedBy(user);
+        context.getBean(CollectionRepository.class).save(collection);
+        collectionId = collection.getId();
+
+        List<Flashcard> flashcards = new ArrayList<>(FLASHCARDS);
+        for (int i = 0; i < FLASHCARDS; i++) {
+            Flashcard flashcard = new Flashcard();
+            flashcard.setQuestion("Pregunta " + i);
+            flashcard.setAnswer("Respuesta " + i);
+            flashcard.setCollection(collection);
+            flashcard.setCreatedBy(user);
+            flashcards.add(flashcard);
+        }
+        context.getBean(FlashcardRepository.class).saveAll(flashcards);
+        flashcardIds = flashcards.stream().map(Flashcard::getId).toList();
+    }
+}
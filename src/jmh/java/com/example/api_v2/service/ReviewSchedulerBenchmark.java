@@ -0,0 +1,61 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.SchedulerType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Llamadas de planificación por segundo de cada estrategia.
+ * Cada operación calcula repeticiones, factor de facilidad e intervalo para
+ * una revisión, igual que hace FlashcardService por cada tarjeta revisada.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReviewSchedulerBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({ "LEGACY_SM2", "SM2", "FSRS" })
+    private SchedulerType type;
+
+    private ReviewScheduler scheduler;
+    private final int[] qualities = new int[SAMPLES];
+    private final int[] repetitionLevels = new int[SAMPLES];
+    private final double[] easeFactors = new double[SAMPLES];
+    private final long[] previousIntervals = new long[SAMPLES];
+    private final long[] elapsed = new long[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        scheduler = new ReviewSchedulerRegistry(
+                List.of(new LegacySm2Scheduler(), new Sm2Scheduler(), new FsrsScheduler())).forType(type);
+
+        int[] grades = { ReviewScheduler.QUALITY_MAL, ReviewScheduler.QUALITY_REGULAR, ReviewScheduler.QUALITY_BIEN };
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            qualities[i] = grades[random.nextInt(grades.length)];
+            repetitionLevels[i] = random.nextInt(12);
+            easeFactors[i] = 1.3 + random.nextDouble() * 1.7;
+            previousIntervals[i] = random.nextInt(120) * ReviewScheduler.MINUTES_PER_DAY;
+            elapsed[i] = previousIntervals[i] + random.nextInt(3 * 24 * 60);
+        }
+    }
+
+    @Benchmark
+    public void schedule(Blackhole blackhole) {
+        int i = next++ & (SAMPLES - 1);
+        int quality = qualities[i];
+        int repetitionLevel = repetitionLevels[i];
+        double easeFactor = easeFactors[i];
+        blackhole.consume(scheduler.nextRepetitionLevel(quality, repetitionLevel));
+        blackhole.consume(scheduler.nextEaseFactor(quality, repetitionLevel, easeFactor));
+        blackhole.consume(scheduler.nextIntervalMinutes(quality, repetitionLevel, easeFactor,
+                previousIntervals[i], elapsed[i]));
+    }
+}
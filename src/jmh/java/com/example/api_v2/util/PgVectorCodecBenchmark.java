@@ -0,0 +1,73 @@
+package com.example.api_v2.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión de un embedding al formato de texto de pgvector y vuelta.
+ * "legacy" reproduce la implementación anterior de PgVector (StringBuilder y
+ * split/Float.parseFloat); "codec" usa PgVectorCodec. Con -prof gc se ve la
+ * memoria asignada por operación.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PgVectorCodecBenchmark {
+
+    @Param({ "384", "1536" })
+    private int dimensions;
+
+    private float[] vector;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) (random.nextGaussian() * 0.05);
+        }
+        text = legacyFormat(vector);
+    }
+
+    @Benchmark
+    public String formatLegacy() {
+        return legacyFormat(vector);
+    }
+
+    @Benchmark
+    public String formatCodec() {
+        return PgVectorCodec.format(vector);
+    }
+
+    @Benchmark
+    public float[] parseLegacy() {
+        return legacyParse(text);
+    }
+
+    @Benchmark
+    public float[] parseCodec() {
+        return PgVectorCodec.parse(text);
+    }
+
+    private static String legacyFormat(float[] value) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < value.length; i++) {
+            if (i > 0) sb.append(",");
+            sb.append(value[i]);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private static float[] legacyParse(String vector) {
+        String[] parts = vector.substring(1, vector.length() - 1).split(",");
+        float[] result = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Float.parseFloat(parts[i].trim());
+        }
+        return result;
+    }
+}
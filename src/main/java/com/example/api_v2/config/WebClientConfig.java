@@ -1,14 +1,113 @@
 package com.example.api_v2.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+
+/**
+ * Clientes HTTP del agente Python (agent.py).
+ *
+ * Cada cliente tiene su propio pool de conexiones: las llamadas lentas de
+ * generación (respuestas, flashcards, resúmenes, procesado de documentos) no
+ * pueden ocupar las conexiones que necesitan los embeddings de las preguntas.
+ */
 @Configuration
 public class WebClientConfig {
 
+    @Value("${agent.client.base-url:http://localhost:8000}")
+    private String baseUrl = "http://localhost:8000";
+
+    @Value("${agent.client.connect-timeout-ms:2000}")
+    private int connectTimeoutMs = 2000;
+
+    // Las respuestas de /process-document/ incluyen el texto completo del documento
+    @Value("${agent.client.max-in-memory-size:16777216}")
+    private int maxInMemorySize = 16 * 1024 * 1024;
+
+    @Value("${agent.client.pending-acquire-timeout-ms:10000}")
+    private long pendingAcquireTimeoutMs = 10_000;
+
+    // Por debajo del keep-alive de uvicorn (5 s) para no reutilizar conexiones que el agente ya cerró
+    @Value("${agent.client.max-idle-time-ms:4000}")
+    private long maxIdleTimeMs = 4_000;
+
+    @Value("${agent.client.generation.max-connections:20}")
+    private int generationMaxConnections = 20;
+
+    // Los resúmenes y respuestas del modelo pueden tardar minutos
+    @Value("${agent.client.generation.response-timeout-ms:300000}")
+    private long generationResponseTimeoutMs = 300_000;
+
+    @Value("${agent.client.embeddings.max-connections:20}")
+    private int embeddingsMaxConnections = 20;
+
+    @Value("${agent.client.embeddings.response-timeout-ms:10000}")
+    private long embeddingsResponseTimeoutMs = 10_000;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider agentConnectionProvider() {
+        return connectionProvider("agent-generation", generationMaxConnections, pendingAcquireTimeoutMs,
+                maxIdleTimeMs);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider embeddingConnectionProvider() {
+        return connectionProvider("agent-embeddings", embeddingsMaxConnections, pendingAcquireTimeoutMs,
+                maxIdleTimeMs);
+    }
+
+    @Bean
+    public WebClient agentWebClient(WebClient.Builder webClientBuilder,
+            @Qualifier("agentConnectionProvider") ConnectionProvider connectionProvider) {
+        return agentClient(webClientBuilder, baseUrl, connectionProvider, connectTimeoutMs,
+                generationResponseTimeoutMs, maxInMemorySize);
+    }
+
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient embeddingWebClient(WebClient.Builder webClientBuilder,
+            @Qualifier("embeddingConnectionProvider") ConnectionProvider connectionProvider) {
+        return agentClient(webClientBuilder, baseUrl, connectionProvider, connectTimeoutMs,
+                embeddingsResponseTimeoutMs, maxInMemorySize);
+    }
+
+    static ConnectionProvider connectionProvider(String name, int maxConnections, long pendingAcquireTimeoutMs,
+            long maxIdleTimeMs) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                // Peticiones que esperan conexión libre antes de fallar
+                .pendingAcquireMaxCount(maxConnections * 10)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                .build();
+    }
+
+    /**
+     * Cliente sobre el pool indicado, con tiempo máximo de conexión y de
+     * respuesta, compresión gzip y el límite de memoria de los codecs elevado
+     * a maxInMemorySize. Parte de una copia del builder de Spring Boot para
+     * conservar su configuración de Jackson.
+     */
+    static WebClient agentClient(WebClient.Builder webClientBuilder, String baseUrl,
+            ConnectionProvider connectionProvider, int connectTimeoutMs, long responseTimeoutMs,
+            int maxInMemorySize) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .compress(true);
+
+        return webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .build();
     }
 }
@@ -61,7 +61,8 @@ public class AgentController {
 
         @PostMapping("/ask-agent")
         public Mono<ResponseEntity<Map<String, Object>>> askAgent(
-                        @RequestBody Map<String, Object> requestBody) {
+                        @RequestBody Map<String, Object> requestBody,
+                        @RequestParam(value = "efSearch", required = false) Integer efSearch) {
                 // Convertir de forma segura los valores a String
                 String collectionId = requestBody.get("collectionId") != null
                                 ? String.valueOf(requestBody.get("collectionId"))
@@ -86,7 +87,7 @@ public class AgentController {
                 }
 
                 return agentService
-                                .askAgent(collectionId, question, additionalContext, conversationHistory)
+                                .askAgent(collectionId, question, additionalContext, conversationHistory, efSearch)
                                 .map(ResponseEntity::ok);
         }
 }
@@ -0,0 +1,37 @@
+package com.example.api_v2.controller;
+
+import com.example.api_v2.dto.BackgroundJobDto;
+import com.example.api_v2.security.WorkspaceAccess;
+import com.example.api_v2.service.BackgroundJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controlador REST para consultar los trabajos en segundo plano de un workspace
+ */
+@Slf4j
+@RestController
+@RequestMapping("/workspaces/{workspaceId}/jobs")
+@RequiredArgsConstructor
+public class BackgroundJobController {
+
+    private final BackgroundJobService backgroundJobService;
+
+    /**
+     * Obtiene el estado de un trabajo
+     * 
+     * @param workspaceId ID del workspace
+     * @param jobId ID del trabajo
+     * @return Estado del trabajo, intentos realizados y último error
+     */
+    @GetMapping("/{jobId}")
+    @WorkspaceAccess
+    public ResponseEntity<BackgroundJobDto> getJob(
+            @PathVariable("workspaceId") Long workspaceId,
+            @PathVariable("jobId") Long jobId) {
+        log.debug("Consultando el trabajo {} del workspace {}", jobId, workspaceId);
+        return ResponseEntity.ok(backgroundJobService.getJob(workspaceId, jobId));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.api_v2.controller;
 
+import com.example.api_v2.dto.BackgroundJobDto;
 import com.example.api_v2.dto.CollectionDto;
 import com.example.api_v2.exception.ErrorUtils;
 import com.example.api_v2.security.WorkspaceAccess;
@@ -168,16 +169,16 @@ public class CollectionController {
     }
 
     /**
-     * Elimina una colección del workspace
+     * Elimina una colección del workspace en segundo plano
      * 
      * @param workspaceId ID del workspace
      * @param collectionId ID de la colección a eliminar
      * @param email Email del usuario que elimina la colección
-     * @return Respuesta vacía indicando éxito
+     * @return 202 con el trabajo de eliminación, consultable en /workspaces/{workspaceId}/jobs/{jobId}
      */
     @DeleteMapping("/{collectionId}/user/{email}")
     @WorkspaceEditAccess
-    public ResponseEntity<Void> deleteCollection(
+    public ResponseEntity<BackgroundJobDto> deleteCollection(
             @PathVariable("workspaceId") Long workspaceId,
             @PathVariable("collectionId") Long collectionId,
             @PathVariable("email") String email) {
@@ -199,7 +200,6 @@ public class CollectionController {
             ErrorUtils.throwValidationError("El email del usuario es obligatorio");
         }
         
-        collectionService.deleteCollection(workspaceId, collectionId, email);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.accepted().body(collectionService.deleteCollection(workspaceId, collectionId, email));
     }
 }
@@ -1,6 +1,7 @@
 package com.example.api_v2.controller;
 
 import com.example.api_v2.dto.DocumentDto;
+import com.example.api_v2.dto.DocumentIngestionDto;
 import com.example.api_v2.model.Document;
 import com.example.api_v2.security.WorkspaceAccess;
 import com.example.api_v2.security.WorkspaceEditAccess;
@@ -8,14 +9,18 @@ import com.example.api_v2.service.DocumentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriUtils;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
@@ -35,8 +40,12 @@ public class DocumentController {
             @RequestParam("file") MultipartFile file) {
         try {
             log.info("Subiendo documento a la colección {}: {}", collectionId, file.getOriginalFilename());
-            documentService.uploadFile(collectionId, file);
-            return ResponseEntity.ok("Archivo subido correctamente");
+            Document document = documentService.uploadFile(collectionId, file);
+            // El agente lo procesa en segundo plano; el estado se consulta en Location
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.LOCATION, "/workspaces/" + workspaceId + "/collections/" + collectionId
+                            + "/documents/" + document.getId() + "/status")
+                    .body("Archivo subido correctamente");
         } catch (IOException e) {
             log.error("Error al subir archivo a la colección {}: {}", collectionId, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al subir el archivo");
@@ -52,26 +61,84 @@ public class DocumentController {
         return ResponseEntity.ok(documentService.getDocumentsByCollection(collectionId));
     }
 
-    @GetMapping("/{documentId}")
+    /**
+     * Obtiene el estado del procesado del documento en el agente
+     *
+     * @return UPLOADED, EXTRACTING, EMBEDDED o FAILED, con los intentos y el último error
+     */
+    @GetMapping("/{documentId}/status")
     @WorkspaceAccess(workspaceIdParam = "workspaceId")
-    public ResponseEntity<byte[]> downloadDocument(
+    public ResponseEntity<DocumentIngestionDto> getIngestionStatus(
             @PathVariable("workspaceId") Long workspaceId,
             @PathVariable("collectionId") Long collectionId,
             @PathVariable("documentId") Long documentId) {
+        log.debug("Consultando el procesado del documento {}", documentId);
+        return ResponseEntity.ok(documentService.getIngestion(collectionId, documentId));
+    }
+
+    /**
+     * Descarga el documento por partes desde el almacén. Admite un único rango
+     * (Range: bytes=inicio-fin) e If-Range, y responde 304 si el ETag de
+     * If-None-Match coincide.
+     */
+    @GetMapping("/{documentId}")
+    @WorkspaceAccess(workspaceIdParam = "workspaceId")
+    public ResponseEntity<StreamingResponseBody> downloadDocument(
+            @PathVariable("workspaceId") Long workspaceId,
+            @PathVariable("collectionId") Long collectionId,
+            @PathVariable("documentId") Long documentId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest request) {
         log.info("Descargando documento: {}", documentId);
-        Document document = documentService.getDocument(documentId)
-                .orElseThrow(() -> new RuntimeException("Document not found"));
+        DocumentService.DocumentDownload download = documentService.getDownload(documentId);
+
+        String etag = "\"" + download.etag() + "\"";
+        if (request.checkNotModified(etag)) {
+            // Spring ya ha preparado la respuesta 304
+            return null;
+        }
 
-        String fileName = document.getFileName();
+        long size = download.size();
+        long start = 0;
+        long end = size - 1;
+        HttpStatus status = HttpStatus.OK;
+        // Con If-Range solo se envía el rango si el fichero no ha cambiado
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // Con varios rangos se envía el documento completo, que también es una respuesta válida
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                    status = HttpStatus.PARTIAL_CONTENT;
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+        }
+
+        String fileName = download.fileName();
         String encodedFileName = UriUtils.encode(fileName, StandardCharsets.UTF_8);
 
-        log.debug("Enviando archivo: {} con tipo: {}", fileName, document.getFileType());
+        log.debug("Enviando archivo: {} con tipo: {}", fileName, download.fileType());
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(document.getFileType()))
+        long position = start;
+        long count = end - start + 1;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .contentType(MediaType.parseMediaType(download.fileType()))
+                .contentLength(count)
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                 .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName)
-                .body(document.getData());
+                        "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        // transferTo copia del fichero a la respuesta sin pasar el documento completo por el heap
+        return response.body(out -> download.content().transferTo(position, count, Channels.newChannel(out)));
     }
 
     @DeleteMapping("/{documentId}")
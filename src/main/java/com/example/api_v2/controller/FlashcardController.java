@@ -1,6 +1,8 @@
 package com.example.api_v2.controller;
 
 import com.example.api_v2.dto.FlashcardDto;
+import com.example.api_v2.dto.FlashcardImportStatusDto;
+import com.example.api_v2.dto.FlashcardPageDto;
 import com.example.api_v2.dto.FlashcardReviewDto;
 import com.example.api_v2.dto.FlashcardStatsDto;
 import com.example.api_v2.exception.ErrorUtils;
@@ -8,11 +10,20 @@ import com.example.api_v2.model.Flashcard;
 import com.example.api_v2.security.WorkspaceAccess;
 import com.example.api_v2.security.WorkspaceEditAccess;
 import com.example.api_v2.service.CollectionService;
+import com.example.api_v2.service.FlashcardExportService;
+import com.example.api_v2.service.FlashcardImportService;
 import com.example.api_v2.service.FlashcardService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
@@ -22,12 +33,19 @@ import java.util.Map;
 @RequestMapping("/workspaces/{workspaceId}/collections/{collectionId}/flashcards")
 public class FlashcardController {
 
+    private static final int MAX_REVIEW_BATCH_SIZE = 1000;
+
     private final FlashcardService flashcardService;
     private final CollectionService collectionService;
+    private final FlashcardExportService flashcardExportService;
+    private final FlashcardImportService flashcardImportService;
 
-    public FlashcardController(FlashcardService flashcardService, CollectionService collectionService) {
+    public FlashcardController(FlashcardService flashcardService, CollectionService collectionService,
+            FlashcardExportService flashcardExportService, FlashcardImportService flashcardImportService) {
         this.flashcardService = flashcardService;
         this.collectionService = collectionService;
+        this.flashcardExportService = flashcardExportService;
+        this.flashcardImportService = flashcardImportService;
     }
 
     @GetMapping
@@ -55,6 +73,141 @@ public class FlashcardController {
         return ResponseEntity.ok(flashcardService.getFlashcardsByCollectionWithProgress(collectionId, email));
     }
 
+    @GetMapping("/page")
+    @WorkspaceAccess
+    public ResponseEntity<FlashcardPageDto> getFlashcardPage(
+            @PathVariable("workspaceId") Long workspaceId,
+            @PathVariable("collectionId") Long collectionId,
+            @RequestParam(value = "email") String email,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        log.info("Obteniendo página de flashcards de la colección {} en workspace {} para usuario {} (estado: {}, orden: {})",
+                collectionId, workspaceId, email, status, sort);
+
+        // Validar los parámetros de entrada
+        if (workspaceId == null || workspaceId <= 0) {
+            log.error("ID de workspace inválido: {}", workspaceId);
+            ErrorUtils.throwValidationError("El ID del workspace debe ser un número positivo");
+        }
+
+        if (collectionId == null || collectionId <= 0) {
+            log.error("ID de colección inválido: {}", collectionId);
+            ErrorUtils.throwValidationError("El ID de la colección debe ser un número positivo");
+        }
+
+        if (email == null || email.trim().isEmpty()) {
+            log.error("Email de usuario inválido: {}", email);
+            ErrorUtils.throwValidationError("El email del usuario es obligatorio");
+        }
+
+        // Verificar que la colección pertenece al workspace sin cargar todas sus flashcards
+        collectionService.checkCollectionInWorkspace(workspaceId, collectionId);
+
+        return ResponseEntity.ok(flashcardService.getFlashcardPage(collectionId, email, status, sort, cursor, size));
+    }
+
+    @GetMapping("/export")
+    @WorkspaceAccess
+    public ResponseEntity<StreamingResponseBody> exportFlashcards(
+            @PathVariable("workspaceId") Long workspaceId,
+            @PathVariable("collectionId") Long collectionId,
+            @RequestParam(value = "email") String email) {
+        log.info("Exportando flashcards de la colección {} en workspace {} para usuario {}", collectionId, workspaceId, email);
+
+        // Validar los parámetros de entrada
+        if (workspaceId == null || workspaceId <= 0) {
+            log.error("ID de workspace inválido: {}", workspaceId);
+            ErrorUtils.throwValidationError("El ID del workspace debe ser un número positivo");
+        }
+
+        if (collectionId == null || collectionId <= 0) {
+            log.error("ID de colección inválido: {}", collectionId);
+            ErrorUtils.throwValidationError("El ID de la colección debe ser un número positivo");
+        }
+
+        if (email == null || email.trim().isEmpty()) {
+            log.error("Email de usuario inválido: {}", email);
+            ErrorUtils.throwValidationError("El email del usuario es obligatorio");
+        }
+
+        // Verificar que la colección pertenece al workspace sin cargar todas sus flashcards
+        collectionService.checkCollectionInWorkspace(workspaceId, collectionId);
+
+        // El cuerpo se escribe fuera del hilo de la petición, a medida que se leen las filas
+        StreamingResponseBody body = out -> flashcardExportService.exportCollection(collectionId, email, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(FlashcardExportService.NDJSON_MEDIA_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"collection-" + collectionId + ".ndjson\"")
+                .body(body);
+    }
+
+    @PostMapping("/import")
+    @WorkspaceEditAccess
+    public ResponseEntity<FlashcardImportStatusDto> importFlashcards(
+            @PathVariable("workspaceId") Long workspaceId,
+            @PathVariable("collectionId") Long collectionId,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "email") String email) {
+        log.info("Importando flashcards en la colección {} del workspace {} por usuario {}: {}",
+                collectionId, workspaceId, email, file.getOriginalFilename());
+
+        // Validar los parámetros de entrada
+        if (workspaceId == null || workspaceId <= 0) {
+            log.error("ID de workspace inválido: {}", workspaceId);
+            ErrorUtils.throwValidationError("El ID del workspace debe ser un número positivo");
+        }
+
+        if (collectionId == null || collectionId <= 0) {
+            log.error("ID de colección inválido: {}", collectionId);
+            ErrorUtils.throwValidationError("El ID de la colección debe ser un número positivo");
+        }
+
+        if (email == null || email.trim().isEmpty()) {
+            log.error("Email de usuario inválido: {}", email);
+            ErrorUtils.throwValidationError("El email del usuario es obligatorio");
+        }
+
+        if (file.isEmpty()) {
+            log.error("Fichero de importación vacío");
+            ErrorUtils.throwValidationError("El fichero de importación es obligatorio");
+        }
+
+        // Sin formato explícito se deduce de la extensión del fichero
+        String importFormat = format;
+        if (importFormat == null || importFormat.isBlank()) {
+            String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+            importFormat = fileName.endsWith(".json") ? FlashcardImportService.FORMAT_JSON : FlashcardImportService.FORMAT_CSV;
+        }
+
+        // Verificar que la colección pertenece al workspace sin cargar todas sus flashcards
+        collectionService.checkCollectionInWorkspace(workspaceId, collectionId);
+
+        try (InputStream content = file.getInputStream()) {
+            FlashcardImportStatusDto status = flashcardImportService.startImport(collectionId, email, importFormat, content);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        } catch (IOException e) {
+            log.error("Error al leer el fichero de importación de la colección {}: {}", collectionId, e.getMessage());
+            ErrorUtils.throwValidationError("No se pudo leer el fichero de importación: " + e.getMessage());
+            return null; // Esta línea nunca se ejecuta
+        }
+    }
+
+    @GetMapping("/import/{importId}")
+    @WorkspaceAccess
+    public ResponseEntity<FlashcardImportStatusDto> getImportStatus(
+            @PathVariable("workspaceId") Long workspaceId,
+            @PathVariable("collectionId") Long collectionId,
+            @PathVariable("importId") String importId) {
+        FlashcardImportStatusDto status = flashcardImportService.getImportStatus(importId);
+        if (!status.getCollectionId().equals(collectionId)) {
+            ErrorUtils.throwResourceNotFound("Importación", "id", importId);
+        }
+        return ResponseEntity.ok(status);
+    }
+
     @GetMapping("/review")
     @WorkspaceAccess
     public ResponseEntity<List<Flashcard>> getFlashcardsForReview(
@@ -349,4 +502,62 @@ public class FlashcardController {
         Flashcard flashcard = flashcardService.processReview(flashcardId, reviewDto, userId);
         return ResponseEntity.ok(flashcard);
     }
+
+    @PutMapping("/review/batch")
+    @WorkspaceAccess
+    public ResponseEntity<List<FlashcardDto>> submitReviewBatch(
+            @PathVariable("workspaceId") Long workspaceId,
+            @PathVariable("collectionId") Long collectionId,
+            @RequestBody List<FlashcardReviewDto> reviews,
+            Principal principal) {
+        log.info("Enviando lote de {} revisiones en colección {}", reviews != null ? reviews.size() : 0, collectionId);
+
+        // Validar los parámetros de entrada
+        if (workspaceId == null || workspaceId <= 0) {
+            log.error("ID de workspace inválido: {}", workspaceId);
+            ErrorUtils.throwValidationError("El ID del workspace debe ser un número positivo");
+        }
+
+        if (collectionId == null || collectionId <= 0) {
+            log.error("ID de colección inválido: {}", collectionId);
+            ErrorUtils.throwValidationError("El ID de la colección debe ser un número positivo");
+        }
+
+        if (reviews == null || reviews.isEmpty()) {
+            log.error("Lote de revisiones vacío");
+            ErrorUtils.throwValidationError("El lote de revisiones no puede estar vacío");
+        }
+
+        if (reviews.size() > MAX_REVIEW_BATCH_SIZE) {
+            log.error("Lote de revisiones demasiado grande: {}", reviews.size());
+            ErrorUtils.throwValidationError("El lote no puede contener más de " + MAX_REVIEW_BATCH_SIZE + " revisiones");
+        }
+
+        if (principal == null) {
+            log.error("Usuario no autenticado");
+            ErrorUtils.throwInsufficientPermissions("Usuario no autenticado");
+        }
+
+        // Verificar que la colección pertenece al workspace, sin cargar sus flashcards
+        collectionService.checkCollectionInWorkspace(workspaceId, collectionId);
+
+        // Todas las revisiones del lote deben ser del mismo usuario
+        String userId = reviews.get(0).getUserId() != null ? reviews.get(0).getUserId() : principal.getName();
+        for (FlashcardReviewDto review : reviews) {
+            if (review.getFlashcardId() == null || review.getFlashcardId() <= 0) {
+                ErrorUtils.throwValidationError("El ID de la flashcard debe ser un número positivo");
+            }
+            if (review.getResult() == null || review.getResult().isBlank()) {
+                ErrorUtils.throwValidationError("El resultado de la revisión es obligatorio");
+            }
+            if (review.getTimeSpentMs() == null) {
+                ErrorUtils.throwValidationError("El tiempo de estudio es obligatorio");
+            }
+            if (review.getUserId() != null && !review.getUserId().equals(userId)) {
+                ErrorUtils.throwValidationError("Todas las revisiones del lote deben pertenecer al mismo usuario");
+            }
+        }
+
+        return ResponseEntity.ok(flashcardService.processReviews(collectionId, reviews, userId));
+    }
 }
@@ -0,0 +1,26 @@
+package com.example.api_v2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de un trabajo en segundo plano: PENDING, RUNNING, SUCCEEDED o FAILED,
+ * con los intentos realizados y el último error.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackgroundJobDto {
+    private Long id;
+    private String type;
+    private String status;
+    private int attempts;
+    private int maxAttempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime finishedAt;
+}
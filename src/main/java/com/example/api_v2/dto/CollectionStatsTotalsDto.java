@@ -0,0 +1,24 @@
+package com.example.api_v2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totales de progreso de un usuario en una colección calculados directamente
+ * sobre user_flashcard_progress (las sumas son nulas si no hay filas).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionStatsTotalsDto {
+    private Long totalFlashcards;
+    private Long bienCount;
+    private Long regularCount;
+    private Long malCount;
+    private Long sinNivelCount;
+    private Long totalCreadas;
+    private Long totalRevisadas;
+    private Long studySeconds;
+    private Long flashcardsWithStudyTime;
+}
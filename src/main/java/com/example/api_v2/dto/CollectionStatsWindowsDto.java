@@ -0,0 +1,21 @@
+package com.example.api_v2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Flashcards creadas y revisadas por un usuario en una colección durante los
+ * últimos días (las sumas son nulas si no hay filas).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionStatsWindowsDto {
+    private Long creadasHoy;
+    private Long creadasUltimos7Dias;
+    private Long creadasUltimos30Dias;
+    private Long revisadasHoy;
+    private Long revisadasUltimos7Dias;
+    private Long revisadasUltimos30Dias;
+}
@@ -1,20 +1,25 @@
 package com.example.api_v2.dto;
 
 import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentIngestionStatus;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 
 @Data
+@AllArgsConstructor
 public class DocumentDto {
     private Long id;
     private String fileName;
     private String fileType;
     private Long fileSize;
+    private DocumentIngestionStatus ingestionStatus;
 
     public DocumentDto(Document document) {
         this.id = document.getId();
         this.fileName = document.getFileName();
         this.fileType = document.getFileType();
         this.fileSize = document.getFileSize();
+        this.ingestionStatus = document.getIngestionStatus();
     }
 
     // Getters y Setters
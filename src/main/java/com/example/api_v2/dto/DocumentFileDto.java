@@ -0,0 +1,20 @@
+package com.example.api_v2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metadatos necesarios para descargar un documento, sin su contenido.
+ * storageKey es nulo en los documentos anteriores al BlobStore.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentFileDto {
+    private String fileName;
+    private String fileType;
+    private Long fileSize;
+    private String storageKey;
+    private String contentHash;
+}
@@ -0,0 +1,20 @@
+package com.example.api_v2.dto;
+
+import com.example.api_v2.model.DocumentIngestionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado del procesado de un documento, con el trabajo que lo ejecuta:
+ * intentos realizados, último error y hora del próximo reintento. job es
+ * nulo si el documento no tiene trabajo encolado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentIngestionDto {
+    private Long documentId;
+    private DocumentIngestionStatus status;
+    private BackgroundJobDto job;
+}
@@ -0,0 +1,25 @@
+package com.example.api_v2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una importación de flashcards: PENDING, RUNNING, COMPLETED o FAILED,
+ * con las tarjetas procesadas sobre el total.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashcardImportStatusDto {
+    private String importId;
+    private Long collectionId;
+    private String status;
+    private int totalFlashcards;
+    private int processedFlashcards;
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,20 @@
+package com.example.api_v2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de flashcards con el progreso del usuario. {@code nextCursor} es nulo
+ * cuando no quedan más resultados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashcardPageDto {
+    private List<FlashcardDto> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
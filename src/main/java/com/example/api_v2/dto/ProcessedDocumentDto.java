@@ -0,0 +1,17 @@
+package com.example.api_v2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta de /process-document/: texto extraído del fichero y su embedding.
+ * Jackson lee el embedding directamente a float[], sin pasar por List&lt;Number&gt;.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedDocumentDto {
+    private String content;
+    private float[] embedding;
+}
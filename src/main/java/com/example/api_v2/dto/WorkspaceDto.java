@@ -1,5 +1,6 @@
 package com.example.api_v2.dto;
 
+import com.example.api_v2.model.SchedulerType;
 import lombok.Data;
 import java.util.List;
 
@@ -8,6 +9,7 @@ public class WorkspaceDto {
     private Long id;
     private String name;
     private String description;
+    private SchedulerType schedulerType;
     private String createdAt;
     private String updatedAt;
     private String user;
@@ -0,0 +1,24 @@
+package com.example.api_v2.initializers;
+
+import com.example.api_v2.service.DocumentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class DocumentIngestionInitializer implements CommandLineRunner {
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Override
+    public void run(String... args) throws Exception {
+        // Retomar los documentos subidos cuyo procesado se interrumpió
+        int pending = documentService.enqueuePendingIngestions();
+        if (pending > 0) {
+            log.info("{} documentos pendientes de procesar en el agente", pending);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.api_v2.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trabajo en segundo plano persistido. Los workers lo reclaman con
+ * FOR UPDATE SKIP LOCKED, de modo que varias instancias pueden compartir la cola
+ * sin ejecutar dos veces el mismo trabajo.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "background_jobs", uniqueConstraints = @UniqueConstraint(
+        name = "uk_background_jobs_idempotency_key", columnNames = "idempotency_key"),
+        indexes = @Index(name = "idx_background_jobs_pending", columnList = "status, next_run_at"))
+public class BackgroundJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String type;
+
+    // Parámetros del trabajo en JSON
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BackgroundJobStatus status = BackgroundJobStatus.PENDING;
+
+    // Evita encolar dos veces la misma operación
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    // Workspace al que pertenece el trabajo, para comprobar el acceso al consultarlo
+    @Column(name = "workspace_id")
+    private Long workspaceId;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "max_attempts", nullable = false)
+    private int maxAttempts;
+
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+        if (nextRunAt == null) {
+            nextRunAt = createdAt;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
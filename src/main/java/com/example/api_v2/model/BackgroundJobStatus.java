@@ -0,0 +1,8 @@
+package com.example.api_v2.model;
+
+public enum BackgroundJobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
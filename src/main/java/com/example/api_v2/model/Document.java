@@ -26,6 +26,15 @@ public class Document {
     @Column(name = "file_size", nullable = false)
     private Long fileSize;
 
+    // Clave del fichero en el BlobStore
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    // SHA-256 del fichero en hexadecimal, usado como ETag en las descargas
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Solo los documentos subidos antes del BlobStore guardan aquí el fichero
     @Lob
     @Basic(fetch = FetchType.LAZY)
     private byte[] data;
@@ -36,4 +45,9 @@ public class Document {
 
     @Column(name = "content", columnDefinition = "TEXT")
     private String content;
+
+    // Lo actualiza DocumentIngestionJobHandler a medida que el agente procesa el fichero
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ingestion_status", length = 20)
+    private DocumentIngestionStatus ingestionStatus;
 }
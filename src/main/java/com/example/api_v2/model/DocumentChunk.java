@@ -0,0 +1,50 @@
+package com.example.api_v2.model;
+
+import com.example.api_v2.util.PgVector;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.Type;
+
+/**
+ * Fragmento del texto de un documento con su propio embedding. La búsqueda de
+ * contexto para el agente recupera fragmentos en lugar de documentos completos.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "document_chunks", indexes = {
+        @Index(name = "idx_document_chunks_document", columnList = "document_id, chunk_index"),
+        @Index(name = "idx_document_chunks_collection", columnList = "collection_id") })
+public class DocumentChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Document document;
+
+    // Copia de documents.collection_id para filtrar la búsqueda sin join
+    @Column(name = "collection_id", nullable = false)
+    private Long collectionId;
+
+    // Posición del fragmento dentro del documento, desde 0
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    // Línea del documento en la que empieza el fragmento, desde 1
+    @Column(name = "start_line", nullable = false)
+    private int startLine;
+
+    @Column(name = "content", columnDefinition = "TEXT", nullable = false)
+    private String content;
+
+    @Type(PgVector.class)
+    @Column(columnDefinition = "vector(384)")
+    private float[] embedding;
+}
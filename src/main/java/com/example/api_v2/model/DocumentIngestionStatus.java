@@ -0,0 +1,13 @@
+package com.example.api_v2.model;
+
+/**
+ * Estado del procesado de un documento en el agente: UPLOADED mientras espera
+ * (también entre reintentos), EXTRACTING durante la llamada al agente y la
+ * fragmentación, EMBEDDED al terminar y FAILED cuando se agotan los intentos.
+ */
+public enum DocumentIngestionStatus {
+    UPLOADED,
+    EXTRACTING,
+    EMBEDDED,
+    FAILED
+}
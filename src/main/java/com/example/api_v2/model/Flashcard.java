@@ -14,7 +14,9 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "flashcards")
+@Table(name = "flashcards", indexes = {
+        @Index(name = "idx_flashcards_collection", columnList = "collection_id")
+})
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 
 @Data
@@ -0,0 +1,7 @@
+package com.example.api_v2.model;
+
+public enum SchedulerType {
+    LEGACY_SM2,   // SM-2 tal y como lo aplicaba la aplicación hasta ahora
+    SM2,          // SM-2 fiel al algoritmo original de SuperMemo
+    FSRS          // Modelo de memoria al estilo FSRS
+}
@@ -0,0 +1,70 @@
+package com.example.api_v2.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estadísticas precalculadas de un usuario en una colección.
+ * Se mantienen al día de forma incremental en cada escritura del progreso y
+ * un proceso de conciliación las recalcula periódicamente a partir de
+ * user_flashcard_progress.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "user_collection_stats", uniqueConstraints = @UniqueConstraint(
+        name = "uk_user_collection_stats", columnNames = { "user_id", "collection_id" }))
+public class UserCollectionStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "collection_id", nullable = false)
+    private Long collectionId;
+
+    @Column(name = "total_flashcards", nullable = false)
+    private long totalFlashcards;
+
+    @Column(name = "bien_count", nullable = false)
+    private long bienCount;
+
+    @Column(name = "regular_count", nullable = false)
+    private long regularCount;
+
+    @Column(name = "mal_count", nullable = false)
+    private long malCount;
+
+    // Flashcards sin nivel de conocimiento (nunca revisadas)
+    @Column(name = "sin_nivel_count", nullable = false)
+    private long sinNivelCount;
+
+    @Column(name = "total_creadas", nullable = false)
+    private long totalCreadas;
+
+    // Suma de reviewCount de todas las flashcards
+    @Column(name = "total_revisadas", nullable = false)
+    private long totalRevisadas;
+
+    @Column(name = "study_seconds", nullable = false)
+    private long studySeconds;
+
+    // Flashcards con tiempo de estudio registrado
+    @Column(name = "flashcards_with_study_time", nullable = false)
+    private long flashcardsWithStudyTime;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
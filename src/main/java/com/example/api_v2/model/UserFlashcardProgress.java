@@ -13,7 +13,10 @@ import com.example.api_v2.dto.UserFlashcardProgressDto;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
-@Table(name = "user_flashcard_progress")
+@Table(name = "user_flashcard_progress", indexes = {
+        @Index(name = "idx_ufp_user_collection_next_review", columnList = "user_id, collection_id, next_review_date"),
+        @Index(name = "idx_ufp_flashcard_user", columnList = "flashcard_id, user_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -75,8 +78,33 @@ public class UserFlashcardProgress {
 
     @PrePersist
     protected void onCreate() {
-        this.lastReviewedAt = LocalDateTime.now();
-        this.nextReviewDate = LocalDateTime.now();
+        // El progreso se crea en el primer repaso: no pisar las fechas ya calculadas
+        LocalDateTime now = LocalDateTime.now();
+        if (this.lastReviewedAt == null) {
+            this.lastReviewedAt = now;
+        }
+        if (this.nextReviewDate == null) {
+            this.nextReviewDate = now;
+        }
+    }
+
+    /**
+     * Estado de una flashcard que el usuario todavía no ha estudiado. Las filas
+     * de progreso se crean en el primer repaso; hasta entonces la ausencia de
+     * fila equivale a este estado.
+     */
+    public static UserFlashcardProgress newCard(User user, Flashcard flashcard, LocalDateTime now) {
+        UserFlashcardProgress progress = new UserFlashcardProgress();
+        progress.setUser(user);
+        progress.setFlashcard(flashcard);
+        progress.setCollection(flashcard.getCollection());
+        progress.setRepetitionLevel(0);
+        progress.setEaseFactor(2.5);
+        progress.setReviewCount(0);
+        progress.setSuccessCount(0);
+        progress.setFailureCount(0);
+        progress.setNextReviewDate(now);
+        return progress;
     }
 
     public UserFlashcardProgressDto toDto() {
@@ -26,6 +26,10 @@ public class Workspace {
     @Column
     private String description;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scheduler_type", nullable = false, length = 32)
+    private SchedulerType schedulerType = SchedulerType.LEGACY_SM2;
+
     @OneToMany(mappedBy = "workspace", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<WorkspaceUser> workspaceUsers = new ArrayList<>();
 
@@ -69,6 +73,7 @@ public class Workspace {
         dto.setId(id);
         dto.setName(name);
         dto.setDescription(description);
+        dto.setSchedulerType(schedulerType);
         return dto;
     }
 }
@@ -0,0 +1,56 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.util.VectorMetric;
+
+import java.util.List;
+
+public interface AgentRepositoryCustom {
+
+    /**
+     * Busca los documentos de la colección más cercanos al vector de consulta.
+     * El vector se enlaza con el tipo {@link com.example.api_v2.util.PgVector},
+     * sin pasar por List&lt;Float&gt; ni por un String construido a mano.
+     *
+     * La búsqueda usa el índice HNSW de documents.embedding de la métrica
+     * indicada; efSearch es el tamaño de la lista de candidatos
+     * (hnsw.ef_search) solo para esta consulta: más alto da más recall a
+     * cambio de más latencia. Como el filtro por colección se aplica sobre los
+     * candidatos, debe ser bastante mayor que topK en colecciones pequeñas
+     * dentro de una tabla grande.
+     *
+     * @return Filas con id, content, file_name, file_type y similarity_score
+     *         según {@link VectorMetric#similarity}, de más a menos similar
+     */
+    List<Object[]> findSimilarDocuments(Long collectionId, float[] queryVector, int topK, int efSearch,
+            VectorMetric metric);
+
+    /**
+     * Como {@link #findSimilarDocuments}, pero solo entre los documentos que no
+     * tienen fragmentos en document_chunks (subidos antes de la fragmentación o
+     * copias de uno de ellos), que la búsqueda por fragmentos no puede encontrar.
+     *
+     * @return Filas con id, content, file_name, file_type y similarity_score,
+     *         de más a menos similar
+     */
+    List<Object[]> findSimilarUnchunkedDocuments(Long collectionId, float[] queryVector, int topK, int efSearch,
+            VectorMetric metric);
+
+    /**
+     * Búsqueda híbrida sobre los fragmentos de document_chunks: combina la
+     * búsqueda vectorial de {@link #findSimilarDocuments} con la búsqueda de
+     * texto completo de PostgreSQL (índice GIN sobre content_tsv) mediante
+     * reciprocal rank fusion. Cada ranking aporta hasta efSearch candidatos.
+     *
+     * Las líneas relevantes de cada fragmento (las que contienen al menos dos
+     * lexemas de la pregunta, o uno si la pregunta solo tiene uno) se calculan
+     * en la misma consulta con el mismo analizador que el índice.
+     *
+     * @return Filas con id del fragmento, document_id, file_name, file_type,
+     *         content, chunk_index, start_line, similarity_score,
+     *         puntuación RRF, números de línea relevantes (Integer[], desde 1
+     *         dentro del fragmento) y el texto de esas líneas (String[]), de
+     *         más a menos relevante
+     */
+    List<Object[]> findRelevantChunks(Long collectionId, float[] queryVector, String queryText, int topK,
+            int efSearch, VectorMetric metric);
+}
@@ -0,0 +1,211 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.util.PgVector;
+import com.example.api_v2.util.VectorMetric;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class AgentRepositoryCustomImpl implements AgentRepositoryCustom {
+
+    private static final Map<VectorMetric, String> FIND_SIMILAR_DOCUMENTS = new EnumMap<>(VectorMetric.class);
+    private static final Map<VectorMetric, String> FIND_SIMILAR_UNCHUNKED_DOCUMENTS = new EnumMap<>(VectorMetric.class);
+    private static final Map<VectorMetric, String> FIND_RELEVANT_CHUNKS = new EnumMap<>(VectorMetric.class);
+
+    static {
+        for (VectorMetric metric : VectorMetric.values()) {
+            FIND_SIMILAR_DOCUMENTS.put(metric, findSimilarDocumentsSql(metric));
+            FIND_SIMILAR_UNCHUNKED_DOCUMENTS.put(metric, findSimilarUnchunkedDocumentsSql(metric));
+            FIND_RELEVANT_CHUNKS.put(metric, findRelevantChunksSql(metric));
+        }
+    }
+
+    // SET no admite parámetros; set_config(..., true) equivale a SET LOCAL
+    private static final String SET_EF_SEARCH = "SELECT set_config('hnsw.ef_search', ?, true)";
+
+    private static final PgVector VECTOR_TYPE = new PgVector();
+
+    // Constante de reciprocal rank fusion: 1 / (k + posición); 60 es el valor habitual
+    public static final int RRF_K = 60;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public List<Object[]> findSimilarDocuments(Long collectionId, float[] queryVector, int topK, int efSearch,
+            VectorMetric metric) {
+        return queryWithEfSearch(efSearch, FIND_SIMILAR_DOCUMENTS.get(metric),
+                ps -> {
+                    VECTOR_TYPE.nullSafeSet(ps, queryVector, 1, null);
+                    ps.setLong(2, collectionId);
+                    ps.setInt(3, topK);
+                },
+                (rs, rowNum) -> new Object[] {
+                        rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        metric.similarity(rs.getDouble(5)) });
+    }
+
+    @Override
+    public List<Object[]> findSimilarUnchunkedDocuments(Long collectionId, float[] queryVector, int topK,
+            int efSearch, VectorMetric metric) {
+        return queryWithEfSearch(efSearch, FIND_SIMILAR_UNCHUNKED_DOCUMENTS.get(metric),
+                ps -> {
+                    VECTOR_TYPE.nullSafeSet(ps, queryVector, 1, null);
+                    ps.setLong(2, collectionId);
+                    ps.setInt(3, topK);
+                },
+                (rs, rowNum) -> new Object[] {
+                        rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        metric.similarity(rs.getDouble(5)) });
+    }
+
+    @Override
+    public List<Object[]> findRelevantChunks(Long collectionId, float[] queryVector, String queryText, int topK,
+            int efSearch, VectorMetric metric) {
+        return queryWithEfSearch(efSearch, FIND_RELEVANT_CHUNKS.get(metric),
+                ps -> {
+                    ps.setString(1, queryText);
+                    ps.setString(2, queryText);
+                    VECTOR_TYPE.nullSafeSet(ps, queryVector, 3, null);
+                    ps.setLong(4, collectionId);
+                    ps.setInt(5, efSearch);
+                    ps.setLong(6, collectionId);
+                    ps.setInt(7, efSearch);
+                    ps.setInt(8, RRF_K);
+                    ps.setInt(9, topK);
+                    VECTOR_TYPE.nullSafeSet(ps, queryVector, 10, null);
+                },
+                (rs, rowNum) -> new Object[] {
+                        rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                        rs.getInt(6), rs.getInt(7), metric.similarity(rs.getDouble(8)), rs.getDouble(9),
+                        toArray(rs.getArray(10), new Integer[0]), toArray(rs.getArray(11), new String[0]) });
+    }
+
+    private List<Object[]> queryWithEfSearch(int efSearch, String sql, PreparedStatementSetter parameters,
+            RowMapper<Object[]> rowMapper) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        // ef_search se aplica solo dentro de esta transacción
+        return transaction.execute(tx -> {
+            jdbcTemplate.queryForObject(SET_EF_SEARCH, String.class, Integer.toString(efSearch));
+            return jdbcTemplate.query(sql, parameters, rowMapper);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] toArray(Array array, T[] empty) throws SQLException {
+        // array_agg devuelve NULL cuando ninguna línea coincide
+        return array != null ? (T[]) array.getArray() : empty;
+    }
+
+    // Ordenar por el operador de distancia, no por una expresión sobre él, para que se use el índice HNSW
+    static String findSimilarDocumentsSql(VectorMetric metric) {
+        return similarDocumentsSql(metric, "");
+    }
+
+    static String findSimilarUnchunkedDocumentsSql(VectorMetric metric) {
+        return similarDocumentsSql(metric,
+                "\n  AND NOT EXISTS (SELECT 1 FROM document_chunks c WHERE c.document_id = d.id)");
+    }
+
+    private static String similarDocumentsSql(VectorMetric metric, String condition) {
+        return """
+                SELECT
+                    d.id,
+                    d.content,
+                    d.file_name,
+                    d.file_type,
+                    d.embedding %s CAST(? AS vector) AS distance
+                FROM documents d
+                WHERE d.collection_id = ? AND d.embedding IS NOT NULL%s
+                ORDER BY distance
+                LIMIT ?
+                """.formatted(metric.getOperator(), condition);
+    }
+
+    /**
+     * Cada ranking se limita a efSearch candidatos: el vectorial se sirve con
+     * el índice HNSW y el léxico con el GIN de content_tsv. La pregunta se
+     * convierte en una consulta OR de sus lexemas para que ts_rank_cd premie
+     * los fragmentos que contienen más términos, no solo los que los contienen
+     * todos.
+     */
+    static String findRelevantChunksSql(VectorMetric metric) {
+        return """
+                WITH query AS (
+                    SELECT
+                        replace(plainto_tsquery('spanish', ?)::text, ' & ', ' | ')::tsquery AS tsquery,
+                        tsvector_to_array(to_tsvector('spanish', ?)) AS lexemes
+                ),
+                vector_hits AS (
+                    SELECT id, row_number() OVER (ORDER BY distance) AS rank
+                    FROM (
+                        SELECT c.id, c.embedding %1$s CAST(? AS vector) AS distance
+                        FROM document_chunks c
+                        WHERE c.collection_id = ? AND c.embedding IS NOT NULL
+                        ORDER BY distance
+                        LIMIT ?
+                    ) ranked
+                ),
+                text_hits AS (
+                    SELECT id, row_number() OVER (ORDER BY score DESC) AS rank
+                    FROM (
+                        SELECT c.id, ts_rank_cd(c.content_tsv, query.tsquery) AS score
+                        FROM document_chunks c, query
+                        WHERE c.collection_id = ? AND c.content_tsv @@ query.tsquery
+                        ORDER BY score DESC
+                        LIMIT ?
+                    ) ranked
+                ),
+                fused AS (
+                    SELECT id, SUM(1.0 / (? + rank)) AS rrf_score
+                    FROM (
+                        SELECT id, rank FROM vector_hits
+                        UNION ALL
+                        SELECT id, rank FROM text_hits
+                    ) hits
+                    GROUP BY id
+                    ORDER BY rrf_score DESC
+                    LIMIT ?
+                )
+                SELECT
+                    c.id,
+                    c.document_id,
+                    d.file_name,
+                    d.file_type,
+                    c.content,
+                    c.chunk_index,
+                    c.start_line,
+                    c.embedding %1$s CAST(? AS vector) AS distance,
+                    f.rrf_score,
+                    relevant.line_numbers,
+                    relevant.lines
+                FROM fused f
+                JOIN document_chunks c ON c.id = f.id
+                JOIN documents d ON d.id = c.document_id
+                CROSS JOIN query
+                LEFT JOIN LATERAL (
+                    SELECT
+                        array_agg(l.line_number::int ORDER BY l.line_number) AS line_numbers,
+                        array_agg(l.line ORDER BY l.line_number) AS lines
+                    FROM unnest(string_to_array(c.content, E'\\n')) WITH ORDINALITY AS l(line, line_number)
+                    WHERE cardinality(query.lexemes) > 0
+                      AND cardinality(ARRAY(
+                              SELECT unnest(tsvector_to_array(to_tsvector('spanish', l.line)))
+                              INTERSECT
+                              SELECT unnest(query.lexemes))) >= LEAST(2, cardinality(query.lexemes))
+                ) relevant ON true
+                ORDER BY f.rrf_score DESC, c.id
+                """.formatted(metric.getOperator());
+    }
+}
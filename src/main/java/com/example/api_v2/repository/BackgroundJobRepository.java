@@ -0,0 +1,13 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.model.BackgroundJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BackgroundJobRepository extends JpaRepository<BackgroundJob, Long>, BackgroundJobRepositoryCustom {
+
+    Optional<BackgroundJob> findByIdempotencyKey(String idempotencyKey);
+}
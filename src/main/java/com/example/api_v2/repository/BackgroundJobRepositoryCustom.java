@@ -0,0 +1,18 @@
+package com.example.api_v2.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BackgroundJobRepositoryCustom {
+
+    /**
+     * Reclama hasta {@code limit} trabajos listos para ejecutarse: los pendientes
+     * cuya hora ha llegado y los que llevan bloqueados desde antes de
+     * {@code staleBefore} (su worker se detuvo). Los marca como RUNNING e
+     * incrementa sus intentos en una sola sentencia con FOR UPDATE SKIP LOCKED,
+     * de modo que dos workers nunca reclaman el mismo trabajo.
+     *
+     * @return IDs de los trabajos reclamados
+     */
+    List<Long> claimDue(int limit, LocalDateTime now, LocalDateTime staleBefore);
+}
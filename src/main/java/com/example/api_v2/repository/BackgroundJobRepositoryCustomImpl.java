@@ -0,0 +1,31 @@
+package com.example.api_v2.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class BackgroundJobRepositoryCustomImpl implements BackgroundJobRepositoryCustom {
+
+    private static final String CLAIM_DUE_JOBS =
+            "UPDATE background_jobs SET status = 'RUNNING', locked_at = ?, updated_at = ?, attempts = attempts + 1 "
+                    + "WHERE id IN (SELECT id FROM background_jobs "
+                    + "WHERE (status = 'PENDING' AND next_run_at <= ?) OR (status = 'RUNNING' AND locked_at < ?) "
+                    + "ORDER BY next_run_at, id LIMIT ? FOR UPDATE SKIP LOCKED) "
+                    + "RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> claimDue(int limit, LocalDateTime now, LocalDateTime staleBefore) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Timestamp nowTs = Timestamp.valueOf(now);
+        return jdbcTemplate.queryForList(CLAIM_DUE_JOBS, Long.class,
+                nowTs, nowTs, nowTs, Timestamp.valueOf(staleBefore), limit);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.model.DocumentChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Long> {
+
+    @Modifying
+    @Query("DELETE FROM DocumentChunk c WHERE c.document.id = :documentId")
+    int deleteByDocumentId(@Param("documentId") Long documentId);
+
+    // content_tsv es una columna generada y se calcula al insertar
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO document_chunks (document_id, collection_id, chunk_index, start_line, content, embedding) "
+            + "SELECT :targetDocumentId, :collectionId, chunk_index, start_line, content, embedding "
+            + "FROM document_chunks WHERE document_id = :sourceDocumentId", nativeQuery = true)
+    int copyChunks(@Param("sourceDocumentId") Long sourceDocumentId, @Param("targetDocumentId") Long targetDocumentId,
+            @Param("collectionId") Long collectionId);
+
+}
@@ -1,9 +1,84 @@
 package com.example.api_v2.repository;
 
+import com.example.api_v2.dto.DocumentDto;
+import com.example.api_v2.dto.DocumentFileDto;
 import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentIngestionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface DocumentRepository extends JpaRepository<Document, Long> {
-    List<Document> findByCollectionId(Long collectionId);
+    /**
+     * Listado de documentos de una colección. Selecciona solo las columnas del
+     * DTO: ni el fichero (data), ni el texto extraído (content), ni el
+     * embedding, que Hibernate cargaría al leer la entidad completa.
+     */
+    @Query("SELECT new com.example.api_v2.dto.DocumentDto(" +
+            "d.id, d.fileName, d.fileType, d.fileSize, d.ingestionStatus) " +
+            "FROM Document d WHERE d.collection.id = :collectionId ORDER BY d.id")
+    List<DocumentDto> findSummariesByCollectionId(@Param("collectionId") Long collectionId);
+
+    @Query("SELECT new com.example.api_v2.dto.DocumentFileDto(" +
+            "d.fileName, d.fileType, d.fileSize, d.storageKey, d.contentHash) " +
+            "FROM Document d WHERE d.id = :documentId")
+    Optional<DocumentFileDto> findFileById(@Param("documentId") Long documentId);
+
+    // Solo para los documentos anteriores al BlobStore
+    @Query("SELECT d.data FROM Document d WHERE d.id = :documentId")
+    byte[] findDataById(@Param("documentId") Long documentId);
+
+    @Query("SELECT d.storageKey FROM Document d WHERE d.collection.id = :collectionId AND d.storageKey IS NOT NULL")
+    List<String> findStorageKeysByCollectionId(@Param("collectionId") Long collectionId);
+
+    @Query("SELECT d.ingestionStatus FROM Document d WHERE d.id = :documentId AND d.collection.id = :collectionId")
+    Optional<DocumentIngestionStatus> findIngestionStatus(@Param("collectionId") Long collectionId,
+            @Param("documentId") Long documentId);
+
+    @Modifying
+    @Query("UPDATE Document d SET d.ingestionStatus = :status WHERE d.id = :documentId")
+    int updateIngestionStatus(@Param("documentId") Long documentId, @Param("status") DocumentIngestionStatus status);
+
+    // Cambio de estado condicionado al actual; devuelve 0 si el documento ya no estaba en "from"
+    @Modifying
+    @Query("UPDATE Document d SET d.ingestionStatus = :to WHERE d.id = :documentId AND d.ingestionStatus = :from")
+    int updateIngestionStatus(@Param("documentId") Long documentId, @Param("from") DocumentIngestionStatus from,
+            @Param("to") DocumentIngestionStatus to);
+
+    interface PendingIngestion {
+        Long getId();
+
+        Long getWorkspaceId();
+    }
+
+    /**
+     * Documentos con el procesado sin terminar, con el workspace al que
+     * pertenecen para encolar sus trabajos.
+     */
+    @Query("SELECT d.id AS id, d.collection.workspace.id AS workspaceId FROM Document d " +
+            "WHERE d.ingestionStatus IN :statuses ORDER BY d.id")
+    List<PendingIngestion> findPendingIngestions(@Param("statuses") List<DocumentIngestionStatus> statuses);
+
+    // Documento ya procesado con el mismo contenido, del que se copian el texto y el embedding
+    Optional<Document> findFirstByContentHashAndIngestionStatusOrderByIdAsc(String contentHash,
+            DocumentIngestionStatus ingestionStatus);
+
+    long countByStorageKey(String storageKey);
+
+    /**
+     * Bloquea el fichero hasta el final de la transacción. Lo toman la subida,
+     * antes de referenciar un fichero que puede ser compartido, y el borrado,
+     * antes de comprobar que ya no lo usa nadie.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtextextended(:storageKey, 0))", nativeQuery = true)
+    Integer lockStorageKey(@Param("storageKey") String storageKey);
+
+    // Borrado sin cargar las entidades; los fragmentos se borran en cascada en la base de datos
+    @Modifying
+    @Query("DELETE FROM Document d WHERE d.collection.id = :collectionId")
+    int deleteByCollectionId(@Param("collectionId") Long collectionId);
 }
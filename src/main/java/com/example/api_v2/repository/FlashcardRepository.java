@@ -2,18 +2,127 @@ package com.example.api_v2.repository;
 
 import com.example.api_v2.model.Collection;
 import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.util.FlashcardStudyStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface FlashcardRepository extends JpaRepository<Flashcard, Long> {
+public interface FlashcardRepository extends JpaRepository<Flashcard, Long>, FlashcardRepositoryCustom {
     @Query("SELECT f FROM Flashcard f WHERE f.collection.id = :collectionId")
     List<Flashcard> findByCollectionId(@Param("collectionId") Long collectionId);
 
+    /**
+     * Flashcards de una colección con la colección ya cargada, para convertirlas
+     * a DTO sin consultas adicionales por tarjeta.
+     */
+    @Query("SELECT f FROM Flashcard f JOIN FETCH f.collection c WHERE c.id = :collectionId ORDER BY f.id")
+    List<Flashcard> findWithCollectionByCollectionId(@Param("collectionId") Long collectionId);
+
+    /**
+     * Página keyset por ID de las flashcards de una colección junto con el progreso
+     * del usuario (nulo si no existe). Cada fila es {@code [Flashcard, UserFlashcardProgress]}.
+     * El estado se filtra con {@link FlashcardStudyStatus#JPQL_CASE}, la regla del mapeo a DTO.
+     */
+    @Query("""
+        SELECT f, ufp FROM Flashcard f
+        LEFT JOIN UserFlashcardProgress ufp ON ufp.flashcard = f AND ufp.user.id = :userId
+        WHERE f.collection.id = :collectionId
+          AND (:afterId IS NULL OR f.id > :afterId)
+          AND (:status IS NULL OR """ + FlashcardStudyStatus.JPQL_CASE + """
+               = :status)
+        ORDER BY f.id
+    """)
+    List<Object[]> findPageWithProgress(
+            @Param("collectionId") Long collectionId,
+            @Param("userId") String userId,
+            @Param("afterId") Long afterId,
+            @Param("status") String status,
+            @Param("tomorrow") LocalDateTime tomorrow,
+            Pageable pageable);
+
+    /**
+     * Página keyset por (fecha de repaso, ID) de las flashcards de una colección con
+     * el progreso del usuario. El progreso se crea en el primer repaso: una tarjeta
+     * sin fila, o sin fecha, está pendiente desde su creación, como en
+     * {@link UserFlashcardProgressRepository#findReviewDatesByCollectionIdAndUserId}.
+     * Cada fila es {@code [Flashcard, UserFlashcardProgress, fecha de orden]}; el
+     * cursor debe usar la fecha de orden.
+     */
+    @Query("""
+        SELECT f, ufp, COALESCE(ufp.nextReviewDate, f.createdAt) FROM Flashcard f
+        LEFT JOIN UserFlashcardProgress ufp ON ufp.flashcard = f AND ufp.user.id = :userId
+        WHERE f.collection.id = :collectionId
+          AND (:afterDate IS NULL OR COALESCE(ufp.nextReviewDate, f.createdAt) > :afterDate
+               OR (COALESCE(ufp.nextReviewDate, f.createdAt) = :afterDate AND f.id > :afterId))
+          AND (:status IS NULL OR """ + FlashcardStudyStatus.JPQL_CASE + """
+               = :status)
+        ORDER BY COALESCE(ufp.nextReviewDate, f.createdAt), f.id
+    """)
+    List<Object[]> findPageWithProgressByReviewDate(
+            @Param("collectionId") Long collectionId,
+            @Param("userId") String userId,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            @Param("status") String status,
+            @Param("tomorrow") LocalDateTime tomorrow,
+            Pageable pageable);
+
+    /**
+     * Recorre las flashcards de una colección con el progreso del usuario (nulo si
+     * no existe) mediante un cursor de servidor: el driver trae las filas por
+     * bloques en lugar de materializar el resultado. Cada fila es
+     * {@code [Flashcard, UserFlashcardProgress]}. Debe consumirse dentro de una
+     * transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT f, ufp FROM Flashcard f
+        LEFT JOIN UserFlashcardProgress ufp ON ufp.flashcard = f AND ufp.user.id = :userId
+        WHERE f.collection.id = :collectionId
+        ORDER BY f.id
+    """)
+    Stream<Object[]> streamWithProgress(
+            @Param("collectionId") Long collectionId,
+            @Param("userId") String userId);
+
+    /**
+     * Devuelve las flashcards más prioritarias para repasar, ordenadas en la base
+     * de datos con la misma fórmula que se usaba en Java: 50% días de retraso,
+     * 30% ease factor invertido y 20% número de fallos.
+     * Una flashcard sin progreso del usuario se trata como nueva: pendiente
+     * desde su creación, ease factor 2.5 y sin fallos.
+     */
+    @Query(value = """
+        SELECT f.*
+        FROM flashcards f
+        LEFT JOIN user_flashcard_progress ufp ON ufp.flashcard_id = f.id AND ufp.user_id = :userId
+        WHERE f.collection_id = :collectionId
+        ORDER BY
+            (ufp.id IS NOT NULL AND ufp.next_review_date IS NULL) DESC,
+            TRUNC(EXTRACT(EPOCH FROM (CAST(:now AS timestamp)
+                - COALESCE(ufp.next_review_date, f.created_at))) / 3600) / 24.0 * 0.5
+                + (5.0 - COALESCE(ufp.ease_factor, 2.5)) * 0.3
+                + COALESCE(ufp.failure_count, 0) * 0.5 * 0.2 DESC,
+            f.id
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<Flashcard> findTopForReview(
+            @Param("collectionId") Long collectionId,
+            @Param("userId") String userId,
+            @Param("now") LocalDateTime now,
+            @Param("limit") int limit);
 
 }
\ No newline at end of file
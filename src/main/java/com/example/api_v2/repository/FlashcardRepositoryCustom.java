@@ -0,0 +1,15 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.model.Flashcard;
+
+import java.util.List;
+
+public interface FlashcardRepositoryCustom {
+
+    /**
+     * Inserta las flashcards con batches JDBC y asigna a cada entidad el ID
+     * generado. Las flashcards usan ID IDENTITY, por lo que Hibernate no puede
+     * agrupar los INSERT.
+     */
+    void insertAll(List<Flashcard> flashcards);
+}
@@ -0,0 +1,67 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.model.Flashcard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class FlashcardRepositoryCustomImpl implements FlashcardRepositoryCustom {
+
+    private static final String INSERT_FLASHCARD =
+            "INSERT INTO flashcards (question, answer, difficulty, collection_id, created_by, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<Flashcard> flashcards) {
+        if (flashcards.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_FLASHCARD, new String[] { "id" })) {
+                for (int start = 0; start < flashcards.size(); start += BATCH_SIZE) {
+                    List<Flashcard> batch = flashcards.subList(start, Math.min(start + BATCH_SIZE, flashcards.size()));
+                    for (Flashcard flashcard : batch) {
+                        LocalDateTime createdAt = flashcard.getCreatedAt() != null
+                                ? flashcard.getCreatedAt() : LocalDateTime.now();
+                        ps.setString(1, flashcard.getQuestion());
+                        ps.setString(2, flashcard.getAnswer());
+                        if (flashcard.getDifficulty() != null) {
+                            ps.setString(3, flashcard.getDifficulty());
+                        } else {
+                            ps.setNull(3, Types.VARCHAR);
+                        }
+                        ps.setLong(4, flashcard.getCollection().getId());
+                        ps.setString(5, flashcard.getCreatedBy().getId());
+                        ps.setTimestamp(6, Timestamp.valueOf(createdAt));
+                        ps.setTimestamp(7, Timestamp.valueOf(createdAt));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+
+                    // Los IDs generados llegan en el mismo orden que las filas del batch
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        for (Flashcard flashcard : batch) {
+                            if (!keys.next()) {
+                                throw new IllegalStateException("El batch no devolvió el ID de todas las flashcards");
+                            }
+                            flashcard.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface FlashcardReviewRepository extends JpaRepository<FlashcardReview, Long> {
+public interface FlashcardReviewRepository extends JpaRepository<FlashcardReview, Long>, FlashcardReviewRepositoryCustom {
     List<FlashcardReview> findByFlashcardId(Long flashcardId);
     
     @Query("SELECT COUNT(fr) FROM FlashcardReview fr WHERE fr.flashcard.id = :flashcardId AND fr.userId = :userId")
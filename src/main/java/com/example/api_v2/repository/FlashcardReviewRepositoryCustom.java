@@ -0,0 +1,14 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.model.FlashcardReview;
+
+import java.util.List;
+
+public interface FlashcardReviewRepositoryCustom {
+
+    /**
+     * Inserta las revisiones con un único batch JDBC. Las revisiones usan ID
+     * IDENTITY, por lo que Hibernate no puede agrupar los INSERT.
+     */
+    void insertAll(List<FlashcardReview> reviews);
+}
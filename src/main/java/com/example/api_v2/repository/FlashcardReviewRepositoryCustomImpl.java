@@ -0,0 +1,38 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.model.FlashcardReview;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class FlashcardReviewRepositoryCustomImpl implements FlashcardReviewRepositoryCustom {
+
+    private static final String INSERT_REVIEW =
+            "INSERT INTO flashcard_reviews (flashcard_id, result, time_spent_ms, reviewed_at, user_id) VALUES (?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<FlashcardReview> reviews) {
+        if (reviews.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_REVIEW, reviews, BATCH_SIZE, (ps, review) -> {
+            ps.setLong(1, review.getFlashcard().getId());
+            ps.setString(2, review.getResult());
+            if (review.getTimeSpentMs() != null) {
+                ps.setLong(3, review.getTimeSpentMs());
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setTimestamp(4, Timestamp.valueOf(review.getReviewedAt()));
+            ps.setString(5, review.getUserId());
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.model.UserCollectionStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface UserCollectionStatsRepository extends JpaRepository<UserCollectionStats, Long> {
+
+    Optional<UserCollectionStats> findByUserIdAndCollectionId(String userId, Long collectionId);
+
+    /**
+     * Relee la fila bloqueándola (SELECT ... FOR UPDATE) hasta el final de la
+     * transacción: los {@link #applyDelta} concurrentes esperan a que termine.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserCollectionStats s WHERE s.id = :id")
+    Optional<UserCollectionStats> findByIdForUpdate(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserCollectionStats s SET " +
+            "s.totalFlashcards = s.totalFlashcards + :totalFlashcards, " +
+            "s.bienCount = s.bienCount + :bienCount, " +
+            "s.regularCount = s.regularCount + :regularCount, " +
+            "s.malCount = s.malCount + :malCount, " +
+            "s.sinNivelCount = s.sinNivelCount + :sinNivelCount, " +
+            "s.totalCreadas = s.totalCreadas + :totalCreadas, " +
+            "s.totalRevisadas = s.totalRevisadas + :totalRevisadas, " +
+            "s.studySeconds = s.studySeconds + :studySeconds, " +
+            "s.flashcardsWithStudyTime = s.flashcardsWithStudyTime + :flashcardsWithStudyTime, " +
+            "s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.userId = :userId AND s.collectionId = :collectionId")
+    int applyDelta(
+            @Param("userId") String userId,
+            @Param("collectionId") Long collectionId,
+            @Param("totalFlashcards") long totalFlashcards,
+            @Param("bienCount") long bienCount,
+            @Param("regularCount") long regularCount,
+            @Param("malCount") long malCount,
+            @Param("sinNivelCount") long sinNivelCount,
+            @Param("totalCreadas") long totalCreadas,
+            @Param("totalRevisadas") long totalRevisadas,
+            @Param("studySeconds") long studySeconds,
+            @Param("flashcardsWithStudyTime") long flashcardsWithStudyTime);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserCollectionStats s WHERE s.collectionId = :collectionId")
+    int deleteByCollectionId(@Param("collectionId") Long collectionId);
+}
@@ -1,6 +1,8 @@
 package com.example.api_v2.repository;
 
 
+import com.example.api_v2.dto.CollectionStatsTotalsDto;
+import com.example.api_v2.dto.CollectionStatsWindowsDto;
 import com.example.api_v2.model.UserFlashcardProgress;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +21,50 @@ public interface UserFlashcardProgressRepository extends JpaRepository<UserFlash
             @Param("flashcardId") Long flashcardId,
             @Param("userId") String userId);
 
+    /**
+     * Totales de un usuario en una colección. Las flashcards sin fila de progreso
+     * cuentan como nuevas: sin nivel, sin revisiones y sin tiempo de estudio.
+     */
+    @Query("SELECT new com.example.api_v2.dto.CollectionStatsTotalsDto(" +
+            "COUNT(f), " +
+            "SUM(CASE WHEN ufp.knowledgeLevel = com.example.api_v2.model.KnowledgeLevel.BIEN THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN ufp.knowledgeLevel = com.example.api_v2.model.KnowledgeLevel.REGULAR THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN ufp.knowledgeLevel = com.example.api_v2.model.KnowledgeLevel.MAL THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN ufp.knowledgeLevel IS NULL THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN f.createdBy.id = :userId THEN 1 ELSE 0 END), " +
+            "SUM(COALESCE(ufp.reviewCount, 0)), " +
+            "SUM(CASE WHEN ufp.studyTimeInSeconds > 0 THEN ufp.studyTimeInSeconds ELSE 0 END), " +
+            "SUM(CASE WHEN ufp.studyTimeInSeconds > 0 THEN 1 ELSE 0 END)) " +
+            "FROM Flashcard f " +
+            "LEFT JOIN UserFlashcardProgress ufp ON ufp.flashcard = f AND ufp.user.id = :userId " +
+            "WHERE f.collection.id = :collectionId")
+    CollectionStatsTotalsDto computeStatsTotals(
+            @Param("collectionId") Long collectionId,
+            @Param("userId") String userId);
+
+    @Query("SELECT new com.example.api_v2.dto.CollectionStatsWindowsDto(" +
+            "SUM(CASE WHEN f.createdBy.id = :userId AND f.createdAt > :startOfToday THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN f.createdBy.id = :userId AND f.createdAt > :startOf7DaysAgo THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN f.createdBy.id = :userId AND f.createdAt > :startOf30DaysAgo THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN ufp.reviewCount > 0 AND ufp.lastReviewedAt > :startOfToday THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN ufp.reviewCount > 0 AND ufp.lastReviewedAt > :startOf7DaysAgo THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN ufp.reviewCount > 0 AND ufp.lastReviewedAt > :startOf30DaysAgo THEN 1 ELSE 0 END)) " +
+            "FROM Flashcard f " +
+            "LEFT JOIN UserFlashcardProgress ufp ON ufp.flashcard = f AND ufp.user.id = :userId " +
+            "WHERE f.collection.id = :collectionId " +
+            "AND (f.createdAt > :startOf30DaysAgo OR ufp.lastReviewedAt > :startOf30DaysAgo)")
+    CollectionStatsWindowsDto computeStatsWindows(
+            @Param("collectionId") Long collectionId,
+            @Param("userId") String userId,
+            @Param("startOfToday") LocalDateTime startOfToday,
+            @Param("startOf7DaysAgo") LocalDateTime startOf7DaysAgo,
+            @Param("startOf30DaysAgo") LocalDateTime startOf30DaysAgo);
+
+    @Query("SELECT ufp FROM UserFlashcardProgress ufp WHERE ufp.user.id = :userId AND ufp.flashcard.id IN :flashcardIds")
+    List<UserFlashcardProgress> findByUserIdAndFlashcardIdIn(
+            @Param("userId") String userId,
+            @Param("flashcardIds") Collection<Long> flashcardIds);
+
     @Query("SELECT ufp FROM UserFlashcardProgress ufp WHERE ufp.user.id = :userId ORDER BY ufp.lastReviewedAt DESC")
     List<UserFlashcardProgress> findTop10ByUserIdOrderByLastReviewedAtDesc(@Param("userId") String userId);
 
@@ -42,6 +89,19 @@ public interface UserFlashcardProgressRepository extends JpaRepository<UserFlash
             @Param("collectionId") Long collectionId, 
             @Param("userId") String userId);
             
+    /**
+     * Fecha de repaso de cada flashcard de la colección para el usuario. El
+     * progreso se crea en el primer repaso: una tarjeta sin fila es nueva y está
+     * pendiente desde su creación.
+     */
+    @Query("SELECT f.id, CASE WHEN ufp.id IS NULL THEN f.createdAt ELSE ufp.nextReviewDate END " +
+            "FROM Flashcard f " +
+            "LEFT JOIN UserFlashcardProgress ufp ON ufp.flashcard = f AND ufp.user.id = :userId " +
+            "WHERE f.collection.id = :collectionId")
+    List<Object[]> findReviewDatesByCollectionIdAndUserId(
+            @Param("collectionId") Long collectionId,
+            @Param("userId") String userId);
+
     @Query("SELECT ufp FROM UserFlashcardProgress ufp WHERE ufp.flashcard.id = :flashcardId AND ufp.collection.id = :collectionId AND ufp.user.id = :userId")
     List<UserFlashcardProgress> findAllByFlashcardIdAndCollectionIdAndUserId(
             @Param("flashcardId") Long flashcardId, 
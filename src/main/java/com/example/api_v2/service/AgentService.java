@@ -1,10 +1,24 @@
 package com.example.api_v2.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList; // Importación agregada
@@ -12,36 +26,143 @@ import com.example.api_v2.repository.DocumentRepository;
 import com.example.api_v2.model.Document;
 import java.util.HashMap;
 import com.example.api_v2.repository.AgentRepository;
+import com.example.api_v2.repository.AgentRepositoryCustomImpl;
+import com.example.api_v2.exception.ErrorUtils;
+import com.example.api_v2.util.VectorMetric;
+import com.example.api_v2.dto.ProcessedDocumentDto;
 
 @Service
 public class AgentService {
+    private static final int SIMILAR_DOCUMENTS_LIMIT = 5;
+
+    // Máximo que admite pgvector para hnsw.ef_search
+    static final int MAX_EF_SEARCH = 1000;
+
+    // Bytes por lectura del fichero al enviarlo al agente
+    static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Forma de enviar los ficheros al agente. BASE64_JSON es el cuerpo
+     * {"pdf_base64": ...} que espera /process-document/; MULTIPART envía el
+     * fichero sin codificar, un 33 % más pequeño, a un endpoint multipart.
+     * En los dos casos el fichero se lee del BlobStore por partes.
+     */
+    public enum DocumentTransfer {
+        BASE64_JSON,
+        MULTIPART
+    }
+
     private final WebClient webClient;
     private final DocumentRepository documentRepository;
     private final EmbeddingService embeddingService;
     private final AgentRepository agentRepository;
+    private final BlobStore blobStore;
+
+    @Value("${agent.client.document-transfer:BASE64_JSON}")
+    private DocumentTransfer documentTransfer = DocumentTransfer.BASE64_JSON;
+
+    // Endpoint del agente que recibe el fichero en el campo "file" con MULTIPART
+    @Value("${agent.client.document-upload-path:/process-document-file/}")
+    private String documentUploadPath = "/process-document-file/";
+
+    @Value("${agent.search.ef-search:100}")
+    private int defaultEfSearch = 100;
+
+    // Debe existir un índice HNSW de documents.embedding con la clase de operadores de la métrica
+    @Value("${agent.search.metric:COSINE}")
+    private VectorMetric metric = VectorMetric.COSINE;
+
+    // Fragmentos que se envían como contexto; son más cortos que un documento completo
+    @Value("${agent.search.top-k-chunks:8}")
+    private int topKChunks = 8;
 
-    public AgentService(DocumentRepository documentRepository, EmbeddingService embeddingService,
-            AgentRepository agentRepository) {
-        this.webClient = WebClient.builder()
-                .baseUrl("http://localhost:8000") // Conecta con agent.py
-                .build();
+    public AgentService(@Qualifier("agentWebClient") WebClient webClient, DocumentRepository documentRepository,
+            EmbeddingService embeddingService, AgentRepository agentRepository, BlobStore blobStore) {
+        this.webClient = webClient; // Conecta con agent.py, ver WebClientConfig
         this.documentRepository = documentRepository;
         this.embeddingService = embeddingService;
         this.agentRepository = agentRepository;
+        this.blobStore = blobStore;
     }
 
     // Enviar documento al agente para procesamiento
-    public Mono<Map<String, Object>> processDocument(byte[] fileContent) {
-        // Convertir el contenido del archivo a Base64
-        String base64Content = Base64.getEncoder().encodeToString(fileContent);
+    public Mono<ProcessedDocumentDto> processDocument(String storageKey, String fileName, String fileType) {
+        // El fichero se lee del almacén a medida que se envía; nunca está entero en memoria
+        Flux<DataBuffer> content = DataBufferUtils.readByteChannel(() -> blobStore.open(storageKey),
+                DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE);
+
+        WebClient.RequestHeadersSpec<?> request;
+        if (documentTransfer == DocumentTransfer.MULTIPART) {
+            MultipartBodyBuilder body = new MultipartBodyBuilder();
+            body.asyncPart("file", content, DataBuffer.class)
+                    .filename(fileName != null ? fileName : storageKey)
+                    .contentType(partContentType(fileType));
+            request = webClient.post()
+                    .uri(documentUploadPath)
+                    .body(BodyInserters.fromMultipartData(body.build()));
+        } else {
+            request = webClient.post()
+                    .uri("/process-document/")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(base64JsonBody("pdf_base64", content), DataBuffer.class);
+        }
 
-        return webClient.post()
-                .uri("/process-document/")
-                .bodyValue(Map.of(
-                        "pdf_base64", base64Content))
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
-                });
+        return request.retrieve().bodyToMono(ProcessedDocumentDto.class);
+    }
+
+    /**
+     * Cuerpo JSON {"field": "&lt;contenido en Base64&gt;"} generado por partes a
+     * partir de content, sin construir el String completo.
+     */
+    static Flux<DataBuffer> base64JsonBody(String field, Flux<DataBuffer> content) {
+        DefaultDataBufferFactory factory = DefaultDataBufferFactory.sharedInstance;
+        return Flux.defer(() -> {
+            Base64Chunks chunks = new Base64Chunks();
+            return Flux.concat(
+                    Mono.fromSupplier(() -> factory.wrap(("{\"" + field + "\":\"").getBytes(StandardCharsets.UTF_8))),
+                    content.map(buffer -> {
+                        try {
+                            return factory.wrap(chunks.encode(buffer));
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    }),
+                    Mono.fromSupplier(() -> factory.wrap(chunks.finish("\"}"))));
+        });
+    }
+
+    // Base64 por partes: los 0-2 bytes que no completan un grupo de 3 pasan a la siguiente parte
+    private static final class Base64Chunks {
+        private final Base64.Encoder encoder = Base64.getEncoder();
+        private byte[] pending = new byte[0];
+
+        ByteBuffer encode(DataBuffer buffer) {
+            byte[] bytes = new byte[pending.length + buffer.readableByteCount()];
+            System.arraycopy(pending, 0, bytes, 0, pending.length);
+            buffer.read(bytes, pending.length, bytes.length - pending.length);
+            int whole = bytes.length - bytes.length % 3;
+            pending = Arrays.copyOfRange(bytes, whole, bytes.length);
+            return encoder.encode(ByteBuffer.wrap(bytes, 0, whole));
+        }
+
+        byte[] finish(String suffix) {
+            byte[] last = encoder.encode(pending);
+            byte[] end = suffix.getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = Arrays.copyOf(last, last.length + end.length);
+            System.arraycopy(end, 0, bytes, last.length, end.length);
+            return bytes;
+        }
+    }
+
+    private static MediaType partContentType(String fileType) {
+        if (fileType != null) {
+            try {
+                return MediaType.parseMediaType(fileType);
+            } catch (InvalidMediaTypeException e) {
+                // El tipo lo envía el navegador al subir el fichero; si no es válido se envía sin tipo
+            }
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
     }
 
     // Generar flashcards desde un documento
@@ -97,63 +218,27 @@ public class AgentService {
     // Preguntar al agente
     public Mono<Map<String, Object>> askAgent(String collectionId, String question, String additionalContext,
             List<Map<String, Object>> conversationHistory) {
-        // Paso 1: Generar embedding de la pregunta usando el servicio Python
-        return embeddingService.getEmbeddings(question)
-                .flatMap(embedding -> {
-                    // Paso 2: Buscar documentos similares en la base de datos usando Java
-                    // Convertir List<Float> a float[] y luego a formato vector PostgreSQL
-                    float[] embeddingArray = new float[embedding.size()];
-                    for (int i = 0; i < embedding.size(); i++) {
-                        embeddingArray[i] = embedding.get(i);
-                    }
+        return askAgent(collectionId, question, additionalContext, conversationHistory, null);
+    }
 
-                    // Convertir el array a formato vector PostgreSQL '[1,2,3]'
-                    StringBuilder vectorStr = new StringBuilder("[");
-                    for (int i = 0; i < embeddingArray.length; i++) {
-                        if (i > 0)
-                            vectorStr.append(",");
-                        vectorStr.append(embeddingArray[i]);
-                    }
-                    vectorStr.append("]");
-
-                    // Buscar documentos similares
-                    List<Object[]> similarDocuments = agentRepository.findSimilarDocuments(collectionId,
-                            vectorStr.toString(), 5);
-
-                    // Preparar los documentos para enviarlos al agente Python
-                    List<Map<String, Object>> formattedDocuments = similarDocuments.stream()
-                            .map(doc -> {
-                                String documentId = doc[0].toString();
-                                String content = (String) doc[1];
-                                String fileName = (String) doc[2];
-                                String fileType = (String) doc[3];
-                                Double similarityScore = ((Number) doc[4]).doubleValue();
-
-                                Map<String, Object> docMap = new HashMap<>();
-                                docMap.put("document_id", documentId);
-                                docMap.put("content", content);
-                                docMap.put("file_name", fileName);
-                                docMap.put("file_type", fileType);
-                                docMap.put("similarity_score", similarityScore);
-
-                                // Extraer líneas relevantes del contenido
-                                String[] lines = content.split("\n");
-                                List<Map<String, Object>> relevantLines = new ArrayList<>();
-                                for (int i = 0; i < lines.length; i++) {
-                                    String line = lines[i];
-                                    // Si la línea contiene palabras de la pregunta, la consideramos relevante
-                                    if (containsRelevantTerms(line, question)) {
-                                        Map<String, Object> lineInfo = new HashMap<>();
-                                        lineInfo.put("line_number", i + 1);
-                                        lineInfo.put("content", line);
-                                        relevantLines.add(lineInfo);
-                                    }
-                                }
-                                docMap.put("relevant_lines", relevantLines);
+    /**
+     * Pregunta al agente con el tamaño de la lista de candidatos de la búsqueda
+     * vectorial (hnsw.ef_search) indicado; null usa el valor configurado.
+     */
+    public Mono<Map<String, Object>> askAgent(String collectionId, String question, String additionalContext,
+            List<Map<String, Object>> conversationHistory, Integer efSearch) {
+        if (efSearch != null && (efSearch < 1 || efSearch > MAX_EF_SEARCH)) {
+            ErrorUtils.throwValidationError("efSearch debe estar entre 1 y " + MAX_EF_SEARCH);
+        }
+        // Con menos candidatos que resultados la búsqueda devolvería menos documentos
+        int candidates = Math.max(efSearch != null ? efSearch : defaultEfSearch, SIMILAR_DOCUMENTS_LIMIT);
 
-                                return docMap;
-                            })
-                            .toList();
+        // Paso 1: Generar embedding de la pregunta usando el servicio Python
+        return embeddingService.getEmbedding(question)
+                .flatMap(embedding -> {
+                    // Paso 2: Buscar los fragmentos o documentos similares en la base de datos usando Java
+                    List<Map<String, Object>> formattedDocuments = findContextDocuments(
+                            Long.valueOf(collectionId), embedding, question, candidates);
 
                     // Paso 3: Enviar la pregunta, documentos similares, contexto adicional e
                     // historial de conversación al agente Python
@@ -218,22 +303,119 @@ public class AgentService {
                 });
     }
 
-    private boolean containsRelevantTerms(String line, String question) {
-        // Convertir tanto la línea como la pregunta a minúsculas para comparación
+    /**
+     * Busca los fragmentos más relevantes para la pregunta (búsqueda híbrida
+     * vectorial y de texto completo) y los prepara para el agente Python. Los
+     * documentos sin fragmentos (subidos antes de la fragmentación, o copias
+     * de uno de ellos) se buscan por el embedding del documento completo y se
+     * mezclan con los fragmentos: su puntuación es la de reciprocal rank
+     * fusion con un solo ranking, el vectorial.
+     */
+    List<Map<String, Object>> findContextDocuments(Long collectionId, float[] embedding, String question,
+            int candidates) {
+        List<Object[]> relevantChunks = agentRepository.findRelevantChunks(
+                collectionId, embedding, question, topKChunks, Math.max(candidates, topKChunks), metric);
+        List<Map<String, Object>> documents = new ArrayList<>(relevantChunks.stream()
+                .map(chunk -> {
+                    // id, document_id, file_name, file_type, content, chunk_index, start_line,
+                    // similarity, rrf, líneas relevantes (números y texto)
+                    Map<String, Object> docMap = formatDocument(chunk[1].toString(), (String) chunk[4],
+                            (String) chunk[2], (String) chunk[3], ((Number) chunk[7]).doubleValue());
+                    docMap.put("chunk_index", ((Number) chunk[5]).intValue());
+                    docMap.put("relevance_score", ((Number) chunk[8]).doubleValue());
+
+                    // Las líneas las marca la consulta; se numeran respecto al documento completo
+                    int firstLine = ((Number) chunk[6]).intValue();
+                    Integer[] lineNumbers = (Integer[]) chunk[9];
+                    String[] lines = (String[]) chunk[10];
+                    List<Map<String, Object>> relevantLines = new ArrayList<>(lineNumbers.length);
+                    for (int i = 0; i < lineNumbers.length; i++) {
+                        relevantLines.add(lineInfo(firstLine + lineNumbers[i] - 1, lines[i]));
+                    }
+                    docMap.put("relevant_lines", relevantLines);
+                    return docMap;
+                })
+                .toList());
+
+        List<Object[]> unchunkedDocuments = agentRepository.findSimilarUnchunkedDocuments(
+                collectionId, embedding, SIMILAR_DOCUMENTS_LIMIT, candidates, metric);
+        if (unchunkedDocuments.isEmpty()) {
+            return documents;
+        }
+
+        List<String> questionTerms = relevantTerms(question);
+        for (int rank = 1; rank <= unchunkedDocuments.size(); rank++) {
+            Object[] doc = unchunkedDocuments.get(rank - 1);
+            String content = (String) doc[1];
+            Map<String, Object> docMap = formatDocument(doc[0].toString(), content, (String) doc[2],
+                    (String) doc[3], ((Number) doc[4]).doubleValue());
+            docMap.put("relevance_score", 1.0 / (AgentRepositoryCustomImpl.RRF_K + rank));
+
+            // Extraer líneas relevantes del contenido
+            String[] lines = content.split("\n");
+            List<Map<String, Object>> relevantLines = new ArrayList<>();
+            for (int i = 0; i < lines.length; i++) {
+                // Si la línea contiene palabras de la pregunta, la consideramos relevante
+                if (containsRelevantTerms(lines[i], questionTerms)) {
+                    relevantLines.add(lineInfo(i + 1, lines[i]));
+                }
+            }
+            docMap.put("relevant_lines", relevantLines);
+            documents.add(docMap);
+        }
+
+        // Orden estable: a igual puntuación, los fragmentos van primero
+        documents.sort(Comparator.comparingDouble(
+                (Map<String, Object> doc) -> (Double) doc.get("relevance_score")).reversed());
+        return documents.size() > topKChunks ? documents.subList(0, topKChunks) : documents;
+    }
+
+    private Map<String, Object> formatDocument(String documentId, String content, String fileName, String fileType,
+            Double similarityScore) {
+        Map<String, Object> docMap = new HashMap<>();
+        docMap.put("document_id", documentId);
+        docMap.put("content", content);
+        docMap.put("file_name", fileName);
+        docMap.put("file_type", fileType);
+        docMap.put("similarity_score", similarityScore);
+        return docMap;
+    }
+
+    private static Map<String, Object> lineInfo(int lineNumber, String line) {
+        Map<String, Object> lineInfo = new HashMap<>();
+        lineInfo.put("line_number", lineNumber);
+        lineInfo.put("content", line);
+        return lineInfo;
+    }
+
+    // Términos de la pregunta en minúsculas, sin las palabras muy cortas; se calculan una vez por pregunta
+    private static List<String> relevantTerms(String question) {
+        List<String> terms = new ArrayList<>();
+        for (String term : question.toLowerCase().split("\\s+")) {
+            if (term.length() > 3) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private boolean containsRelevantTerms(String line, List<String> questionTerms) {
+        // Convertir la línea a minúsculas para comparación
         line = line.toLowerCase();
-        String[] questionTerms = question.toLowerCase().split("\\s+");
 
         // Contar cuántos términos de la pregunta aparecen en la línea
         int matchCount = 0;
         for (String term : questionTerms) {
-            if (term.length() > 3 && line.contains(term)) { // Ignorar palabras muy cortas
+            if (line.contains(term)) {
                 matchCount++;
+                // Considerar relevante si al menos 2 términos de la pregunta aparecen en la
+                // línea
+                if (matchCount >= 2) {
+                    return true;
+                }
             }
         }
-
-        // Considerar relevante si al menos 2 términos de la pregunta aparecen en la
-        // línea
-        return matchCount >= 2;
+        return false;
     }
 
     public Mono<Map<String, Object>> getBriefSummary(String collectionId, String documentId) {
@@ -0,0 +1,17 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.BackgroundJob;
+
+/**
+ * Ejecuta los trabajos en segundo plano de un tipo.
+ *
+ * Un trabajo fallido se reintenta, así que la ejecución debe ser idempotente:
+ * repetirla tras un fallo parcial no puede duplicar efectos. Cada handler
+ * gestiona sus propias transacciones.
+ */
+public interface BackgroundJobHandler {
+
+    String getType();
+
+    void execute(BackgroundJob job);
+}
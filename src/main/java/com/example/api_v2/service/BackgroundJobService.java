@@ -0,0 +1,124 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.BackgroundJobDto;
+import com.example.api_v2.exception.ResourceNotFoundException;
+import com.example.api_v2.model.BackgroundJob;
+import com.example.api_v2.model.BackgroundJobStatus;
+import com.example.api_v2.repository.BackgroundJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Encola trabajos en segundo plano y consulta su estado. Los ejecuta
+ * {@link BackgroundJobWorker}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BackgroundJobService {
+
+    private final BackgroundJobRepository backgroundJobRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${jobs.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    /**
+     * Encola un trabajo. Si ya existe uno con la misma clave de idempotencia se
+     * devuelve ese en lugar de crear otro; si había fallado definitivamente se
+     * vuelve a poner en cola.
+     *
+     * Se confirma en su propia transacción para que los workers lo vean aunque
+     * la operación que lo encola siga en curso.
+     *
+     * @param type           Tipo de trabajo, resuelto a un {@link BackgroundJobHandler}
+     * @param payload        Parámetros del trabajo, serializados a JSON
+     * @param idempotencyKey Clave que identifica la operación, o null
+     * @param workspaceId    Workspace al que pertenece el trabajo
+     * @param createdBy      Email del usuario que lo solicita
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public BackgroundJobDto enqueue(String type, Object payload, String idempotencyKey, Long workspaceId,
+            String createdBy) {
+        if (idempotencyKey != null) {
+            BackgroundJob existing = backgroundJobRepository.findByIdempotencyKey(idempotencyKey).orElse(null);
+            if (existing != null) {
+                if (existing.getStatus() == BackgroundJobStatus.FAILED) {
+                    log.info("Reencolando el trabajo fallido {} ({})", existing.getId(), idempotencyKey);
+                    existing.setStatus(BackgroundJobStatus.PENDING);
+                    existing.setAttempts(0);
+                    existing.setLastError(null);
+                    existing.setFinishedAt(null);
+                    existing.setLockedAt(null);
+                    existing.setNextRunAt(LocalDateTime.now());
+                    existing = backgroundJobRepository.save(existing);
+                }
+                return toDto(existing);
+            }
+        }
+
+        BackgroundJob job = new BackgroundJob();
+        job.setType(type);
+        job.setPayload(writePayload(payload));
+        job.setIdempotencyKey(idempotencyKey);
+        job.setWorkspaceId(workspaceId);
+        job.setCreatedBy(createdBy);
+        job.setMaxAttempts(maxAttempts);
+        job = backgroundJobRepository.save(job);
+        log.info("Trabajo {} de tipo {} encolado", job.getId(), type);
+        return toDto(job);
+    }
+
+    /**
+     * Devuelve el estado de un trabajo del workspace.
+     */
+    @Transactional(readOnly = true)
+    public BackgroundJobDto getJob(Long workspaceId, Long jobId) {
+        BackgroundJob job = backgroundJobRepository.findById(jobId)
+                .filter(found -> workspaceId.equals(found.getWorkspaceId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Trabajo no encontrado con id: " + jobId));
+        return toDto(job);
+    }
+
+    /**
+     * Devuelve el trabajo encolado con la clave de idempotencia, si existe.
+     */
+    @Transactional(readOnly = true)
+    public Optional<BackgroundJobDto> findJob(String idempotencyKey) {
+        return backgroundJobRepository.findByIdempotencyKey(idempotencyKey).map(BackgroundJobService::toDto);
+    }
+
+    /**
+     * Lee los parámetros de un trabajo.
+     */
+    public <T> T readPayload(BackgroundJob job, Class<T> type) {
+        try {
+            return objectMapper.readValue(job.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Parámetros inválidos en el trabajo " + job.getId(), e);
+        }
+    }
+
+    private String writePayload(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudieron serializar los parámetros del trabajo", e);
+        }
+    }
+
+    static BackgroundJobDto toDto(BackgroundJob job) {
+        return new BackgroundJobDto(job.getId(), job.getType(), job.getStatus().name(), job.getAttempts(),
+                job.getMaxAttempts(), job.getLastError(), job.getCreatedAt(), job.getNextRunAt(),
+                job.getFinishedAt());
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.BackgroundJob;
+import com.example.api_v2.model.BackgroundJobStatus;
+import com.example.api_v2.repository.BackgroundJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reclama trabajos pendientes de la cola y los ejecuta en el executor de la
+ * aplicación, con un máximo de trabajos simultáneos por instancia.
+ *
+ * Un trabajo que falla se reintenta con espera exponencial hasta agotar sus
+ * intentos; uno cuyo worker se detuvo a medias se reclama de nuevo cuando su
+ * bloqueo caduca.
+ *
+ * El reclamo se confirma en su propia transacción antes de lanzar los
+ * trabajos, y cada ejecución comprueba que el trabajo sigue en RUNNING con el
+ * locked_at de su reclamo: si otro worker lo ha reclamado después, no se
+ * ejecuta.
+ */
+@Slf4j
+@Component
+public class BackgroundJobWorker {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final BackgroundJobRepository backgroundJobRepository;
+    private final ThreadPoolTaskExecutor taskExecutor;
+    private final PlatformTransactionManager transactionManager;
+    private final Map<String, BackgroundJobHandler> handlers = new HashMap<>();
+
+    // Trabajos en ejecución en esta instancia
+    private final AtomicInteger running = new AtomicInteger();
+
+    @Value("${jobs.worker.concurrency:4}")
+    private int concurrency = 4;
+
+    @Value("${jobs.worker.lock-timeout-minutes:30}")
+    private long lockTimeoutMinutes = 30;
+
+    @Value("${jobs.retry.base-delay-seconds:10}")
+    private long baseDelaySeconds = 10;
+
+    @Value("${jobs.retry.max-delay-seconds:3600}")
+    private long maxDelaySeconds = 3600;
+
+    public BackgroundJobWorker(BackgroundJobRepository backgroundJobRepository, ThreadPoolTaskExecutor taskExecutor,
+            PlatformTransactionManager transactionManager, List<BackgroundJobHandler> handlers) {
+        this.backgroundJobRepository = backgroundJobRepository;
+        this.taskExecutor = taskExecutor;
+        this.transactionManager = transactionManager;
+        for (BackgroundJobHandler handler : handlers) {
+            this.handlers.put(handler.getType(), handler);
+        }
+    }
+
+    /**
+     * Reclama tantos trabajos como huecos libres haya y los lanza.
+     */
+    @Scheduled(fixedDelayString = "${jobs.worker.poll-interval-ms:2000}")
+    public void poll() {
+        int free = concurrency - running.get();
+        if (free <= 0) {
+            return;
+        }
+        // Precisión de microsegundos, la de la columna locked_at, para reconocer el reclamo al ejecutar
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        // Sin transacción, con auto-commit desactivado el UPDATE se desharía al devolver la conexión
+        // al pool y el siguiente poll volvería a reclamar los mismos trabajos
+        List<Long> claimed = new TransactionTemplate(transactionManager).execute(
+                tx -> backgroundJobRepository.claimDue(free, now, now.minusMinutes(lockTimeoutMinutes)));
+        if (claimed == null) {
+            return;
+        }
+        for (Long jobId : claimed) {
+            running.incrementAndGet();
+            try {
+                taskExecutor.execute(() -> {
+                    try {
+                        run(jobId, now);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                running.decrementAndGet();
+                release(jobId);
+            }
+        }
+    }
+
+    /**
+     * Ejecuta un trabajo reclamado en {@code claimedAt}, salvo que ya no esté en
+     * RUNNING con ese bloqueo (otro worker lo reclamó al caducar el nuestro).
+     */
+    void run(Long jobId, LocalDateTime claimedAt) {
+        BackgroundJob job = backgroundJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        if (job.getStatus() != BackgroundJobStatus.RUNNING || !claimedAt.equals(job.getLockedAt())) {
+            log.warn("El trabajo {} ya no pertenece al reclamo de las {}, no se ejecuta", jobId, claimedAt);
+            return;
+        }
+        BackgroundJobHandler handler = handlers.get(job.getType());
+        if (handler == null) {
+            log.error("No hay handler registrado para los trabajos de tipo {}", job.getType());
+            finish(job, BackgroundJobStatus.FAILED, "Tipo de trabajo desconocido: " + job.getType());
+            return;
+        }
+
+        log.info("Ejecutando el trabajo {} de tipo {} (intento {} de {})", job.getId(), job.getType(),
+                job.getAttempts(), job.getMaxAttempts());
+        try {
+            handler.execute(job);
+            finish(job, BackgroundJobStatus.SUCCEEDED, null);
+            log.info("Trabajo {} completado", job.getId());
+        } catch (RuntimeException e) {
+            fail(job, e);
+        }
+    }
+
+    private void fail(BackgroundJob job, RuntimeException e) {
+        String error = truncate(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        if (job.getAttempts() >= job.getMaxAttempts()) {
+            log.error("El trabajo {} ha fallado definitivamente tras {} intentos: {}", job.getId(),
+                    job.getAttempts(), error, e);
+            finish(job, BackgroundJobStatus.FAILED, error);
+            return;
+        }
+
+        LocalDateTime nextRunAt = LocalDateTime.now().plusSeconds(retryDelaySeconds(job.getAttempts()));
+        log.warn("El trabajo {} ha fallado (intento {} de {}), se reintentará a las {}: {}", job.getId(),
+                job.getAttempts(), job.getMaxAttempts(), nextRunAt, error);
+        job.setStatus(BackgroundJobStatus.PENDING);
+        job.setLastError(error);
+        job.setLockedAt(null);
+        job.setNextRunAt(nextRunAt);
+        backgroundJobRepository.save(job);
+    }
+
+    private void finish(BackgroundJob job, BackgroundJobStatus status, String error) {
+        job.setStatus(status);
+        job.setLastError(error);
+        job.setLockedAt(null);
+        job.setFinishedAt(LocalDateTime.now());
+        backgroundJobRepository.save(job);
+    }
+
+    // Devuelve a la cola un trabajo reclamado que el executor no pudo aceptar
+    private void release(Long jobId) {
+        backgroundJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(BackgroundJobStatus.PENDING);
+            job.setAttempts(Math.max(0, job.getAttempts() - 1));
+            job.setLockedAt(null);
+            backgroundJobRepository.save(job);
+        });
+    }
+
+    // Espera exponencial: base, 2·base, 4·base... hasta el máximo configurado
+    long retryDelaySeconds(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(baseDelaySeconds << exponent, maxDelaySeconds);
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.api_v2.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Almacén de los ficheros subidos. Los documentos solo guardan la clave que
+ * devuelve {@link #store}, así el contenido no pasa por la base de datos ni se
+ * carga entero en memoria.
+ *
+ * La clave depende del contenido: el mismo fichero subido varias veces se
+ * guarda una sola vez y todos sus documentos comparten la clave. Solo se
+ * puede borrar cuando ya no lo usa ningún documento.
+ */
+public interface BlobStore {
+
+    /**
+     * @param key    Clave para leer o borrar el fichero
+     * @param size   Tamaño en bytes
+     * @param sha256 Hash SHA-256 del contenido en hexadecimal
+     */
+    record StoredBlob(String key, long size, String sha256) {
+    }
+
+    /**
+     * Copia el contenido al almacén a medida que se lee, calculando su hash.
+     * Si ya había un fichero con el mismo contenido devuelve su clave.
+     */
+    StoredBlob store(InputStream content) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Escribe count bytes del fichero desde position en target.
+     */
+    void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * Abre el fichero para leerlo por partes; quien lo llama debe cerrarlo.
+     */
+    ReadableByteChannel open(String key) throws IOException;
+
+    /**
+     * Borra el fichero; no hace nada si ya no existe.
+     */
+    void delete(String key) throws IOException;
+}
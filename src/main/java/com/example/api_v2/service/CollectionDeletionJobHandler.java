@@ -0,0 +1,37 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.BackgroundJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Elimina en segundo plano una colección con sus flashcards, progreso,
+ * documentos y notas.
+ */
+@Component
+@RequiredArgsConstructor
+public class CollectionDeletionJobHandler implements BackgroundJobHandler {
+
+    public static final String TYPE = "collection.delete";
+
+    private final CollectionService collectionService;
+    private final BackgroundJobService backgroundJobService;
+
+    public record Payload(Long workspaceId, Long collectionId, String email) {
+    }
+
+    public static String idempotencyKey(Long collectionId) {
+        return TYPE + ":" + collectionId;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJob job) {
+        Payload payload = backgroundJobService.readPayload(job, Payload.class);
+        collectionService.purgeCollection(payload.workspaceId(), payload.collectionId(), payload.email());
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.api_v2.service;
 
+import com.example.api_v2.dto.BackgroundJobDto;
 import com.example.api_v2.dto.CollectionDto;
+import com.example.api_v2.dto.FlashcardDto;
 import com.example.api_v2.exception.ErrorUtils;
 import com.example.api_v2.model.Collection;
 import com.example.api_v2.model.Flashcard;
@@ -31,6 +33,10 @@ public class CollectionService {
     private final UserRepository userRepository;
     private final WorkspaceActivityService workspaceActivityService;
     private final FlashcardService flashcardService;
+    private final DueCardIndex dueCardIndex;
+    private final UserCollectionStatsService userCollectionStatsService;
+    private final BackgroundJobService backgroundJobService;
+    private final DocumentService documentService;
 
     public List<CollectionDto> getCollectionsByWorkspace(Long workspaceId) {
         return collectionRepository.findByWorkspaceId(workspaceId).stream()
@@ -71,6 +77,24 @@ public class CollectionService {
         return convertToDto(collection, user.getId());
     }
 
+    /**
+     * Comprueba que la colección existe y pertenece al workspace sin cargar sus
+     * flashcards, para los endpoints que no necesitan la colección completa.
+     */
+    public void checkCollectionInWorkspace(Long workspaceId, Long collectionId) {
+        Collection collection = collectionRepository.findById(collectionId)
+                .orElseThrow(() -> {
+                    log.error("Colección no encontrada con ID: {}", collectionId);
+                    ErrorUtils.throwResourceNotFound("Colección", "id", collectionId);
+                    return null;
+                });
+
+        if (!collection.getWorkspace().getId().equals(workspaceId)) {
+            log.error("La colección {} no pertenece al workspace {}", collectionId, workspaceId);
+            ErrorUtils.throwInvalidOperation("La colección no pertenece al workspace especificado");
+        }
+    }
+
     public CollectionDto createCollection(Long workspaceId, CollectionDto collectionDto, String email) {
         log.debug("Creando colección en workspace {} para usuario {}", workspaceId, email);
 
@@ -195,8 +219,15 @@ public class CollectionService {
         }
     }
 
-    public void deleteCollection(Long workspaceId, Long collectionId, String email) {
-        log.debug("Eliminando colección {} del workspace {}", collectionId, workspaceId);
+    /**
+     * Comprueba la colección y encola su eliminación, que recorre en cascada
+     * flashcards, progreso, documentos y notas y puede tardar en colecciones
+     * grandes.
+     *
+     * @return Trabajo que elimina la colección
+     */
+    public BackgroundJobDto deleteCollection(Long workspaceId, Long collectionId, String email) {
+        log.debug("Solicitando la eliminación de la colección {} del workspace {}", collectionId, workspaceId);
 
         // Buscar la colección
         Collection collection = collectionRepository.findById(collectionId)
@@ -212,6 +243,23 @@ public class CollectionService {
             ErrorUtils.throwInvalidOperation("La colección no pertenece al workspace especificado");
         }
 
+        return backgroundJobService.enqueue(CollectionDeletionJobHandler.TYPE,
+                new CollectionDeletionJobHandler.Payload(workspaceId, collectionId, email),
+                CollectionDeletionJobHandler.idempotencyKey(collectionId), workspaceId, email);
+    }
+
+    /**
+     * Elimina la colección. Lo ejecuta el trabajo encolado por
+     * {@link #deleteCollection}; si la colección ya no existe no hace nada, de
+     * modo que los reintentos son seguros.
+     */
+    public void purgeCollection(Long workspaceId, Long collectionId, String email) {
+        Collection collection = collectionRepository.findById(collectionId).orElse(null);
+        if (collection == null) {
+            log.info("La colección {} ya estaba eliminada", collectionId);
+            return;
+        }
+
         // Verificar si la colección tiene flashcards asociadas
         if (!collection.getFlashcards().isEmpty()) {
             log.warn("Eliminando colección {} que contiene {} flashcards", collectionId,
@@ -220,17 +268,16 @@ public class CollectionService {
 
         String collectionName = collection.getName();
 
-        try {
-            collectionRepository.delete(collection);
-            
-            // Registrar la actividad
-            workspaceActivityService.logCollectionDeleted(workspaceId, email, collectionName);
-            
-            log.info("Colección {} eliminada correctamente", collectionId);
-        } catch (Exception e) {
-            log.error("Error al eliminar la colección {}: {}", collectionId, e.getMessage(), e);
-            ErrorUtils.throwOperationFailed("Error al eliminar la colección: " + e.getMessage());
-        }
+        // Los documentos se borran antes y sin cargarlos, para que la cascada no lea sus ficheros
+        documentService.deleteByCollection(collectionId);
+        collectionRepository.delete(collection);
+        dueCardIndex.invalidateCollection(collectionId);
+        userCollectionStatsService.invalidateCollection(collectionId);
+
+        // Registrar la actividad
+        workspaceActivityService.logCollectionDeleted(workspaceId, email, collectionName);
+
+        log.info("Colección {} eliminada correctamente", collectionId);
     }
 
     private CollectionDto convertToDto(Collection collection) {
@@ -254,9 +301,10 @@ public class CollectionService {
         dto.setName(collection.getName());
         dto.setDescription(collection.getDescription());
         dto.setWorkspaceId(collection.getWorkspace().getId());
-        dto.setFlashcards(collection.getFlashcards().stream()
-                .map((flashcard) -> flashcardService.convertToDto(flashcard, userId)).toList());
-        dto.setItemCount(collection.getFlashcards().size());
+        // Flashcards y progreso del usuario en dos consultas, no una por tarjeta
+        List<FlashcardDto> flashcards = flashcardService.getCollectionFlashcardsForUser(collection.getId(), userId);
+        dto.setFlashcards(flashcards);
+        dto.setItemCount(flashcards.size());
         dto.setCreatedBy(collection.getCreatedBy().toDto());
         dto.setCreatedAt(collection.getCreatedAt());
         dto.setTags(collection.getTags());
@@ -0,0 +1,163 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentChunk;
+import com.example.api_v2.repository.DocumentChunkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Divide el texto de los documentos en fragmentos y genera el embedding de
+ * cada uno, para que la búsqueda de contexto del agente devuelva solo las
+ * partes relevantes de documentos grandes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentChunkService {
+
+    private final DocumentChunkRepository documentChunkRepository;
+    private final EmbeddingService embeddingService;
+    private final PlatformTransactionManager transactionManager;
+
+    // El modelo de embeddings trunca a unos 256 tokens, algo más de 1000 caracteres
+    @Value("${documents.chunk.max-chars:1000}")
+    private int maxChars = 1000;
+
+    // Texto repetido entre fragmentos consecutivos para no partir ideas por la mitad
+    @Value("${documents.chunk.overlap-chars:150}")
+    private int overlapChars = 150;
+
+    @Value("${documents.chunk.embedding-concurrency:4}")
+    private int embeddingConcurrency = 4;
+
+    record ChunkText(int index, int startLine, String text) {
+    }
+
+    /**
+     * Fragmenta el contenido del documento, genera los embeddings con como
+     * máximo embeddingConcurrency peticiones simultáneas y sustituye los
+     * fragmentos anteriores del documento.
+     *
+     * @return Número de fragmentos guardados
+     */
+    public Mono<Integer> indexDocument(Document document) {
+        List<ChunkText> texts = split(document.getContent(), maxChars, overlapChars);
+        if (texts.isEmpty()) {
+            return Mono.just(0);
+        }
+        Long collectionId = document.getCollection().getId();
+        return Flux.fromIterable(texts)
+                .flatMapSequential(text -> embeddingService.generateEmbedding(text.text())
+                        .map(embedding -> toChunk(document, collectionId, text, embedding)), embeddingConcurrency)
+                .collectList()
+                .flatMap(chunks -> Mono.fromCallable(() -> replaceChunks(document.getId(), chunks))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnNext(count -> log.info("Documento {} indexado en {} fragmentos", document.getId(), count));
+    }
+
+    /**
+     * Copia a target los fragmentos de otro documento con el mismo contenido,
+     * con sus embeddings, sin llamar al servicio de embeddings. Debe llamarse
+     * dentro de la transacción que guarda target.
+     *
+     * @return Número de fragmentos copiados
+     */
+    public int copyChunks(Long sourceDocumentId, Document target) {
+        return documentChunkRepository.copyChunks(sourceDocumentId, target.getId(), target.getCollection().getId());
+    }
+
+    private int replaceChunks(Long documentId, List<DocumentChunk> chunks) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            documentChunkRepository.deleteByDocumentId(documentId);
+            documentChunkRepository.saveAll(chunks);
+        });
+        return chunks.size();
+    }
+
+    private static DocumentChunk toChunk(Document document, Long collectionId, ChunkText text, float[] embedding) {
+        DocumentChunk chunk = new DocumentChunk();
+        chunk.setDocument(document);
+        chunk.setCollectionId(collectionId);
+        chunk.setChunkIndex(text.index());
+        chunk.setStartLine(text.startLine());
+        chunk.setContent(text.text());
+        chunk.setEmbedding(embedding);
+        return chunk;
+    }
+
+    /**
+     * Divide el texto en fragmentos de como mucho maxChars caracteres que se
+     * solapan overlapChars. Cada corte se busca en la segunda mitad del
+     * fragmento, por orden de preferencia en un salto de párrafo, de línea,
+     * un fin de frase o un espacio.
+     */
+    static List<ChunkText> split(String content, int maxChars, int overlapChars) {
+        List<ChunkText> chunks = new ArrayList<>();
+        if (content == null || content.isBlank()) {
+            return chunks;
+        }
+
+        int length = content.length();
+        int start = 0;
+        // Número de línea de la posición lineCursor; los inicios de fragmento siempre avanzan
+        int line = 1;
+        int lineCursor = 0;
+        while (start < length) {
+            int end = Math.min(start + maxChars, length);
+            if (end < length) {
+                int boundary = lastBoundary(content, start + maxChars / 2, end);
+                if (boundary > start) {
+                    end = boundary;
+                }
+            }
+
+            // La línea de inicio es la del primer carácter con texto
+            int textStart = start;
+            while (textStart < end && Character.isWhitespace(content.charAt(textStart))) {
+                textStart++;
+            }
+            for (; lineCursor < textStart; lineCursor++) {
+                if (content.charAt(lineCursor) == '\n') {
+                    line++;
+                }
+            }
+            String text = content.substring(textStart, end).strip();
+            if (!text.isEmpty()) {
+                chunks.add(new ChunkText(chunks.size(), line, text));
+            }
+            if (end >= length) {
+                break;
+            }
+
+            // El siguiente fragmento empieza overlapChars antes, en el inicio de una palabra
+            int next = Math.max(end - overlapChars, textStart + 1);
+            while (next < end && !Character.isWhitespace(content.charAt(next - 1))) {
+                next++;
+            }
+            start = next;
+        }
+        return chunks;
+    }
+
+    // Posición tras el mejor punto de corte en [from, to), o -1 si no hay ninguno
+    private static int lastBoundary(String content, int from, int to) {
+        for (String separator : new String[] { "\n\n", "\n", ". ", " " }) {
+            int index = content.lastIndexOf(separator, to - separator.length());
+            if (index >= from) {
+                return index + separator.length();
+            }
+        }
+        return -1;
+    }
+}
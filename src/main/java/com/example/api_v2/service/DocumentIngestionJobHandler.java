@@ -0,0 +1,88 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.ProcessedDocumentDto;
+import com.example.api_v2.model.BackgroundJob;
+import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentIngestionStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Procesa en segundo plano un documento subido: envía el fichero al agente,
+ * fragmenta el texto devuelto y guarda el texto y el embedding.
+ *
+ * Los reintentos con espera exponencial y el límite de documentos procesados
+ * a la vez son los de la cola de trabajos ({@link BackgroundJobWorker}). Además
+ * el documento pasa de UPLOADED a EXTRACTING antes de llamar al agente: si
+ * otro intento ya lo ha hecho, este termina sin hacer nada.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DocumentIngestionJobHandler implements BackgroundJobHandler {
+
+    public static final String TYPE = "document.ingest";
+
+    private final DocumentService documentService;
+    private final AgentService agentService;
+    private final DocumentChunkService documentChunkService;
+    private final BackgroundJobService backgroundJobService;
+
+    public record Payload(Long documentId) {
+    }
+
+    public static String idempotencyKey(Long documentId) {
+        return TYPE + ":" + documentId;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJob job) {
+        Long documentId = backgroundJobService.readPayload(job, Payload.class).documentId();
+        Document document = documentService.getDocument(documentId).orElse(null);
+        if (document == null) {
+            log.info("El documento {} se eliminó antes de procesarlo", documentId);
+            return;
+        }
+        if (document.getIngestionStatus() == DocumentIngestionStatus.EMBEDDED) {
+            return;
+        }
+        if (document.getStorageKey() == null) {
+            // Documento anterior al BlobStore: no hay fichero que enviar al agente
+            log.warn("El documento {} no tiene fichero en el almacén y no se puede procesar", documentId);
+            documentService.updateIngestionStatus(documentId, DocumentIngestionStatus.FAILED);
+            return;
+        }
+
+        if (!documentService.startIngestion(documentId)) {
+            log.info("El documento {} ya no está pendiente de procesar (otro intento lo tiene en curso o terminó)",
+                    documentId);
+            return;
+        }
+        try {
+            ProcessedDocumentDto processed = agentService
+                    .processDocument(document.getStorageKey(), document.getFileName(), document.getFileType())
+                    .block();
+            if (processed == null || processed.getContent() == null || processed.getEmbedding() == null) {
+                throw new IllegalStateException("El agente no devolvió el texto o el embedding del documento "
+                        + documentId);
+            }
+            document.setContent(processed.getContent());
+            document.setEmbedding(processed.getEmbedding());
+            // Reemplaza los fragmentos anteriores, así que repetirlo tras un fallo no los duplica
+            documentChunkService.indexDocument(document).block();
+            documentService.completeIngestion(documentId, processed.getContent(), processed.getEmbedding());
+        } catch (RuntimeException e) {
+            // La cola lo reintenta salvo que fuera el último intento
+            boolean lastAttempt = job.getAttempts() >= job.getMaxAttempts();
+            documentService.updateIngestionStatus(documentId,
+                    lastAttempt ? DocumentIngestionStatus.FAILED : DocumentIngestionStatus.UPLOADED);
+            throw e;
+        }
+    }
+}
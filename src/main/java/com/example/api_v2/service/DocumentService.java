@@ -1,31 +1,60 @@
 package com.example.api_v2.service;
 
 import com.example.api_v2.dto.DocumentDto;
+import com.example.api_v2.dto.DocumentFileDto;
+import com.example.api_v2.dto.DocumentIngestionDto;
+import com.example.api_v2.exception.ResourceNotFoundException;
 import com.example.api_v2.model.Collection;
 import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentIngestionStatus;
 import com.example.api_v2.repository.CollectionRepository;
 import com.example.api_v2.repository.DocumentRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import reactor.core.publisher.Mono;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DocumentService {
 
     private final DocumentRepository documentRepository;
     private final CollectionRepository collectionRepository;
-    private final AgentService agentService; // 🔹 Ahora usamos el servicio del agente
     private final WorkspaceActivityService workspaceActivityService;
+    private final BlobStore blobStore;
+    private final BackgroundJobService backgroundJobService;
+    private final DocumentChunkService documentChunkService;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Datos para servir un documento por partes sin cargarlo en memoria.
+     *
+     * @param etag Hash del contenido, sin comillas
+     */
+    public record DocumentDownload(String fileName, String fileType, long size, String etag, ContentTransfer content) {
+    }
+
+    @FunctionalInterface
+    public interface ContentTransfer {
+        void transferTo(long position, long count, WritableByteChannel target) throws IOException;
+    }
 
     @Transactional
     public Document uploadFile(Long collectionId, MultipartFile file) throws IOException {
@@ -38,8 +67,35 @@ public class DocumentService {
         document.setCollection(collection);
         document.setFileName(file.getOriginalFilename());
         document.setFileType(file.getContentType());
-        document.setFileSize(file.getSize());
-        document.setData(file.getBytes());
+
+        // El fichero se copia al almacén por partes, sin cargarlo entero en memoria
+        BlobStore.StoredBlob blob;
+        try (InputStream content = file.getInputStream()) {
+            blob = blobStore.store(content);
+        }
+        // Si el fichero ya estaba, lo comparte con otros documentos: el bloqueo impide que
+        // se borre hasta el commit, y si se borró justo antes de tomarlo se vuelve a guardar
+        documentRepository.lockStorageKey(blob.key());
+        if (!blobStore.exists(blob.key())) {
+            try (InputStream content = file.getInputStream()) {
+                blob = blobStore.store(content);
+            }
+        }
+        releaseBlobOnRollback(blob.key());
+        document.setStorageKey(blob.key());
+        document.setContentHash(blob.sha256());
+        document.setFileSize(blob.size());
+
+        // Un fichero idéntico ya procesado no se vuelve a enviar al agente
+        Document processed = documentRepository.findFirstByContentHashAndIngestionStatusOrderByIdAsc(
+                blob.sha256(), DocumentIngestionStatus.EMBEDDED).orElse(null);
+        if (processed != null) {
+            document.setContent(processed.getContent());
+            document.setEmbedding(processed.getEmbedding());
+            document.setIngestionStatus(DocumentIngestionStatus.EMBEDDED);
+        } else {
+            document.setIngestionStatus(DocumentIngestionStatus.UPLOADED);
+        }
 
         Document savedDocument = documentRepository.save(document);
 
@@ -51,43 +107,22 @@ public class DocumentService {
         //     collection.getName()
         // );
 
-        // 🔹 Enviar documento al agente para indexación y análisis
-        agentService.processDocument(file.getBytes())
-                .doOnError(error -> {
-                    System.err.println("Error al procesar el documento en el agente: " + error.getMessage());
-                    // Aquí podrías agregar más lógica de manejo de errores si es necesario
-                }).flatMap((Map<String, Object> response) -> {
-                    @SuppressWarnings("unchecked")
-                    List<Number> embeddingList = (List<Number>) response.get("embedding");
-                    float[] embedding = new float[embeddingList.size()];
-                    for (int i = 0; i < embeddingList.size(); i++) {
-                        embedding[i] = embeddingList.get(i).floatValue();
-                    }
-                    String content = (String) response.get("content");
-                    System.out.println(content);
-                    savedDocument.setContent(content);
-                    savedDocument.setEmbedding(embedding);
-                    return Mono.fromCallable(() -> documentRepository.save(savedDocument));
-                })
-
-                .subscribe();
+        if (processed != null) {
+            int chunks = documentChunkService.copyChunks(processed.getId(), savedDocument);
+            log.info("Documento {} con el mismo contenido que {}: {} fragmentos copiados sin llamar al agente",
+                    savedDocument.getId(), processed.getId(), chunks);
+        } else {
+            // 🔹 El agente procesa el documento en segundo plano, con reintentos; ver DocumentIngestionJobHandler
+            enqueueIngestionAfterCommit(savedDocument.getId(), collection.getWorkspace().getId());
+        }
 
         return savedDocument;
     }
 
     @Transactional(readOnly = true)
     public List<DocumentDto> getDocumentsByCollection(Long collectionId) {
-
-        List<Document> documentos = documentRepository.findByCollectionId(collectionId);
-
-        if (documentos.isEmpty()) {
-            return Collections.emptyList();
-        } else {
-            return documentos
-                    .stream()
-                    .map(DocumentDto::new)
-                    .collect(Collectors.toList());
-        }
+        // Proyección: el listado no lee el fichero ni el texto de cada documento
+        return documentRepository.findSummariesByCollectionId(collectionId);
     }
 
     @Transactional(readOnly = true)
@@ -95,6 +130,200 @@ public class DocumentService {
         return documentRepository.findById(documentId);
     }
 
+    /**
+     * Estado del procesado del documento y del trabajo que lo ejecuta, para
+     * que el cliente consulte el progreso en lugar de volver a subirlo.
+     */
+    @Transactional(readOnly = true)
+    public DocumentIngestionDto getIngestion(Long collectionId, Long documentId) {
+        DocumentIngestionStatus status = documentRepository.findIngestionStatus(collectionId, documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Document not found"));
+        return new DocumentIngestionDto(documentId, status,
+                backgroundJobService.findJob(DocumentIngestionJobHandler.idempotencyKey(documentId)).orElse(null));
+    }
+
+    @Transactional
+    public void updateIngestionStatus(Long documentId, DocumentIngestionStatus status) {
+        documentRepository.updateIngestionStatus(documentId, status);
+    }
+
+    /**
+     * Pasa el documento de UPLOADED a EXTRACTING con una sola sentencia
+     * condicionada, de modo que solo un intento a la vez llama al agente.
+     *
+     * @return false si el documento no estaba en UPLOADED (otro intento lo está
+     *         procesando, ya terminó o se borró)
+     */
+    @Transactional
+    public boolean startIngestion(Long documentId) {
+        return documentRepository.updateIngestionStatus(documentId, DocumentIngestionStatus.UPLOADED,
+                DocumentIngestionStatus.EXTRACTING) == 1;
+    }
+
+    /**
+     * Guarda el texto y el embedding devueltos por el agente y marca el
+     * documento como EMBEDDED. No hace nada si se borró mientras se procesaba.
+     */
+    @Transactional
+    public void completeIngestion(Long documentId, String content, float[] embedding) {
+        documentRepository.findById(documentId).ifPresent(document -> {
+            document.setContent(content);
+            document.setEmbedding(embedding);
+            document.setIngestionStatus(DocumentIngestionStatus.EMBEDDED);
+            documentRepository.save(document);
+        });
+    }
+
+    /**
+     * Encola los documentos cuyo procesado no terminó, por ejemplo porque la
+     * aplicación se detuvo entre la subida y el encolado. Los que ya tienen
+     * trabajo conservan el suyo por la clave de idempotencia; si su worker se
+     * detuvo a medias, la cola lo reclama cuando caduca su bloqueo.
+     *
+     * @return Documentos pendientes encontrados
+     */
+    public int enqueuePendingIngestions() {
+        List<DocumentRepository.PendingIngestion> pending = documentRepository.findPendingIngestions(
+                List.of(DocumentIngestionStatus.UPLOADED, DocumentIngestionStatus.EXTRACTING));
+        pending.forEach(document -> enqueueIngestion(document.getId(), document.getWorkspaceId()));
+        return pending.size();
+    }
+
+    @Transactional(readOnly = true)
+    public DocumentDownload getDownload(Long documentId) {
+        // Solo los metadatos; el texto extraído y el embedding no hacen falta para descargar
+        DocumentFileDto file = documentRepository.findFileById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Document not found"));
+
+        if (file.getStorageKey() != null) {
+            String storageKey = file.getStorageKey();
+            return new DocumentDownload(file.getFileName(), file.getFileType(), file.getFileSize(),
+                    file.getContentHash(),
+                    (position, count, target) -> blobStore.transferTo(storageKey, position, count, target));
+        }
+
+        // Documentos anteriores al BlobStore: el fichero está en la base de datos y hay que leerlo entero
+        byte[] stored = documentRepository.findDataById(documentId);
+        byte[] data = stored != null ? stored : new byte[0];
+        return new DocumentDownload(file.getFileName(), file.getFileType(), data.length, sha256(data),
+                (position, count, target) -> {
+                    ByteBuffer buffer = ByteBuffer.wrap(data, Math.toIntExact(position), Math.toIntExact(count));
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                });
+    }
+
+    /**
+     * Borra los documentos de una colección con una sola sentencia, sin cargar
+     * sus ficheros ni su texto, y tras el commit los ficheros del almacén que
+     * ya no usa ningún documento.
+     */
+    @Transactional
+    public void deleteByCollection(Long collectionId) {
+        List<String> storageKeys = documentRepository.findStorageKeysByCollectionId(collectionId);
+        documentRepository.deleteByCollectionId(collectionId);
+        releaseBlobsAfterCommit(storageKeys.stream().distinct().toList());
+    }
+
+    /**
+     * Cuando se confirme la transacción que elimina sus documentos, borra los
+     * ficheros que ya no usa ningún otro documento.
+     */
+    private void releaseBlobsAfterCommit(List<String> storageKeys) {
+        if (storageKeys.isEmpty()) {
+            return;
+        }
+        Runnable delete = () -> storageKeys.forEach(this::releaseBlob);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delete.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delete.run();
+            }
+        });
+    }
+
+    // Tras el commit: antes, el worker podría reclamar el trabajo sin ver todavía el documento
+    private void enqueueIngestionAfterCommit(Long documentId, Long workspaceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueueIngestion(documentId, workspaceId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueueIngestion(documentId, workspaceId);
+            }
+        });
+    }
+
+    private void enqueueIngestion(Long documentId, Long workspaceId) {
+        try {
+            backgroundJobService.enqueue(DocumentIngestionJobHandler.TYPE,
+                    new DocumentIngestionJobHandler.Payload(documentId),
+                    DocumentIngestionJobHandler.idempotencyKey(documentId), workspaceId, null);
+        } catch (RuntimeException e) {
+            // El documento sigue en UPLOADED y se encola de nuevo al arrancar
+            log.error("No se pudo encolar el procesado del documento {}: {}", documentId, e.getMessage());
+        }
+    }
+
+    // Si no se llega a guardar el documento, el fichero subido puede no referenciarlo nadie
+    private void releaseBlobOnRollback(String storageKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    releaseBlob(storageKey);
+                }
+            }
+        });
+    }
+
+    /**
+     * Borra el fichero si ya no lo usa ningún documento. Se ejecuta en su
+     * propia transacción con el bloqueo del fichero, así no se borra mientras
+     * una subida del mismo contenido lo está referenciando.
+     */
+    private void releaseBlob(String storageKey) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transaction.executeWithoutResult(status -> {
+                documentRepository.lockStorageKey(storageKey);
+                if (documentRepository.countByStorageKey(storageKey) == 0) {
+                    deleteBlob(storageKey);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("No se pudo comprobar si el fichero {} sigue en uso: {}", storageKey, e.getMessage());
+        }
+    }
+
+    private void deleteBlob(String storageKey) {
+        try {
+            blobStore.delete(storageKey);
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el fichero {} del almacén: {}", storageKey, e.getMessage());
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            // Todas las JVM incluyen SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Transactional
     public void deleteDocument(Long documentId) {
         // Obtener el documento antes de eliminarlo para logging
@@ -104,6 +333,9 @@ public class DocumentService {
             Collection collection = document.getCollection();
             
             documentRepository.deleteById(documentId);
+            if (document.getStorageKey() != null) {
+                releaseBlobsAfterCommit(List.of(document.getStorageKey()));
+            }
             
             // Registrar la actividad
         //     workspaceActivityService.logDocumentDeleted(
@@ -0,0 +1,256 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.repository.UserFlashcardProgressRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Índice en memoria de las flashcards pendientes de repaso, agrupadas por
+ * usuario y colección.
+ * 
+ * Cada cubo mantiene las tarjetas ordenadas por fecha de próximo repaso, de
+ * forma que "cuántas hay pendientes" se resuelve sin recorrer la tabla de
+ * progreso. Los cubos se cargan desde la base de datos la primera vez que se
+ * consultan y se mantienen al día con cada revisión; como mucho se conservan
+ * {@code flashcards.due-index.max-buckets} cubos y se descartan los usados
+ * hace más tiempo, que se vuelven a leer si se necesitan.
+ */
+@Component
+@RequiredArgsConstructor
+public class DueCardIndex {
+
+    private final UserFlashcardProgressRepository userFlashcardProgressRepository;
+
+    // En orden de acceso, para descartar el cubo usado hace más tiempo; se accede con su monitor
+    private final LinkedHashMap<BucketKey, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Cargas en curso de cada cubo, protegidas por el monitor de buckets
+    private final Map<BucketKey, List<PendingLoad>> loads = new HashMap<>();
+
+    @Value("${flashcards.due-index.max-buckets:10000}")
+    private int maxBuckets = 10000;
+
+    /**
+     * Número de flashcards del usuario en la colección cuya fecha de repaso es
+     * anterior a {@code now}.
+     */
+    public long countDue(String userId, Long collectionId, LocalDateTime now) {
+        return bucket(new BucketKey(userId, collectionId)).countDue(now);
+    }
+
+    /**
+     * Registra la nueva fecha de repaso de una flashcard. Si el cubo no está
+     * cargado no se hace nada: se leerá de la base de datos cuando se use.
+     */
+    public void update(String userId, Long collectionId, Long flashcardId, LocalDateTime nextReviewDate) {
+        BucketKey key = new BucketKey(userId, collectionId);
+        afterCommit(() -> {
+            synchronized (buckets) {
+                apply(key, buckets.get(key), bucket -> bucket.put(flashcardId, nextReviewDate));
+            }
+        });
+    }
+
+    /**
+     * Elimina una flashcard del índice de todos los usuarios de la colección.
+     */
+    public void remove(Long collectionId, Long flashcardId) {
+        afterCommit(() -> {
+            synchronized (buckets) {
+                Set<BucketKey> keys = new HashSet<>(buckets.keySet());
+                keys.addAll(loads.keySet());
+                for (BucketKey key : keys) {
+                    if (key.collectionId().equals(collectionId)) {
+                        apply(key, buckets.get(key), bucket -> bucket.put(flashcardId, null));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Descarta los cubos de una colección; se recargarán bajo demanda.
+     */
+    public void invalidateCollection(Long collectionId) {
+        afterCommit(() -> {
+            synchronized (buckets) {
+                buckets.keySet().removeIf(key -> key.collectionId().equals(collectionId));
+                // Lo que estén leyendo estas cargas puede ser anterior a la invalidación
+                loads.forEach((key, pending) -> {
+                    if (key.collectionId().equals(collectionId)) {
+                        pending.forEach(load -> load.invalidated = true);
+                    }
+                });
+            }
+        });
+    }
+
+    // Los cambios solo se aplican si la transacción en curso llega a confirmarse
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    // Aplica el cambio al cubo cargado y lo guarda en las cargas en curso de la
+    // misma clave, que lo repiten sobre lo que han leído antes de publicarlo.
+    // Se llama con el monitor de buckets
+    private void apply(BucketKey key, Bucket bucket, Consumer<Bucket> change) {
+        if (bucket != null) {
+            change.accept(bucket);
+        }
+        List<PendingLoad> pending = loads.get(key);
+        if (pending != null) {
+            pending.forEach(load -> load.changes.add(change));
+        }
+    }
+
+    private Bucket bucket(BucketKey key) {
+        PendingLoad load = new PendingLoad();
+        synchronized (buckets) {
+            Bucket bucket = buckets.get(key);
+            if (bucket != null) {
+                return bucket;
+            }
+            loads.computeIfAbsent(key, k -> new ArrayList<>()).add(load);
+        }
+
+        // La consulta se hace fuera del monitor para no bloquear al resto de cubos
+        Bucket loaded;
+        try {
+            loaded = load(key);
+        } catch (RuntimeException e) {
+            synchronized (buckets) {
+                endLoad(key, load);
+            }
+            throw e;
+        }
+
+        synchronized (buckets) {
+            endLoad(key, load);
+            Bucket published = buckets.get(key);
+            if (published != null) {
+                // Otra carga se adelantó; los cambios recibidos también se le aplicaron a ella
+                return published;
+            }
+            for (Consumer<Bucket> change : load.changes) {
+                change.accept(loaded);
+            }
+            if (!load.invalidated) {
+                publish(key, loaded);
+            }
+            return loaded;
+        }
+    }
+
+    private void endLoad(BucketKey key, PendingLoad load) {
+        List<PendingLoad> pending = loads.get(key);
+        pending.remove(load);
+        if (pending.isEmpty()) {
+            loads.remove(key);
+        }
+    }
+
+    private void publish(BucketKey key, Bucket bucket) {
+        buckets.put(key, bucket);
+        if (buckets.size() > maxBuckets) {
+            Iterator<BucketKey> eldest = buckets.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private Bucket load(BucketKey key) {
+        Bucket bucket = new Bucket();
+        for (Object[] row : userFlashcardProgressRepository
+                .findReviewDatesByCollectionIdAndUserId(key.collectionId(), key.userId())) {
+            bucket.put((Long) row[0], (LocalDateTime) row[1]);
+        }
+        return bucket;
+    }
+
+    // Cambios recibidos mientras se lee un cubo de la base de datos
+    private static final class PendingLoad {
+        private final List<Consumer<Bucket>> changes = new ArrayList<>();
+        private boolean invalidated;
+    }
+
+    private record BucketKey(String userId, Long collectionId) {
+    }
+
+    private record Entry(LocalDateTime dueAt, long flashcardId) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byDate = dueAt.compareTo(other.dueAt);
+            return byDate != 0 ? byDate : Long.compare(flashcardId, other.flashcardId);
+        }
+
+        static Entry lowerBound(LocalDateTime dueAt) {
+            return new Entry(dueAt, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Tarjetas de un usuario en una colección ordenadas por fecha de repaso.
+     * Además se guarda cuántas quedan por debajo de una marca de tiempo que solo
+     * avanza: contar las pendientes solo recorre las que han vencido desde la
+     * última consulta, así que el coste amortizado es O(log n).
+     */
+    private static final class Bucket {
+        private final NavigableSet<Entry> entries = new TreeSet<>();
+        private final Map<Long, Entry> byFlashcard = new HashMap<>();
+        private LocalDateTime watermark = LocalDateTime.MIN;
+        private long dueBeforeWatermark;
+
+        synchronized void put(Long flashcardId, LocalDateTime nextReviewDate) {
+            Entry previous = byFlashcard.remove(flashcardId);
+            if (previous != null) {
+                entries.remove(previous);
+                if (previous.dueAt().isBefore(watermark)) {
+                    dueBeforeWatermark--;
+                }
+            }
+            if (nextReviewDate != null) {
+                Entry entry = new Entry(nextReviewDate, flashcardId);
+                entries.add(entry);
+                byFlashcard.put(flashcardId, entry);
+                if (nextReviewDate.isBefore(watermark)) {
+                    dueBeforeWatermark++;
+                }
+            }
+        }
+
+        synchronized long countDue(LocalDateTime now) {
+            if (now.isBefore(watermark)) {
+                // El reloj ha retrocedido: contar directamente sin mover la marca
+                return entries.headSet(Entry.lowerBound(now)).size();
+            }
+            dueBeforeWatermark += entries.subSet(Entry.lowerBound(watermark), Entry.lowerBound(now)).size();
+            watermark = now;
+            return dueBeforeWatermark;
+        }
+    }
+}
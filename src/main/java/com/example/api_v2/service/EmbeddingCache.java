@@ -0,0 +1,171 @@
+package com.example.api_v2.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Caché en memoria de embeddings por texto, con un presupuesto de bytes y
+ * expulsión LRU.
+ *
+ * La clave es el SHA-256 (128 bits) del texto normalizado, así que el texto no
+ * se guarda. Las peticiones simultáneas del mismo texto comparten una única
+ * llamada al servicio de embeddings. Los arrays devueltos se comparten entre
+ * llamadas y no deben modificarse.
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+
+    // Cabecera del array más clave y entrada del LinkedHashMap, aproximado
+    static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    record Key(long high, long low) {
+    }
+
+    record Stats(long hits, long misses, long coalesced, int entries, long bytes, double averageLoadMillis) {
+
+        double hitRate() {
+            long requests = hits + misses + coalesced;
+            return requests == 0 ? 0 : (double) (hits + coalesced) / requests;
+        }
+    }
+
+    private final long maxBytes;
+
+    // Orden de acceso: el primero es el menos usado recientemente
+    private final LinkedHashMap<Key, float[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final ConcurrentMap<Key, Mono<float[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public EmbeddingCache(@Value("${embeddings.cache.max-bytes:16777216}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Devuelve el embedding del texto desde la caché o, si no está, lo obtiene
+     * con {@code loader} a partir del texto normalizado y lo guarda.
+     */
+    public Mono<float[]> get(String text, Function<String, Mono<float[]>> loader) {
+        return Mono.defer(() -> {
+            String normalized = normalize(text);
+            Key key = key(normalized);
+            float[] cached = lookup(key);
+            if (cached != null) {
+                hits.increment();
+                return Mono.just(cached);
+            }
+
+            boolean[] created = new boolean[1];
+            Mono<float[]> load = inFlight.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return load(k, normalized, loader);
+            });
+            (created[0] ? misses : coalesced).increment();
+            return load;
+        });
+    }
+
+    private Mono<float[]> load(Key key, String normalized, Function<String, Mono<float[]>> loader) {
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return loader.apply(normalized)
+                            .doOnNext(embedding -> {
+                                loadNanos.add(System.nanoTime() - start);
+                                loads.increment();
+                                put(key, embedding);
+                            });
+                })
+                // Se guarda en la caché antes de dejar de estar en curso, así no hay hueco entre ambos
+                .doFinally(signal -> inFlight.remove(key))
+                .cache();
+    }
+
+    private synchronized float[] lookup(Key key) {
+        return entries.get(key);
+    }
+
+    private synchronized void put(Key key, float[] embedding) {
+        long size = sizeOf(embedding);
+        if (size > maxBytes) {
+            return;
+        }
+        float[] previous = entries.put(key, embedding);
+        if (previous != null) {
+            bytes -= sizeOf(previous);
+        }
+        bytes += size;
+
+        var eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= sizeOf(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        long usedBytes;
+        synchronized (this) {
+            size = entries.size();
+            usedBytes = bytes;
+        }
+        long loadCount = loads.sum();
+        double averageLoadMillis = loadCount == 0 ? 0 : loadNanos.sum() / 1_000_000.0 / loadCount;
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), size, usedBytes, averageLoadMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${embeddings.cache.stats-log-interval-ms:300000}")
+    public void logStats() {
+        Stats stats = stats();
+        if (stats.hits() + stats.misses() + stats.coalesced() > 0) {
+            log.info("Caché de embeddings: {} entradas, {} bytes, tasa de acierto {}, {} aciertos, {} fallos, "
+                    + "{} agrupadas, {} ms de media por llamada al servicio",
+                    stats.entries(), stats.bytes(), String.format("%.2f", stats.hitRate()), stats.hits(),
+                    stats.misses(), stats.coalesced(), String.format("%.1f", stats.averageLoadMillis()));
+        }
+    }
+
+    static long sizeOf(float[] embedding) {
+        return ENTRY_OVERHEAD_BYTES + 4L * embedding.length;
+    }
+
+    // Los espacios repetidos o en los extremos y las distintas formas Unicode no cambian la clave
+    static String normalize(String text) {
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC).strip()).replaceAll(" ");
+    }
+
+    static Key key(String normalized) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new Key(buffer.getLong(), buffer.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            // Todas las JVM incluyen SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
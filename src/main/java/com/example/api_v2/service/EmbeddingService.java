@@ -1,5 +1,6 @@
 package com.example.api_v2.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
@@ -12,22 +13,43 @@ import java.util.Map;
 public class EmbeddingService {
 
     private final WebClient webClient;
+    private final EmbeddingCache embeddingCache;
 
-    public EmbeddingService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8000").build();
+    // Pool propio para que las llamadas lentas al agente no dejen sin conexiones a los embeddings
+    public EmbeddingService(@Qualifier("embeddingWebClient") WebClient webClient, EmbeddingCache embeddingCache) {
+        this.webClient = webClient;
+        this.embeddingCache = embeddingCache;
     }
 
-    public Mono<List<Float>> getEmbeddings(String text) {
+    /**
+     * Genera el embedding del texto tal como lo devuelve el servicio, sin
+     * convertir cada componente a Float. Las preguntas repetidas se sirven
+     * desde {@link EmbeddingCache}; el array devuelto es compartido y no debe
+     * modificarse.
+     */
+    public Mono<float[]> getEmbedding(String text) {
+        return embeddingCache.get(text, this::generateEmbedding);
+    }
+
+    /**
+     * Llama siempre al servicio de embeddings, sin pasar por la caché. Para
+     * textos que no se repiten, como los fragmentos de los documentos, que
+     * solo desplazarían las preguntas de la caché.
+     */
+    public Mono<float[]> generateEmbedding(String text) {
         Map<String, String> requestBody = Map.of("question", text);
 
-        // Utilizamos float[] para la deserialización y luego lo convertimos a List<Float>
         return webClient.post()
                 .uri(uriBuilder -> uriBuilder
                     .path("/generate_embedding/")
                     .build())
                 .bodyValue(requestBody)
                 .retrieve()
-                .bodyToMono(float[].class)
+                .bodyToMono(float[].class);
+    }
+
+    public Mono<List<Float>> getEmbeddings(String text) {
+        return getEmbedding(text)
                 .map(array -> {
                     List<Float> list = new ArrayList<>(array.length);
                     for (float value : array) {
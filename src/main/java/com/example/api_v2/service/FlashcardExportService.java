@@ -0,0 +1,78 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.exception.ResourceNotFoundException;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.UserFlashcardProgress;
+import com.example.api_v2.repository.FlashcardRepository;
+import com.example.api_v2.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de colecciones en NDJSON: una línea JSON por flashcard con el
+ * progreso del usuario. Las filas se leen con un cursor de servidor y se
+ * escriben a medida que llegan, así que la memoria usada no depende del tamaño
+ * de la colección.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlashcardExportService {
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private final FlashcardRepository flashcardRepository;
+    private final UserRepository userRepository;
+    private final FlashcardService flashcardService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Escribe en {@code out} las flashcards de la colección con el progreso del
+     * usuario, una por línea y ordenadas por ID.
+     *
+     * @param collectionId ID de la colección
+     * @param email        Email del usuario cuyo progreso se exporta
+     * @param out          Destino de la exportación (no se cierra)
+     * @return Número de flashcards exportadas
+     */
+    @Transactional(readOnly = true)
+    public long exportCollection(Long collectionId, String email, OutputStream out) throws IOException {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con email: " + email));
+
+        long exported = 0;
+        try (Stream<Object[]> rows = flashcardRepository.streamWithProgress(collectionId, user.getId())) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                Flashcard flashcard = (Flashcard) row[0];
+                UserFlashcardProgress progress = (UserFlashcardProgress) row[1];
+
+                out.write(objectMapper.writeValueAsBytes(flashcardService.convertToDto(flashcard, progress)));
+                out.write('\n');
+
+                // Sacar las entidades del contexto de persistencia para que no se acumulen
+                entityManager.detach(flashcard);
+                if (progress != null) {
+                    entityManager.detach(progress);
+                }
+                exported++;
+            }
+        }
+
+        out.flush();
+        log.info("Exportadas {} flashcards de la colección {} para el usuario {}", exported, collectionId, email);
+        return exported;
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.FlashcardDto;
+import com.example.api_v2.dto.FlashcardImportStatusDto;
+import com.example.api_v2.dto.UserStatsDto;
+import com.example.api_v2.exception.ErrorUtils;
+import com.example.api_v2.exception.ResourceNotFoundException;
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.WorkspaceUser;
+import com.example.api_v2.repository.CollectionRepository;
+import com.example.api_v2.repository.FlashcardRepository;
+import com.example.api_v2.repository.UserRepository;
+import com.example.api_v2.service.UserCollectionStatsService.Contribution;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de flashcards desde CSV o JSON.
+ *
+ * Las tarjetas se insertan con batches JDBC en lugar de una a una como en
+ * {@link FlashcardService#createFlashcard}. No se crea progreso: se crea en el
+ * primer repaso. Las estadísticas del usuario, la actividad del workspace y los
+ * contadores por colección se actualizan una sola vez por importación.
+ *
+ * La importación se ejecuta en segundo plano en una única transacción; su
+ * avance se consulta con {@link #getImportStatus(String)}. El estado solo se
+ * guarda en memoria de esta instancia: se pierde al reiniciar la aplicación y
+ * una importación interrumpida por un reinicio deja de poder consultarse.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlashcardImportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_JSON = "json";
+
+    // Tarjetas insertadas por bloque; el avance se publica al terminar cada bloque
+    static final int IMPORT_CHUNK_SIZE = 500;
+
+    // Tiempo que se conserva el estado de una importación terminada
+    private static final long FINISHED_IMPORT_RETENTION_MINUTES = 60;
+
+    private final CollectionRepository collectionRepository;
+    private final UserRepository userRepository;
+    private final FlashcardRepository flashcardRepository;
+    private final UserStatsService userStatsService;
+    private final WorkspaceActivityService workspaceActivityService;
+    private final DueCardIndex dueCardIndex;
+    private final UserCollectionStatsService userCollectionStatsService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolTaskExecutor taskExecutor;
+
+    private final Map<String, ImportProgress> imports = new ConcurrentHashMap<>();
+
+    @Value("${flashcards.import.max-cards:20000}")
+    private int maxCards = 20000;
+
+    /**
+     * Valida y analiza el fichero y lanza la importación en segundo plano.
+     *
+     * @param collectionId ID de la colección destino
+     * @param email        Email del usuario que importa
+     * @param format       csv o json
+     * @param content      Contenido del fichero en UTF-8
+     * @return Estado inicial de la importación, con su ID para consultar el avance
+     */
+    public FlashcardImportStatusDto startImport(Long collectionId, String email, String format, InputStream content)
+            throws IOException {
+        List<FlashcardDto> cards = parse(format, content);
+        if (cards.isEmpty()) {
+            ErrorUtils.throwValidationError("El fichero no contiene flashcards");
+        }
+        if (cards.size() > maxCards) {
+            ErrorUtils.throwValidationError("El fichero supera el máximo de " + maxCards + " flashcards por importación");
+        }
+        for (int i = 0; i < cards.size(); i++) {
+            FlashcardDto card = cards.get(i);
+            if (isBlank(card.getQuestion()) || isBlank(card.getAnswer())) {
+                ErrorUtils.throwValidationError("La flashcard " + (i + 1) + " no tiene pregunta o respuesta");
+            }
+        }
+
+        // Comprobar ahora la colección y el usuario para responder con el error adecuado
+        collectionRepository.findById(collectionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Collection not found with id: " + collectionId));
+        userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con email: " + email));
+
+        purgeFinishedImports();
+        ImportProgress progress = new ImportProgress(UUID.randomUUID().toString(), collectionId, cards.size());
+        imports.put(progress.importId, progress);
+
+        try {
+            taskExecutor.execute(() -> runImport(progress, email, cards));
+        } catch (TaskRejectedException e) {
+            // Sin hilo que la ejecute se quedaría en PENDING para siempre
+            progress.error = "El servidor está ocupado; vuelve a intentar la importación más tarde";
+            progress.status = "FAILED";
+            progress.finishedAt = LocalDateTime.now();
+            log.error("Importación {} de la colección {} rechazada por el ejecutor: {}", progress.importId,
+                    collectionId, e.getMessage());
+        }
+        return progress.toDto();
+    }
+
+    /**
+     * Devuelve el estado de una importación lanzada en la última hora. Tras un
+     * reinicio no se encuentran las importaciones anteriores.
+     */
+    public FlashcardImportStatusDto getImportStatus(String importId) {
+        ImportProgress progress = imports.get(importId);
+        if (progress == null) {
+            throw new ResourceNotFoundException("Importación no encontrada con id: " + importId);
+        }
+        return progress.toDto();
+    }
+
+    private void runImport(ImportProgress progress, String email, List<FlashcardDto> cards) {
+        progress.status = "RUNNING";
+        try {
+            new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(tx -> importFlashcards(progress, email, cards));
+            progress.status = "COMPLETED";
+            log.info("Importación {} completada: {} flashcards en la colección {}", progress.importId,
+                    cards.size(), progress.collectionId);
+        } catch (RuntimeException e) {
+            progress.error = e.getMessage();
+            progress.status = "FAILED";
+            log.error("Error en la importación {} de la colección {}: {}", progress.importId,
+                    progress.collectionId, e.getMessage(), e);
+        } finally {
+            progress.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void importFlashcards(ImportProgress progress, String email, List<FlashcardDto> cards) {
+        Collection collection = collectionRepository.findById(progress.collectionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Collection not found with id: " + progress.collectionId));
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con email: " + email));
+        Long workspaceId = collection.getWorkspace().getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int start = 0; start < cards.size(); start += IMPORT_CHUNK_SIZE) {
+            List<Flashcard> chunk = cards.subList(start, Math.min(start + IMPORT_CHUNK_SIZE, cards.size())).stream()
+                    .map(card -> Flashcard.builder()
+                            .question(card.getQuestion())
+                            .answer(card.getAnswer())
+                            .difficulty(card.getDifficulty())
+                            .collection(collection)
+                            .createdBy(user)
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .build())
+                    .collect(Collectors.toList());
+
+            flashcardRepository.insertAll(chunk);
+            progress.processed += chunk.size();
+        }
+
+        int imported = cards.size();
+
+        // Estadísticas del usuario: lo mismo que crear las tarjetas una a una
+        UserStatsDto updatedStats = new UserStatsDto();
+        updatedStats.setCreatedFlashcards(imported);
+        updatedStats.setExperience(5 * imported);
+        userStatsService.updateUserStats(user.getId(), updatedStats);
+
+        workspaceActivityService.logActivity(workspaceId, email,
+                "Importó " + imported + " flashcards en '" + collection.getName() + "'");
+
+        // Para cada miembro las tarjetas cuentan como nuevas; el creador además las cuenta como creadas
+        Set<String> memberIds = collection.getWorkspace().getWorkspaceUsers().stream()
+                .map(WorkspaceUser::getUser)
+                .filter(Objects::nonNull)
+                .map(User::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String memberId : memberIds) {
+            long created = memberId.equals(user.getId()) ? imported : 0;
+            userCollectionStatsService.recordChange(memberId, collection.getId(), Contribution.NONE,
+                    new Contribution(imported, 0, 0, 0, imported, created, 0, 0, 0));
+        }
+
+        // El índice recarga las colas de la colección desde la base de datos
+        dueCardIndex.invalidateCollection(collection.getId());
+    }
+
+    List<FlashcardDto> parse(String format, InputStream content) throws IOException {
+        String normalized = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        if (FORMAT_JSON.equals(normalized)) {
+            return objectMapper.readValue(content, new TypeReference<List<FlashcardDto>>() {
+            });
+        }
+        if (FORMAT_CSV.equals(normalized)) {
+            return parseCsv(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        ErrorUtils.throwValidationError("Formato de importación no soportado: " + format);
+        return null; // Esta línea nunca se ejecuta
+    }
+
+    /**
+     * Analiza un CSV con columnas pregunta, respuesta y dificultad (opcional).
+     * Admite campos entre comillas con separadores y saltos de línea, separador
+     * coma, punto y coma o tabulador (como las exportaciones de Anki) y una fila
+     * de cabecera opcional.
+     */
+    static List<FlashcardDto> parseCsv(String text) {
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        char delimiter = detectDelimiter(text);
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == delimiter) {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                row.add(field.toString());
+                field.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        if (field.length() > 0 || !row.isEmpty()) {
+            row.add(field.toString());
+            rows.add(row);
+        }
+
+        List<FlashcardDto> cards = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            List<String> columns = rows.get(i);
+            if (columns.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            if (i == 0 && isHeader(columns.get(0))) {
+                continue;
+            }
+            FlashcardDto card = new FlashcardDto();
+            card.setQuestion(columns.get(0).trim());
+            card.setAnswer(columns.size() > 1 ? columns.get(1).trim() : null);
+            if (columns.size() > 2 && !columns.get(2).isBlank()) {
+                card.setDifficulty(columns.get(2).trim());
+            }
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    private static char detectDelimiter(String text) {
+        int end = text.indexOf('\n');
+        String firstLine = end >= 0 ? text.substring(0, end) : text;
+        if (firstLine.indexOf('\t') >= 0) {
+            return '\t';
+        }
+        if (firstLine.indexOf(';') >= 0 && firstLine.indexOf(',') < 0) {
+            return ';';
+        }
+        return ',';
+    }
+
+    private static boolean isHeader(String firstColumn) {
+        String value = firstColumn.trim().toLowerCase(Locale.ROOT);
+        return value.equals("question") || value.equals("pregunta") || value.equals("front");
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void purgeFinishedImports() {
+        LocalDateTime limit = LocalDateTime.now().minusMinutes(FINISHED_IMPORT_RETENTION_MINUTES);
+        imports.values().removeIf(p -> p.finishedAt != null && p.finishedAt.isBefore(limit));
+    }
+
+    // Estado en memoria de una importación; lo escribe el hilo de la importación y lo leen las peticiones
+    private static final class ImportProgress {
+        private final String importId;
+        private final Long collectionId;
+        private final int total;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile String status = "PENDING";
+        private volatile int processed;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private ImportProgress(String importId, Long collectionId, int total) {
+            this.importId = importId;
+            this.collectionId = collectionId;
+            this.total = total;
+        }
+
+        private FlashcardImportStatusDto toDto() {
+            return new FlashcardImportStatusDto(importId, collectionId, status, total, processed, error,
+                    startedAt, finishedAt);
+        }
+    }
+}
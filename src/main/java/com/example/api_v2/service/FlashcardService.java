@@ -1,27 +1,45 @@
 package com.example.api_v2.service;
 
 import com.example.api_v2.dto.*;
+import com.example.api_v2.exception.ErrorUtils;
 import com.example.api_v2.exception.ResourceNotFoundException;
 import com.example.api_v2.model.*;
 import com.example.api_v2.model.Collection;
 import com.example.api_v2.repository.*;
+import com.example.api_v2.service.UserCollectionStatsService.Contribution;
+import com.example.api_v2.util.FlashcardStudyStatus;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.time.temporal.ChronoUnit;
 
 @Service
 @RequiredArgsConstructor
 public class FlashcardService {
 
+    // Número de flashcards que se incluyen en una sesión de repaso
+    static final int REVIEW_QUEUE_SIZE = 25;
+
+    // Tamaño de página por defecto y máximo del listado paginado
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    // Criterios de orden del listado paginado
+    public static final String SORT_BY_ID = "id";
+    public static final String SORT_BY_NEXT_REVIEW_DATE = "nextReviewDate";
+
+    private static final Set<String> FLASHCARD_STATUSES = Set.of(FlashcardStudyStatus.SIN_HACER,
+            FlashcardStudyStatus.REVISION, FlashcardStudyStatus.COMPLETADA);
+
     private final FlashcardRepository flashcardRepository;
     private final CollectionRepository collectionRepository;
     private final FlashcardReviewRepository reviewRepository;
@@ -29,6 +47,9 @@ public class FlashcardService {
     private final UserFlashcardProgressRepository userFlashcardProgressRepository;
     private final UserStatsService userStatsService;
     private final WorkspaceActivityService workspaceActivityService;
+    private final DueCardIndex dueCardIndex;
+    private final ReviewSchedulerRegistry reviewSchedulerRegistry;
+    private final UserCollectionStatsService userCollectionStatsService;
 
     /**
      * Obtiene las flashcards de una colección con el progreso individual del
@@ -47,16 +68,8 @@ public class FlashcardService {
         Optional<User> user = userRepository.findByEmail(email);
 
         // Obtener todos los progresos existentes para este usuario y colección
-        List<UserFlashcardProgress> existingProgresses = userFlashcardProgressRepository
-                .findByCollectionIdAndUserId(collectionId, user.get().getId());
-
-        // Crear un mapa para acceder rápidamente a los progresos por flashcardId
-        Map<Long, UserFlashcardProgress> progressMap = existingProgresses.stream()
-                .collect(Collectors.toMap(
-                        progress -> progress.getFlashcard().getId(),
-                        progress -> progress,
-                        // En caso de duplicados, mantener el primero
-                        (existing, replacement) -> existing));
+        Map<Long, UserFlashcardProgress> progressMap = loadProgressByFlashcardId(collectionId, user.get().getId());
+        LocalDateTime tomorrow = FlashcardStudyStatus.tomorrow();
 
         // Convertir las flashcards a DTOs con progreso individual (solo si existe)
         return flashcards.stream()
@@ -81,27 +94,9 @@ public class FlashcardService {
                         dto.setReviews(progress.getReviews());
 
                         // Establecer el estado de la flashcard basado en el progreso del usuario
-                        // Si la flashcard tiene un nextReviewDate posterior a hoy, entonces es
-                        // "completada"
-                        // Si la flashcard tiene un nextReviewDate anterior a hoy o de hoy, entonces es
-                        // "revision"
-                        // Si la flashcard no tiene un nextReviewDate, entonces es "sinHacer"
-                        //
-
-                        if(progress.getKnowledgeLevel() == null){
-                            dto.setStatus("sinHacer");
-                        } else if (progress.getNextReviewDate() != null){
-                            if(progress.getNextReviewDate().toLocalDate().isAfter(LocalDate.now())) {
-                                dto.setStatus("completada");
-                            } else {
-                                dto.setStatus("revision");
-                            }
-                        } else {
-                            dto.setStatus("sinHacer");
-                        }
-                              
+                        dto.setStatus(FlashcardStudyStatus.of(progress, tomorrow));
                     } else {
-                        dto.setStatus("sinHacer");
+                        dto.setStatus(FlashcardStudyStatus.SIN_HACER);
                     }
 
                     return dto;
@@ -111,83 +106,165 @@ public class FlashcardService {
 
     /**
      * Obtiene las flashcards que necesitan revisión, priorizadas según el algoritmo
-     * SM-2 y el progreso individual del usuario
+     * SM-2 y el progreso individual del usuario.
+     * La ordenación se hace en la base de datos y solo se transfieren las
+     * {@value #REVIEW_QUEUE_SIZE} flashcards más prioritarias.
      * 
      * @param collectionId ID de la colección
      * @param userId       ID del usuario que está estudiando
      * @return Lista de flashcards para revisar, ordenadas por prioridad
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Flashcard> getFlashcardsForReview(Long collectionId, String userId) {
-        // Obtener todas las flashcards de la colección
-        List<Flashcard> flashcards = flashcardRepository.findByCollectionId(collectionId);
         LocalDateTime now = LocalDateTime.now();
 
-        // Obtener el usuario
-        User user = userRepository.findById(userId)
+        // Comprobar que el usuario existe
+        userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
-        // Lista para almacenar flashcards con su información de prioridad
-        List<FlashcardPriority> flashcardPriorities = new ArrayList<>();
-
-        // Para cada flashcard, evaluar su prioridad basada en el progreso individual
-        for (Flashcard flashcard : flashcards) {
-            UserFlashcardProgress progress = userFlashcardProgressRepository
-                    .findByFlashcardIdAndUserId(flashcard.getId(), userId)
-                    .orElseGet(() -> {
-                        // Si no existe progreso, crear uno nuevo con alta prioridad
-                        UserFlashcardProgress newProgress = new UserFlashcardProgress();
-                        newProgress.setUser(user);
-                        newProgress.setFlashcard(flashcard);
-                        newProgress.setCollection(flashcard.getCollection());
-                        newProgress.setRepetitionLevel(0);
-                        newProgress.setEaseFactor(2.5);
-                        newProgress.setReviewCount(0);
-                        newProgress.setSuccessCount(0);
-                        newProgress.setFailureCount(0);
-                        newProgress.setNextReviewDate(now);
-                        return userFlashcardProgressRepository.save(newProgress);
-                    });
-
-            // Calcular la prioridad
-            double priority = calculatePriority(progress, now);
-            flashcardPriorities.add(new FlashcardPriority(flashcard, priority));
-        }
+        // El progreso se crea en el primer repaso: las flashcards sin progreso
+        // se ordenan como tarjetas nuevas sin necesidad de crear sus filas
+        // Seleccionar en la base de datos las flashcards más prioritarias
+        return flashcardRepository.findTopForReview(collectionId, userId, now, REVIEW_QUEUE_SIZE);
+    }
 
-        // Ordenar las flashcards por prioridad (mayor prioridad primero)
-        flashcardPriorities.sort((fp1, fp2) -> Double.compare(fp2.priority(), fp1.priority()));
+    /**
+     * Vista en bloque de una colección para un usuario: las flashcards y su
+     * progreso se cargan con dos consultas y se combinan en memoria, sea cual sea
+     * el tamaño de la colección. Las tarjetas sin progreso se devuelven como
+     * "sinHacer".
+     *
+     * @param collectionId ID de la colección
+     * @param userId       ID del usuario
+     * @return Flashcards de la colección ordenadas por ID con el progreso del usuario
+     */
+    @Transactional(readOnly = true)
+    public List<FlashcardDto> getCollectionFlashcardsForUser(Long collectionId, String userId) {
+        List<Flashcard> flashcards = flashcardRepository.findWithCollectionByCollectionId(collectionId);
+        Map<Long, UserFlashcardProgress> progressMap = loadProgressByFlashcardId(collectionId, userId);
 
-        // Devolver las 25 flashcards más prioritarias
-        return flashcardPriorities.stream()
-                .limit(25)
-                .map(FlashcardPriority::flashcard)
+        return flashcards.stream()
+                .map(flashcard -> convertToDto(flashcard, progressMap.get(flashcard.getId())))
                 .collect(Collectors.toList());
     }
 
-    private double calculatePriority(UserFlashcardProgress progress, LocalDateTime now) {
-        // Factor 1: Tiempo transcurrido desde la fecha de repaso prevista
-        double daysOverdue = progress.getNextReviewDate() != null ?
-                ChronoUnit.HOURS.between(progress.getNextReviewDate(), now) / 24.0 : 
-                Double.MAX_VALUE;
-        
-        // Factor 2: Ease Factor invertido (menor ease factor = mayor prioridad)
-        double easeFactorPriority = progress.getEaseFactor() != null ?
-                5.0 - progress.getEaseFactor() : // 5.0 es un valor máximo arbitrario para el ease factor
-                2.5; // valor por defecto
-
-        // Factor 3: Número de fallos
-        double failuresPriority = progress.getFailureCount() != null ?
-                progress.getFailureCount() * 0.5 : // multiplicador para dar más peso a los fallos
-                0.0;
-
-        // Combinar factores (los pesos pueden ajustarse según necesidad)
-        return (daysOverdue * 0.5) + // 50% del peso para el tiempo transcurrido
-               (easeFactorPriority * 0.3) + // 30% del peso para el ease factor
-               (failuresPriority * 0.2); // 20% del peso para los fallos
+    /**
+     * Obtiene una página de flashcards de una colección con el progreso del usuario,
+     * paginando por keyset en lugar de por offset. El filtro de estado se resuelve
+     * en la base de datos.
+     *
+     * Con {@code sort = "id"} se recorren todas las flashcards por ID; con
+     * {@code sort = "nextReviewDate"} se recorren por (fecha de repaso, ID), y las
+     * que el usuario todavía no ha repasado cuentan como pendientes desde su creación.
+     *
+     * @param collectionId ID de la colección
+     * @param email        Email del usuario
+     * @param status       Estado a filtrar (sinHacer, revision, completada) o nulo
+     * @param sort         Criterio de orden (id o nextReviewDate), id por defecto
+     * @param cursor       Cursor devuelto por la página anterior o nulo para la primera
+     * @param size         Tamaño de página, {@value #DEFAULT_PAGE_SIZE} por defecto
+     * @return Página con las flashcards, el cursor siguiente y si quedan más
+     */
+    @Transactional(readOnly = true)
+    public FlashcardPageDto getFlashcardPage(Long collectionId, String email, String status,
+            String sort, String cursor, Integer size) {
+        String sortBy = sort == null || sort.isBlank() ? SORT_BY_ID : sort;
+        if (!SORT_BY_ID.equals(sortBy) && !SORT_BY_NEXT_REVIEW_DATE.equals(sortBy)) {
+            ErrorUtils.throwValidationError("Orden no válido: " + sort);
+        }
+        if (status != null && !FLASHCARD_STATUSES.contains(status)) {
+            ErrorUtils.throwValidationError("Estado no válido: " + status);
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            ErrorUtils.throwValidationError("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        PageCursor after = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor, sortBy);
+
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con email: " + email));
+
+        // Mismo corte que convertToDto: una fecha a partir de mañana es "completada"
+        LocalDateTime tomorrow = FlashcardStudyStatus.tomorrow();
+        // Se pide una fila de más para saber si hay página siguiente
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<FlashcardDto> items = new ArrayList<>();
+        List<PageCursor> keys = new ArrayList<>();
+        if (SORT_BY_ID.equals(sortBy)) {
+            List<Object[]> rows = flashcardRepository.findPageWithProgress(collectionId, user.getId(),
+                    after == null ? null : after.id(), status, tomorrow, limit);
+            for (Object[] row : rows) {
+                Flashcard flashcard = (Flashcard) row[0];
+                items.add(convertToDto(flashcard, (UserFlashcardProgress) row[1]));
+                keys.add(new PageCursor(null, flashcard.getId()));
+            }
+        } else {
+            List<Object[]> rows = flashcardRepository.findPageWithProgressByReviewDate(collectionId, user.getId(),
+                    after == null ? null : after.nextReviewDate(), after == null ? null : after.id(),
+                    status, tomorrow, limit);
+            for (Object[] row : rows) {
+                Flashcard flashcard = (Flashcard) row[0];
+                items.add(convertToDto(flashcard, (UserFlashcardProgress) row[1]));
+                // La fecha de orden de la consulta, que existe aunque la tarjeta no tenga progreso
+                keys.add(new PageCursor((LocalDateTime) row[2], flashcard.getId()));
+            }
+        }
+
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+        }
+        String nextCursor = hasMore ? encodeCursor(sortBy, keys.get(pageSize - 1)) : null;
+        return new FlashcardPageDto(items, nextCursor, hasMore);
+    }
+
+    // Última clave de una página: ID y, al ordenar por fecha, la fecha de repaso
+    private record PageCursor(LocalDateTime nextReviewDate, Long id) {
     }
 
-    // Record para mantener la flashcard junto con su prioridad
-    private record FlashcardPriority(Flashcard flashcard, double priority) {}
+    // El cursor es opaco para el cliente: "orden:clave" en Base64 URL-safe
+    private static String encodeCursor(String sortBy, PageCursor key) {
+        String raw = SORT_BY_ID.equals(sortBy)
+                ? sortBy + ":" + key.id()
+                : sortBy + ":" + key.nextReviewDate() + "|" + key.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PageCursor decodeCursor(String cursor, String sortBy) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String prefix = sortBy + ":";
+            if (raw.startsWith(prefix)) {
+                String key = raw.substring(prefix.length());
+                if (SORT_BY_ID.equals(sortBy)) {
+                    return new PageCursor(null, Long.parseLong(key));
+                }
+                int separator = key.lastIndexOf('|');
+                if (separator > 0) {
+                    return new PageCursor(LocalDateTime.parse(key.substring(0, separator)),
+                            Long.parseLong(key.substring(separator + 1)));
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Se trata igual que un cursor con formato incorrecto
+        }
+        ErrorUtils.throwValidationError("Cursor no válido para el orden " + sortBy);
+        return null; // Esta línea nunca se ejecuta
+    }
+
+    /**
+     * Carga el progreso del usuario en una colección indexado por ID de flashcard.
+     * En caso de duplicados se mantiene el primer registro encontrado.
+     */
+    private Map<Long, UserFlashcardProgress> loadProgressByFlashcardId(Long collectionId, String userId) {
+        return userFlashcardProgressRepository.findByCollectionIdAndUserId(collectionId, userId).stream()
+                .collect(Collectors.toMap(
+                        progress -> progress.getFlashcard().getId(),
+                        progress -> progress,
+                        (existing, replacement) -> existing,
+                        HashMap::new));
+    }
 
     public FlashcardStatsDto getFlashcardStats(Long collectionId, String email) {
         // Obtener el usuario por email
@@ -197,8 +274,8 @@ public class FlashcardService {
         // Obtener el ID del usuario
         String userId = user.getId();
 
-        List<UserFlashcardProgress> userProgressList = userFlashcardProgressRepository
-                .findByCollectionIdAndUserId(collectionId, userId);
+        // Estadísticas precalculadas del usuario en la colección
+        UserCollectionStats collectionStats = userCollectionStatsService.getOrCompute(userId, collectionId);
         FlashcardStatsDto stats = new FlashcardStatsDto();
 
         // Inicializar todas las estadísticas a 0 o valores predeterminados
@@ -285,103 +362,35 @@ public class FlashcardService {
         knowledgeLevelCountsMap.put(KnowledgeLevel.MAL, 0L);
         stats.setKnowledgeLevelCounts(knowledgeLevelCountsMap);
 
-        if (userProgressList.isEmpty()) {
+        if (collectionStats.getTotalFlashcards() == 0) {
             return stats;
         }
 
         // Fecha actual para cálculos temporales
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfToday = now.toLocalDate().atStartOfDay();
-        LocalDateTime startOf7DaysAgo = now.toLocalDate().minusDays(7).atStartOfDay();
-        LocalDateTime startOf30DaysAgo = now.toLocalDate().minusDays(30).atStartOfDay();
 
-        long totalFlashcards = userProgressList.size();
+        long totalFlashcards = collectionStats.getTotalFlashcards();
         stats.setTotalFlashcards(totalFlashcards);
 
-        int completadasCount = 0;
-        int revisarCount = 0;
-        int sinHacerCount = 0;
-        int bienCount = 0;
-        int regularCount = 0;
-        int malCount = 0;
-        long dueForReview = 0;
-        long totalReviewTime = 0;
-        int reviewsWithTime = 0;
-        int totalRevisadas = 0;
-        int creadasHoy = 0;
-        int creadasUltimos7Dias = 0;
-        int creadasUltimos30Dias = 0;
-        int totalCreadas = 0;
-        int revisadasHoy = 0;
-        int revisadasUltimos7Dias = 0;
-        int revisadasUltimos30Dias = 0;
-
-        for (UserFlashcardProgress progress : userProgressList) {
-            Flashcard flashcard = progress.getFlashcard();
-
-            // Estadísticas de creación (basadas en la flashcard original)
-            if (flashcard.getCreatedBy() != null && flashcard.getCreatedBy().getId().equals(user.getId())) {
-                totalCreadas++;
-                LocalDateTime createdAt = flashcard.getCreatedAt();
-                if (createdAt != null) {
-                    if (createdAt.isAfter(startOfToday)) {
-                        creadasHoy++;
-                    }
-                    if (createdAt.isAfter(startOf7DaysAgo)) {
-                        creadasUltimos7Dias++;
-                    }
-                    if (createdAt.isAfter(startOf30DaysAgo)) {
-                        creadasUltimos30Dias++;
-                    }
-                }
-            }
-
-            // Estadísticas de revisión (basadas en el progreso del usuario)
-            if (progress.getReviewCount() > 0) {
-                totalRevisadas += progress.getReviewCount();
-                // Aquí deberíamos obtener las revisiones reales para calcular las fechas
-                // Para simplificar, si lastReviewedAt está presente, asumimos que se revisó.
-                // Una implementación más robusta usaría FlashcardReviewRepository
-                LocalDateTime lastReviewedAt = progress.getLastReviewedAt();
-                if (lastReviewedAt != null) {
-                    if (lastReviewedAt.isAfter(startOfToday)) {
-                        revisadasHoy++;
-                    }
-                    if (lastReviewedAt.isAfter(startOf7DaysAgo)) {
-                        revisadasUltimos7Dias++;
-                    }
-                    if (lastReviewedAt.isAfter(startOf30DaysAgo)) {
-                        revisadasUltimos30Dias++;
-                    }
-                }
-            }
-
-            // Actualizar contadores por estado y nivel de conocimiento
-            KnowledgeLevel knowledgeLevel = progress.getKnowledgeLevel();
-            if (knowledgeLevel == KnowledgeLevel.BIEN) {
-                completadasCount++;
-                bienCount++;
-            } else if (knowledgeLevel == KnowledgeLevel.REGULAR) {
-                revisarCount++;
-                regularCount++;
-            } else if (knowledgeLevel == KnowledgeLevel.MAL) {
-                sinHacerCount++; // Consideramos MAL como "necesita repaso" o "sin hacer" para el frontend
-                malCount++;
-            } else {
-                sinHacerCount++; // Si no tiene nivel de conocimiento, es "sin hacer"
-            }
-
-            // Tarjetas pendientes de revisión
-            if (progress.getNextReviewDate() != null && progress.getNextReviewDate().isBefore(now)) {
-                dueForReview++;
-            }
-
-            // Tiempo de revisión
-            if (progress.getStudyTimeInSeconds() != null && progress.getStudyTimeInSeconds() > 0) {
-                totalReviewTime += progress.getStudyTimeInSeconds();
-                reviewsWithTime++;
-            }
-        }
+        // Contadores por estado y nivel de conocimiento.
+        // MAL se considera "necesita repaso" o "sin hacer" para el frontend
+        long bienCount = collectionStats.getBienCount();
+        long regularCount = collectionStats.getRegularCount();
+        long malCount = collectionStats.getMalCount();
+        long completadasCount = bienCount;
+        long revisarCount = regularCount;
+        long sinHacerCount = malCount + collectionStats.getSinNivelCount();
+        int totalRevisadas = (int) collectionStats.getTotalRevisadas();
+
+        // Actividad de hoy y de los últimos 7 y 30 días
+        CollectionStatsWindowsDto windows = userCollectionStatsService.getActivityWindows(userId, collectionId, now);
+        int creadasHoy = toInt(windows.getCreadasHoy());
+        int creadasUltimos7Dias = toInt(windows.getCreadasUltimos7Dias());
+        int creadasUltimos30Dias = toInt(windows.getCreadasUltimos30Dias());
+        int totalCreadas = (int) collectionStats.getTotalCreadas();
+        int revisadasHoy = toInt(windows.getRevisadasHoy());
+        int revisadasUltimos7Dias = toInt(windows.getRevisadasUltimos7Dias());
+        int revisadasUltimos30Dias = toInt(windows.getRevisadasUltimos30Dias());
 
         // Establecer estadísticas de creación
         stats.setCreadasHoy(creadasHoy);
@@ -397,28 +406,27 @@ public class FlashcardService {
         stats.setReviewedFlashcards((long) totalRevisadas);
 
         // Calcular tasas
-        double successRate = totalRevisadas > 0
-                ? (double) (userProgressList.stream().filter(p -> p.getKnowledgeLevel() == KnowledgeLevel.BIEN).count())
-                        / totalRevisadas * 100
-                : 0;
+        double successRate = totalRevisadas > 0 ? (double) bienCount / totalRevisadas * 100 : 0;
         stats.setSuccessRate(successRate);
         stats.setPorcentajeExito(successRate);
 
         // Calcular tiempo medio de revisión
-        double tiempoMedioRevision = reviewsWithTime > 0 ? (double) totalReviewTime / reviewsWithTime : 0;
+        double tiempoMedioRevision = collectionStats.getFlashcardsWithStudyTime() > 0
+                ? (double) collectionStats.getStudySeconds() / collectionStats.getFlashcardsWithStudyTime()
+                : 0;
         stats.setTiempoMedioRevision(tiempoMedioRevision);
 
-        // Establecer tarjetas pendientes de revisión
-        stats.setDueForReview(dueForReview);
+        // Establecer tarjetas pendientes de revisión (desde el índice en memoria)
+        stats.setDueForReview(dueCardIndex.countDue(userId, collectionId, now));
 
         // Actualizar los mapas con los contadores
-        statusCountsMap.put("COMPLETADA", (long) completadasCount);
-        statusCountsMap.put("REVISAR", (long) revisarCount);
-        statusCountsMap.put("SIN_HACER", (long) sinHacerCount);
+        statusCountsMap.put("COMPLETADA", completadasCount);
+        statusCountsMap.put("REVISAR", revisarCount);
+        statusCountsMap.put("SIN_HACER", sinHacerCount);
 
-        knowledgeLevelCountsMap.put(KnowledgeLevel.BIEN, (long) bienCount);
-        knowledgeLevelCountsMap.put(KnowledgeLevel.REGULAR, (long) regularCount);
-        knowledgeLevelCountsMap.put(KnowledgeLevel.MAL, (long) malCount);
+        knowledgeLevelCountsMap.put(KnowledgeLevel.BIEN, bienCount);
+        knowledgeLevelCountsMap.put(KnowledgeLevel.REGULAR, regularCount);
+        knowledgeLevelCountsMap.put(KnowledgeLevel.MAL, malCount);
 
         // Actualizar las estadísticas por estado con los valores reales
         for (FlashcardStatsDto.FlashcardStatusCount statusCount : stats.getEstadosPorStatus()) {
@@ -461,6 +469,10 @@ public class FlashcardService {
         return stats;
     }
 
+    private static int toInt(Long value) {
+        return value != null ? value.intValue() : 0;
+    }
+
     @Transactional
     public FlashcardDto createFlashcard(Long collectionId, FlashcardDto flashcardDto, String email) {
         Collection collection = collectionRepository.findById(collectionId)
@@ -495,38 +507,20 @@ public class FlashcardService {
             );
         }
 
-        // Crear un UserFlashcardProgress para todos los usuarios del workspace
-        List<UserFlashcardProgress> userFlashcardProgressList = collection.getWorkspace().getWorkspaceUsers().stream()
+        // El progreso se crea en el primer repaso: para cada miembro del workspace
+        // la tarjeta entra como nueva en su cola de repaso y en sus estadísticas
+        LocalDateTime now = LocalDateTime.now();
+        collection.getWorkspace().getWorkspaceUsers().stream()
                 .map(WorkspaceUser::getUser)
-                .map(u -> {
-                    UserFlashcardProgress userFlashcardProgress = UserFlashcardProgress.builder()
-                            .user(u)
-                            .flashcard(savedFlashcard)
-                            .collection(collection)
-                            .knowledgeLevel(null)
-                            .repetitionLevel(0)
-                            .easeFactor(2.5) // Valor por defecto
-                            .nextReviewDate(LocalDateTime.now())
-                            .lastReviewedAt(LocalDateTime.now())
-                            .reviewCount(0)
-                            .successCount(0)
-                            .failureCount(0)
-                            .reviews(new ArrayList<>())
-                            .studyTimeInSeconds(0)
-                            .build();
-                    userFlashcardProgressRepository.save(userFlashcardProgress);
-                    return userFlashcardProgress;
-                }).collect(Collectors.toList());
-
-        savedFlashcard.setUserFlashcardProgress(userFlashcardProgressList);
-
-        flashcardRepository.save(savedFlashcard);
-
-        // Forzar la inicialización del objeto para evitar que sea un proxy
-        Hibernate.initialize(flashcard.getCreatedBy());
-        Hibernate.initialize(flashcard.getUserFlashcardProgress());
-
-        return convertToDto(flashcard, flashcard.getUserFlashcardProgress().get(0));
+                .filter(Objects::nonNull)
+                .forEach(member -> {
+                    dueCardIndex.update(member.getId(), collection.getId(), savedFlashcard.getId(),
+                            savedFlashcard.getCreatedAt());
+                    userCollectionStatsService.recordChange(member.getId(), collection.getId(), Contribution.NONE,
+                            Contribution.of(UserFlashcardProgress.newCard(member, savedFlashcard, now)));
+                });
+
+        return convertToDto(savedFlashcard, (UserFlashcardProgress) null);
 
     }
 
@@ -546,6 +540,8 @@ public class FlashcardService {
                 .orElseThrow(() -> new RuntimeException("Flashcard not found"));
 
         flashcardRepository.delete(flashcard);
+        dueCardIndex.remove(flashcard.getCollection().getId(), flashcardId);
+        userCollectionStatsService.invalidateCollection(flashcard.getCollection().getId());
     }
 
     /**
@@ -597,20 +593,115 @@ public class FlashcardService {
         // Buscar el progreso existente o crear uno nuevo
         UserFlashcardProgress progress = userFlashcardProgressRepository
                 .findByFlashcardIdAndUserId(flashcard.getId(), user.getId())
-                .orElseGet(() -> {
-                    UserFlashcardProgress newProgress = new UserFlashcardProgress();
-                    newProgress.setUser(user);
-                    newProgress.setFlashcard(flashcard);
-                    newProgress.setCollection(flashcard.getCollection());
-                    newProgress.setRepetitionLevel(0);
-                    newProgress.setEaseFactor(2.5);
-                    newProgress.setReviewCount(0);
-                    newProgress.setSuccessCount(0);
-                    newProgress.setFailureCount(0);
-                    newProgress.setLastReviewedAt(null);
-                    newProgress.setNextReviewDate(now);
-                    return newProgress;
-                });
+                .orElseGet(() -> UserFlashcardProgress.newCard(user, flashcard, now));
+        // Una tarjeta sin progreso ya cuenta en las estadísticas como nueva
+        Contribution before = Contribution.of(progress);
+
+        applyReview(progress, result, timeSpentMs, now, reviewSchedulerRegistry.forCollection(flashcard.getCollection()));
+
+        // Guardar el progreso
+        userFlashcardProgressRepository.save(progress);
+        dueCardIndex.update(user.getId(), flashcard.getCollection().getId(), flashcard.getId(),
+                progress.getNextReviewDate());
+        userCollectionStatsService.recordChange(user.getId(), flashcard.getCollection().getId(), before,
+                Contribution.of(progress));
+
+        // Actualizar rachas de estudio del usuario
+        updateUserStudyStreaks(user, flashcard.getCollection());
+    }
+
+    /**
+     * Procesa en una sola transacción una lista ordenada de revisiones (por
+     * ejemplo, una sesión de estudio sincronizada sin conexión).
+     * Las actualizaciones SM-2 se aplican en memoria en el mismo orden en que
+     * llegan, las revisiones se insertan con un batch JDBC y la racha del
+     * usuario se actualiza una sola vez. El resultado es el mismo que enviar
+     * las revisiones de una en una.
+     * 
+     * @param collectionId ID de la colección a la que pertenecen las flashcards
+     * @param reviews      Revisiones en orden de realización
+     * @param userId       ID del usuario que realiza las revisiones
+     * @return Las flashcards revisadas con el progreso final del usuario
+     */
+    @Transactional
+    public List<FlashcardDto> processReviews(Long collectionId, List<FlashcardReviewDto> reviews, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+        // Cargar de una vez las flashcards y el progreso implicados
+        Set<Long> flashcardIds = reviews.stream()
+                .map(FlashcardReviewDto::getFlashcardId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Flashcard> flashcards = flashcardRepository.findAllById(flashcardIds).stream()
+                .collect(Collectors.toMap(Flashcard::getId, flashcard -> flashcard));
+        for (Long flashcardId : flashcardIds) {
+            Flashcard flashcard = flashcards.get(flashcardId);
+            if (flashcard == null || !flashcard.getCollection().getId().equals(collectionId)) {
+                throw new ResourceNotFoundException("Flashcard not found: " + flashcardId);
+            }
+        }
+
+        Map<Long, UserFlashcardProgress> progressByFlashcardId = userFlashcardProgressRepository
+                .findByUserIdAndFlashcardIdIn(userId, flashcardIds).stream()
+                .collect(Collectors.toMap(
+                        progress -> progress.getFlashcard().getId(),
+                        progress -> progress,
+                        (existing, replacement) -> existing,
+                        HashMap::new));
+        // Las tarjetas sin progreso parten del estado de tarjeta nueva, que ya cuenta en las estadísticas
+        for (Long flashcardId : flashcardIds) {
+            progressByFlashcardId.computeIfAbsent(flashcardId,
+                    id -> UserFlashcardProgress.newCard(user, flashcards.get(id), now));
+        }
+        Contribution before = progressByFlashcardId.values().stream()
+                .map(Contribution::of)
+                .reduce(Contribution.NONE, Contribution::plus);
+
+        // Aplicar las revisiones en orden
+        ReviewScheduler scheduler = flashcards.isEmpty() ? null
+                : reviewSchedulerRegistry.forCollection(flashcards.values().iterator().next().getCollection());
+        List<FlashcardReview> reviewRows = new ArrayList<>(reviews.size());
+        for (FlashcardReviewDto reviewDto : reviews) {
+            Flashcard flashcard = flashcards.get(reviewDto.getFlashcardId());
+            UserFlashcardProgress progress = progressByFlashcardId.get(flashcard.getId());
+
+            applyReview(progress, reviewDto.getResult(), reviewDto.getTimeSpentMs(), now, scheduler);
+
+            reviewRows.add(FlashcardReview.builder()
+                    .flashcard(flashcard)
+                    .result(reviewDto.getResult())
+                    .timeSpentMs(reviewDto.getTimeSpentMs())
+                    .reviewedAt(now)
+                    .userId(userId)
+                    .build());
+        }
+
+        reviewRepository.insertAll(reviewRows);
+        userFlashcardProgressRepository.saveAll(progressByFlashcardId.values());
+        progressByFlashcardId.values().forEach(progress -> dueCardIndex.update(userId, collectionId,
+                progress.getFlashcard().getId(), progress.getNextReviewDate()));
+        userCollectionStatsService.recordChange(userId, collectionId, before, progressByFlashcardId.values().stream()
+                .map(Contribution::of)
+                .reduce(Contribution.NONE, Contribution::plus));
+
+        if (!reviews.isEmpty()) {
+            updateUserStudyStreaks(user, flashcards.values().iterator().next().getCollection());
+        }
+
+        return flashcardIds.stream()
+                .map(id -> convertToDto(flashcards.get(id), progressByFlashcardId.get(id)))
+                .collect(Collectors.toList());
+    }
+
+    // Aplica una revisión al progreso con la estrategia de planificación indicada
+    private void applyReview(UserFlashcardProgress progress, String result, Long timeSpentMs, LocalDateTime now,
+            ReviewScheduler scheduler) {
+        // Intervalo anterior y tiempo transcurrido desde la última revisión
+        long previousIntervalMinutes = ReviewScheduler.minutesBetween(progress.getLastReviewedAt(),
+                progress.getNextReviewDate());
+        long elapsedMinutes = ReviewScheduler.minutesBetween(progress.getLastReviewedAt(), now);
 
         // Actualizar la fecha de última revisión
         progress.setLastReviewedAt(now);
@@ -619,21 +710,21 @@ public class FlashcardService {
         int quality;
         switch (result) {
             case "MAL":
-                quality = 0;
+                quality = ReviewScheduler.QUALITY_MAL;
                 progress.setKnowledgeLevel(KnowledgeLevel.MAL);
                 progress.setFailureCount(progress.getFailureCount() + 1);
                 break;
             case "REGULAR":
-                quality = 3;
+                quality = ReviewScheduler.QUALITY_REGULAR;
                 progress.setKnowledgeLevel(KnowledgeLevel.REGULAR);
                 break;
             case "BIEN":
-                quality = 5;
+                quality = ReviewScheduler.QUALITY_BIEN;
                 progress.setKnowledgeLevel(KnowledgeLevel.BIEN);
                 progress.setSuccessCount(progress.getSuccessCount() + 1);
                 break;
             default:
-                quality = 0;
+                quality = ReviewScheduler.QUALITY_MAL;
                 progress.setKnowledgeLevel(KnowledgeLevel.MAL);
                 break;
         }
@@ -641,34 +732,13 @@ public class FlashcardService {
         // Incrementar contador de revisiones
         progress.setReviewCount(progress.getReviewCount() + 1);
 
-        // Aplicar algoritmo SM-2
-        if (quality < 3) {
-            // Si la respuesta es mala, reiniciar
-            progress.setRepetitionLevel(0);
-            progress.setNextReviewDate(now.plusHours(1)); // Revisar en 1 hora
-        } else {
-            // Calcular nuevo factor de facilidad (EF)
-            double oldEF = progress.getEaseFactor();
-            double newEF = Math.max(1.3, oldEF + (0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02)));
-            progress.setEaseFactor(newEF);
-
-            // Calcular próximo intervalo
-            int repetitionLevel = progress.getRepetitionLevel();
-            int interval;
-
-            if (repetitionLevel == 0) {
-                interval = 1; // 1 día
-            } else if (repetitionLevel == 1) {
-                interval = 6; // 6 días
-            } else {
-                // Para niveles mayores, multiplicar por el factor de facilidad
-                interval = Math.round((float) (repetitionLevel * progress.getEaseFactor()));
-            }
-
-            // Incrementar nivel de repetición
-            progress.setRepetitionLevel(repetitionLevel + 1);
-            progress.setNextReviewDate(now.plusDays(interval));
-        }
+        // Calcular repeticiones, factor de facilidad y próxima revisión
+        int repetitionLevel = progress.getRepetitionLevel();
+        double easeFactor = progress.getEaseFactor();
+        progress.setRepetitionLevel(scheduler.nextRepetitionLevel(quality, repetitionLevel));
+        progress.setEaseFactor(scheduler.nextEaseFactor(quality, repetitionLevel, easeFactor));
+        progress.setNextReviewDate(now.plusMinutes(scheduler.nextIntervalMinutes(
+                quality, repetitionLevel, easeFactor, previousIntervalMinutes, elapsedMinutes)));
 
         // Actualizar tiempo de estudio
         if (timeSpentMs != null) {
@@ -678,12 +748,6 @@ public class FlashcardService {
             }
             progress.setStudyTimeInSeconds(studyTimeInSeconds + (int) (timeSpentMs / 1000));
         }
-
-        // Guardar el progreso
-        userFlashcardProgressRepository.save(progress);
-
-        // Actualizar rachas de estudio del usuario
-        updateUserStudyStreaks(user, flashcard.getCollection());
     }
 
     /**
@@ -751,68 +815,53 @@ public class FlashcardService {
                 .findByFlashcardIdAndUserId(flashcard.getId(), flashcardDto.getCreatedBy().getId())
                 .orElse(null);
         if (userFlashcardProgress != null) {
+            Contribution before = Contribution.of(userFlashcardProgress);
             userFlashcardProgress.setEaseFactor(2.5);
             userFlashcardProgress.setRepetitionLevel(0);
             userFlashcardProgress.setNextReviewDate(LocalDateTime.now());
             userFlashcardProgress.setStudyTimeInSeconds(0);
             userFlashcardProgressRepository.save(userFlashcardProgress);
+            dueCardIndex.update(flashcardDto.getCreatedBy().getId(), flashcard.getCollection().getId(),
+                    flashcard.getId(), userFlashcardProgress.getNextReviewDate());
+            userCollectionStatsService.recordChange(flashcardDto.getCreatedBy().getId(),
+                    flashcard.getCollection().getId(), before, Contribution.of(userFlashcardProgress));
         }
     }
 
-    private FlashcardDto convertToDto(Flashcard flashcard, UserFlashcardProgress userFlashcardProgress) {
+    /**
+     * Convierte una flashcard a DTO con el progreso ya cargado de un usuario, que
+     * puede ser nulo si todavía no la ha estudiado.
+     */
+    public FlashcardDto convertToDto(Flashcard flashcard, UserFlashcardProgress userFlashcardProgress) {
         FlashcardDto dto = new FlashcardDto();
         dto.setId(flashcard.getId());
         dto.setQuestion(flashcard.getQuestion());
         dto.setAnswer(flashcard.getAnswer());
         dto.setDifficulty(flashcard.getDifficulty());
         dto.setCollectionId(flashcard.getCollection().getId());
+        dto.setStatus(FlashcardStudyStatus.of(userFlashcardProgress, FlashcardStudyStatus.tomorrow()));
+        // Sin progreso del usuario la tarjeta todavía no se ha estudiado
+        if (userFlashcardProgress == null) {
+            return dto;
+        }
         dto.setKnowledgeLevel(userFlashcardProgress.getKnowledgeLevel());
         dto.setNextReviewDate(userFlashcardProgress.getNextReviewDate());
         dto.setLastReviewedAt(userFlashcardProgress.getLastReviewedAt());
-        if (userFlashcardProgress.getNextReviewDate().toLocalDate() != null
-                && userFlashcardProgress.getNextReviewDate().toLocalDate().isAfter(LocalDate.now())) {
-            dto.setStatus("completada");
-        } else if (userFlashcardProgress.getNextReviewDate() == null) {
-            dto.setStatus("sinHacer");
-        } else {
-            dto.setStatus("revision");
-        }
         dto.setRepetitionLevel(userFlashcardProgress.getRepetitionLevel());
         dto.setEaseFactor(userFlashcardProgress.getEaseFactor());
         dto.setReviews(userFlashcardProgress.getReviews());
         dto.setReviewCount(userFlashcardProgress.getReviewCount());
         dto.setSuccessCount(userFlashcardProgress.getSuccessCount());
         dto.setFailureCount(userFlashcardProgress.getFailureCount());
+        dto.setStudyTimeInSeconds(userFlashcardProgress.getStudyTimeInSeconds());
         return dto;
     }
 
     public FlashcardDto convertToDto(Flashcard flashcard, String userId) {
-        Optional<UserFlashcardProgress> userFlashcardProgress = userFlashcardProgressRepository
-                .findByFlashcardIdAndUserId(flashcard.getId(), userId);
-        FlashcardDto dto = new FlashcardDto();
-        dto.setId(flashcard.getId());
-        dto.setQuestion(flashcard.getQuestion());
-        dto.setAnswer(flashcard.getAnswer());
-        dto.setDifficulty(flashcard.getDifficulty());
-        dto.setCollectionId(flashcard.getCollection().getId());
-        dto.setKnowledgeLevel(userFlashcardProgress.get().getKnowledgeLevel());
-        dto.setNextReviewDate(userFlashcardProgress.get().getNextReviewDate());
-        dto.setLastReviewedAt(userFlashcardProgress.get().getLastReviewedAt());
-        if (userFlashcardProgress.get().getNextReviewDate() != null
-                && userFlashcardProgress.get().getNextReviewDate().toLocalDate().isAfter(LocalDate.now())) {
-            dto.setStatus("completada");
-        } else if (userFlashcardProgress.get().getNextReviewDate() == null) {
-            dto.setStatus("sinHacer");
-        } else {
-            dto.setStatus("revision");
-        }
-        dto.setRepetitionLevel(userFlashcardProgress.get().getRepetitionLevel());
-        dto.setEaseFactor(userFlashcardProgress.get().getEaseFactor());
-        dto.setReviews(userFlashcardProgress.get().getReviews());
-        dto.setReviewCount(userFlashcardProgress.get().getReviewCount());
-        dto.setSuccessCount(userFlashcardProgress.get().getSuccessCount());
-        dto.setFailureCount(userFlashcardProgress.get().getFailureCount());
-        return dto;
+        UserFlashcardProgress userFlashcardProgress = userFlashcardProgressRepository
+                .findByFlashcardIdAndUserId(flashcard.getId(), userId)
+                .orElse(null);
+        return convertToDto(flashcard, userFlashcardProgress);
     }
 
 }
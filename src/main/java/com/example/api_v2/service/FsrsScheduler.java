@@ -0,0 +1,116 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.SchedulerType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Planificación al estilo FSRS (Free Spaced Repetition Scheduler, pesos por
+ * defecto de FSRS-4.5) con una retención objetivo del 90 %.
+ * 
+ * El modelo no necesita columnas nuevas: la estabilidad es el intervalo
+ * programado en la revisión anterior (con retención del 90 % ambos coinciden)
+ * y la dificultad (1-10) se guarda en el factor de facilidad mediante una
+ * correspondencia lineal en la que EF 2.5 equivale a la dificultad inicial de
+ * una respuesta "Good" y EF 1.3 a la dificultad máxima.
+ * 
+ * Calificaciones: MAL (0-2) es "Again", REGULAR (3) es "Hard" y BIEN (4-5) es "Good".
+ */
+@Component
+public class FsrsScheduler implements ReviewScheduler {
+
+    private static final double[] W = {
+            0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474,
+            0.1367, 1.0461, 2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755 };
+
+    private static final double DECAY = -0.5;
+    private static final double FACTOR = 19.0 / 81.0;
+
+    private static final double MIN_DIFFICULTY = 1.0;
+    private static final double MAX_DIFFICULTY = 10.0;
+    private static final double DEFAULT_EASE_FACTOR = 2.5;
+    private static final double MIN_EASE_FACTOR = 1.3;
+    // Dificultad por cada punto de factor de facilidad
+    private static final double DIFFICULTY_PER_EASE = (MAX_DIFFICULTY - W[4]) / (DEFAULT_EASE_FACTOR - MIN_EASE_FACTOR);
+
+    private static final long MIN_FAILURE_INTERVAL_MINUTES = 10;
+    private static final long MAX_INTERVAL_MINUTES = 36500 * MINUTES_PER_DAY;
+
+    @Override
+    public SchedulerType getType() {
+        return SchedulerType.FSRS;
+    }
+
+    @Override
+    public int nextRepetitionLevel(int quality, int repetitionLevel) {
+        return quality < 3 ? 0 : repetitionLevel + 1;
+    }
+
+    @Override
+    public double nextEaseFactor(int quality, int repetitionLevel, double easeFactor) {
+        int grade = grade(quality);
+        double difficulty = difficulty(easeFactor) - W[6] * (grade - 3);
+        // Reversión a la media hacia la dificultad inicial de una respuesta "Easy"
+        difficulty = W[7] * initialDifficulty(4) + (1 - W[7]) * difficulty;
+        return easeFactor(clampDifficulty(difficulty));
+    }
+
+    @Override
+    public long nextIntervalMinutes(int quality, int repetitionLevel, double easeFactor,
+            long previousIntervalMinutes, long elapsedMinutes) {
+        int grade = grade(quality);
+        double stability;
+        if (previousIntervalMinutes <= 0) {
+            // Primera revisión de la tarjeta
+            stability = W[grade - 1];
+        } else {
+            double previousStability = (double) previousIntervalMinutes / MINUTES_PER_DAY;
+            double elapsedDays = (double) elapsedMinutes / MINUTES_PER_DAY;
+            double retrievability = Math.pow(1 + FACTOR * elapsedDays / previousStability, DECAY);
+            double difficulty = difficulty(easeFactor);
+            stability = grade == 1
+                    ? forgetStability(difficulty, previousStability, retrievability)
+                    : recallStability(difficulty, previousStability, retrievability, grade);
+        }
+
+        // Con retención objetivo del 90 % el intervalo coincide con la estabilidad
+        long minutes = Math.round(stability * MINUTES_PER_DAY);
+        long minimum = grade == 1 ? MIN_FAILURE_INTERVAL_MINUTES : MINUTES_PER_DAY;
+        return Math.min(MAX_INTERVAL_MINUTES, Math.max(minimum, minutes));
+    }
+
+    private static double recallStability(double difficulty, double stability, double retrievability, int grade) {
+        double hardPenalty = grade == 2 ? W[15] : 1;
+        double easyBonus = grade == 4 ? W[16] : 1;
+        return stability * (1 + Math.exp(W[8]) * (11 - difficulty) * Math.pow(stability, -W[9])
+                * (Math.exp((1 - retrievability) * W[10]) - 1) * hardPenalty * easyBonus);
+    }
+
+    private static double forgetStability(double difficulty, double stability, double retrievability) {
+        double next = W[11] * Math.pow(difficulty, -W[12]) * (Math.pow(stability + 1, W[13]) - 1)
+                * Math.exp((1 - retrievability) * W[14]);
+        return Math.min(next, stability);
+    }
+
+    private static int grade(int quality) {
+        if (quality < 3) {
+            return 1;
+        }
+        return quality == 3 ? 2 : 3;
+    }
+
+    private static double initialDifficulty(int grade) {
+        return W[4] - (grade - 3) * W[5];
+    }
+
+    private static double difficulty(double easeFactor) {
+        return clampDifficulty(W[4] + (DEFAULT_EASE_FACTOR - easeFactor) * DIFFICULTY_PER_EASE);
+    }
+
+    private static double easeFactor(double difficulty) {
+        return DEFAULT_EASE_FACTOR - (difficulty - W[4]) / DIFFICULTY_PER_EASE;
+    }
+
+    private static double clampDifficulty(double difficulty) {
+        return Math.min(MAX_DIFFICULTY, Math.max(MIN_DIFFICULTY, difficulty));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.SchedulerType;
+import org.springframework.stereotype.Component;
+
+/**
+ * SM-2 tal y como lo ha aplicado siempre FlashcardService: un fallo se vuelve
+ * a revisar en una hora sin tocar el factor de facilidad, y a partir de la
+ * tercera repetición el intervalo es repeticiones × factor de facilidad.
+ * Es la planificación por defecto de los workspaces.
+ */
+@Component
+public class LegacySm2Scheduler implements ReviewScheduler {
+
+    private static final long FAILURE_INTERVAL_MINUTES = 60;
+
+    @Override
+    public SchedulerType getType() {
+        return SchedulerType.LEGACY_SM2;
+    }
+
+    @Override
+    public int nextRepetitionLevel(int quality, int repetitionLevel) {
+        return quality < 3 ? 0 : repetitionLevel + 1;
+    }
+
+    @Override
+    public double nextEaseFactor(int quality, int repetitionLevel, double easeFactor) {
+        if (quality < 3) {
+            return easeFactor;
+        }
+        return Math.max(1.3, easeFactor + (0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02)));
+    }
+
+    @Override
+    public long nextIntervalMinutes(int quality, int repetitionLevel, double easeFactor,
+            long previousIntervalMinutes, long elapsedMinutes) {
+        if (quality < 3) {
+            return FAILURE_INTERVAL_MINUTES;
+        }
+        int interval;
+        if (repetitionLevel == 0) {
+            interval = 1;
+        } else if (repetitionLevel == 1) {
+            interval = 6;
+        } else {
+            interval = Math.round((float) (repetitionLevel * nextEaseFactor(quality, repetitionLevel, easeFactor)));
+        }
+        return interval * MINUTES_PER_DAY;
+    }
+}
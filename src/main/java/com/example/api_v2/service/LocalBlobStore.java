@@ -0,0 +1,125 @@
+package com.example.api_v2.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BlobStore} sobre el sistema de ficheros local. La clave es el SHA-256
+ * del contenido y cada fichero se guarda en root/&lt;dos primeros caracteres de
+ * la clave&gt;/&lt;clave&gt; para no acumular todos en un mismo directorio.
+ */
+@Slf4j
+@Component
+public class LocalBlobStore implements BlobStore {
+
+    // Bytes por llamada a transferFrom al escribir; transferTo envía el resto de una vez
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    // Ficheros guardados antes de usar el hash como clave
+    private static final Pattern LEGACY_KEY =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final Path root;
+
+    public LocalBlobStore(@Value("${documents.storage.local.root:data/blobs}") String root) {
+        this.root = Path.of(root).toAbsolutePath();
+    }
+
+    @Override
+    public StoredBlob store(InputStream content) throws IOException {
+        Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(content, digest));
+                    FileChannel target = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long copied;
+                while ((copied = target.transferFrom(source, size, TRANSFER_CHUNK)) > 0) {
+                    size += copied;
+                }
+            }
+
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path path = path(key);
+            if (Files.exists(path)) {
+                log.debug("El fichero {} ya estaba en el almacén", key);
+            } else {
+                // El fichero solo aparece con su clave cuando está completo; si dos subidas
+                // idénticas llegan a la vez, la segunda sustituye a la primera con el mismo contenido
+                Files.createDirectories(path.getParent());
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredBlob(key, size, key);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel source = FileChannel.open(path(key), StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long sent = source.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    throw new IOException("El fichero " + key + " es más corto de lo esperado");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(path(key));
+    }
+
+    @Override
+    public ReadableByteChannel open(String key) throws IOException {
+        return FileChannel.open(path(key), StandardOpenOption.READ);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (Files.deleteIfExists(path(key))) {
+            log.debug("Fichero {} eliminado del almacén", key);
+        }
+    }
+
+    private Path path(String key) {
+        // Las claves las genera store(); cualquier otra cosa podría salir de root
+        if (!KEY.matcher(key).matches() && !LEGACY_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Clave de fichero no válida: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Todas las JVM incluyen SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.KnowledgeLevel;
+import com.example.api_v2.model.SchedulerType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Estrategia de planificación de repasos.
+ * 
+ * Las implementaciones solo trabajan con tipos primitivos y no reservan
+ * memoria, por lo que se pueden invocar en los bucles de revisión por lotes sin
+ * coste adicional. Todos los parámetros describen el estado ANTERIOR a la
+ * revisión:
+ * <ul>
+ * <li>quality: calificación SM-2 de 0 a 5</li>
+ * <li>repetitionLevel: repeticiones correctas consecutivas</li>
+ * <li>easeFactor: factor de facilidad</li>
+ * <li>previousIntervalMinutes: intervalo programado en la revisión anterior (0 si no hay)</li>
+ * <li>elapsedMinutes: minutos transcurridos desde la revisión anterior (0 si no hay)</li>
+ * </ul>
+ */
+public interface ReviewScheduler {
+
+    int QUALITY_MAL = 0;
+    int QUALITY_REGULAR = 3;
+    int QUALITY_BIEN = 5;
+
+    long MINUTES_PER_DAY = 24 * 60;
+
+    SchedulerType getType();
+
+    int nextRepetitionLevel(int quality, int repetitionLevel);
+
+    double nextEaseFactor(int quality, int repetitionLevel, double easeFactor);
+
+    long nextIntervalMinutes(int quality, int repetitionLevel, double easeFactor,
+            long previousIntervalMinutes, long elapsedMinutes);
+
+    /**
+     * Calificación SM-2 asociada a un nivel de conocimiento. Un nivel
+     * desconocido se trata como un fallo.
+     */
+    static int quality(KnowledgeLevel knowledgeLevel) {
+        if (knowledgeLevel == KnowledgeLevel.BIEN) {
+            return QUALITY_BIEN;
+        }
+        if (knowledgeLevel == KnowledgeLevel.REGULAR) {
+            return QUALITY_REGULAR;
+        }
+        return QUALITY_MAL;
+    }
+
+    /**
+     * Minutos entre dos instantes, o 0 si falta alguno o el intervalo es negativo.
+     */
+    static long minutesBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            return 0;
+        }
+        return Math.max(0, Duration.between(from, to).toMinutes());
+    }
+}
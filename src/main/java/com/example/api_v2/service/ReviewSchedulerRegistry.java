@@ -0,0 +1,38 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.SchedulerType;
+import com.example.api_v2.model.Workspace;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resuelve la estrategia de planificación configurada en cada workspace.
+ */
+@Component
+public class ReviewSchedulerRegistry {
+
+    private final Map<SchedulerType, ReviewScheduler> schedulers = new EnumMap<>(SchedulerType.class);
+
+    public ReviewSchedulerRegistry(List<ReviewScheduler> schedulers) {
+        for (ReviewScheduler scheduler : schedulers) {
+            this.schedulers.put(scheduler.getType(), scheduler);
+        }
+    }
+
+    public ReviewScheduler forType(SchedulerType type) {
+        ReviewScheduler scheduler = schedulers.get(type != null ? type : SchedulerType.LEGACY_SM2);
+        if (scheduler == null) {
+            throw new IllegalStateException("No hay planificador registrado para " + type);
+        }
+        return scheduler;
+    }
+
+    public ReviewScheduler forCollection(Collection collection) {
+        Workspace workspace = collection != null ? collection.getWorkspace() : null;
+        return forType(workspace != null ? workspace.getSchedulerType() : null);
+    }
+}
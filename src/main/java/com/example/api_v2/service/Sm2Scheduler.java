@@ -0,0 +1,45 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.SchedulerType;
+import org.springframework.stereotype.Component;
+
+/**
+ * SM-2 fiel al algoritmo original de SuperMemo: I(1) = 1 día, I(2) = 6 días e
+ * I(n) = I(n-1) × EF. Un fallo reinicia las repeticiones sin modificar el
+ * factor de facilidad y vuelve a programar la tarjeta al día siguiente.
+ */
+@Component
+public class Sm2Scheduler implements ReviewScheduler {
+
+    @Override
+    public SchedulerType getType() {
+        return SchedulerType.SM2;
+    }
+
+    @Override
+    public int nextRepetitionLevel(int quality, int repetitionLevel) {
+        return quality < 3 ? 0 : repetitionLevel + 1;
+    }
+
+    @Override
+    public double nextEaseFactor(int quality, int repetitionLevel, double easeFactor) {
+        if (quality < 3) {
+            return easeFactor;
+        }
+        return Math.max(1.3, easeFactor + (0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02)));
+    }
+
+    @Override
+    public long nextIntervalMinutes(int quality, int repetitionLevel, double easeFactor,
+            long previousIntervalMinutes, long elapsedMinutes) {
+        if (quality < 3 || repetitionLevel == 0) {
+            return MINUTES_PER_DAY;
+        }
+        if (repetitionLevel == 1) {
+            return 6 * MINUTES_PER_DAY;
+        }
+        // Intervalo anterior en días completos (al menos uno)
+        long previousDays = Math.max(1, Math.round((double) previousIntervalMinutes / MINUTES_PER_DAY));
+        return Math.round(previousDays * nextEaseFactor(quality, repetitionLevel, easeFactor)) * MINUTES_PER_DAY;
+    }
+}
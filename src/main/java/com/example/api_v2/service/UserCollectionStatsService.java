@@ -0,0 +1,252 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.CollectionStatsTotalsDto;
+import com.example.api_v2.dto.CollectionStatsWindowsDto;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.KnowledgeLevel;
+import com.example.api_v2.model.UserCollectionStats;
+import com.example.api_v2.model.UserFlashcardProgress;
+import com.example.api_v2.repository.UserCollectionStatsRepository;
+import com.example.api_v2.repository.UserFlashcardProgressRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mantiene las estadísticas precalculadas de cada usuario en cada colección.
+ * 
+ * Cada escritura del progreso aplica la diferencia entre la contribución de la
+ * fila antes y después del cambio con un UPDATE incremental. Si la fila de
+ * estadísticas todavía no existe se calcula a partir de los datos la primera
+ * vez que se consulta. La conciliación periódica recalcula todas las filas y
+ * registra cualquier desviación; cada fila se recalcula con la fila bloqueada
+ * para no pisar los incrementos que lleguen mientras tanto.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserCollectionStatsService {
+
+    private static final int RECONCILE_PAGE_SIZE = 500;
+
+    private final UserCollectionStatsRepository userCollectionStatsRepository;
+    private final UserFlashcardProgressRepository userFlashcardProgressRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Lo que aporta una fila de progreso a las estadísticas de su colección.
+     */
+    public record Contribution(long totalFlashcards, long bienCount, long regularCount, long malCount,
+            long sinNivelCount, long totalCreadas, long totalRevisadas, long studySeconds,
+            long flashcardsWithStudyTime) {
+
+        public static final Contribution NONE = new Contribution(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+        public static Contribution of(UserFlashcardProgress progress) {
+            KnowledgeLevel level = progress.getKnowledgeLevel();
+            Flashcard flashcard = progress.getFlashcard();
+            boolean createdByUser = flashcard != null && flashcard.getCreatedBy() != null
+                    && progress.getUser() != null
+                    && flashcard.getCreatedBy().getId().equals(progress.getUser().getId());
+            Integer studyTime = progress.getStudyTimeInSeconds();
+            boolean hasStudyTime = studyTime != null && studyTime > 0;
+            return new Contribution(
+                    1,
+                    level == KnowledgeLevel.BIEN ? 1 : 0,
+                    level == KnowledgeLevel.REGULAR ? 1 : 0,
+                    level == KnowledgeLevel.MAL ? 1 : 0,
+                    level == null ? 1 : 0,
+                    createdByUser ? 1 : 0,
+                    progress.getReviewCount() != null ? progress.getReviewCount() : 0,
+                    hasStudyTime ? studyTime : 0,
+                    hasStudyTime ? 1 : 0);
+        }
+
+        public Contribution plus(Contribution other) {
+            return new Contribution(
+                    totalFlashcards + other.totalFlashcards,
+                    bienCount + other.bienCount,
+                    regularCount + other.regularCount,
+                    malCount + other.malCount,
+                    sinNivelCount + other.sinNivelCount,
+                    totalCreadas + other.totalCreadas,
+                    totalRevisadas + other.totalRevisadas,
+                    studySeconds + other.studySeconds,
+                    flashcardsWithStudyTime + other.flashcardsWithStudyTime);
+        }
+
+        public Contribution minus(Contribution other) {
+            return new Contribution(
+                    totalFlashcards - other.totalFlashcards,
+                    bienCount - other.bienCount,
+                    regularCount - other.regularCount,
+                    malCount - other.malCount,
+                    sinNivelCount - other.sinNivelCount,
+                    totalCreadas - other.totalCreadas,
+                    totalRevisadas - other.totalRevisadas,
+                    studySeconds - other.studySeconds,
+                    flashcardsWithStudyTime - other.flashcardsWithStudyTime);
+        }
+
+        public boolean isZero() {
+            return equals(NONE);
+        }
+    }
+
+    /**
+     * Aplica a las estadísticas del usuario la diferencia entre dos
+     * contribuciones. Si la fila no existe no se hace nada: se calculará
+     * completa cuando se consulte.
+     */
+    public void recordChange(String userId, Long collectionId, Contribution before, Contribution after) {
+        Contribution delta = after.minus(before);
+        if (delta.isZero()) {
+            return;
+        }
+        userCollectionStatsRepository.applyDelta(userId, collectionId,
+                delta.totalFlashcards(), delta.bienCount(), delta.regularCount(), delta.malCount(),
+                delta.sinNivelCount(), delta.totalCreadas(), delta.totalRevisadas(), delta.studySeconds(),
+                delta.flashcardsWithStudyTime());
+    }
+
+    /**
+     * Devuelve la fila de estadísticas del usuario en la colección, calculándola
+     * y guardándola si todavía no existe.
+     */
+    public UserCollectionStats getOrCompute(String userId, Long collectionId) {
+        return userCollectionStatsRepository.findByUserIdAndCollectionId(userId, collectionId)
+                .orElseGet(() -> {
+                    UserCollectionStats stats = new UserCollectionStats();
+                    stats.setUserId(userId);
+                    stats.setCollectionId(collectionId);
+                    copyTotals(userFlashcardProgressRepository.computeStatsTotals(collectionId, userId), stats);
+                    try {
+                        return userCollectionStatsRepository.save(stats);
+                    } catch (DataIntegrityViolationException e) {
+                        // Otra petición la ha creado a la vez
+                        return userCollectionStatsRepository.findByUserIdAndCollectionId(userId, collectionId)
+                                .orElseThrow(() -> e);
+                    }
+                });
+    }
+
+    /**
+     * Flashcards creadas y revisadas hoy y en los últimos 7 y 30 días. Estas
+     * ventanas dependen de la fecha actual, por lo que no se precalculan.
+     */
+    public CollectionStatsWindowsDto getActivityWindows(String userId, Long collectionId, LocalDateTime now) {
+        return userFlashcardProgressRepository.computeStatsWindows(collectionId, userId,
+                now.toLocalDate().atStartOfDay(),
+                now.toLocalDate().minusDays(7).atStartOfDay(),
+                now.toLocalDate().minusDays(30).atStartOfDay());
+    }
+
+    /**
+     * Descarta las estadísticas de una colección; se recalcularán bajo demanda.
+     */
+    public void invalidateCollection(Long collectionId) {
+        userCollectionStatsRepository.deleteByCollectionId(collectionId);
+    }
+
+    /**
+     * Recalcula todas las filas de estadísticas desde los datos de progreso,
+     * corrige las que se hayan desviado y devuelve cuántas lo estaban.
+     */
+    @Scheduled(cron = "${flashcards.stats.reconcile-cron:0 30 3 * * *}")
+    public int reconcileAll() {
+        int drifted = 0;
+        int checked = 0;
+        Page<UserCollectionStats> page;
+        int pageNumber = 0;
+        do {
+            page = userCollectionStatsRepository.findAll(
+                    PageRequest.of(pageNumber++, RECONCILE_PAGE_SIZE, Sort.by("id")));
+            for (UserCollectionStats stats : page.getContent()) {
+                checked++;
+                if (reconcile(stats)) {
+                    drifted++;
+                }
+            }
+        } while (page.hasNext());
+
+        if (drifted > 0) {
+            log.warn("Conciliación de estadísticas: {} de {} filas desviadas y corregidas", drifted, checked);
+        } else {
+            log.info("Conciliación de estadísticas: {} filas sin desviaciones", checked);
+        }
+        return drifted;
+    }
+
+    // Recalcula una fila y la corrige si no coincide con los datos. La fila se
+    // bloquea antes de contar el progreso: un repaso que ya ha aplicado su
+    // incremento se ve en el recuento, y uno posterior espera y se suma después.
+    boolean reconcile(UserCollectionStats row) {
+        Boolean drifted = new TransactionTemplate(transactionManager).execute(tx -> {
+            UserCollectionStats stats = userCollectionStatsRepository.findByIdForUpdate(row.getId()).orElse(null);
+            if (stats == null) {
+                // Invalidada mientras tanto; se recalculará bajo demanda
+                return false;
+            }
+            CollectionStatsTotalsDto totals = userFlashcardProgressRepository
+                    .computeStatsTotals(stats.getCollectionId(), stats.getUserId());
+            UserCollectionStats expected = new UserCollectionStats();
+            copyTotals(totals, expected);
+            if (sameTotals(stats, expected)) {
+                return false;
+            }
+
+            log.warn("Estadísticas desviadas para usuario {} en colección {}: total {} -> {}, bien {} -> {}, regular {} -> {}, "
+                            + "mal {} -> {}, sin nivel {} -> {}, creadas {} -> {}, revisadas {} -> {}, tiempo {} -> {}",
+                    stats.getUserId(), stats.getCollectionId(),
+                    stats.getTotalFlashcards(), expected.getTotalFlashcards(),
+                    stats.getBienCount(), expected.getBienCount(),
+                    stats.getRegularCount(), expected.getRegularCount(),
+                    stats.getMalCount(), expected.getMalCount(),
+                    stats.getSinNivelCount(), expected.getSinNivelCount(),
+                    stats.getTotalCreadas(), expected.getTotalCreadas(),
+                    stats.getTotalRevisadas(), expected.getTotalRevisadas(),
+                    stats.getStudySeconds(), expected.getStudySeconds());
+            copyTotals(totals, stats);
+            userCollectionStatsRepository.save(stats);
+            return true;
+        });
+        return Boolean.TRUE.equals(drifted);
+    }
+
+    private static void copyTotals(CollectionStatsTotalsDto totals, UserCollectionStats stats) {
+        stats.setTotalFlashcards(valueOf(totals.getTotalFlashcards()));
+        stats.setBienCount(valueOf(totals.getBienCount()));
+        stats.setRegularCount(valueOf(totals.getRegularCount()));
+        stats.setMalCount(valueOf(totals.getMalCount()));
+        stats.setSinNivelCount(valueOf(totals.getSinNivelCount()));
+        stats.setTotalCreadas(valueOf(totals.getTotalCreadas()));
+        stats.setTotalRevisadas(valueOf(totals.getTotalRevisadas()));
+        stats.setStudySeconds(valueOf(totals.getStudySeconds()));
+        stats.setFlashcardsWithStudyTime(valueOf(totals.getFlashcardsWithStudyTime()));
+    }
+
+    private static boolean sameTotals(UserCollectionStats a, UserCollectionStats b) {
+        return a.getTotalFlashcards() == b.getTotalFlashcards()
+                && a.getBienCount() == b.getBienCount()
+                && a.getRegularCount() == b.getRegularCount()
+                && a.getMalCount() == b.getMalCount()
+                && a.getSinNivelCount() == b.getSinNivelCount()
+                && a.getTotalCreadas() == b.getTotalCreadas()
+                && a.getTotalRevisadas() == b.getTotalRevisadas()
+                && a.getStudySeconds() == b.getStudySeconds()
+                && a.getFlashcardsWithStudyTime() == b.getFlashcardsWithStudyTime();
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0;
+    }
+}
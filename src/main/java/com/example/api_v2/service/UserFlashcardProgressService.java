@@ -1,11 +1,15 @@
 package com.example.api_v2.service;
 
 import com.example.api_v2.dto.UserFlashcardProgressDto;
+import com.example.api_v2.exception.ErrorUtils;
 import com.example.api_v2.model.KnowledgeLevel;
 import com.example.api_v2.model.UserFlashcardProgress;
 import com.example.api_v2.model.UserStats;
+import com.example.api_v2.repository.FlashcardRepository;
 import com.example.api_v2.repository.UserFlashcardProgressRepository;
+import com.example.api_v2.repository.UserRepository;
 import com.example.api_v2.repository.UserStatsRepository;
+import com.example.api_v2.service.UserCollectionStatsService.Contribution;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cglib.core.Local;
@@ -14,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 @Service
 @RequiredArgsConstructor
@@ -21,64 +26,86 @@ import java.util.ArrayList;
 public class UserFlashcardProgressService {
 
     private final UserFlashcardProgressRepository userFlashcardProgressRepository;
+    private final FlashcardRepository flashcardRepository;
+    private final UserRepository userRepository;
     private final UserStatsRepository userStatsRepository;
+    private final DueCardIndex dueCardIndex;
+    private final ReviewSchedulerRegistry reviewSchedulerRegistry;
+    private final UserCollectionStatsService userCollectionStatsService;
 
     public UserFlashcardProgressDto updateProgress(UserFlashcardProgressDto progressDto) {
-      
-        UserFlashcardProgress progress = userFlashcardProgressRepository.findByFlashcardIdAndUserId(progressDto.getFlashcardId(), progressDto.getUserId())
-                .orElseThrow(() -> new EntityNotFoundException("UserFlashcardProgress not found"));
+        KnowledgeLevel knowledgeLevel = parseReviewResult(progressDto.getReviewResult());
 
-        // Aplicar el algoritmo SM-2 para determinar el nuevo intervalo de repetición
-        int newRepetitionLevel = progress.getRepetitionLevel();
-        double newEaseFactor = progress.getEaseFactor();
-        int interval = 1;
+        // El progreso se crea en el primer repaso: sin fila, la tarjeta parte del estado de tarjeta nueva
+        UserFlashcardProgress progress = userFlashcardProgressRepository.findByFlashcardIdAndUserId(progressDto.getFlashcardId(), progressDto.getUserId())
+                .orElseGet(() -> UserFlashcardProgress.newCard(
+                        userRepository.findById(progressDto.getUserId())
+                                .orElseThrow(() -> new EntityNotFoundException("User not found")),
+                        flashcardRepository.findById(progressDto.getFlashcardId())
+                                .orElseThrow(() -> new EntityNotFoundException("Flashcard not found")),
+                        LocalDateTime.now()));
 
         System.out.println("ProgressDto: " + progressDto);
 
         UserStats userStats = userStatsRepository.findByUserId(progressDto.getUserId())
                 .orElseThrow(() -> new EntityNotFoundException("User stats not found"));
 
-        if (KnowledgeLevel.BIEN.getValue().equals(progressDto.getReviewResult())) {
-            if (newRepetitionLevel == 0) {
-                interval = 1;
-            } else if (newRepetitionLevel == 1) {
-                interval = 3;
-            } else {
-                interval = (int) Math.round(newRepetitionLevel * newEaseFactor);
-            }
-            newRepetitionLevel++;
-            newEaseFactor = Math.max(1.3, newEaseFactor + 0.1);
+        Contribution before = Contribution.of(progress);
+        if (knowledgeLevel == KnowledgeLevel.BIEN) {
             userStats.setStudySeconds(userStats.getStudySeconds() + progressDto.getStudyTimeInSeconds());
             userStats.setStudiedFlashcards(userStats.getStudiedFlashcards() + 1);
-        } else if (KnowledgeLevel.REGULAR.getValue().equals(progressDto.getReviewResult())) {
-            interval = 1;
-            newEaseFactor = Math.max(1.3, newEaseFactor - 0.1);
-        } else if (KnowledgeLevel.MAL.getValue().equals(progressDto.getReviewResult())) {
-            newRepetitionLevel = 0;
-            interval = 1;
-            newEaseFactor = Math.max(1.3, newEaseFactor - 0.2);
         }
 
-        // Calcular la nueva fecha de revisión
-        LocalDateTime nextReviewDate = LocalDateTime.now().plusDays(interval);
+        // Calcular el nuevo intervalo con la estrategia de planificación del workspace
+        LocalDateTime now = LocalDateTime.now();
+        ReviewScheduler scheduler = reviewSchedulerRegistry.forCollection(progress.getCollection());
+        int quality = ReviewScheduler.quality(knowledgeLevel);
+        int repetitionLevel = progress.getRepetitionLevel();
+        double easeFactor = progress.getEaseFactor();
+        long previousIntervalMinutes = ReviewScheduler.minutesBetween(progress.getLastReviewedAt(), progress.getNextReviewDate());
+        long elapsedMinutes = ReviewScheduler.minutesBetween(progress.getLastReviewedAt(), now);
+
+        LocalDateTime nextReviewDate = now.plusMinutes(scheduler.nextIntervalMinutes(
+                quality, repetitionLevel, easeFactor, previousIntervalMinutes, elapsedMinutes));
         ArrayList<LocalDateTime> reviews = new ArrayList<>(progress.getReviews());
-        reviews.add(LocalDateTime.now());
+        reviews.add(now);
 
         // Actualizar valores en la entidad
-        progress.setRepetitionLevel(newRepetitionLevel);
-        progress.setEaseFactor(newEaseFactor);
+        progress.setRepetitionLevel(scheduler.nextRepetitionLevel(quality, repetitionLevel));
+        progress.setEaseFactor(scheduler.nextEaseFactor(quality, repetitionLevel, easeFactor));
         progress.setNextReviewDate(nextReviewDate);
-        progress.setLastReviewedAt(LocalDateTime.now());
+        progress.setLastReviewedAt(now);
         progress.setReviewCount(progress.getReviewCount() + 1);
-        progress.setKnowledgeLevel(KnowledgeLevel.fromString(progressDto.getReviewResult()));
+        progress.setKnowledgeLevel(knowledgeLevel);
         progress.setStudyTimeInSeconds(progressDto.getStudyTimeInSeconds());
         progress.setReviews(reviews);
 
 
         // Guardar cambios
         userFlashcardProgressRepository.save(progress);
+        dueCardIndex.update(progress.getUser().getId(), progress.getCollection().getId(),
+                progress.getFlashcard().getId(), nextReviewDate);
+        userCollectionStatsService.recordChange(progress.getUser().getId(), progress.getCollection().getId(),
+                before, Contribution.of(progress));
 
         // Convertir a DTO y devolver
         return progress.toDto();
     }
+
+    /**
+     * Convierte el resultado del repaso (MAL, REGULAR o BIEN, sin distinguir mayúsculas).
+     * Un valor nulo o desconocido es un error de validación, no un error interno.
+     */
+    private static KnowledgeLevel parseReviewResult(String reviewResult) {
+        if (reviewResult != null) {
+            for (KnowledgeLevel level : KnowledgeLevel.values()) {
+                if (level.getValue().equalsIgnoreCase(reviewResult.trim())) {
+                    return level;
+                }
+            }
+        }
+        ErrorUtils.throwValidationError("Resultado de repaso no válido: " + reviewResult,
+                Arrays.stream(KnowledgeLevel.values()).map(KnowledgeLevel::getValue).toList());
+        return null;
+    }
 }
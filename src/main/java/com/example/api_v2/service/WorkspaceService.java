@@ -2,24 +2,18 @@ package com.example.api_v2.service;
 
 import com.example.api_v2.dto.UserDto;
 import com.example.api_v2.dto.WorkspaceDto;
-import com.example.api_v2.model.Collection;
-import com.example.api_v2.model.Flashcard;
 import com.example.api_v2.model.PermissionType;
 import com.example.api_v2.model.User;
-import com.example.api_v2.model.UserFlashcardProgress;
 import com.example.api_v2.model.Workspace;
 import com.example.api_v2.model.WorkspaceUser;
 import com.example.api_v2.repository.UserRepository;
 import com.example.api_v2.repository.WorkspaceRepository;
 import com.example.api_v2.repository.WorkspaceUserRepository;
-import com.example.api_v2.repository.UserFlashcardProgressRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,7 +25,6 @@ public class WorkspaceService {
     private final WorkspaceRepository workspaceRepository;
     private final WorkspaceUserRepository workspaceUserRepository;
     private final UserRepository userRepository;
-    private final UserFlashcardProgressRepository userFlashcardProgressRepository;
     private final WorkspaceActivityService workspaceActivityService;
 
     public List<WorkspaceDto> getWorkspacesByUserEmail(String email) {
@@ -75,6 +68,9 @@ public class WorkspaceService {
         Workspace workspace = new Workspace();
         workspace.setName(workspaceDto.getName());
         workspace.setDescription(workspaceDto.getDescription());
+        if (workspaceDto.getSchedulerType() != null) {
+            workspace.setSchedulerType(workspaceDto.getSchedulerType());
+        }
         
         // Guardar primero el workspace para obtener un ID
         workspace = workspaceRepository.save(workspace);
@@ -110,6 +106,9 @@ public class WorkspaceService {
                 .orElseThrow(() -> new RuntimeException("Workspace not found"));
 
         workspace.setName(workspaceDto.getName());
+        if (workspaceDto.getSchedulerType() != null) {
+            workspace.setSchedulerType(workspaceDto.getSchedulerType());
+        }
 
         workspace = workspaceRepository.save(workspace);
         return convertToDto(workspace);
@@ -137,33 +136,13 @@ public class WorkspaceService {
         workspaceUserRepository.save(workspaceUser);
 
         workspace.getWorkspaceUsers().add(workspaceUser);
-        workspace = workspaceRepository.save(workspace);
+        workspaceRepository.save(workspace);
 
         // Registrar la actividad
         workspaceActivityService.logUserJoined(id, email, user.getName());
 
-        // Crear UserFlashcardProgress para el todas las flashcards de todas las colecciones
-        List<Collection> collections = workspace.getCollections().stream().collect(Collectors.toList());
-        for (Collection collection : collections) {
-            List<Flashcard> flashcards = collection.getFlashcards();
-            for (Flashcard flashcard : flashcards) {
-                UserFlashcardProgress userFlashcardProgress = UserFlashcardProgress.builder()
-                            .user(user)
-                            .flashcard(flashcard)
-                            .collection(collection)
-                            .knowledgeLevel(null)
-                            .repetitionLevel(0)
-                            .easeFactor(2.5) // Valor por defecto
-                            .nextReviewDate(LocalDateTime.now())
-                            .lastReviewedAt(LocalDateTime.now())
-                            .reviewCount(0)
-                            .successCount(0)    
-                            .failureCount(0)
-                            .reviews(new ArrayList<>())
-                            .build();
-                userFlashcardProgressRepository.save(userFlashcardProgress);
-            }
-        }
+        // No se crea progreso para las flashcards existentes: se crea en el primer
+        // repaso y, mientras no existe, la tarjeta cuenta como nueva
     }
 
     public List<UserDto> getWorkspaceUsers(Long id) {
@@ -188,6 +167,7 @@ public class WorkspaceService {
         workspaceDto.setId(workspace.getId());
         workspaceDto.setName(workspace.getName());
         workspaceDto.setDescription(workspace.getDescription());
+        workspaceDto.setSchedulerType(workspace.getSchedulerType());
         return workspaceDto;
     }
 }
\ No newline at end of file
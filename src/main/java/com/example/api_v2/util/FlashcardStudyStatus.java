@@ -0,0 +1,48 @@
+package com.example.api_v2.util;
+
+import com.example.api_v2.model.UserFlashcardProgress;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Estado de estudio de una flashcard para un usuario, tal como aparece en los
+ * listados: "sinHacer" si no tiene progreso, nivel de conocimiento o fecha de
+ * repaso; "completada" si el próximo repaso es a partir de mañana; y
+ * "revision" en otro caso.
+ *
+ * {@link #JPQL_CASE} es la misma regla para filtrar en las consultas. Usa el
+ * alias ufp para el progreso y el parámetro :tomorrow, el valor de
+ * {@link #tomorrow()}.
+ */
+public final class FlashcardStudyStatus {
+
+    public static final String SIN_HACER = "sinHacer";
+    public static final String REVISION = "revision";
+    public static final String COMPLETADA = "completada";
+
+    // Con espacios a los lados: los bloques de texto que lo rodean pierden los espacios finales
+    public static final String JPQL_CASE = " CASE "
+            + "WHEN ufp.id IS NULL OR ufp.knowledgeLevel IS NULL OR ufp.nextReviewDate IS NULL THEN '" + SIN_HACER + "' "
+            + "WHEN ufp.nextReviewDate >= :tomorrow THEN '" + COMPLETADA + "' "
+            + "ELSE '" + REVISION + "' END ";
+
+    private FlashcardStudyStatus() {
+    }
+
+    /**
+     * @param progress Progreso del usuario, nulo si todavía no ha estudiado la tarjeta
+     * @param tomorrow Inicio del día siguiente
+     */
+    public static String of(UserFlashcardProgress progress, LocalDateTime tomorrow) {
+        if (progress == null || progress.getKnowledgeLevel() == null || progress.getNextReviewDate() == null) {
+            return SIN_HACER;
+        }
+        return progress.getNextReviewDate().isBefore(tomorrow) ? REVISION : COMPLETADA;
+    }
+
+    // Un repaso desde mañana cuenta como completada
+    public static LocalDateTime tomorrow() {
+        return LocalDate.now().plusDays(1).atStartOfDay();
+    }
+}
@@ -42,13 +42,7 @@ public class PgVector implements UserType<float[]> {
         String vector = rs.getString(position);
         if (rs.wasNull() || vector == null) return null;
         
-        // Remove brackets and split by comma
-        String[] parts = vector.substring(1, vector.length() - 1).split(",");
-        float[] result = new float[parts.length];
-        for (int i = 0; i < parts.length; i++) {
-            result[i] = Float.parseFloat(parts[i].trim());
-        }
-        return result;
+        return PgVectorCodec.parse(vector);
     }
 
     @Override
@@ -59,14 +53,7 @@ public class PgVector implements UserType<float[]> {
             return;
         }
         
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < value.length; i++) {
-            if (i > 0) sb.append(",");
-            sb.append(value[i]);
-        }
-        sb.append("]");
-        
-        st.setObject(index, sb.toString(), Types.OTHER);
+        st.setObject(index, PgVectorCodec.format(value), Types.OTHER);
     }
 
     @Override
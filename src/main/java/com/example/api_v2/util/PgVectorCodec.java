@@ -0,0 +1,375 @@
+package com.example.api_v2.util;
+
+/**
+ * Conversión entre float[] y el formato de texto de pgvector ("[0.1,-2,3e-5]").
+ *
+ * A diferencia de split(",") y Float.parseFloat, el análisis recorre el texto
+ * una sola vez y no crea cadenas intermedias por elemento; el formateo escribe
+ * todos los elementos en un único buffer. Cada float se escribe con los
+ * dígitos mínimos que lo recuperan exactamente al leerlo, así que
+ * parse(format(v)) devuelve los mismos bits para cualquier valor, incluidos
+ * -0, subnormales, infinitos y NaN (pgvector rechaza estos dos últimos).
+ */
+public final class PgVectorCodec {
+
+    // Longitud máxima de un elemento: "-0.0000123456789" o "-1.23456789e-45"
+    private static final int MAX_ELEMENT_CHARS = 16;
+
+    // Con 9 dígitos significativos cualquier float se recupera exactamente
+    private static final int MAX_SIGNIFICANT_DIGITS = 9;
+
+    // Potencias de 10 representables exactamente como double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private static final int MAX_EXACT_POWER = POWERS_OF_TEN.length - 1;
+
+    private static final long[] LONG_POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+            100_000_000L, 1_000_000_000L };
+
+    private static final double LOG10_2 = 0.30102999566398120;
+
+    // Mayor entero que un double representa sin pérdida
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    // Dígitos de mantisa acumulados al analizar; más allá se usa Float.parseFloat
+    private static final int MAX_PARSED_DIGITS = 18;
+
+    private PgVectorCodec() {
+    }
+
+    /**
+     * Formatea el vector en el formato de texto de pgvector.
+     */
+    public static String format(float[] vector) {
+        char[] buffer = new char[2 + vector.length * (MAX_ELEMENT_CHARS + 1)];
+        int pos = 0;
+        buffer[pos++] = '[';
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                buffer[pos++] = ',';
+            }
+            pos = writeFloat(vector[i], buffer, pos);
+        }
+        buffer[pos++] = ']';
+        return new String(buffer, 0, pos);
+    }
+
+    /**
+     * Analiza un vector en el formato de texto de pgvector.
+     *
+     * @throws IllegalArgumentException si el texto no es un vector válido
+     */
+    public static float[] parse(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start < 2 || text.charAt(start) != '[' || text.charAt(end - 1) != ']') {
+            throw new IllegalArgumentException("Vector sin corchetes: " + text);
+        }
+        start++;
+        end--;
+
+        boolean empty = true;
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ',') {
+                count++;
+            } else if (!Character.isWhitespace(c)) {
+                empty = false;
+            }
+        }
+        if (empty && count == 1) {
+            return new float[0];
+        }
+
+        float[] result = new float[count];
+        int index = 0;
+        int elementStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || text.charAt(i) == ',') {
+                result[index++] = parseElement(text, elementStart, i);
+                elementStart = i + 1;
+            }
+        }
+        return result;
+    }
+
+    private static float parseElement(String text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            throw new IllegalArgumentException("Elemento vacío en el vector");
+        }
+
+        int i = start;
+        boolean negative = false;
+        char first = text.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean truncated = false;
+        while (i < end && isDigit(text.charAt(i))) {
+            int digit = text.charAt(i++) - '0';
+            anyDigit = true;
+            if (digits < MAX_PARSED_DIGITS) {
+                mantissa = mantissa * 10 + digit;
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+                truncated |= digit != 0;
+            }
+        }
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(text.charAt(i))) {
+                int digit = text.charAt(i++) - '0';
+                anyDigit = true;
+                if (digits < MAX_PARSED_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exponent--;
+                } else {
+                    truncated |= digit != 0;
+                }
+            }
+        }
+        if (!anyDigit) {
+            // NaN, Infinity o texto inválido
+            return slowParse(text, start, end);
+        }
+
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int value = 0;
+            while (i < end && isDigit(text.charAt(i))) {
+                value = Math.min(value * 10 + (text.charAt(i++) - '0'), 100_000);
+            }
+            if (i == exponentStart) {
+                return slowParse(text, start, end);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end || truncated) {
+            return slowParse(text, start, end);
+        }
+        if (mantissa == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+
+        float value = exactFloat(mantissa, exponent);
+        if (Float.isNaN(value)) {
+            return slowParse(text, start, end);
+        }
+        return negative ? -value : value;
+    }
+
+    // Recurre a Float.parseFloat cuando el valor no se puede calcular exactamente
+    private static float slowParse(String text, int start, int end) {
+        try {
+            return Float.parseFloat(text.substring(start, end));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Elemento inválido en el vector: " + text.substring(start, end), e);
+        }
+    }
+
+    /**
+     * Devuelve el float más cercano a mantissa·10^exponent (positivo), o NaN si
+     * no se puede garantizar el redondeo correcto con aritmética double.
+     *
+     * Con la mantisa y la potencia de 10 exactas en double, un único producto
+     * o cociente da el double correctamente redondeado. Pasarlo a float solo
+     * puede redondear distinto que el valor decimal si el double queda pegado
+     * al punto medio entre dos floats; en ese caso se descarta.
+     */
+    private static float exactFloat(long mantissa, int exponent) {
+        if (mantissa > MAX_EXACT_MANTISSA || exponent < -MAX_EXACT_POWER || exponent > MAX_EXACT_POWER) {
+            return Float.NaN;
+        }
+        double value = exponent >= 0
+                ? mantissa * POWERS_OF_TEN[exponent]
+                : mantissa / POWERS_OF_TEN[-exponent];
+        float rounded = (float) value;
+        if (Float.isInfinite(rounded)) {
+            return Float.NaN;
+        }
+        double halfUlp = Math.ulp(rounded) / 2.0;
+        double distance = Math.abs(value - rounded);
+        if (Math.abs(distance - halfUlp) <= Math.ulp(value)) {
+            return Float.NaN;
+        }
+        return rounded;
+    }
+
+    private static int writeFloat(float value, char[] buffer, int pos) {
+        if (Float.isNaN(value)) {
+            return writeText("NaN", buffer, pos);
+        }
+        if (Float.floatToRawIntBits(value) < 0) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        if (Float.isInfinite(value)) {
+            return writeText("Infinity", buffer, pos);
+        }
+        if (value == 0.0f) {
+            buffer[pos++] = '0';
+            return pos;
+        }
+
+        // 9 dígitos significativos: value ≈ digits·10^power con digits en [10^8, 10^9)
+        // Estimación de floor(log10(value)) a partir del exponente binario; se corrige abajo
+        double exact = value;
+        int decimalExponent = (int) Math.floor(Math.getExponent(exact) * LOG10_2);
+        long digits = scaleAndRound(exact, MAX_SIGNIFICANT_DIGITS - 1 - decimalExponent);
+        if (digits >= LONG_POWERS_OF_TEN[MAX_SIGNIFICANT_DIGITS]) {
+            decimalExponent++;
+            digits = scaleAndRound(exact, MAX_SIGNIFICANT_DIGITS - 1 - decimalExponent);
+        } else if (digits < LONG_POWERS_OF_TEN[MAX_SIGNIFICANT_DIGITS - 1]) {
+            decimalExponent--;
+            digits = scaleAndRound(exact, MAX_SIGNIFICANT_DIGITS - 1 - decimalExponent);
+        }
+        int power = decimalExponent - (MAX_SIGNIFICANT_DIGITS - 1);
+
+        // Buscar por bisección la representación más corta que se sigue leyendo
+        // como el mismo float; si n dígitos bastan, n + 1 también
+        int low = 1;
+        int high = MAX_SIGNIFICANT_DIGITS;
+        while (low < high) {
+            int significant = (low + high) >>> 1;
+            if (roundsTrip(digits, power, MAX_SIGNIFICANT_DIGITS - significant, value)) {
+                high = significant;
+            } else {
+                low = significant + 1;
+            }
+        }
+        if (high < MAX_SIGNIFICANT_DIGITS) {
+            int dropped = MAX_SIGNIFICANT_DIGITS - high;
+            digits = roundDigits(digits, dropped);
+            power += dropped;
+        }
+
+        while (digits % 10 == 0) {
+            digits /= 10;
+            power++;
+        }
+        int digitCount = digitCount(digits);
+        int scientificExponent = power + digitCount - 1;
+
+        if (scientificExponent < -4 || scientificExponent >= MAX_SIGNIFICANT_DIGITS) {
+            // d.ddde±x
+            pos = writeDigits(digits, digitCount, 1, buffer, pos);
+            buffer[pos++] = 'e';
+            if (scientificExponent < 0) {
+                buffer[pos++] = '-';
+                scientificExponent = -scientificExponent;
+            }
+            if (scientificExponent >= 10) {
+                buffer[pos++] = (char) ('0' + scientificExponent / 10);
+            }
+            buffer[pos++] = (char) ('0' + scientificExponent % 10);
+            return pos;
+        }
+        if (power >= 0) {
+            pos = writeDigits(digits, digitCount, digitCount, buffer, pos);
+            for (int i = 0; i < power; i++) {
+                buffer[pos++] = '0';
+            }
+            return pos;
+        }
+        int integerDigits = digitCount + power;
+        if (integerDigits > 0) {
+            return writeDigits(digits, digitCount, integerDigits, buffer, pos);
+        }
+        buffer[pos++] = '0';
+        buffer[pos++] = '.';
+        for (int i = 0; i < -integerDigits; i++) {
+            buffer[pos++] = '0';
+        }
+        return writeDigits(digits, digitCount, digitCount, buffer, pos);
+    }
+
+    private static boolean roundsTrip(long digits, int power, int dropped, float value) {
+        return exactFloat(roundDigits(digits, dropped), power + dropped) == value;
+    }
+
+    // Redondea quitando los últimos dígitos, con empates hacia arriba
+    private static long roundDigits(long digits, int dropped) {
+        long divisor = LONG_POWERS_OF_TEN[dropped];
+        return (digits + divisor / 2) / divisor;
+    }
+
+    // Escribe los dígitos con un punto decimal tras los primeros integerDigits
+    private static int writeDigits(long digits, int digitCount, int integerDigits, char[] buffer, int pos) {
+        for (int i = 0; i < digitCount; i++) {
+            if (i == integerDigits) {
+                buffer[pos++] = '.';
+            }
+            long divisor = LONG_POWERS_OF_TEN[digitCount - 1 - i];
+            buffer[pos++] = (char) ('0' + digits / divisor);
+            digits %= divisor;
+        }
+        return pos;
+    }
+
+    // value·10^power redondeado; el error relativo (< 1e-15) no afecta a 9 dígitos
+    private static long scaleAndRound(double value, int power) {
+        if (power >= 0) {
+            while (power > MAX_EXACT_POWER) {
+                value *= POWERS_OF_TEN[MAX_EXACT_POWER];
+                power -= MAX_EXACT_POWER;
+            }
+            return Math.round(value * POWERS_OF_TEN[power]);
+        }
+        power = -power;
+        while (power > MAX_EXACT_POWER) {
+            value /= POWERS_OF_TEN[MAX_EXACT_POWER];
+            power -= MAX_EXACT_POWER;
+        }
+        return Math.round(value / POWERS_OF_TEN[power]);
+    }
+
+    private static int digitCount(long digits) {
+        int count = 1;
+        while (count < LONG_POWERS_OF_TEN.length && digits >= LONG_POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int writeText(String text, char[] buffer, int pos) {
+        text.getChars(0, text.length(), buffer, pos);
+        return pos + text.length();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.api_v2.util;
+
+/**
+ * Métrica de distancia de pgvector para la búsqueda de documentos similares.
+ * Cada métrica necesita un índice creado con su clase de operadores; la
+ * consulta ordena por el operador directamente para poder usarlo.
+ */
+public enum VectorMetric {
+
+    COSINE("<=>", "vector_cosine_ops"),
+    INNER_PRODUCT("<#>", "vector_ip_ops"),
+    L2("<->", "vector_l2_ops");
+
+    private final String operator;
+    private final String operatorClass;
+
+    VectorMetric(String operator, String operatorClass) {
+        this.operator = operator;
+        this.operatorClass = operatorClass;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getOperatorClass() {
+        return operatorClass;
+    }
+
+    /**
+     * Convierte la distancia devuelta por el operador en una puntuación de
+     * similitud: más alta cuanto más parecidos son los vectores.
+     */
+    public double similarity(double distance) {
+        return switch (this) {
+            // <=> devuelve 1 - similitud coseno
+            case COSINE -> 1 - distance;
+            // <#> devuelve el producto escalar negado
+            case INNER_PRODUCT -> -distance;
+            // La distancia euclídea no está acotada: se lleva a (0, 1]
+            case L2 -> 1 / (1 + distance);
+        };
+    }
+}
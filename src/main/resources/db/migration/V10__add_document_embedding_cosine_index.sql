@@ -0,0 +1,4 @@
+-- La búsqueda de documentos similares usa por defecto la distancia coseno (<=>),
+-- que necesita su propio índice HNSW. El índice L2 de V9 sirve a la métrica L2.
+CREATE INDEX IF NOT EXISTS idx_documents_embedding_hnsw_cosine
+    ON documents USING hnsw (embedding vector_cosine_ops) WITH (m = 16, ef_construction = 64);
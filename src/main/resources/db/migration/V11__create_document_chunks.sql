@@ -0,0 +1,19 @@
+-- Fragmentos de documentos con su propio embedding
+CREATE TABLE IF NOT EXISTS document_chunks (
+    id BIGSERIAL PRIMARY KEY,
+    document_id BIGINT NOT NULL REFERENCES documents (id) ON DELETE CASCADE,
+    collection_id BIGINT NOT NULL,
+    chunk_index INTEGER NOT NULL,
+    start_line INTEGER NOT NULL,
+    content TEXT NOT NULL,
+    embedding vector(384)
+);
+
+CREATE INDEX IF NOT EXISTS idx_document_chunks_document ON document_chunks (document_id, chunk_index);
+CREATE INDEX IF NOT EXISTS idx_document_chunks_collection ON document_chunks (collection_id);
+
+-- Mismos índices HNSW que documents.embedding (V9 y V10)
+CREATE INDEX IF NOT EXISTS idx_document_chunks_embedding_hnsw
+    ON document_chunks USING hnsw (embedding vector_l2_ops) WITH (m = 16, ef_construction = 64);
+CREATE INDEX IF NOT EXISTS idx_document_chunks_embedding_hnsw_cosine
+    ON document_chunks USING hnsw (embedding vector_cosine_ops) WITH (m = 16, ef_construction = 64);
@@ -0,0 +1,9 @@
+-- Búsqueda léxica sobre los fragmentos para la recuperación híbrida del agente.
+-- La columna la mantiene PostgreSQL; la configuración 'spanish' debe coincidir
+-- con la de las consultas de AgentRepositoryCustomImpl.
+ALTER TABLE document_chunks
+    ADD COLUMN IF NOT EXISTS content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('spanish', content)) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_document_chunks_content_tsv
+    ON document_chunks USING gin (content_tsv);
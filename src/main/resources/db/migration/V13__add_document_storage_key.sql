@@ -0,0 +1,4 @@
+-- Los ficheros nuevos se guardan en el BlobStore; data queda solo para los documentos anteriores
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS storage_key VARCHAR(255);
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE documents ALTER COLUMN data DROP NOT NULL;
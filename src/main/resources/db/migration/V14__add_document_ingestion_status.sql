@@ -0,0 +1,13 @@
+-- Estado del procesado de cada documento en el agente
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS ingestion_status VARCHAR(20);
+
+-- Los documentos sin embedding se vuelven a procesar al arrancar; los anteriores al BlobStore no se pueden reenviar
+UPDATE documents SET ingestion_status = CASE
+        WHEN embedding IS NOT NULL THEN 'EMBEDDED'
+        WHEN storage_key IS NOT NULL THEN 'UPLOADED'
+        ELSE 'FAILED'
+    END
+WHERE ingestion_status IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_documents_ingestion_pending ON documents (ingestion_status)
+    WHERE ingestion_status IN ('UPLOADED', 'EXTRACTING');
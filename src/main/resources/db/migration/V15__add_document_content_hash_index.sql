@@ -0,0 +1,5 @@
+-- Búsqueda de un documento ya procesado con el mismo contenido al subir un fichero
+CREATE INDEX IF NOT EXISTS idx_documents_content_hash ON documents (content_hash);
+
+-- Los ficheros del almacén se comparten; se borran cuando ya no los usa ningún documento
+CREATE INDEX IF NOT EXISTS idx_documents_storage_key ON documents (storage_key);
@@ -0,0 +1,6 @@
+-- VectorMetric.INNER_PRODUCT ordena por <#>, que solo puede servir un índice HNSW
+-- con vector_ip_ops. V9, V10 y V11 cubren L2 y coseno en ambas tablas.
+CREATE INDEX IF NOT EXISTS idx_documents_embedding_hnsw_ip
+    ON documents USING hnsw (embedding vector_ip_ops) WITH (m = 16, ef_construction = 64);
+CREATE INDEX IF NOT EXISTS idx_document_chunks_embedding_hnsw_ip
+    ON document_chunks USING hnsw (embedding vector_ip_ops) WITH (m = 16, ef_construction = 64);
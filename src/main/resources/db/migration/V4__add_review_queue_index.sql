@@ -0,0 +1,3 @@
+-- Índice para seleccionar en la base de datos las flashcards a repasar de un usuario en una colección
+CREATE INDEX IF NOT EXISTS idx_ufp_user_collection_next_review
+    ON user_flashcard_progress (user_id, collection_id, next_review_date);
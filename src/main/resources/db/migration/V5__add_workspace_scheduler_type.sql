@@ -0,0 +1,2 @@
+-- Estrategia de planificación de repasos de cada workspace
+ALTER TABLE workspaces ADD COLUMN IF NOT EXISTS scheduler_type VARCHAR(32) NOT NULL DEFAULT 'LEGACY_SM2';
@@ -0,0 +1,19 @@
+-- Estadísticas precalculadas por usuario y colección
+CREATE TABLE IF NOT EXISTS user_collection_stats (
+    id BIGSERIAL PRIMARY KEY,
+    user_id VARCHAR(255) NOT NULL REFERENCES "User" (id) ON DELETE CASCADE,
+    collection_id BIGINT NOT NULL REFERENCES collections (id) ON DELETE CASCADE,
+    total_flashcards BIGINT NOT NULL DEFAULT 0,
+    bien_count BIGINT NOT NULL DEFAULT 0,
+    regular_count BIGINT NOT NULL DEFAULT 0,
+    mal_count BIGINT NOT NULL DEFAULT 0,
+    sin_nivel_count BIGINT NOT NULL DEFAULT 0,
+    total_creadas BIGINT NOT NULL DEFAULT 0,
+    total_revisadas BIGINT NOT NULL DEFAULT 0,
+    study_seconds BIGINT NOT NULL DEFAULT 0,
+    flashcards_with_study_time BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP,
+    CONSTRAINT uk_user_collection_stats UNIQUE (user_id, collection_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_collection_stats_collection ON user_collection_stats (collection_id);
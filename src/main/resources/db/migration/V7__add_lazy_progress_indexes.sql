@@ -0,0 +1,5 @@
+-- El progreso se crea en el primer repaso: las lecturas parten de las flashcards
+-- de la colección y buscan el progreso del usuario con un LEFT JOIN
+CREATE INDEX IF NOT EXISTS idx_flashcards_collection ON flashcards (collection_id);
+
+CREATE INDEX IF NOT EXISTS idx_ufp_flashcard_user ON user_flashcard_progress (flashcard_id, user_id);
@@ -0,0 +1,22 @@
+-- Cola persistente de trabajos en segundo plano
+CREATE TABLE IF NOT EXISTS background_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    idempotency_key VARCHAR(255),
+    workspace_id BIGINT,
+    created_by VARCHAR(255),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    max_attempts INTEGER NOT NULL,
+    next_run_at TIMESTAMP NOT NULL,
+    locked_at TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    CONSTRAINT uk_background_jobs_idempotency_key UNIQUE (idempotency_key)
+);
+
+-- Los workers buscan los trabajos pendientes cuya hora de ejecución ha llegado
+CREATE INDEX IF NOT EXISTS idx_background_jobs_pending ON background_jobs (status, next_run_at);
@@ -0,0 +1,9 @@
+-- Índice HNSW para la búsqueda de documentos similares por distancia L2 (<->).
+-- m y ef_construction son los valores por defecto de pgvector; la precisión de
+-- cada consulta se ajusta con hnsw.ef_search.
+CREATE EXTENSION IF NOT EXISTS vector;
+
+CREATE INDEX IF NOT EXISTS idx_documents_embedding_hnsw
+    ON documents USING hnsw (embedding vector_l2_ops) WITH (m = 16, ef_construction = 64);
+
+CREATE INDEX IF NOT EXISTS idx_documents_collection ON documents (collection_id);
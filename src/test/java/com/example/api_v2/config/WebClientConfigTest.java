@@ -0,0 +1,166 @@
+package com.example.api_v2.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de carga de los clientes del agente contra un servidor HTTP local
+ * Valida el aislamiento de los pools, los tiempos máximos, gzip y el límite de los codecs
+ */
+class WebClientConfigTest {
+
+    private static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private String baseUrl;
+    private ConnectionProvider generationPool;
+    private ConnectionProvider embeddingsPool;
+    private final AtomicBoolean gzipped = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        // Resumen lento del modelo
+        server.createContext("/summary/", exchange -> {
+            sleep(1000);
+            respond(exchange, "{\"summary\":\"resumen\"}".getBytes(StandardCharsets.UTF_8), false);
+        });
+        server.createContext("/generate_embedding/", exchange ->
+                respond(exchange, "[0.25, -0.5, 1.0]".getBytes(StandardCharsets.UTF_8), false));
+        // Texto de un documento grande, comprimido si el cliente lo acepta
+        server.createContext("/process-document/", exchange -> {
+            String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            gzipped.set(accepted != null && accepted.contains("gzip"));
+            String body = "{\"content\":\"" + "a".repeat(2 * 1024 * 1024) + "\"}";
+            respond(exchange, body.getBytes(StandardCharsets.UTF_8), gzipped.get());
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        generationPool = WebClientConfig.connectionProvider("test-generation", 2, 10_000, 4_000);
+        embeddingsPool = WebClientConfig.connectionProvider("test-embeddings", 4, 10_000, 4_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        generationPool.dispose();
+        embeddingsPool.dispose();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void embeddings_ShouldNotWaitForSlowGenerationCalls() {
+        // Given: más resúmenes lentos que conexiones en el pool de generación
+        WebClient generation = WebClientConfig.agentClient(WebClient.builder(), baseUrl, generationPool, 2000,
+                30_000, MAX_IN_MEMORY_SIZE);
+        WebClient embeddings = WebClientConfig.agentClient(WebClient.builder(), baseUrl, embeddingsPool, 2000,
+                10_000, MAX_IN_MEMORY_SIZE);
+        // Calentar Netty y Jackson para medir solo la espera por conexiones
+        embedding(embeddings, 0).block(Duration.ofSeconds(5));
+        Mono<List<Map>> summaries = Flux.range(0, 6)
+                .flatMap(i -> generation.get().uri("/summary/").retrieve().bodyToMono(Map.class))
+                .collectList()
+                .cache();
+        summaries.subscribe();
+
+        // When: 50 embeddings mientras los resúmenes ocupan su pool
+        long start = System.nanoTime();
+        List<float[]> vectors = Flux.range(0, 50)
+                .flatMap(i -> embedding(embeddings, i), 8)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        long embeddingsMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then: los embeddings terminan antes que la primera tanda de resúmenes
+        assertEquals(50, vectors.size());
+        assertTrue(embeddingsMillis < 1000, embeddingsMillis + " ms");
+        // Con 2 conexiones, 6 resúmenes de 1 s necesitan 3 tandas
+        assertEquals(6, summaries.block(Duration.ofSeconds(10)).size());
+    }
+
+    @Test
+    void responseTimeout_ShouldFailSlowCalls() {
+        WebClient client = WebClientConfig.agentClient(WebClient.builder(), baseUrl, generationPool, 2000,
+                200, MAX_IN_MEMORY_SIZE);
+
+        assertThrows(WebClientRequestException.class,
+                () -> client.get().uri("/summary/").retrieve().bodyToMono(Map.class).block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void codecs_ShouldDecodeLargeGzipResponses() {
+        // Given: 2 MiB de texto, por encima del límite por defecto de 256 KiB
+        WebClient client = WebClientConfig.agentClient(WebClient.builder(), baseUrl, generationPool, 2000,
+                30_000, MAX_IN_MEMORY_SIZE);
+
+        // When
+        Map<?, ?> document = client.post().uri("/process-document/")
+                .bodyValue(Map.of("pdf_base64", "JVBERi0xLjQK"))
+                .retrieve()
+                .bodyToMono(Map.class)
+                .block(Duration.ofSeconds(10));
+
+        // Then
+        assertTrue(gzipped.get());
+        assertEquals(2 * 1024 * 1024, ((String) document.get("content")).length());
+    }
+
+    private static Mono<float[]> embedding(WebClient client, int i) {
+        return client.post().uri("/generate_embedding/")
+                .bodyValue(Map.of("question", "pregunta " + i))
+                .retrieve()
+                .bodyToMono(float[].class);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body, boolean gzip) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
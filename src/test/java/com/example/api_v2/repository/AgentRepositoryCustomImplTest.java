@@ -0,0 +1,198 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.util.PgVector;
+import com.example.api_v2.util.VectorMetric;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests para la búsqueda vectorial de AgentRepositoryCustomImpl
+ * Valida la puntuación de cada métrica, que las migraciones crean su índice HNSW,
+ * que la consulta puede usarlo y la fusión de rankings de la búsqueda híbrida
+ */
+class AgentRepositoryCustomImplTest {
+
+    @Test
+    void similarity_ShouldIncreaseAsVectorsGetCloser() {
+        assertEquals(0.8, VectorMetric.COSINE.similarity(0.2), 1e-9);
+        assertEquals(0.9, VectorMetric.INNER_PRODUCT.similarity(-0.9), 1e-9);
+        assertEquals(1.0, VectorMetric.L2.similarity(0.0), 1e-9);
+        assertTrue(VectorMetric.L2.similarity(0.5) > VectorMetric.L2.similarity(2.0));
+    }
+
+    @Test
+    void findSimilarDocumentsSql_ShouldOrderByRawOperator() {
+        for (VectorMetric metric : VectorMetric.values()) {
+            String sql = AgentRepositoryCustomImpl.findSimilarDocumentsSql(metric);
+            assertTrue(sql.contains("d.embedding " + metric.getOperator() + " CAST(? AS vector) AS distance"), sql);
+            assertTrue(sql.contains("ORDER BY distance"), sql);
+        }
+    }
+
+    @Test
+    void findSimilarUnchunkedDocumentsSql_ShouldOnlyKeepDocumentsWithoutChunks() {
+        for (VectorMetric metric : VectorMetric.values()) {
+            String sql = AgentRepositoryCustomImpl.findSimilarUnchunkedDocumentsSql(metric);
+            assertTrue(sql.contains("d.embedding " + metric.getOperator() + " CAST(? AS vector) AS distance"), sql);
+            assertTrue(sql.contains("NOT EXISTS (SELECT 1 FROM document_chunks c WHERE c.document_id = d.id)"), sql);
+            assertTrue(sql.contains("ORDER BY distance"), sql);
+        }
+    }
+
+    @Test
+    void findRelevantChunksSql_ShouldRankByRawOperatorAndTextIndex() {
+        for (VectorMetric metric : VectorMetric.values()) {
+            String sql = AgentRepositoryCustomImpl.findRelevantChunksSql(metric);
+            assertTrue(sql.contains("c.embedding " + metric.getOperator() + " CAST(? AS vector) AS distance"), sql);
+            assertTrue(sql.contains("ORDER BY distance"), sql);
+            assertTrue(sql.contains("c.content_tsv @@ query.tsquery"), sql);
+            assertTrue(sql.contains("SUM(1.0 / (? + rank))"), sql);
+        }
+    }
+
+    @Test
+    void migrations_ShouldCreateHnswIndex_ForEveryMetricAndTable() throws IOException {
+        String migrations;
+        try (Stream<Path> files = Files.list(Path.of("src/main/resources/db/migration"))) {
+            migrations = files.map(AgentRepositoryCustomImplTest::read).collect(Collectors.joining("\n"))
+                    .replaceAll("\\s+", " ");
+        }
+        for (VectorMetric metric : VectorMetric.values()) {
+            for (String table : List.of("documents", "document_chunks")) {
+                assertTrue(migrations.contains(" ON " + table + " USING hnsw (embedding " + metric.getOperatorClass()
+                        + ")"), metric + " sin índice HNSW en " + table);
+            }
+        }
+    }
+
+    /**
+     * Necesita un PostgreSQL con pgvector (ver queryPlan_ShouldUseHnswIndex_ForEveryMetric).
+     * El fragmento que contiene los términos de la pregunta debe ganar al más
+     * cercano en el espacio vectorial gracias al ranking léxico.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "test.pgvector.url", matches = ".+")
+    void findRelevantChunks_ShouldFuseTextAndVectorRankings() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getProperty("test.pgvector.url"),
+                System.getProperty("test.pgvector.user", "postgres"),
+                System.getProperty("test.pgvector.password", "postgres"));
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            statement.execute("CREATE TEMP TABLE documents (id BIGINT PRIMARY KEY, file_name VARCHAR(255), "
+                    + "file_type VARCHAR(255))");
+            statement.execute("CREATE TEMP TABLE document_chunks (id BIGINT PRIMARY KEY, document_id BIGINT, "
+                    + "collection_id BIGINT, chunk_index INTEGER, start_line INTEGER, content TEXT, "
+                    + "embedding vector(3), content_tsv tsvector "
+                    + "GENERATED ALWAYS AS (to_tsvector('spanish', content)) STORED)");
+            statement.execute("INSERT INTO documents VALUES (1, 'biologia.pdf', 'application/pdf')");
+            statement.execute("INSERT INTO document_chunks (id, document_id, collection_id, chunk_index, start_line, "
+                    + "content, embedding) VALUES "
+                    + "(10, 1, 1, 0, 1, 'Otra línea\nLa mitosis divide la célula', '[1,0,0]'), "
+                    + "(11, 1, 1, 1, 3, 'Texto sin relación', '[0,1,0]'), "
+                    + "(12, 1, 2, 0, 1, 'La mitosis divide la célula', '[0,1,0]')");
+
+            SingleConnectionDataSource dataSource = new SingleConnectionDataSource(connection, true);
+            AgentRepositoryCustomImpl repository = new AgentRepositoryCustomImpl(new JdbcTemplate(dataSource),
+                    new DataSourceTransactionManager(dataSource));
+
+            List<Object[]> chunks = repository.findRelevantChunks(1L, new float[] { 0f, 1f, 0f },
+                    "¿Cómo divide la mitosis una célula?", 5, 10, VectorMetric.COSINE);
+
+            assertEquals(List.of(10L, 11L), chunks.stream().map(chunk -> chunk[0]).toList());
+            assertArrayEquals(new Integer[] { 2 }, (Integer[]) chunks.get(0)[9]);
+            assertArrayEquals(new String[] { "La mitosis divide la célula" }, (String[]) chunks.get(0)[10]);
+            assertArrayEquals(new Integer[0], (Integer[]) chunks.get(1)[9]);
+        }
+    }
+
+    /**
+     * Necesita un PostgreSQL con pgvector: -Dtest.pgvector.url=jdbc:postgresql://...
+     * (y opcionalmente test.pgvector.user / test.pgvector.password). Crea una
+     * tabla temporal documents que oculta la real durante la sesión.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "test.pgvector.url", matches = ".+")
+    void queryPlan_ShouldUseHnswIndex_ForEveryMetric() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(System.getProperty("test.pgvector.url"),
+                System.getProperty("test.pgvector.user", "postgres"),
+                System.getProperty("test.pgvector.password", "postgres"));
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            statement.execute("CREATE TEMP TABLE documents (id BIGSERIAL PRIMARY KEY, collection_id BIGINT, "
+                    + "file_name VARCHAR(255), file_type VARCHAR(255), content TEXT, embedding vector(3))");
+            Random random = new Random(42);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO documents (collection_id, file_name, file_type, content, embedding) "
+                            + "VALUES (?, 'doc', 'text/plain', 'contenido', CAST(? AS vector))")) {
+                for (int i = 0; i < 2000; i++) {
+                    insert.setLong(1, i % 10);
+                    insert.setString(2, "[" + random.nextFloat() + "," + random.nextFloat() + "," + random.nextFloat() + "]");
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            for (VectorMetric metric : VectorMetric.values()) {
+                statement.execute("CREATE INDEX " + indexName(metric) + " ON documents USING hnsw (embedding "
+                        + metric.getOperatorClass() + ")");
+            }
+            statement.execute("ANALYZE documents");
+            // Con pocas filas el planificador prefiere un seq scan; lo desactivamos para comprobar
+            // que el índice puede servir el ORDER BY, no que sea más barato
+            statement.execute("SET enable_seqscan = off");
+
+            for (VectorMetric metric : VectorMetric.values()) {
+                String plan = explain(connection, AgentRepositoryCustomImpl.findSimilarDocumentsSql(metric));
+                assertTrue(plan.contains("Index Scan using " + indexName(metric)), metric + ":\n" + plan);
+            }
+
+            // Ordenar por una expresión sobre la distancia obliga a ordenar todas las filas
+            String expressionPlan = explain(connection, """
+                    SELECT d.id, 1 - (d.embedding <=> CAST(? AS vector)) AS similarity_score
+                    FROM documents d WHERE d.collection_id = ? ORDER BY similarity_score DESC LIMIT ?
+                    """);
+            assertFalse(expressionPlan.contains("Index Scan using " + indexName(VectorMetric.COSINE)), expressionPlan);
+        }
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String indexName(VectorMetric metric) {
+        return "test_documents_embedding_" + metric.name().toLowerCase();
+    }
+
+    private static String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            new PgVector().nullSafeSet(explain, new float[] { 0.1f, 0.2f, 0.3f }, 1, null);
+            explain.setLong(2, 1L);
+            explain.setInt(3, 5);
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.dto.DocumentDto;
+import com.example.api_v2.dto.DocumentFileDto;
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentIngestionStatus;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.Workspace;
+import com.example.api_v2.repository.PostgresTestDatabase.ExecutedSql;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de regresión para las consultas de DocumentRepository
+ * Valida, con el SQL que Hibernate ejecuta, que el listado y la descarga no leen
+ * el fichero, el texto ni el embedding. Necesita un PostgreSQL con pgvector
+ * (ver {@link PostgresTestDatabase}).
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "test.pgvector.url", matches = ".+")
+@Import(PostgresTestDatabase.Config.class)
+class DocumentRepositoryTest {
+
+    // Columnas pesadas de documents en el SQL generado (alias.columna): el fichero, el texto y el embedding
+    private static final Pattern HEAVY_COLUMNS = Pattern.compile("\\b\\w+\\.(data|content|embedding)\\b");
+
+    private static final int DOCUMENTS = 3;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws SQLException {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ExecutedSql executedSql;
+
+    private Statistics statistics;
+    private Long collectionId;
+    private Long documentId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId("test-user-id");
+        user.setName("Test User");
+        user.setEmail("test@example.com");
+        entityManager.persist(user);
+
+        Workspace workspace = new Workspace();
+        workspace.setName("Workspace");
+        entityManager.persist(workspace);
+
+        Collection collection = new Collection();
+        collection.setName("Biología");
+        collection.setWorkspace(workspace);
+        collection.setCreatedBy(user);
+        entityManager.persist(collection);
+        collectionId = collection.getId();
+
+        // Documentos con fichero de 1 MB, texto y embedding para que leerlos se note
+        float[] embedding = new float[384];
+        Arrays.fill(embedding, 0.1f);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Document document = new Document();
+            document.setCollection(collection);
+            document.setFileName("tema" + i + ".pdf");
+            document.setFileType("application/pdf");
+            document.setFileSize(1024L * 1024);
+            document.setStorageKey("clave-" + i);
+            document.setContentHash("a".repeat(64));
+            document.setData(new byte[1024 * 1024]);
+            document.setContent("La mitosis divide la célula\n".repeat(1000));
+            document.setEmbedding(embedding);
+            document.setIngestionStatus(DocumentIngestionStatus.EMBEDDED);
+            entityManager.persist(document);
+            documentId = document.getId();
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics = PostgresTestDatabase.statistics(entityManager);
+        statistics.clear();
+        executedSql.clear();
+    }
+
+    @Test
+    void findSummariesByCollectionId_ShouldRunOneQueryWithoutHeavyColumns() {
+        // When
+        List<DocumentDto> documents = documentRepository.findSummariesByCollectionId(collectionId);
+
+        // Then: una sola sentencia, sin cargar entidades ni leer columnas pesadas
+        assertEquals(DOCUMENTS, documents.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertLightweight(executedSql.statements());
+    }
+
+    @Test
+    void findFileById_ShouldRunOneQueryWithoutHeavyColumns() {
+        // When
+        Optional<DocumentFileDto> file = documentRepository.findFileById(documentId);
+
+        // Then
+        assertTrue(file.isPresent());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertLightweight(executedSql.statements());
+    }
+
+    @Test
+    void findStorageKeysByCollectionId_ShouldNotLoadDocuments() {
+        // When
+        List<String> keys = documentRepository.findStorageKeysByCollectionId(collectionId);
+
+        // Then
+        assertEquals(DOCUMENTS, keys.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertLightweight(executedSql.statements());
+    }
+
+    private static void assertLightweight(List<String> statements) {
+        assertEquals(1, statements.size(), statements::toString);
+        String sql = statements.get(0);
+        assertTrue(sql.contains("documents"), sql);
+        assertFalse(HEAVY_COLUMNS.matcher(sql).find(), sql);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.api_v2.repository;
+
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.KnowledgeLevel;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.UserFlashcardProgress;
+import com.example.api_v2.model.Workspace;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de integración para la cola de repaso de FlashcardRepository
+ * Valida que una flashcard sin progreso cuenta como pendiente desde su creación
+ * al ordenar la sesión de estudio. Necesita un PostgreSQL con pgvector
+ * (ver {@link PostgresTestDatabase}).
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "test.pgvector.url", matches = ".+")
+class FlashcardRepositoryTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws SQLException {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private FlashcardRepository flashcardRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+    private Collection collection;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+
+        user = new User();
+        user.setId("test-user-id");
+        user.setName("Test User");
+        user.setEmail("test@example.com");
+        entityManager.persist(user);
+
+        Workspace workspace = new Workspace();
+        workspace.setName("Workspace");
+        entityManager.persist(workspace);
+
+        collection = new Collection();
+        collection.setName("Biología");
+        collection.setWorkspace(workspace);
+        collection.setCreatedBy(user);
+        entityManager.persist(collection);
+    }
+
+    @Test
+    void findTopForReview_ShouldRankOldUnreviewedCardAboveRecentlyDueCard() {
+        // Given: una tarjeta creada hace 30 días y nunca repasada, y otra repasada que venció ayer
+        Flashcard neverReviewed = flashcard("Nunca repasada");
+        Flashcard recentlyDue = flashcard("Vencida ayer");
+        UserFlashcardProgress progress = UserFlashcardProgress.newCard(user, recentlyDue, now.minusDays(1));
+        progress.setKnowledgeLevel(KnowledgeLevel.BIEN);
+        entityManager.persist(progress);
+        entityManager.flush();
+        // createdAt lo fija @PrePersist, así que se retrasa después de insertar
+        entityManager.createQuery("UPDATE Flashcard f SET f.createdAt = :createdAt WHERE f.id = :id")
+                .setParameter("createdAt", now.minusDays(30))
+                .setParameter("id", neverReviewed.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        // When
+        List<Flashcard> top = flashcardRepository.findTopForReview(collection.getId(), user.getId(), now, 25);
+
+        // Then: 30 días de retraso pesan más que uno con el mismo ease factor y sin fallos
+        assertEquals(List.of(neverReviewed.getId(), recentlyDue.getId()),
+                top.stream().map(Flashcard::getId).toList());
+    }
+
+    private Flashcard flashcard(String question) {
+        Flashcard flashcard = new Flashcard();
+        flashcard.setQuestion(question);
+        flashcard.setAnswer("Respuesta");
+        flashcard.setCollection(collection);
+        flashcard.setCreatedBy(user);
+        entityManager.persist(flashcard);
+        return flashcard;
+    }
+}
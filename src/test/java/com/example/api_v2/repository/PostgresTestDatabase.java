@@ -0,0 +1,99 @@
+package com.example.api_v2.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base de datos de los tests de JPA que cuentan sentencias: un PostgreSQL con
+ * pgvector indicado con -Dtest.pgvector.url (y opcionalmente
+ * test.pgvector.user / test.pgvector.password), como en
+ * AgentRepositoryCustomImplTest. Hibernate crea el esquema al arrancar y lo
+ * borra al terminar, así que debe ser una base de datos de pruebas.
+ *
+ * Uso: {@code @DataJpaTest}, {@code @AutoConfigureTestDatabase(replace = NONE)},
+ * {@code @EnabledIfSystemProperty(named = "test.pgvector.url", matches = ".+")},
+ * {@code @Import(PostgresTestDatabase.Config.class)} y un método
+ * {@code @DynamicPropertySource} que llame a {@link #register}.
+ */
+public final class PostgresTestDatabase {
+
+    private PostgresTestDatabase() {
+    }
+
+    public static void register(DynamicPropertyRegistry registry) throws SQLException {
+        String url = System.getProperty("test.pgvector.url");
+        String user = System.getProperty("test.pgvector.user", "postgres");
+        String password = System.getProperty("test.pgvector.password", "postgres");
+        // La extensión tiene que existir antes de que Hibernate cree las columnas vector
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        }
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> user);
+        registry.add("spring.datasource.password", () -> password);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    /**
+     * Estadísticas de Hibernate, que cuentan sentencias preparadas, consultas y
+     * entidades cargadas desde el último {@link Statistics#clear()}.
+     */
+    public static Statistics statistics(EntityManager entityManager) {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        public ExecutedSql executedSql() {
+            return new ExecutedSql();
+        }
+
+        @Bean
+        public HibernatePropertiesCustomizer statementInspector(ExecutedSql executedSql) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, executedSql);
+        }
+    }
+
+    /**
+     * SQL que Hibernate envía a la base de datos, en orden.
+     */
+    public static class ExecutedSql implements StatementInspector {
+
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        public List<String> statements() {
+            synchronized (statements) {
+                return List.copyOf(statements);
+            }
+        }
+
+        public void clear() {
+            statements.clear();
+        }
+    }
+}
@@ -1,21 +1,42 @@
 package com.example.api_v2.service;
 
+import com.example.api_v2.dto.ProcessedDocumentDto;
 import com.example.api_v2.model.Document;
 import com.example.api_v2.repository.AgentRepository;
 import com.example.api_v2.repository.DocumentRepository;
+import com.example.api_v2.util.VectorMetric;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +56,14 @@ class AgentServiceTest {
     @Mock
     private AgentRepository agentRepository;
 
+    @Mock
+    private BlobStore blobStore;
+
+    @TempDir
+    Path blobRoot;
+
+    private HttpServer agent;
+
     @Mock
     private WebClient webClient;
 
@@ -59,7 +88,8 @@ class AgentServiceTest {
     @BeforeEach
     void setUp() {
         // Crear el servicio con mocks
-        agentService = new AgentService(documentRepository, embeddingService, agentRepository);
+        agentService = new AgentService(WebClient.builder().baseUrl("http://localhost:8000").build(),
+                documentRepository, embeddingService, agentRepository, blobStore);
         
         // Configurar documento de prueba
         testDocument = new Document();
@@ -69,20 +99,131 @@ class AgentServiceTest {
         testDocument.setContent("This is test document content for flashcard generation.");
     }
 
+    @AfterEach
+    void stopAgent() {
+        if (agent != null) {
+            agent.stop(0);
+        }
+    }
+
+    @Test
+    void processDocument_ShouldStreamBase64Json_WhenDefaultTransfer() throws IOException {
+        // Given: un tamaño que no es múltiplo de 3 ni del buffer de lectura
+        byte[] data = new byte[5 * AgentService.READ_BUFFER_SIZE + 7];
+        new Random(3).nextBytes(data);
+        LocalBlobStore store = new LocalBlobStore(blobRoot.toString());
+        BlobStore.StoredBlob blob = store.store(new ByteArrayInputStream(data));
+        AtomicReference<String> received = new AtomicReference<>();
+        AgentService service = serviceWithAgent(store, "/process-document/", exchange ->
+                received.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.US_ASCII)));
+
+        // When
+        ProcessedDocumentDto result = service.processDocument(blob.key(), "apuntes.pdf", "application/pdf")
+                .block(Duration.ofSeconds(10));
+
+        // Then: el mismo cuerpo que generaba la versión con String
+        assertEquals("{\"pdf_base64\":\"" + Base64.getEncoder().encodeToString(data) + "\"}", received.get());
+        assertEquals("texto extraído", result.getContent());
+        assertArrayEquals(new float[] {0.25f, -0.5f}, result.getEmbedding());
+    }
+
     @Test
-    void processDocument_ShouldReturnProcessedDocument_WhenValidInput() {
+    void processDocument_ShouldSendRawFile_WhenMultipartTransfer() throws IOException {
         // Given
-        byte[] fileContent = "test content".getBytes();
-        Map<String, Object> expectedResponse = Map.of(
-            "status", "success",
-            "text", "Extracted text content"
-        );
+        byte[] data = new byte[3 * AgentService.READ_BUFFER_SIZE + 11];
+        new Random(5).nextBytes(data);
+        LocalBlobStore store = new LocalBlobStore(blobRoot.toString());
+        BlobStore.StoredBlob blob = store.store(new ByteArrayInputStream(data));
+        AtomicReference<String> contentType = new AtomicReference<>();
+        AtomicReference<String> received = new AtomicReference<>();
+        AgentService service = serviceWithAgent(store, "/process-document-file/", exchange -> {
+            contentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+            received.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1));
+        });
+        ReflectionTestUtils.setField(service, "documentTransfer", AgentService.DocumentTransfer.MULTIPART);
 
-        // When & Then
-        assertDoesNotThrow(() -> {
-            Mono<Map<String, Object>> result = agentService.processDocument(fileContent);
+        // When
+        ProcessedDocumentDto result = service.processDocument(blob.key(), "apuntes.pdf", "application/pdf")
+                .block(Duration.ofSeconds(10));
+
+        // Then: el fichero va sin codificar en el campo "file"
+        assertTrue(contentType.get().startsWith("multipart/form-data"), contentType.get());
+        assertTrue(received.get().contains("name=\"file\"; filename=\"apuntes.pdf\""));
+        assertTrue(received.get().contains("Content-Type: application/pdf"));
+        assertTrue(received.get().contains(new String(data, StandardCharsets.ISO_8859_1)));
+        assertEquals("texto extraído", result.getContent());
+    }
+
+    @Test
+    void processDocument_ShouldNotLoadFileInMemory_WhenFileIsLarge() throws IOException {
+        // Given: 200 MB; en Base64 y con las tres copias de antes no cabrían en el heap de los tests
+        long size = 200L * 1024 * 1024;
+        assumeTrue(Runtime.getRuntime().maxMemory() < 3 * size, "El heap admite las copias completas");
+        Path source = blobRoot.resolve("grande.bin");
+        try (RandomAccessFile file = new RandomAccessFile(source.toFile(), "rw")) {
+            file.setLength(size);
+        }
+        LocalBlobStore store = new LocalBlobStore(blobRoot.toString());
+        BlobStore.StoredBlob blob;
+        try (InputStream content = Files.newInputStream(source)) {
+            blob = store.store(content);
+        }
+        Files.delete(source);
+        AtomicLong received = new AtomicLong();
+        AgentService service = serviceWithAgent(store, "/", exchange -> received.set(count(exchange)));
+
+        for (AgentService.DocumentTransfer transfer : AgentService.DocumentTransfer.values()) {
+            ReflectionTestUtils.setField(service, "documentTransfer", transfer);
+
+            // When
+            ProcessedDocumentDto result = service.processDocument(blob.key(), "grande.bin", null)
+                    .block(Duration.ofMinutes(2));
+
+            // Then: el agente recibe el fichero completo
             assertNotNull(result);
-        });
+            long expected = transfer == AgentService.DocumentTransfer.BASE64_JSON
+                    ? (size + 2) / 3 * 4 + "{\"pdf_base64\":\"\"}".length()
+                    : size;
+            assertTrue(received.get() >= expected, transfer + ": " + received.get());
+        }
+    }
+
+    // Agente local que lee la petición con reader y devuelve un documento procesado
+    private AgentService serviceWithAgent(BlobStore store, String path, ExchangeReader reader) throws IOException {
+        agent = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        HttpHandler handler = exchange -> {
+            reader.read(exchange);
+            byte[] body = "{\"content\":\"texto extraído\",\"embedding\":[0.25,-0.5]}"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        };
+        agent.createContext(path, handler);
+        agent.start();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + agent.getAddress().getPort())
+                .build();
+        return new AgentService(client, documentRepository, embeddingService, agentRepository, store);
+    }
+
+    private static long count(HttpExchange exchange) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface ExchangeReader {
+        void read(HttpExchange exchange) throws IOException;
     }
 
     @Test
@@ -160,6 +301,124 @@ class AgentServiceTest {
         assertNotNull(agentService);
     }
 
+    @Test
+    void askAgent_ShouldPassEmbeddingArrayToRepository_WithoutConversion() {
+        // Given: el repositorio corta la cadena para no llamar al agente Python
+        float[] embedding = { 0.1f, -0.2f, 0.3f };
+        when(embeddingService.getEmbedding("¿Qué es la mitosis?")).thenReturn(Mono.just(embedding));
+        when(agentRepository.findSimilarUnchunkedDocuments(anyLong(), any(float[].class), anyInt(), anyInt(), any(VectorMetric.class)))
+                .thenThrow(new IllegalStateException("búsqueda simulada"));
+
+        // When
+        assertThrows(IllegalStateException.class,
+                () -> agentService.askAgent("7", "¿Qué es la mitosis?", null, null).block());
+
+        // Then: el mismo array llega a la consulta, sin List<Float> ni String intermedios
+        verify(agentRepository).findSimilarUnchunkedDocuments(eq(7L), same(embedding), eq(5), eq(100), eq(VectorMetric.COSINE));
+        verify(embeddingService, never()).getEmbeddings(anyString());
+    }
+
+    @Test
+    void askAgent_ShouldUseRequestedEfSearch_WhenProvided() {
+        // Given
+        float[] embedding = { 0.1f, -0.2f, 0.3f };
+        when(embeddingService.getEmbedding(anyString())).thenReturn(Mono.just(embedding));
+        when(agentRepository.findSimilarUnchunkedDocuments(anyLong(), any(float[].class), anyInt(), anyInt(), any(VectorMetric.class)))
+                .thenThrow(new IllegalStateException("búsqueda simulada"));
+
+        // When
+        assertThrows(IllegalStateException.class,
+                () -> agentService.askAgent("7", "pregunta", null, null, 400).block());
+        assertThrows(IllegalStateException.class,
+                () -> agentService.askAgent("7", "pregunta", null, null, 2).block());
+
+        // Then: nunca menos candidatos que documentos pedidos
+        verify(agentRepository).findSimilarUnchunkedDocuments(eq(7L), same(embedding), eq(5), eq(400), eq(VectorMetric.COSINE));
+        verify(agentRepository).findSimilarUnchunkedDocuments(eq(7L), same(embedding), eq(5), eq(5), eq(VectorMetric.COSINE));
+    }
+
+    @Test
+    void findContextDocuments_ShouldUseRelevantChunks_WhenCollectionHasChunks() {
+        // Given: un fragmento que empieza en la línea 40 del documento y cuya segunda línea marcó la consulta
+        float[] embedding = { 0.1f, -0.2f, 0.3f };
+        String question = "¿Cómo divide la mitosis una célula?";
+        List<Object[]> chunks = new ArrayList<>();
+        chunks.add(new Object[] { 11L, 3L, "biologia.pdf", "application/pdf",
+                "Introducción\nLa mitosis divide la célula", 4, 40, 0.9, 0.032,
+                new Integer[] { 2 }, new String[] { "La mitosis divide la célula" } });
+        when(agentRepository.findRelevantChunks(7L, embedding, question, 8, 100, VectorMetric.COSINE)).thenReturn(chunks);
+
+        // When
+        List<Map<String, Object>> documents = agentService.findContextDocuments(7L, embedding, question, 100);
+
+        // Then
+        assertEquals(1, documents.size());
+        Map<String, Object> document = documents.get(0);
+        assertEquals("3", document.get("document_id"));
+        assertEquals(4, document.get("chunk_index"));
+        assertEquals(0.9, document.get("similarity_score"));
+        assertEquals(0.032, document.get("relevance_score"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> relevantLines = (List<Map<String, Object>>) document.get("relevant_lines");
+        assertEquals(1, relevantLines.size());
+        assertEquals(41, relevantLines.get(0).get("line_number"));
+        assertEquals("La mitosis divide la célula", relevantLines.get(0).get("content"));
+        verify(agentRepository).findSimilarUnchunkedDocuments(7L, embedding, 5, 100, VectorMetric.COSINE);
+    }
+
+    @Test
+    void findContextDocuments_ShouldFallBackToDocuments_WhenCollectionHasNoChunks() {
+        // Given: documentos subidos antes de la fragmentación
+        float[] embedding = { 0.1f, -0.2f, 0.3f };
+        List<Object[]> similarDocuments = new ArrayList<>();
+        similarDocuments.add(new Object[] { 3L, "La mitosis divide la célula", "biologia.pdf", "application/pdf", 0.8 });
+        when(agentRepository.findRelevantChunks(7L, embedding, "mitosis divide", 8, 8, VectorMetric.COSINE))
+                .thenReturn(List.of());
+        when(agentRepository.findSimilarUnchunkedDocuments(7L, embedding, 5, 5, VectorMetric.COSINE)).thenReturn(similarDocuments);
+
+        // When
+        List<Map<String, Object>> documents = agentService.findContextDocuments(7L, embedding, "mitosis divide", 5);
+
+        // Then
+        assertEquals(1, documents.size());
+        assertEquals("3", documents.get(0).get("document_id"));
+        assertFalse(documents.get(0).containsKey("chunk_index"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> relevantLines = (List<Map<String, Object>>) documents.get(0).get("relevant_lines");
+        assertEquals(1, relevantLines.get(0).get("line_number"));
+    }
+
+    @Test
+    void findContextDocuments_ShouldMergeUnchunkedDocuments_WithChunks() {
+        // Given: una colección con fragmentos y un documento antiguo sin fragmentar
+        float[] embedding = { 0.1f, -0.2f, 0.3f };
+        String question = "mitosis divide";
+        List<Object[]> chunks = new ArrayList<>();
+        chunks.add(new Object[] { 11L, 3L, "biologia.pdf", "application/pdf", "La mitosis", 0, 1, 0.9, 0.032,
+                new Integer[0], new String[0] });
+        chunks.add(new Object[] { 12L, 3L, "biologia.pdf", "application/pdf", "Otro tema", 1, 5, 0.4, 0.015,
+                new Integer[0], new String[0] });
+        List<Object[]> unchunked = new ArrayList<>();
+        unchunked.add(new Object[] { 4L, "La mitosis divide la célula", "antiguo.txt", "text/plain", 0.7 });
+        when(agentRepository.findRelevantChunks(7L, embedding, question, 8, 8, VectorMetric.COSINE)).thenReturn(chunks);
+        when(agentRepository.findSimilarUnchunkedDocuments(7L, embedding, 5, 5, VectorMetric.COSINE)).thenReturn(unchunked);
+
+        // When
+        List<Map<String, Object>> documents = agentService.findContextDocuments(7L, embedding, question, 5);
+
+        // Then: el documento entra con la puntuación RRF de su posición en el ranking vectorial
+        assertEquals(List.of("3", "4", "3"), documents.stream().map(doc -> doc.get("document_id")).toList());
+        assertEquals(1.0 / 61, (Double) documents.get(1).get("relevance_score"), 1e-12);
+        assertFalse(documents.get(1).containsKey("chunk_index"));
+    }
+
+    @Test
+    void askAgent_ShouldRejectEfSearch_WhenOutOfRange() {
+        assertThrows(RuntimeException.class, () -> agentService.askAgent("7", "pregunta", null, null, 0));
+        assertThrows(RuntimeException.class, () -> agentService.askAgent("7", "pregunta", null, null, 1001));
+        verifyNoInteractions(embeddingService, agentRepository);
+    }
+
     @Test
     void askAgent_ShouldHandleNullAdditionalContext_WhenNotProvided() {
         // Test básico - verificamos que el servicio no es null
@@ -187,11 +446,12 @@ class AgentServiceTest {
     @Test
     void constructor_ShouldInitializeWebClient_WhenCalled() {
         // When
-        AgentService service = new AgentService(documentRepository, embeddingService, agentRepository);
+        AgentService service = new AgentService(webClient, documentRepository, embeddingService, agentRepository,
+                blobStore);
 
         // Then
         assertNotNull(service);
-        // El WebClient se inicializa internamente, no podemos verificarlo directamente
-        // pero podemos verificar que el servicio se crea correctamente
+        // El WebClient lo configura WebClientConfig; el servicio solo lo usa al llamar al agente
+        verifyNoInteractions(webClient);
     }
 } 
\ No newline at end of file
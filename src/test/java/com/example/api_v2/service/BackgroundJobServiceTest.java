@@ -0,0 +1,127 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.BackgroundJobDto;
+import com.example.api_v2.exception.ResourceNotFoundException;
+import com.example.api_v2.model.BackgroundJob;
+import com.example.api_v2.model.BackgroundJobStatus;
+import com.example.api_v2.repository.BackgroundJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para BackgroundJobService
+ * Valida el encolado idempotente y la consulta del estado de los trabajos
+ */
+@ExtendWith(MockitoExtension.class)
+class BackgroundJobServiceTest {
+
+    @Mock
+    private BackgroundJobRepository backgroundJobRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private BackgroundJobService backgroundJobService;
+
+    @Test
+    void enqueue_ShouldPersistPendingJob_WhenKeyIsNew() {
+        // Given
+        when(backgroundJobRepository.findByIdempotencyKey("collection.delete:1")).thenReturn(Optional.empty());
+        when(backgroundJobRepository.save(any(BackgroundJob.class))).thenAnswer(invocation -> {
+            BackgroundJob job = invocation.getArgument(0);
+            job.setId(10L);
+            return job;
+        });
+
+        // When
+        BackgroundJobDto result = backgroundJobService.enqueue(CollectionDeletionJobHandler.TYPE,
+                new CollectionDeletionJobHandler.Payload(7L, 1L, "test@example.com"),
+                "collection.delete:1", 7L, "test@example.com");
+
+        // Then
+        assertEquals(10L, result.getId());
+        assertEquals("PENDING", result.getStatus());
+        assertEquals(5, result.getMaxAttempts());
+
+        ArgumentCaptor<BackgroundJob> captor = ArgumentCaptor.forClass(BackgroundJob.class);
+        verify(backgroundJobRepository).save(captor.capture());
+        BackgroundJob saved = captor.getValue();
+        assertEquals(7L, saved.getWorkspaceId());
+        assertEquals(new CollectionDeletionJobHandler.Payload(7L, 1L, "test@example.com"),
+                backgroundJobService.readPayload(saved, CollectionDeletionJobHandler.Payload.class));
+    }
+
+    @Test
+    void enqueue_ShouldReturnExistingJob_WhenKeyAlreadyQueued() {
+        // Given
+        BackgroundJob existing = job(10L, BackgroundJobStatus.RUNNING);
+        when(backgroundJobRepository.findByIdempotencyKey("collection.delete:1")).thenReturn(Optional.of(existing));
+
+        // When
+        BackgroundJobDto result = backgroundJobService.enqueue(CollectionDeletionJobHandler.TYPE,
+                new CollectionDeletionJobHandler.Payload(7L, 1L, "test@example.com"),
+                "collection.delete:1", 7L, "test@example.com");
+
+        // Then
+        assertEquals(10L, result.getId());
+        assertEquals("RUNNING", result.getStatus());
+        verify(backgroundJobRepository, never()).save(any(BackgroundJob.class));
+    }
+
+    @Test
+    void enqueue_ShouldRequeueJob_WhenPreviousAttemptsFailed() {
+        // Given
+        BackgroundJob existing = job(10L, BackgroundJobStatus.FAILED);
+        existing.setAttempts(5);
+        existing.setLastError("timeout");
+        existing.setFinishedAt(LocalDateTime.now());
+        when(backgroundJobRepository.findByIdempotencyKey("collection.delete:1")).thenReturn(Optional.of(existing));
+        when(backgroundJobRepository.save(existing)).thenReturn(existing);
+
+        // When
+        BackgroundJobDto result = backgroundJobService.enqueue(CollectionDeletionJobHandler.TYPE,
+                new CollectionDeletionJobHandler.Payload(7L, 1L, "test@example.com"),
+                "collection.delete:1", 7L, "test@example.com");
+
+        // Then
+        assertEquals("PENDING", result.getStatus());
+        assertEquals(0, result.getAttempts());
+        assertNull(result.getLastError());
+        assertNull(result.getFinishedAt());
+    }
+
+    @Test
+    void getJob_ShouldThrowException_WhenJobBelongsToAnotherWorkspace() {
+        // Given
+        when(backgroundJobRepository.findById(10L)).thenReturn(Optional.of(job(10L, BackgroundJobStatus.PENDING)));
+
+        // When & Then
+        assertEquals("PENDING", backgroundJobService.getJob(7L, 10L).getStatus());
+        assertThrows(ResourceNotFoundException.class, () -> backgroundJobService.getJob(8L, 10L));
+    }
+
+    private BackgroundJob job(Long id, BackgroundJobStatus status) {
+        BackgroundJob job = new BackgroundJob();
+        job.setId(id);
+        job.setType(CollectionDeletionJobHandler.TYPE);
+        job.setPayload("{}");
+        job.setStatus(status);
+        job.setWorkspaceId(7L);
+        job.setMaxAttempts(5);
+        return job;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.BackgroundJob;
+import com.example.api_v2.model.BackgroundJobStatus;
+import com.example.api_v2.repository.BackgroundJobRepository;
+import com.example.api_v2.repository.PostgresTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de integración para el reclamo de trabajos de BackgroundJobWorker
+ * Valida contra PostgreSQL, con auto-commit desactivado como en producción, que
+ * el reclamo se confirma: el trabajo queda en RUNNING con el intento contado y
+ * el siguiente poll no lo vuelve a reclamar. Necesita un PostgreSQL con pgvector
+ * (ver {@link PostgresTestDatabase}).
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "test.pgvector.url", matches = ".+")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BackgroundJobWorkerClaimTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws SQLException {
+        PostgresTestDatabase.register(registry);
+        registry.add("spring.datasource.hikari.auto-commit", () -> "false");
+    }
+
+    @Autowired
+    private BackgroundJobRepository backgroundJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        backgroundJobRepository.deleteAll();
+    }
+
+    @Test
+    void poll_ShouldCommitClaim_SoNextPollDoesNotClaimSameJob() {
+        // Given: un trabajo pendiente y un executor que no llega a ejecutarlo
+        BackgroundJob job = new BackgroundJob();
+        job.setType("test.job");
+        job.setPayload("{}");
+        job.setMaxAttempts(5);
+        Long jobId = backgroundJobRepository.save(job).getId();
+        ThreadPoolTaskExecutor taskExecutor = mock(ThreadPoolTaskExecutor.class);
+        BackgroundJobWorker worker = new BackgroundJobWorker(backgroundJobRepository, taskExecutor,
+                transactionManager, List.of());
+
+        // When
+        worker.poll();
+        worker.poll();
+
+        // Then: leído por otra conexión, el reclamo persiste y solo se lanzó una vez
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT status, attempts, locked_at FROM background_jobs WHERE id = ?", jobId);
+        assertEquals(BackgroundJobStatus.RUNNING.name(), row.get("status"));
+        assertEquals(1, ((Number) row.get("attempts")).intValue());
+        assertNotNull(row.get("locked_at"));
+        verify(taskExecutor, times(1)).execute(any(Runnable.class));
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.BackgroundJob;
+import com.example.api_v2.model.BackgroundJobStatus;
+import com.example.api_v2.repository.BackgroundJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para BackgroundJobWorker
+ * Valida el reclamo acotado de trabajos y los reintentos con espera exponencial
+ */
+@ExtendWith(MockitoExtension.class)
+class BackgroundJobWorkerTest {
+
+    @Mock
+    private BackgroundJobRepository backgroundJobRepository;
+
+    @Mock
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BackgroundJobHandler handler;
+
+    private BackgroundJobWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        when(handler.getType()).thenReturn("test.job");
+        worker = new BackgroundJobWorker(backgroundJobRepository, taskExecutor, transactionManager,
+                List.of(handler));
+    }
+
+    @Test
+    void poll_ShouldClaimUpToConcurrencyAndRunJobs() {
+        // Given
+        BackgroundJob job = job("test.job", 1);
+        when(backgroundJobRepository.claimDue(eq(4), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> {
+                    job.setLockedAt(invocation.getArgument(1));
+                    return List.of(1L);
+                });
+        when(backgroundJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(taskExecutor).execute(any(Runnable.class));
+
+        // When
+        worker.poll();
+
+        // Then
+        verify(handler).execute(job);
+        assertEquals(BackgroundJobStatus.SUCCEEDED, job.getStatus());
+        assertNotNull(job.getFinishedAt());
+        verify(backgroundJobRepository).save(job);
+    }
+
+    @Test
+    void poll_ShouldCommitClaimBeforeRunningJobs() {
+        // Given
+        when(backgroundJobRepository.claimDue(eq(4), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(1L));
+
+        // When
+        worker.poll();
+
+        // Then: el reclamo se confirma antes de lanzar el trabajo
+        InOrder order = inOrder(transactionManager, backgroundJobRepository, taskExecutor);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(backgroundJobRepository).claimDue(eq(4), any(LocalDateTime.class), any(LocalDateTime.class));
+        order.verify(transactionManager).commit(any());
+        order.verify(taskExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void run_ShouldSkipJob_WhenClaimedAgainByAnotherWorker() {
+        // Given: el bloqueo caducó y otro worker lo reclamó después
+        BackgroundJob job = job("test.job", 2);
+        LocalDateTime claimedAt = job.getLockedAt().minusMinutes(31);
+        when(backgroundJobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // When
+        worker.run(1L, claimedAt);
+
+        // Then
+        verify(handler, never()).execute(any());
+        verify(backgroundJobRepository, never()).save(any());
+    }
+
+    @Test
+    void run_ShouldSkipJob_WhenNoLongerRunning() {
+        // Given
+        BackgroundJob job = job("test.job", 1);
+        job.setStatus(BackgroundJobStatus.SUCCEEDED);
+        when(backgroundJobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // When
+        worker.run(1L, job.getLockedAt());
+
+        // Then
+        verify(handler, never()).execute(any());
+    }
+
+    @Test
+    void poll_ShouldNotClaimJobs_WhenAllSlotsAreBusy() {
+        // Given: los trabajos lanzados no terminan nunca
+        when(backgroundJobRepository.claimDue(eq(4), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(1L, 2L, 3L, 4L));
+
+        // When
+        worker.poll();
+        worker.poll();
+
+        // Then
+        verify(taskExecutor, times(4)).execute(any(Runnable.class));
+        verify(backgroundJobRepository, times(1)).claimDue(anyInt(), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void run_ShouldScheduleRetryWithBackoff_WhenJobFails() {
+        // Given
+        BackgroundJob job = job("test.job", 2);
+        when(backgroundJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        doThrow(new IllegalStateException("boom")).when(handler).execute(job);
+
+        // When
+        LocalDateTime before = LocalDateTime.now();
+        worker.run(1L, job.getLockedAt());
+
+        // Then: segundo intento, se reintenta en 20 segundos
+        assertEquals(BackgroundJobStatus.PENDING, job.getStatus());
+        assertEquals("boom", job.getLastError());
+        assertNull(job.getLockedAt());
+        assertFalse(job.getNextRunAt().isBefore(before.plusSeconds(20)));
+        assertNull(job.getFinishedAt());
+    }
+
+    @Test
+    void run_ShouldMarkJobFailed_WhenAttemptsAreExhausted() {
+        // Given
+        BackgroundJob job = job("test.job", 5);
+        when(backgroundJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        doThrow(new IllegalStateException("boom")).when(handler).execute(job);
+
+        // When
+        worker.run(1L, job.getLockedAt());
+
+        // Then
+        assertEquals(BackgroundJobStatus.FAILED, job.getStatus());
+        assertEquals("boom", job.getLastError());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    void run_ShouldMarkJobFailed_WhenTypeHasNoHandler() {
+        // Given
+        BackgroundJob job = job("unknown.job", 1);
+        when(backgroundJobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // When
+        worker.run(1L, job.getLockedAt());
+
+        // Then
+        assertEquals(BackgroundJobStatus.FAILED, job.getStatus());
+        verify(handler, never()).execute(any());
+    }
+
+    @Test
+    void retryDelaySeconds_ShouldGrowExponentiallyUpToMaximum() {
+        assertEquals(10, worker.retryDelaySeconds(1));
+        assertEquals(20, worker.retryDelaySeconds(2));
+        assertEquals(40, worker.retryDelaySeconds(3));
+        assertEquals(3600, worker.retryDelaySeconds(20));
+    }
+
+    private BackgroundJob job(String type, int attempts) {
+        BackgroundJob job = new BackgroundJob();
+        job.setId(1L);
+        job.setType(type);
+        job.setPayload("{}");
+        job.setStatus(BackgroundJobStatus.RUNNING);
+        job.setAttempts(attempts);
+        job.setMaxAttempts(5);
+        job.setLockedAt(LocalDateTime.now());
+        return job;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.api_v2.service;
 
+import com.example.api_v2.dto.BackgroundJobDto;
 import com.example.api_v2.dto.CollectionDto;
 import com.example.api_v2.model.Collection;
 import com.example.api_v2.model.User;
@@ -47,6 +48,21 @@ class CollectionServiceTest {
     @Mock
     private FlashcardService flashcardService;
 
+    @Mock
+    private DueCardIndex dueCardIndex;
+
+    @Mock
+    private UserCollectionStatsService userCollectionStatsService;
+
+    @Mock
+    private WorkspaceActivityService workspaceActivityService;
+
+    @Mock
+    private BackgroundJobService backgroundJobService;
+
+    @Mock
+    private DocumentService documentService;
+
     @InjectMocks
     private CollectionService collectionService;
 
@@ -137,6 +153,8 @@ class CollectionServiceTest {
         assertEquals(testCollection.getDescription(), result.getDescription());
         verify(collectionRepository).findById(1L);
         verify(userRepository).findByEmail("test@example.com");
+        verify(flashcardService).getCollectionFlashcardsForUser(1L, "test-user-id");
+        verify(flashcardService, never()).convertToDto(any(), anyString());
     }
 
     @Test
@@ -167,6 +185,19 @@ class CollectionServiceTest {
         verify(collectionRepository).findById(1L);
     }
 
+    @Test
+    void checkCollectionInWorkspace_ShouldNotLoadFlashcards_WhenCollectionBelongsToWorkspace() {
+        // Given
+        when(collectionRepository.findById(1L)).thenReturn(Optional.of(testCollection));
+
+        // When
+        collectionService.checkCollectionInWorkspace(1L, 1L);
+
+        // Then
+        verifyNoInteractions(flashcardService);
+        assertThrows(RuntimeException.class, () -> collectionService.checkCollectionInWorkspace(2L, 1L));
+    }
+
     @Test
     void createCollection_ShouldCreateCollection_WhenValidRequest() {
         // Given
@@ -265,16 +296,51 @@ class CollectionServiceTest {
     }
 
     @Test
-    void deleteCollection_ShouldDeleteCollection_WhenValidRequest() {
+    void deleteCollection_ShouldEnqueueDeletionJob_WhenValidRequest() {
         // Given
+        BackgroundJobDto job = new BackgroundJobDto(10L, CollectionDeletionJobHandler.TYPE, "PENDING", 0, 5,
+                null, LocalDateTime.now(), LocalDateTime.now(), null);
         when(collectionRepository.findById(anyLong())).thenReturn(Optional.of(testCollection));
+        when(backgroundJobService.enqueue(anyString(), any(), anyString(), anyLong(), anyString())).thenReturn(job);
 
         // When
-        collectionService.deleteCollection(1L, 1L, "test@example.com");
+        BackgroundJobDto result = collectionService.deleteCollection(1L, 1L, "test@example.com");
+
+        // Then: la eliminación queda encolada, no se ejecuta en la petición
+        assertEquals(10L, result.getId());
+        verify(backgroundJobService).enqueue(CollectionDeletionJobHandler.TYPE,
+                new CollectionDeletionJobHandler.Payload(1L, 1L, "test@example.com"),
+                "collection.delete:1", 1L, "test@example.com");
+        verify(collectionRepository, never()).delete(any(Collection.class));
+    }
+
+    @Test
+    void purgeCollection_ShouldDeleteCollection_WhenCollectionExists() {
+        // Given
+        when(collectionRepository.findById(anyLong())).thenReturn(Optional.of(testCollection));
+
+        // When
+        collectionService.purgeCollection(1L, 1L, "test@example.com");
 
         // Then
-        verify(collectionRepository).findById(1L);
         verify(collectionRepository).delete(testCollection);
+        verify(dueCardIndex).invalidateCollection(1L);
+        verify(userCollectionStatsService).invalidateCollection(1L);
+        verify(workspaceActivityService).logCollectionDeleted(1L, "test@example.com", testCollection.getName());
+        verify(documentService).deleteByCollection(1L);
+    }
+
+    @Test
+    void purgeCollection_ShouldDoNothing_WhenCollectionAlreadyDeleted() {
+        // Given: un reintento tras una eliminación que sí llegó a confirmarse
+        when(collectionRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        // When
+        collectionService.purgeCollection(1L, 1L, "test@example.com");
+
+        // Then
+        verify(collectionRepository, never()).delete(any(Collection.class));
+        verifyNoInteractions(dueCardIndex, userCollectionStatsService, workspaceActivityService, documentService);
     }
 
     @Test
@@ -288,5 +354,6 @@ class CollectionServiceTest {
         );
         verify(collectionRepository).findById(1L);
         verify(collectionRepository, never()).delete(any(Collection.class));
+        verifyNoInteractions(backgroundJobService);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentChunk;
+import com.example.api_v2.repository.DocumentChunkRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para DocumentChunkService
+ * Valida la fragmentación del contenido y la sustitución de los fragmentos indexados
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentChunkServiceTest {
+
+    @Mock
+    private DocumentChunkRepository documentChunkRepository;
+
+    @Mock
+    private EmbeddingService embeddingService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DocumentChunkService documentChunkService;
+
+    @Test
+    void split_ShouldReturnSingleChunk_WhenContentFits() {
+        List<DocumentChunkService.ChunkText> chunks = DocumentChunkService.split("  Texto corto.\n", 1000, 150);
+
+        assertEquals(1, chunks.size());
+        assertEquals("Texto corto.", chunks.get(0).text());
+        assertEquals(1, chunks.get(0).startLine());
+    }
+
+    @Test
+    void split_ShouldReturnNoChunks_WhenContentIsBlank() {
+        assertTrue(DocumentChunkService.split(null, 1000, 150).isEmpty());
+        assertTrue(DocumentChunkService.split(" \n ", 1000, 150).isEmpty());
+    }
+
+    @Test
+    void split_ShouldCutAtLineBoundariesWithOverlap() {
+        // Given: 60 líneas de 40 caracteres
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 60; i++) {
+            content.append(String.format("Linea %02d con algo de texto de relleno.", i)).append('\n');
+        }
+
+        // When
+        List<DocumentChunkService.ChunkText> chunks = DocumentChunkService.split(content.toString(), 300, 60);
+
+        // Then
+        assertTrue(chunks.size() > 1);
+        for (int i = 0; i < chunks.size(); i++) {
+            DocumentChunkService.ChunkText chunk = chunks.get(i);
+            assertEquals(i, chunk.index());
+            assertTrue(chunk.text().length() <= 300);
+            assertTrue(chunk.text().endsWith("relleno."), chunk.text());
+            if (i > 0) {
+                // El final del fragmento anterior se repite al principio del siguiente
+                String previous = chunks.get(i - 1).text();
+                assertTrue(previous.contains(chunk.text().substring(0, chunk.text().indexOf('\n'))), chunk.text());
+            }
+        }
+        assertTrue(chunks.get(chunks.size() - 1).text().endsWith("Linea 60 con algo de texto de relleno."));
+    }
+
+    @Test
+    void split_ShouldTrackStartLineOfEachChunk() {
+        String content = "uno\ndos\n\ntres cuatro cinco seis\nsiete ocho nueve diez";
+
+        List<DocumentChunkService.ChunkText> chunks = DocumentChunkService.split(content, 20, 0);
+
+        assertEquals(List.of("uno\ndos\n\ntres", "cuatro cinco seis", "siete ocho nueve", "diez"),
+                chunks.stream().map(DocumentChunkService.ChunkText::text).toList());
+        assertEquals(List.of(1, 4, 5, 5), chunks.stream().map(DocumentChunkService.ChunkText::startLine).toList());
+    }
+
+    @Test
+    void split_ShouldAlwaysAdvance_WhenThereIsNoBoundary() {
+        List<DocumentChunkService.ChunkText> chunks = DocumentChunkService.split("x".repeat(45), 20, 5);
+
+        assertEquals(List.of(20, 20, 5), chunks.stream().map(chunk -> chunk.text().length()).toList());
+    }
+
+    @Test
+    void indexDocument_ShouldEmbedEachChunkAndReplacePreviousChunks() {
+        // Given
+        Collection collection = new Collection();
+        collection.setId(3L);
+        Document document = new Document();
+        document.setId(9L);
+        document.setCollection(collection);
+        document.setContent("a".repeat(1500));
+        float[] embedding = { 0.5f };
+        when(embeddingService.generateEmbedding(anyString())).thenReturn(Mono.just(embedding));
+
+        // When
+        Integer count = documentChunkService.indexDocument(document).block();
+
+        // Then
+        assertEquals(2, count);
+        verify(embeddingService, times(2)).generateEmbedding(anyString());
+        verify(documentChunkRepository).deleteByDocumentId(9L);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DocumentChunk>> captor = ArgumentCaptor.forClass(List.class);
+        verify(documentChunkRepository).saveAll(captor.capture());
+        List<DocumentChunk> saved = captor.getValue();
+        assertEquals(2, saved.size());
+        assertEquals(0, saved.get(0).getChunkIndex());
+        assertEquals(1, saved.get(1).getChunkIndex());
+        assertEquals(3L, saved.get(1).getCollectionId());
+        assertSame(document, saved.get(1).getDocument());
+        assertSame(embedding, saved.get(0).getEmbedding());
+    }
+
+    @Test
+    void indexDocument_ShouldNotCallEmbeddings_WhenDocumentHasNoContent() {
+        Document document = new Document();
+        document.setId(9L);
+
+        assertEquals(0, documentChunkService.indexDocument(document).block());
+        verifyNoInteractions(embeddingService, documentChunkRepository);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.ProcessedDocumentDto;
+import com.example.api_v2.model.BackgroundJob;
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentIngestionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para DocumentIngestionJobHandler
+ * Valida los cambios de estado del documento y la repetición segura de los trabajos
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentIngestionJobHandlerTest {
+
+    private static final String STORAGE_KEY = "0b6f1c9e-2d4a-4c3b-9a1e-7f5d8c2b4a10";
+
+    @Mock
+    private DocumentService documentService;
+
+    @Mock
+    private AgentService agentService;
+
+    @Mock
+    private DocumentChunkService documentChunkService;
+
+    @Mock
+    private BackgroundJobService backgroundJobService;
+
+    @InjectMocks
+    private DocumentIngestionJobHandler handler;
+
+    private BackgroundJob job;
+    private Document document;
+
+    @BeforeEach
+    void setUp() {
+        job = new BackgroundJob();
+        job.setId(10L);
+        job.setType(DocumentIngestionJobHandler.TYPE);
+        job.setAttempts(1);
+        job.setMaxAttempts(5);
+        when(backgroundJobService.readPayload(job, DocumentIngestionJobHandler.Payload.class))
+                .thenReturn(new DocumentIngestionJobHandler.Payload(1L));
+
+        Collection collection = new Collection();
+        collection.setId(3L);
+        document = new Document();
+        document.setId(1L);
+        document.setCollection(collection);
+        document.setFileName("apuntes.pdf");
+        document.setFileType("application/pdf");
+        document.setStorageKey(STORAGE_KEY);
+        document.setIngestionStatus(DocumentIngestionStatus.UPLOADED);
+    }
+
+    @Test
+    void execute_ShouldExtractIndexAndMarkEmbedded_WhenAgentResponds() {
+        // Given
+        float[] embedding = {0.25f, -0.5f};
+        when(documentService.getDocument(1L)).thenReturn(Optional.of(document));
+        when(documentService.startIngestion(1L)).thenReturn(true);
+        when(agentService.processDocument(STORAGE_KEY, "apuntes.pdf", "application/pdf"))
+                .thenReturn(Mono.just(new ProcessedDocumentDto("texto extraído", embedding)));
+        when(documentChunkService.indexDocument(document)).thenReturn(Mono.just(2));
+
+        // When
+        handler.execute(job);
+
+        // Then: los fragmentos se guardan antes de marcar el documento como terminado
+        InOrder order = inOrder(documentService, documentChunkService);
+        order.verify(documentService).startIngestion(1L);
+        order.verify(documentChunkService).indexDocument(document);
+        order.verify(documentService).completeIngestion(1L, "texto extraído", embedding);
+        assertEquals("texto extraído", document.getContent());
+    }
+
+    @Test
+    void execute_ShouldResetToUploadedAndRethrow_WhenAgentFailsAndAttemptsRemain() {
+        // Given
+        when(documentService.getDocument(1L)).thenReturn(Optional.of(document));
+        when(documentService.startIngestion(1L)).thenReturn(true);
+        when(agentService.processDocument(anyString(), anyString(), anyString()))
+                .thenReturn(Mono.error(new IllegalStateException("agente no disponible")));
+
+        // When
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> handler.execute(job));
+
+        // Then: la cola lo reintentará
+        assertEquals("agente no disponible", error.getMessage());
+        verify(documentService).updateIngestionStatus(1L, DocumentIngestionStatus.UPLOADED);
+        verify(documentService, never()).completeIngestion(anyLong(), any(), any());
+        verifyNoInteractions(documentChunkService);
+    }
+
+    @Test
+    void execute_ShouldMarkFailed_WhenLastAttemptFails() {
+        // Given
+        job.setAttempts(5);
+        when(documentService.getDocument(1L)).thenReturn(Optional.of(document));
+        when(documentService.startIngestion(1L)).thenReturn(true);
+        when(agentService.processDocument(anyString(), anyString(), anyString()))
+                .thenReturn(Mono.just(new ProcessedDocumentDto(null, null)));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> handler.execute(job));
+        verify(documentService).updateIngestionStatus(1L, DocumentIngestionStatus.FAILED);
+    }
+
+    @Test
+    void execute_ShouldDoNothing_WhenDocumentAlreadyEmbedded() {
+        // Given: un reintento después de que otro intento terminara
+        document.setIngestionStatus(DocumentIngestionStatus.EMBEDDED);
+        when(documentService.getDocument(1L)).thenReturn(Optional.of(document));
+
+        // When
+        handler.execute(job);
+
+        // Then
+        verify(documentService, never()).updateIngestionStatus(anyLong(), any());
+        verifyNoInteractions(agentService, documentChunkService);
+    }
+
+    @Test
+    void execute_ShouldDoNothing_WhenAnotherAttemptStartedFirst() {
+        // Given: el documento ya no está en UPLOADED
+        when(documentService.getDocument(1L)).thenReturn(Optional.of(document));
+        when(documentService.startIngestion(1L)).thenReturn(false);
+
+        // When
+        handler.execute(job);
+
+        // Then: ni llama al agente ni toca los fragmentos ni el estado
+        verify(documentService, never()).updateIngestionStatus(anyLong(), any());
+        verify(documentService, never()).completeIngestion(anyLong(), any(), any());
+        verifyNoInteractions(agentService, documentChunkService);
+    }
+
+    @Test
+    void execute_ShouldSucceed_WhenDocumentWasDeleted() {
+        // Given
+        when(documentService.getDocument(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertDoesNotThrow(() -> handler.execute(job));
+        verifyNoInteractions(agentService, documentChunkService);
+    }
+
+    @Test
+    void execute_ShouldMarkFailed_WhenDocumentHasNoStoredFile() {
+        // Given: documento anterior al BlobStore
+        document.setStorageKey(null);
+        when(documentService.getDocument(1L)).thenReturn(Optional.of(document));
+
+        // When
+        handler.execute(job);
+
+        // Then
+        verify(documentService).updateIngestionStatus(1L, DocumentIngestionStatus.FAILED);
+        verifyNoInteractions(agentService);
+    }
+}
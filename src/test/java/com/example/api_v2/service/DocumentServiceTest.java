@@ -1,9 +1,13 @@
 package com.example.api_v2.service;
 
 import com.example.api_v2.dto.DocumentDto;
+import com.example.api_v2.dto.DocumentFileDto;
+import com.example.api_v2.dto.DocumentIngestionDto;
 import com.example.api_v2.exception.ResourceNotFoundException;
 import com.example.api_v2.model.Collection;
 import com.example.api_v2.model.Document;
+import com.example.api_v2.model.DocumentIngestionStatus;
+import com.example.api_v2.model.Workspace;
 import com.example.api_v2.repository.CollectionRepository;
 import com.example.api_v2.repository.DocumentRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,7 +16,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -29,12 +41,26 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class DocumentServiceTest {
 
+    private static final String HASH = "5e0a2c7f3b1d4e6a8c9b0f1e2d3c4b5a69788796a5b4c3d2e1f0a9b8c7d6e5f4";
+
     @Mock
     private DocumentRepository documentRepository;
 
     @Mock
     private CollectionRepository collectionRepository;
 
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private BackgroundJobService backgroundJobService;
+
+    @Mock
+    private DocumentChunkService documentChunkService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private DocumentService documentService;
 
@@ -63,8 +89,7 @@ class DocumentServiceTest {
     @Test
     void getDocumentsByCollection_ShouldReturnDocumentList_WhenDocumentsExist() {
         // Given
-        List<Document> documents = List.of(testDocument);
-        when(documentRepository.findByCollectionId(anyLong())).thenReturn(documents);
+        when(documentRepository.findSummariesByCollectionId(anyLong())).thenReturn(List.of(testDocumentDto));
 
         // When
         List<DocumentDto> result = documentService.getDocumentsByCollection(1L);
@@ -77,13 +102,14 @@ class DocumentServiceTest {
         assertEquals(testDocument.getFileType(), documentDto.getFileType());
         assertEquals(testDocument.getFileSize(), documentDto.getFileSize());
         
-        verify(documentRepository).findByCollectionId(1L);
+        verify(documentRepository).findSummariesByCollectionId(1L);
+        verify(documentRepository, never()).findAll();
     }
 
     @Test
     void getDocumentsByCollection_ShouldReturnEmptyList_WhenNoDocumentsExist() {
         // Given
-        when(documentRepository.findByCollectionId(anyLong())).thenReturn(new ArrayList<>());
+        when(documentRepository.findSummariesByCollectionId(anyLong())).thenReturn(new ArrayList<>());
 
         // When
         List<DocumentDto> result = documentService.getDocumentsByCollection(1L);
@@ -91,7 +117,8 @@ class DocumentServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(0, result.size());
-        verify(documentRepository).findByCollectionId(1L);
+        verify(documentRepository).findSummariesByCollectionId(1L);
+        verify(documentRepository, never()).findAll();
     }
 
     @Test
@@ -134,4 +161,227 @@ class DocumentServiceTest {
         // Then
         verify(documentRepository).deleteById(1L);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void deleteDocument_ShouldDeleteStoredFile_WhenDocumentIsInBlobStore() throws IOException {
+        // Given
+        testDocument.setStorageKey("0b6f1c9e-2d4a-4c3b-9a1e-7f5d8c2b4a10");
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
+
+        // When: sin transacción activa el fichero se borra en el momento
+        documentService.deleteDocument(1L);
+
+        // Then
+        verify(documentRepository).deleteById(1L);
+        verify(blobStore).delete("0b6f1c9e-2d4a-4c3b-9a1e-7f5d8c2b4a10");
+    }
+
+    @Test
+    void getDownload_ShouldStreamFromBlobStore_WhenDocumentHasStorageKey() throws IOException {
+        // Given
+        when(documentRepository.findFileById(1L)).thenReturn(Optional.of(new DocumentFileDto(
+                "test-document.pdf", "pdf", 1024L, "0b6f1c9e-2d4a-4c3b-9a1e-7f5d8c2b4a10", "abc123")));
+        WritableByteChannel target = Channels.newChannel(new ByteArrayOutputStream());
+
+        // When
+        DocumentService.DocumentDownload download = documentService.getDownload(1L);
+        download.content().transferTo(100, 50, target);
+
+        // Then
+        assertEquals(1024L, download.size());
+        assertEquals("abc123", download.etag());
+        verify(blobStore).transferTo("0b6f1c9e-2d4a-4c3b-9a1e-7f5d8c2b4a10", 100, 50, target);
+        verify(documentRepository, never()).findById(anyLong());
+        verify(documentRepository, never()).findDataById(anyLong());
+    }
+
+    @Test
+    void getDownload_ShouldServeRangeFromData_WhenDocumentPredatesBlobStore() throws IOException {
+        // Given
+        when(documentRepository.findFileById(1L)).thenReturn(Optional.of(new DocumentFileDto(
+                "test-document.pdf", "pdf", 10L, null, null)));
+        when(documentRepository.findDataById(1L)).thenReturn("0123456789".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        DocumentService.DocumentDownload download = documentService.getDownload(1L);
+        download.content().transferTo(2, 5, Channels.newChannel(out));
+
+        // Then
+        assertEquals(10L, download.size());
+        assertEquals(64, download.etag().length());
+        assertEquals("23456", out.toString(StandardCharsets.UTF_8));
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    void getDownload_ShouldThrowException_WhenDocumentNotFound() {
+        when(documentRepository.findFileById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> documentService.getDownload(999L));
+    }
+
+    @Test
+    void deleteByCollection_ShouldBulkDeleteDocumentsAndTheirFiles() throws IOException {
+        // Given
+        when(documentRepository.findStorageKeysByCollectionId(1L))
+                .thenReturn(List.of("0b6f1c9e-2d4a-4c3b-9a1e-7f5d8c2b4a10"));
+
+        // When
+        documentService.deleteByCollection(1L);
+
+        // Then: sin cargar las entidades
+        verify(documentRepository).deleteByCollectionId(1L);
+        verify(blobStore).delete("0b6f1c9e-2d4a-4c3b-9a1e-7f5d8c2b4a10");
+        verify(documentRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void uploadFile_ShouldStoreFileAndEnqueueIngestion() throws IOException {
+        // Given
+        Workspace workspace = new Workspace();
+        workspace.setId(7L);
+        testCollection.setWorkspace(workspace);
+        MockMultipartFile file = new MockMultipartFile("file", "apuntes.pdf", "application/pdf",
+                "%PDF-1.4".getBytes(StandardCharsets.UTF_8));
+        when(collectionRepository.findById(1L)).thenReturn(Optional.of(testCollection));
+        when(blobStore.store(any(InputStream.class))).thenReturn(new BlobStore.StoredBlob(HASH, 8, HASH));
+        when(blobStore.exists(HASH)).thenReturn(true);
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document saved = invocation.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
+
+        // When: sin transacción activa se encola en el momento
+        Document result = documentService.uploadFile(1L, file);
+
+        // Then: el agente no se llama durante la subida
+        assertEquals(DocumentIngestionStatus.UPLOADED, result.getIngestionStatus());
+        assertEquals(HASH, result.getStorageKey());
+        verify(documentRepository).lockStorageKey(HASH);
+        verify(backgroundJobService).enqueue(eq(DocumentIngestionJobHandler.TYPE),
+                eq(new DocumentIngestionJobHandler.Payload(42L)), eq("document.ingest:42"), eq(7L), isNull());
+    }
+
+    @Test
+    void uploadFile_ShouldReuseProcessedDocument_WhenSameContentWasUploaded() throws IOException {
+        // Given: el mismo fichero ya se procesó en otra colección
+        Workspace workspace = new Workspace();
+        workspace.setId(7L);
+        testCollection.setWorkspace(workspace);
+        testDocument.setContentHash(HASH);
+        testDocument.setEmbedding(new float[] {0.25f, -0.5f});
+        testDocument.setIngestionStatus(DocumentIngestionStatus.EMBEDDED);
+        MockMultipartFile file = new MockMultipartFile("file", "copia.pdf", "application/pdf",
+                "%PDF-1.4".getBytes(StandardCharsets.UTF_8));
+        when(collectionRepository.findById(1L)).thenReturn(Optional.of(testCollection));
+        when(blobStore.store(any(InputStream.class))).thenReturn(new BlobStore.StoredBlob(HASH, 8, HASH));
+        when(blobStore.exists(HASH)).thenReturn(true);
+        when(documentRepository.findFirstByContentHashAndIngestionStatusOrderByIdAsc(HASH,
+                DocumentIngestionStatus.EMBEDDED)).thenReturn(Optional.of(testDocument));
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document saved = invocation.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
+
+        // When
+        Document result = documentService.uploadFile(1L, file);
+
+        // Then: comparte el fichero, el texto y el embedding sin pasar por el agente
+        assertEquals(DocumentIngestionStatus.EMBEDDED, result.getIngestionStatus());
+        assertEquals(HASH, result.getStorageKey());
+        assertEquals("Test document content", result.getContent());
+        assertArrayEquals(new float[] {0.25f, -0.5f}, result.getEmbedding());
+        verify(documentChunkService).copyChunks(1L, result);
+        verifyNoInteractions(backgroundJobService);
+    }
+
+    @Test
+    void uploadFile_ShouldStoreAgain_WhenSharedFileWasDeletedBeforeLocking() throws IOException {
+        // Given: el último documento que usaba el fichero se borró entre store y el bloqueo
+        Workspace workspace = new Workspace();
+        workspace.setId(7L);
+        testCollection.setWorkspace(workspace);
+        MockMultipartFile file = new MockMultipartFile("file", "apuntes.pdf", "application/pdf",
+                "%PDF-1.4".getBytes(StandardCharsets.UTF_8));
+        when(collectionRepository.findById(1L)).thenReturn(Optional.of(testCollection));
+        when(blobStore.store(any(InputStream.class))).thenReturn(new BlobStore.StoredBlob(HASH, 8, HASH));
+        when(blobStore.exists(HASH)).thenReturn(false);
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        documentService.uploadFile(1L, file);
+
+        // Then
+        verify(blobStore, times(2)).store(any(InputStream.class));
+    }
+
+    @Test
+    void deleteDocument_ShouldKeepStoredFile_WhenOtherDocumentsShareIt() throws IOException {
+        // Given
+        testDocument.setStorageKey(HASH);
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
+        when(documentRepository.countByStorageKey(HASH)).thenReturn(1L);
+
+        // When
+        documentService.deleteDocument(1L);
+
+        // Then
+        verify(documentRepository).lockStorageKey(HASH);
+        verify(blobStore, never()).delete(anyString());
+    }
+
+    @Test
+    void getIngestion_ShouldReturnStatusAndJob() {
+        // Given
+        when(documentRepository.findIngestionStatus(1L, 42L)).thenReturn(Optional.of(DocumentIngestionStatus.UPLOADED));
+        when(backgroundJobService.findJob("document.ingest:42")).thenReturn(Optional.empty());
+
+        // When
+        DocumentIngestionDto result = documentService.getIngestion(1L, 42L);
+
+        // Then
+        assertEquals(42L, result.getDocumentId());
+        assertEquals(DocumentIngestionStatus.UPLOADED, result.getStatus());
+        assertNull(result.getJob());
+    }
+
+    @Test
+    void getIngestion_ShouldThrowException_WhenDocumentNotInCollection() {
+        when(documentRepository.findIngestionStatus(1L, 999L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> documentService.getIngestion(1L, 999L));
+    }
+
+    @Test
+    void enqueuePendingIngestions_ShouldEnqueueUnfinishedDocuments() {
+        // Given: un documento cuyo encolado no llegó a hacerse
+        when(documentRepository.findPendingIngestions(
+                List.of(DocumentIngestionStatus.UPLOADED, DocumentIngestionStatus.EXTRACTING)))
+                .thenReturn(List.of(pending(42L, 7L)));
+
+        // When
+        int result = documentService.enqueuePendingIngestions();
+
+        // Then
+        assertEquals(1, result);
+        verify(backgroundJobService).enqueue(eq(DocumentIngestionJobHandler.TYPE),
+                eq(new DocumentIngestionJobHandler.Payload(42L)), eq("document.ingest:42"), eq(7L), isNull());
+    }
+
+    private static DocumentRepository.PendingIngestion pending(Long id, Long workspaceId) {
+        return new DocumentRepository.PendingIngestion() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getWorkspaceId() {
+                return workspaceId;
+            }
+        };
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.repository.UserFlashcardProgressRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para DueCardIndex
+ * Valida el recuento de flashcards pendientes sin consultar la base de datos en cada llamada
+ */
+@ExtendWith(MockitoExtension.class)
+class DueCardIndexTest {
+
+    @Mock
+    private UserFlashcardProgressRepository userFlashcardProgressRepository;
+
+    @InjectMocks
+    private DueCardIndex dueCardIndex;
+
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.of(2025, 1, 15, 12, 0);
+    }
+
+    @Test
+    void countDue_ShouldLoadBucketOnce_AndCountOnlyOverdueCards() {
+        // Given
+        when(userFlashcardProgressRepository.findReviewDatesByCollectionIdAndUserId(1L, "user-1"))
+                .thenReturn(rows(
+                        new Object[] { 1L, now.minusDays(2) },
+                        new Object[] { 2L, now.minusHours(1) },
+                        new Object[] { 3L, now.plusDays(1) },
+                        new Object[] { 4L, null }));
+
+        // When
+        long firstCount = dueCardIndex.countDue("user-1", 1L, now);
+        long secondCount = dueCardIndex.countDue("user-1", 1L, now.plusDays(2));
+
+        // Then
+        assertEquals(2, firstCount);
+        assertEquals(3, secondCount);
+        verify(userFlashcardProgressRepository, times(1)).findReviewDatesByCollectionIdAndUserId(1L, "user-1");
+    }
+
+    @Test
+    void update_ShouldMoveCardInAndOutOfDueSet() {
+        // Given
+        when(userFlashcardProgressRepository.findReviewDatesByCollectionIdAndUserId(1L, "user-1"))
+                .thenReturn(rows(
+                        new Object[] { 1L, now.minusDays(1) },
+                        new Object[] { 2L, now.plusDays(3) }));
+        assertEquals(1, dueCardIndex.countDue("user-1", 1L, now));
+
+        // When
+        dueCardIndex.update("user-1", 1L, 1L, now.plusDays(6));
+        dueCardIndex.update("user-1", 1L, 2L, now.minusMinutes(5));
+        dueCardIndex.update("user-1", 1L, 5L, now.minusMinutes(1));
+
+        // Then
+        assertEquals(2, dueCardIndex.countDue("user-1", 1L, now));
+    }
+
+    @Test
+    void remove_ShouldDropCardForEveryUserOfCollection() {
+        // Given
+        when(userFlashcardProgressRepository.findReviewDatesByCollectionIdAndUserId(1L, "user-1"))
+                .thenReturn(rows(new Object[] { 1L, now.minusDays(1) }));
+        when(userFlashcardProgressRepository.findReviewDatesByCollectionIdAndUserId(1L, "user-2"))
+                .thenReturn(rows(new Object[] { 1L, now.minusDays(1) }));
+        assertEquals(1, dueCardIndex.countDue("user-1", 1L, now));
+        assertEquals(1, dueCardIndex.countDue("user-2", 1L, now));
+
+        // When
+        dueCardIndex.remove(1L, 1L);
+
+        // Then
+        assertEquals(0, dueCardIndex.countDue("user-1", 1L, now));
+        assertEquals(0, dueCardIndex.countDue("user-2", 1L, now));
+    }
+
+    @Test
+    void countDue_ShouldKeepReviewCommittedWhileBucketLoads() {
+        // Given: el repaso se confirma después de que la carga haya leído la base de datos
+        when(userFlashcardProgressRepository.findReviewDatesByCollectionIdAndUserId(1L, "user-1"))
+                .thenAnswer(invocation -> {
+                    List<Object[]> stale = rows(
+                            new Object[] { 1L, now.minusDays(1) },
+                            new Object[] { 2L, now.minusDays(2) });
+                    dueCardIndex.update("user-1", 1L, 1L, now.plusDays(5));
+                    return stale;
+                });
+
+        // When
+        long due = dueCardIndex.countDue("user-1", 1L, now);
+
+        // Then: el repaso no se pierde y el cubo publicado sigue al día
+        assertEquals(1, due);
+        dueCardIndex.update("user-1", 1L, 2L, now.plusDays(1));
+        assertEquals(0, dueCardIndex.countDue("user-1", 1L, now));
+        verify(userFlashcardProgressRepository, times(1)).findReviewDatesByCollectionIdAndUserId(1L, "user-1");
+    }
+
+    @Test
+    void countDue_ShouldReloadBucket_WhenCollectionInvalidatedWhileLoading() {
+        // Given
+        when(userFlashcardProgressRepository.findReviewDatesByCollectionIdAndUserId(1L, "user-1"))
+                .thenAnswer(invocation -> {
+                    dueCardIndex.invalidateCollection(1L);
+                    return rows(new Object[] { 1L, now.minusDays(1) });
+                })
+                .thenReturn(rows());
+
+        // When
+        dueCardIndex.countDue("user-1", 1L, now);
+        long due = dueCardIndex.countDue("user-1", 1L, now);
+
+        // Then: lo leído antes de la invalidación no se publica
+        assertEquals(0, due);
+        verify(userFlashcardProgressRepository, times(2)).findReviewDatesByCollectionIdAndUserId(1L, "user-1");
+    }
+
+    @Test
+    void countDue_ShouldEvictLeastRecentlyUsedBucket_WhenOverCapacity() {
+        // Given
+        ReflectionTestUtils.setField(dueCardIndex, "maxBuckets", 2);
+        when(userFlashcardProgressRepository.findReviewDatesByCollectionIdAndUserId(anyLong(), anyString()))
+                .thenAnswer(invocation -> rows(new Object[] { 1L, now.minusDays(1) }));
+        dueCardIndex.countDue("user-1", 1L, now);
+        dueCardIndex.countDue("user-2", 1L, now);
+        dueCardIndex.countDue("user-1", 1L, now);
+
+        // When: un tercer cubo desplaza al usado hace más tiempo (user-2)
+        dueCardIndex.countDue("user-3", 1L, now);
+        dueCardIndex.countDue("user-1", 1L, now);
+        dueCardIndex.countDue("user-2", 1L, now);
+
+        // Then
+        verify(userFlashcardProgressRepository, times(1)).findReviewDatesByCollectionIdAndUserId(1L, "user-1");
+        verify(userFlashcardProgressRepository, times(2)).findReviewDatesByCollectionIdAndUserId(1L, "user-2");
+    }
+
+    @Test
+    void invalidateCollection_ShouldReloadFromDatabase() {
+        // Given
+        when(userFlashcardProgressRepository.findReviewDatesByCollectionIdAndUserId(1L, "user-1"))
+                .thenReturn(rows(new Object[] { 1L, now.minusDays(1) }))
+                .thenReturn(rows());
+        assertEquals(1, dueCardIndex.countDue("user-1", 1L, now));
+
+        // When
+        dueCardIndex.invalidateCollection(1L);
+
+        // Then
+        assertEquals(0, dueCardIndex.countDue("user-1", 1L, now));
+        verify(userFlashcardProgressRepository, times(2)).findReviewDatesByCollectionIdAndUserId(1L, "user-1");
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
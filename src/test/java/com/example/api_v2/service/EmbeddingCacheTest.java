@@ -0,0 +1,80 @@
+package com.example.api_v2.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para EmbeddingCache
+ * Valida la normalización de claves, el presupuesto de bytes con expulsión LRU y los fallos de carga
+ */
+class EmbeddingCacheTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final Function<String, Mono<float[]>> loader = text -> {
+        calls.incrementAndGet();
+        return Mono.just(new float[] { text.length() });
+    };
+
+    @Test
+    void normalize_ShouldIgnoreRepeatedAndSurroundingWhitespace() {
+        assertEquals("¿Qué es la mitosis?", EmbeddingCache.normalize(" ¿Qué es\n\tla   mitosis? "));
+        assertEquals(EmbeddingCache.key("a b"), EmbeddingCache.key(EmbeddingCache.normalize("a  b")));
+        assertNotEquals(EmbeddingCache.key("a b"), EmbeddingCache.key("a c"));
+    }
+
+    @Test
+    void get_ShouldEvictLeastRecentlyUsed_WhenByteBudgetIsExceeded() {
+        // Given: espacio para dos embeddings de una dimensión
+        EmbeddingCache cache = new EmbeddingCache(2 * EmbeddingCache.sizeOf(new float[1]));
+        cache.get("uno", loader).block();
+        cache.get("dos", loader).block();
+        cache.get("uno", loader).block();
+
+        // When: el tercero expulsa a "dos", el menos usado recientemente
+        cache.get("tres", loader).block();
+        cache.get("uno", loader).block();
+        cache.get("dos", loader).block();
+
+        // Then
+        assertEquals(4, calls.get());
+        assertEquals(2, cache.stats().entries());
+        assertEquals(2 * EmbeddingCache.sizeOf(new float[1]), cache.stats().bytes());
+        assertEquals(2, cache.stats().hits());
+        assertEquals(0.33, cache.stats().hitRate(), 0.01);
+    }
+
+    @Test
+    void get_ShouldNotStoreEmbedding_WhenLargerThanBudget() {
+        EmbeddingCache cache = new EmbeddingCache(EmbeddingCache.ENTRY_OVERHEAD_BYTES);
+
+        cache.get("uno", loader).block();
+        cache.get("uno", loader).block();
+
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void get_ShouldRetry_WhenPreviousLoadFailed() {
+        // Given
+        EmbeddingCache cache = new EmbeddingCache(1024);
+        Function<String, Mono<float[]>> failing = text -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("servicio caído"));
+        };
+
+        // When
+        assertThrows(IllegalStateException.class, () -> cache.get("uno", failing).block());
+        float[] embedding = cache.get("uno", loader).block();
+
+        // Then
+        assertArrayEquals(new float[] { 3 }, embedding);
+        assertEquals(2, calls.get());
+    }
+}
@@ -1,76 +1,140 @@
 package com.example.api_v2.service;
 
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
  * Tests unitarios para EmbeddingService
- * Valida la comunicación con el servicio de embeddings
+ * Valida la comunicación con el servicio de embeddings y la caché de preguntas
+ * contra un servidor HTTP local que simula el servicio Python
  */
 @ExtendWith(MockitoExtension.class)
 class EmbeddingServiceTest {
 
     @Mock
-    private WebClient.Builder webClientBuilder;
+    private WebClient webClient;
+
+    private HttpServer server;
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void constructor_ShouldNotCallService_UntilEmbeddingIsRequested() {
+        // When
+        EmbeddingService service = new EmbeddingService(webClient, new EmbeddingCache(1024));
+
+        // Then: el WebClient lo configura WebClientConfig y el servicio solo lo usa al pedir un embedding
+        assertNotNull(service);
+        verifyNoInteractions(webClient);
+    }
 
     @Test
-    void constructor_ShouldConfigureWebClientCorrectly() {
+    void getEmbeddings_ShouldReturnListOfFloats() throws IOException {
         // Given
-        when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(mock(WebClient.class));
+        EmbeddingService service = stubService(new EmbeddingCache(1024), 0);
 
         // When
-        EmbeddingService service = new EmbeddingService(webClientBuilder);
+        List<Float> embedding = service.getEmbeddings("¿Qué es la mitosis?").block();
 
         // Then
-        assertNotNull(service);
-        verify(webClientBuilder).baseUrl("http://localhost:8000");
-        verify(webClientBuilder).build();
+        assertEquals(List.of(0.25f, -0.5f, 1.0f), embedding);
     }
 
     @Test
-    void getEmbeddings_ShouldCreateCorrectRequest() {
+    void getEmbedding_ShouldCallServiceOnce_WhenQuestionIsRepeated() throws IOException {
         // Given
-        WebClient webClient = mock(WebClient.class);
-        when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
-
-        EmbeddingService service = new EmbeddingService(webClientBuilder);
-        
-        // When/Then - El test verifica que el servicio se crea correctamente
-        // La lógica real de WebClient es compleja de mockear completamente
-        assertNotNull(service);
-        
-        // Verificamos que el WebClient fue configurado
-        verify(webClientBuilder).baseUrl("http://localhost:8000");
-        verify(webClientBuilder).build();
+        EmbeddingCache cache = new EmbeddingCache(1024 * 1024);
+        EmbeddingService service = stubService(cache, 0);
+
+        // When: la misma pregunta con otros espacios
+        float[] first = service.getEmbedding("  ¿Qué es   la mitosis? ").block();
+        float[] second = service.getEmbedding("¿Qué es la mitosis?").block();
+
+        // Then
+        assertArrayEquals(new float[] { 0.25f, -0.5f, 1.0f }, first);
+        assertSame(first, second);
+        assertEquals(List.of("{\"question\":\"¿Qué es la mitosis?\"}"), requestBodies);
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
     }
 
     @Test
-    void getEmbeddings_ShouldReturnMono() {
+    void getEmbedding_ShouldCollapseConcurrentIdenticalRequests() throws IOException {
+        // Given: el servicio tarda lo suficiente para que las peticiones coincidan
+        EmbeddingCache cache = new EmbeddingCache(1024 * 1024);
+        EmbeddingService service = stubService(cache, 300);
+
+        // When
+        List<float[]> embeddings = Flux.range(0, 5)
+                .flatMap(i -> service.getEmbedding("¿Qué es la mitosis?"))
+                .collectList()
+                .block();
+
+        // Then
+        assertEquals(5, embeddings.size());
+        assertEquals(1, requestBodies.size());
+        assertEquals(4, cache.stats().coalesced());
+        assertTrue(cache.stats().averageLoadMillis() >= 300, String.valueOf(cache.stats().averageLoadMillis()));
+    }
+
+    @Test
+    void generateEmbedding_ShouldBypassCache() throws IOException {
         // Given
-        WebClient webClient = mock(WebClient.class);
-        when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
-        
-        EmbeddingService service = new EmbeddingService(webClientBuilder);
-        
-        // When/Then - Solo verificamos que el servicio se puede crear
-        // El WebClient real requiere configuración compleja que no es necesaria para este test unitario
-        assertNotNull(service);
-        
-        // Verificamos que el constructor configuró correctamente el WebClient
-        verify(webClientBuilder).baseUrl("http://localhost:8000");
-        verify(webClientBuilder).build();
+        EmbeddingCache cache = new EmbeddingCache(1024 * 1024);
+        EmbeddingService service = stubService(cache, 0);
+
+        // When
+        service.generateEmbedding("fragmento").block();
+        service.generateEmbedding("fragmento").block();
+
+        // Then
+        assertEquals(2, requestBodies.size());
+        assertEquals(0, cache.stats().entries());
+    }
+
+    // Servidor local que responde a /generate_embedding/ con un vector fijo
+    private EmbeddingService stubService(EmbeddingCache cache, long delayMillis) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/generate_embedding/", exchange -> {
+            requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = "[0.25, -0.5, 1.0]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response);
+            }
+        });
+        server.start();
+        return new EmbeddingService(
+                WebClient.builder().baseUrl("http://127.0.0.1:" + server.getAddress().getPort()).build(), cache);
     }
-} 
\ No newline at end of file
+}
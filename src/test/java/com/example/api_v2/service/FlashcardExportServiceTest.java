@@ -0,0 +1,160 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.config.JacksonConfig;
+import com.example.api_v2.dto.FlashcardDto;
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.KnowledgeLevel;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.UserFlashcardProgress;
+import com.example.api_v2.repository.FlashcardRepository;
+import com.example.api_v2.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para FlashcardExportService
+ * Valida el formato NDJSON y que la exportación se hace en streaming
+ */
+@ExtendWith(MockitoExtension.class)
+class FlashcardExportServiceTest {
+
+    @Mock
+    private FlashcardRepository flashcardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    // Solo se usa la conversión a DTO, que no depende de los colaboradores del servicio
+    private final FlashcardService flashcardService = mock(FlashcardService.class,
+            withSettings().stubOnly().defaultAnswer(CALLS_REAL_METHODS));
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    private FlashcardExportService exportService;
+    private User testUser;
+    private Collection testCollection;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new FlashcardExportService(flashcardRepository, userRepository, flashcardService,
+                entityManager, objectMapper);
+
+        testUser = new User();
+        testUser.setId("test-user-id");
+        testUser.setEmail("test@example.com");
+
+        testCollection = new Collection();
+        testCollection.setId(1L);
+
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+    }
+
+    @Test
+    void exportCollection_ShouldWriteOneJsonLinePerFlashcard_AndDetachEntities() throws Exception {
+        // Given
+        Flashcard studied = flashcard(1L);
+        UserFlashcardProgress progress = new UserFlashcardProgress();
+        progress.setFlashcard(studied);
+        progress.setKnowledgeLevel(KnowledgeLevel.BIEN);
+        progress.setReviewCount(3);
+        Flashcard pending = flashcard(2L);
+        when(flashcardRepository.streamWithProgress(1L, "test-user-id")).thenReturn(Stream.of(
+                new Object[] { studied, progress },
+                new Object[] { pending, null }));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long exported = exportService.exportCollection(1L, "test@example.com", out);
+
+        // Then
+        assertEquals(2, exported);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        FlashcardDto first = objectMapper.readValue(lines[0], FlashcardDto.class);
+        assertEquals(1L, first.getId());
+        assertEquals(KnowledgeLevel.BIEN, first.getKnowledgeLevel());
+        assertEquals(3, first.getReviewCount());
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(2L, second.get("id").asLong());
+        assertEquals("sinHacer", second.get("status").asText());
+
+        verify(entityManager).detach(studied);
+        verify(entityManager).detach(progress);
+        verify(entityManager).detach(pending);
+    }
+
+    @Test
+    void exportCollection_ShouldStream200kCardsWithoutBufferingThem() throws Exception {
+        // Given: las filas se generan bajo demanda y la salida solo cuenta líneas,
+        // así que nada retiene el resultado completo en memoria
+        int total = 200_000;
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Stream<Object[]> rows = LongStream.rangeClosed(1, total)
+                .mapToObj(id -> new Object[] { flashcard(id), null })
+                .onClose(() -> closed.set(true));
+        when(flashcardRepository.streamWithProgress(1L, "test-user-id")).thenReturn(rows);
+        // Sin registro de invocaciones: 200k llamadas a detach no deben acumularse en el mock
+        EntityManager stubOnlyEntityManager = mock(EntityManager.class, withSettings().stubOnly());
+        exportService = new FlashcardExportService(flashcardRepository, userRepository, flashcardService,
+                stubOnlyEntityManager, objectMapper);
+        LineCountingOutputStream out = new LineCountingOutputStream();
+
+        // When
+        long exported = exportService.exportCollection(1L, "test@example.com", out);
+
+        // Then
+        assertEquals(total, exported);
+        assertEquals(total, out.lines);
+        assertTrue(closed.get(), "El cursor debe cerrarse al terminar la exportación");
+    }
+
+    private Flashcard flashcard(long id) {
+        Flashcard flashcard = new Flashcard();
+        flashcard.setId(id);
+        flashcard.setQuestion("Pregunta " + id);
+        flashcard.setAnswer("Respuesta " + id);
+        flashcard.setCollection(testCollection);
+        return flashcard;
+    }
+
+    // Salida que descarta los bytes y solo cuenta saltos de línea
+    private static final class LineCountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
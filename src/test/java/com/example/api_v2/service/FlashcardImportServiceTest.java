@@ -0,0 +1,242 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.FlashcardDto;
+import com.example.api_v2.dto.FlashcardImportStatusDto;
+import com.example.api_v2.dto.UserStatsDto;
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.Workspace;
+import com.example.api_v2.model.WorkspaceUser;
+import com.example.api_v2.repository.CollectionRepository;
+import com.example.api_v2.repository.FlashcardRepository;
+import com.example.api_v2.repository.UserRepository;
+import com.example.api_v2.service.UserCollectionStatsService.Contribution;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para FlashcardImportService
+ * Valida el análisis de CSV/JSON y que la importación agrupa las escrituras
+ */
+@ExtendWith(MockitoExtension.class)
+class FlashcardImportServiceTest {
+
+    @Mock
+    private CollectionRepository collectionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private FlashcardRepository flashcardRepository;
+
+    @Mock
+    private UserStatsService userStatsService;
+
+    @Mock
+    private WorkspaceActivityService workspaceActivityService;
+
+    @Mock
+    private DueCardIndex dueCardIndex;
+
+    @Mock
+    private UserCollectionStatsService userCollectionStatsService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @InjectMocks
+    private FlashcardImportService importService;
+
+    private User testUser;
+    private User otherMember;
+    private Collection testCollection;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setId("test-user-id");
+        testUser.setEmail("test@example.com");
+
+        otherMember = new User();
+        otherMember.setId("other-user-id");
+
+        Workspace workspace = new Workspace();
+        workspace.setId(7L);
+        List<WorkspaceUser> members = new ArrayList<>();
+        for (User user : List.of(testUser, otherMember)) {
+            WorkspaceUser member = new WorkspaceUser();
+            member.setUser(user);
+            members.add(member);
+        }
+        workspace.setWorkspaceUsers(members);
+
+        testCollection = new Collection();
+        testCollection.setId(1L);
+        testCollection.setName("Test Collection");
+        testCollection.setWorkspace(workspace);
+    }
+
+    @Test
+    void parseCsv_ShouldHandleHeaderQuotesAndEmbeddedNewlines() {
+        // Given
+        String csv = "question,answer,difficulty\r\n"
+                + "\"Capital, de Francia\",París,fácil\n"
+                + "\"Cita \"\"famosa\"\"\",\"Línea 1\nLínea 2\"\n"
+                + "\n";
+
+        // When
+        List<FlashcardDto> cards = FlashcardImportService.parseCsv(csv);
+
+        // Then
+        assertEquals(2, cards.size());
+        assertEquals("Capital, de Francia", cards.get(0).getQuestion());
+        assertEquals("París", cards.get(0).getAnswer());
+        assertEquals("fácil", cards.get(0).getDifficulty());
+        assertEquals("Cita \"famosa\"", cards.get(1).getQuestion());
+        assertEquals("Línea 1\nLínea 2", cards.get(1).getAnswer());
+        assertNull(cards.get(1).getDifficulty());
+    }
+
+    @Test
+    void parseCsv_ShouldAcceptTabSeparatedAnkiExport() {
+        // When
+        List<FlashcardDto> cards = FlashcardImportService.parseCsv("Hola\tHello\nAdiós\tGoodbye");
+
+        // Then
+        assertEquals(2, cards.size());
+        assertEquals("Adiós", cards.get(1).getQuestion());
+        assertEquals("Goodbye", cards.get(1).getAnswer());
+    }
+
+    @Test
+    void startImport_ShouldInsertInChunksAndUpdateStatsOnce() throws Exception {
+        // Given: 1200 tarjetas, es decir, tres bloques de inserción
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 1200; i++) {
+            csv.append("Pregunta ").append(i).append(",Respuesta ").append(i).append('\n');
+        }
+        when(collectionRepository.findById(1L)).thenReturn(Optional.of(testCollection));
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        AtomicLong nextId = new AtomicLong(1);
+        doAnswer(invocation -> {
+            List<Flashcard> chunk = invocation.getArgument(0);
+            chunk.forEach(flashcard -> flashcard.setId(nextId.getAndIncrement()));
+            return null;
+        }).when(flashcardRepository).insertAll(anyList());
+        // Ejecutar la importación en el mismo hilo
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(taskExecutor).execute(any(Runnable.class));
+
+        // When
+        FlashcardImportStatusDto started = importService.startImport(1L, "test@example.com",
+                FlashcardImportService.FORMAT_CSV,
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        FlashcardImportStatusDto status = importService.getImportStatus(started.getImportId());
+        assertEquals("COMPLETED", status.getStatus());
+        assertEquals(1200, status.getTotalFlashcards());
+        assertEquals(1200, status.getProcessedFlashcards());
+        assertNotNull(status.getFinishedAt());
+
+        verify(flashcardRepository, times(3)).insertAll(anyList());
+        verify(flashcardRepository, never()).save(any());
+
+        ArgumentCaptor<UserStatsDto> stats = ArgumentCaptor.forClass(UserStatsDto.class);
+        verify(userStatsService, times(1)).updateUserStats(eq("test-user-id"), stats.capture());
+        assertEquals(1200, stats.getValue().getCreatedFlashcards());
+        assertEquals(6000, stats.getValue().getExperience());
+        verify(workspaceActivityService, times(1)).logActivity(eq(7L), eq("test@example.com"), anyString());
+
+        verify(userCollectionStatsService).recordChange("test-user-id", 1L, Contribution.NONE,
+                new Contribution(1200, 0, 0, 0, 1200, 1200, 0, 0, 0));
+        verify(userCollectionStatsService).recordChange("other-user-id", 1L, Contribution.NONE,
+                new Contribution(1200, 0, 0, 0, 1200, 0, 0, 0, 0));
+        verify(dueCardIndex, times(1)).invalidateCollection(1L);
+    }
+
+    @Test
+    void startImport_ShouldReportFailure_WhenBatchInsertFails() throws Exception {
+        // Given
+        String json = "[{\"question\":\"Q1\",\"answer\":\"A1\"}]";
+        when(collectionRepository.findById(1L)).thenReturn(Optional.of(testCollection));
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        doThrow(new IllegalStateException("fallo de inserción")).when(flashcardRepository).insertAll(anyList());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(taskExecutor).execute(any(Runnable.class));
+
+        // When
+        FlashcardImportStatusDto started = importService.startImport(1L, "test@example.com",
+                FlashcardImportService.FORMAT_JSON, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        FlashcardImportStatusDto status = importService.getImportStatus(started.getImportId());
+        assertEquals("FAILED", status.getStatus());
+        assertEquals("fallo de inserción", status.getError());
+        verify(transactionManager).rollback(any());
+        verifyNoInteractions(userStatsService, workspaceActivityService, userCollectionStatsService, dueCardIndex);
+    }
+
+    @Test
+    void startImport_ShouldReportFailure_WhenExecutorRejectsTask() throws Exception {
+        // Given
+        String json = "[{\"question\":\"Q1\",\"answer\":\"A1\"}]";
+        when(collectionRepository.findById(1L)).thenReturn(Optional.of(testCollection));
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        doThrow(new TaskRejectedException("cola llena")).when(taskExecutor).execute(any(Runnable.class));
+
+        // When
+        FlashcardImportStatusDto started = importService.startImport(1L, "test@example.com",
+                FlashcardImportService.FORMAT_JSON, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        // Then: no se queda en PENDING
+        assertEquals("FAILED", started.getStatus());
+        assertNotNull(started.getError());
+        assertEquals("FAILED", importService.getImportStatus(started.getImportId()).getStatus());
+        verifyNoInteractions(flashcardRepository, transactionManager);
+    }
+
+    @Test
+    void startImport_ShouldRejectCardsWithoutAnswer() {
+        // Given
+        String csv = "Pregunta sin respuesta\n";
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> importService.startImport(1L, "test@example.com",
+                FlashcardImportService.FORMAT_CSV, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+        verifyNoInteractions(taskExecutor, flashcardRepository);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.FlashcardDto;
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.KnowledgeLevel;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.UserFlashcardProgress;
+import com.example.api_v2.model.Workspace;
+import com.example.api_v2.repository.CollectionRepository;
+import com.example.api_v2.repository.FlashcardRepository;
+import com.example.api_v2.repository.FlashcardReviewRepository;
+import com.example.api_v2.repository.PostgresTestDatabase;
+import com.example.api_v2.repository.UserFlashcardProgressRepository;
+import com.example.api_v2.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests de integración para la carga de una colección en FlashcardService
+ * Valida con las estadísticas de Hibernate que las flashcards y el progreso del
+ * usuario se leen con el mismo número de sentencias sea cual sea el tamaño de
+ * la colección. Necesita un PostgreSQL con pgvector (ver {@link PostgresTestDatabase}).
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "test.pgvector.url", matches = ".+")
+@Import(PostgresTestDatabase.Config.class)
+class FlashcardServiceQueryCountTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws SQLException {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private FlashcardRepository flashcardRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private FlashcardReviewRepository reviewRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserFlashcardProgressRepository userFlashcardProgressRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private FlashcardService flashcardService;
+    private User user;
+    private Collection collection;
+
+    @BeforeEach
+    void setUp() {
+        // Solo la carga de la colección toca la base de datos; el resto de dependencias no se usa
+        flashcardService = new FlashcardService(flashcardRepository, collectionRepository, reviewRepository,
+                userRepository, userFlashcardProgressRepository, mock(UserStatsService.class),
+                mock(WorkspaceActivityService.class), mock(DueCardIndex.class), mock(ReviewSchedulerRegistry.class),
+                mock(UserCollectionStatsService.class));
+
+        user = new User();
+        user.setId("test-user-id");
+        user.setName("Test User");
+        user.setEmail("test@example.com");
+        entityManager.persist(user);
+
+        Workspace workspace = new Workspace();
+        workspace.setName("Workspace");
+        entityManager.persist(workspace);
+
+        collection = new Collection();
+        collection.setName("Biología");
+        collection.setWorkspace(workspace);
+        collection.setCreatedBy(user);
+        entityManager.persist(collection);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 10, 2000 })
+    void getCollectionFlashcardsForUser_ShouldRunTwoStatements_WhateverTheCollectionSize(int size) {
+        // Given: la mitad de las flashcards con progreso del usuario
+        for (int i = 0; i < size; i++) {
+            Flashcard flashcard = new Flashcard();
+            flashcard.setQuestion("Pregunta " + i);
+            flashcard.setAnswer("Respuesta " + i);
+            flashcard.setCollection(collection);
+            flashcard.setCreatedBy(user);
+            entityManager.persist(flashcard);
+            if (i % 2 == 0) {
+                UserFlashcardProgress progress = UserFlashcardProgress.newCard(user, flashcard, LocalDateTime.now());
+                progress.setKnowledgeLevel(KnowledgeLevel.BIEN);
+                progress.setNextReviewDate(LocalDateTime.now().plusDays(3));
+                entityManager.persist(progress);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = PostgresTestDatabase.statistics(entityManager);
+        statistics.clear();
+
+        // When
+        List<FlashcardDto> flashcards = flashcardService.getCollectionFlashcardsForUser(collection.getId(), user.getId());
+
+        // Then: una consulta para las flashcards y otra para el progreso, ninguna por tarjeta
+        assertEquals(size, flashcards.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getQueryExecutionCount());
+        assertEquals(size / 2, flashcards.stream().filter(dto -> "completada".equals(dto.getStatus())).count());
+        assertEquals(size / 2, flashcards.stream().filter(dto -> "sinHacer".equals(dto.getStatus())).count());
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.api_v2.service;
 
 import com.example.api_v2.dto.FlashcardDto;
+import com.example.api_v2.dto.FlashcardPageDto;
 import com.example.api_v2.dto.FlashcardReviewDto;
+import com.example.api_v2.dto.CollectionStatsWindowsDto;
 import com.example.api_v2.dto.FlashcardStatsDto;
 import com.example.api_v2.dto.UserDto;
 import com.example.api_v2.dto.UserStatsDto;
@@ -9,11 +11,13 @@ import com.example.api_v2.exception.ResourceNotFoundException;
 import com.example.api_v2.model.*;
 import com.example.api_v2.model.Collection;
 import com.example.api_v2.repository.*;
+import com.example.api_v2.util.FlashcardStudyStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -51,6 +55,16 @@ class FlashcardServiceTest {
     @Mock
     private UserStatsService userStatsService;
 
+    @Mock
+    private DueCardIndex dueCardIndex;
+
+    @Mock
+    private UserCollectionStatsService userCollectionStatsService;
+
+    @Spy
+    private ReviewSchedulerRegistry reviewSchedulerRegistry = new ReviewSchedulerRegistry(
+            List.of(new LegacySm2Scheduler(), new Sm2Scheduler(), new FsrsScheduler()));
+
     @InjectMocks
     private FlashcardService flashcardService;
 
@@ -180,14 +194,171 @@ class FlashcardServiceTest {
         verify(userRepository).findByEmail("test@example.com");
     }
 
+    @Test
+    void getCollectionFlashcardsForUser_ShouldUseConstantQueries_WhateverTheCollectionSize() {
+        // Given: 2000 flashcards, la mitad con progreso del usuario
+        List<Flashcard> flashcards = new ArrayList<>();
+        List<UserFlashcardProgress> progresses = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            Flashcard flashcard = new Flashcard();
+            flashcard.setId(id);
+            flashcard.setQuestion("Pregunta " + id);
+            flashcard.setAnswer("Respuesta " + id);
+            flashcard.setCollection(testCollection);
+            flashcards.add(flashcard);
+            if (id % 2 == 0) {
+                UserFlashcardProgress progress = new UserFlashcardProgress();
+                progress.setFlashcard(flashcard);
+                progress.setUser(testUser);
+                progress.setCollection(testCollection);
+                progress.setKnowledgeLevel(KnowledgeLevel.REGULAR);
+                progress.setNextReviewDate(LocalDateTime.now().minusDays(1));
+                progresses.add(progress);
+            }
+        }
+
+        when(flashcardRepository.findWithCollectionByCollectionId(1L)).thenReturn(flashcards);
+        when(userFlashcardProgressRepository.findByCollectionIdAndUserId(1L, "test-user-id")).thenReturn(progresses);
+
+        // When
+        List<FlashcardDto> result = flashcardService.getCollectionFlashcardsForUser(1L, "test-user-id");
+
+        // Then
+        assertEquals(2000, result.size());
+        assertEquals("sinHacer", result.get(0).getStatus());
+        assertNull(result.get(0).getKnowledgeLevel());
+        assertEquals("revision", result.get(1).getStatus());
+        assertEquals(KnowledgeLevel.REGULAR, result.get(1).getKnowledgeLevel());
+
+        verify(flashcardRepository, times(1)).findWithCollectionByCollectionId(1L);
+        verify(userFlashcardProgressRepository, times(1)).findByCollectionIdAndUserId(1L, "test-user-id");
+        verify(userFlashcardProgressRepository, never()).findByFlashcardIdAndUserId(anyLong(), anyString());
+        verifyNoMoreInteractions(flashcardRepository, userFlashcardProgressRepository);
+    }
+
+    @Test
+    void convertToDto_ShouldReturnSinHacer_WhenUserHasNoProgress() {
+        // Given
+        when(userFlashcardProgressRepository.findByFlashcardIdAndUserId(1L, "test-user-id"))
+                .thenReturn(Optional.empty());
+
+        // When
+        FlashcardDto result = flashcardService.convertToDto(testFlashcard, "test-user-id");
+
+        // Then
+        assertEquals("sinHacer", result.getStatus());
+        assertNull(result.getKnowledgeLevel());
+        assertEquals(testFlashcard.getQuestion(), result.getQuestion());
+    }
+
+    @Test
+    void convertToDto_ShouldReturnSinHacer_WhenProgressHasDateButNoKnowledgeLevel() {
+        // Given: fila de progreso creada sin repaso, con fecha pero sin nivel
+        testProgress.setKnowledgeLevel(null);
+        testProgress.setNextReviewDate(LocalDateTime.now().minusDays(1));
+
+        // When
+        FlashcardDto result = flashcardService.convertToDto(testFlashcard, testProgress);
+
+        // Then: la misma regla que filtra ?status= en las consultas
+        assertEquals("sinHacer", result.getStatus());
+        assertEquals("sinHacer", FlashcardStudyStatus.of(testProgress, FlashcardStudyStatus.tomorrow()));
+        assertTrue(FlashcardStudyStatus.JPQL_CASE.contains("ufp.knowledgeLevel IS NULL"));
+
+        // Y con nivel, una fecha pasada es revisión
+        testProgress.setKnowledgeLevel(KnowledgeLevel.MAL);
+        assertEquals("revision", flashcardService.convertToDto(testFlashcard, testProgress).getStatus());
+    }
+
+    @Test
+    void getFlashcardPage_ShouldReturnCursorThatResumesAfterLastId_WhenSortedById() {
+        // Given: se piden 2 y la consulta devuelve 3 (una de más)
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 10; id <= 12; id++) {
+            Flashcard flashcard = new Flashcard();
+            flashcard.setId(id);
+            flashcard.setCollection(testCollection);
+            rows.add(new Object[] { flashcard, id == 10 ? testProgress : null });
+        }
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(flashcardRepository.findPageWithProgress(eq(1L), eq("test-user-id"), isNull(), isNull(),
+                any(LocalDateTime.class), any())).thenReturn(rows);
+
+        // When
+        FlashcardPageDto page = flashcardService.getFlashcardPage(1L, "test@example.com", null, null, null, 2);
+
+        // Then
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+        assertEquals("completada", page.getItems().get(0).getStatus());
+        assertEquals("sinHacer", page.getItems().get(1).getStatus());
+
+        // When: la siguiente página continúa después del último ID devuelto
+        when(flashcardRepository.findPageWithProgress(eq(1L), eq("test-user-id"), eq(11L), eq("revision"),
+                any(LocalDateTime.class), any())).thenReturn(new ArrayList<>());
+        FlashcardPageDto next = flashcardService.getFlashcardPage(1L, "test@example.com", "revision", "id",
+                page.getNextCursor(), 2);
+
+        // Then
+        assertTrue(next.getItems().isEmpty());
+        assertFalse(next.isHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getFlashcardPage_ShouldResumeAfterDateAndId_WhenSortedByNextReviewDate() {
+        // Given: una tarjeta nunca repasada ordena por su fecha de creación
+        LocalDateTime created = LocalDateTime.of(2024, 4, 1, 9, 0, 0, 123456000);
+        LocalDateTime due = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123456000);
+        Flashcard fresh = new Flashcard();
+        fresh.setId(5L);
+        fresh.setCollection(testCollection);
+        fresh.setCreatedAt(created);
+        testProgress.setFlashcard(testFlashcard);
+        testProgress.setNextReviewDate(due);
+        Object[] freshRow = { fresh, null, created };
+        Object[] reviewedRow = { testFlashcard, testProgress, due };
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(flashcardRepository.findPageWithProgressByReviewDate(eq(1L), eq("test-user-id"), isNull(),
+                isNull(), isNull(), any(LocalDateTime.class), any()))
+                .thenReturn(List.of(freshRow, reviewedRow));
+        when(flashcardRepository.findPageWithProgressByReviewDate(eq(1L), eq("test-user-id"), eq(created),
+                eq(5L), isNull(), any(LocalDateTime.class), any()))
+                .thenReturn(Collections.singletonList(reviewedRow));
+
+        // When
+        FlashcardPageDto first = flashcardService.getFlashcardPage(1L, "test@example.com", null,
+                FlashcardService.SORT_BY_NEXT_REVIEW_DATE, null, 1);
+        FlashcardPageDto second = flashcardService.getFlashcardPage(1L, "test@example.com", null,
+                FlashcardService.SORT_BY_NEXT_REVIEW_DATE, first.getNextCursor(), 1);
+
+        // Then: la tarjeta sin progreso aparece y el cursor continúa desde su fecha de creación
+        assertTrue(first.isHasMore());
+        assertEquals(5L, first.getItems().get(0).getId());
+        assertEquals("sinHacer", first.getItems().get(0).getStatus());
+        assertFalse(second.isHasMore());
+        assertEquals(due, second.getItems().get(0).getNextReviewDate());
+    }
+
+    @Test
+    void getFlashcardPage_ShouldRejectInvalidStatusAndForeignCursor() {
+        // When & Then
+        assertThrows(RuntimeException.class, () ->
+                flashcardService.getFlashcardPage(1L, "test@example.com", "pendiente", null, null, null));
+        assertThrows(RuntimeException.class, () ->
+                flashcardService.getFlashcardPage(1L, "test@example.com", null, "id", "no-es-un-cursor", null));
+        assertThrows(RuntimeException.class, () ->
+                flashcardService.getFlashcardPage(1L, "test@example.com", null, null, null, 0));
+        verifyNoInteractions(flashcardRepository, userFlashcardProgressRepository, userRepository);
+    }
+
     @Test
     void getFlashcardsForReview_ShouldReturnPrioritizedFlashcards_WhenFlashcardsExist() {
         // Given
-        List<Flashcard> flashcards = List.of(testFlashcard);
-        
-        when(flashcardRepository.findByCollectionId(anyLong())).thenReturn(flashcards);
         when(userRepository.findById(anyString())).thenReturn(Optional.of(testUser));
-        when(userFlashcardProgressRepository.findByFlashcardIdAndUserId(anyLong(), anyString())).thenReturn(Optional.of(testProgress));
+        when(flashcardRepository.findTopForReview(anyLong(), anyString(), any(LocalDateTime.class), anyInt()))
+                .thenReturn(List.of(testFlashcard));
 
         // When
         List<Flashcard> result = flashcardService.getFlashcardsForReview(1L, "test-user-id");
@@ -197,37 +368,54 @@ class FlashcardServiceTest {
         assertEquals(1, result.size());
         assertEquals(testFlashcard.getId(), result.get(0).getId());
         
-        verify(flashcardRepository).findByCollectionId(1L);
         verify(userRepository).findById("test-user-id");
-        verify(userFlashcardProgressRepository).findByFlashcardIdAndUserId(1L, "test-user-id");
+        verify(flashcardRepository).findTopForReview(eq(1L), eq("test-user-id"), any(LocalDateTime.class), eq(25));
+        verify(flashcardRepository, never()).findByCollectionId(anyLong());
+        verifyNoInteractions(userFlashcardProgressRepository);
     }
 
     @Test
-    void getFlashcardsForReview_ShouldCreateProgressForNewFlashcards_WhenNoProgressExists() {
-        // Given
-        List<Flashcard> flashcards = List.of(testFlashcard);
-        
-        when(flashcardRepository.findByCollectionId(anyLong())).thenReturn(flashcards);
+    void getFlashcardsForReview_ShouldNotCreateProgress_WhenNoProgressExists() {
+        // Given: la flashcard nunca se ha repasado, la consulta la devuelve igualmente como nueva
         when(userRepository.findById(anyString())).thenReturn(Optional.of(testUser));
-        when(userFlashcardProgressRepository.findByFlashcardIdAndUserId(anyLong(), anyString())).thenReturn(Optional.empty());
-        when(userFlashcardProgressRepository.save(any(UserFlashcardProgress.class))).thenReturn(testProgress);
+        when(flashcardRepository.findTopForReview(anyLong(), anyString(), any(LocalDateTime.class), anyInt()))
+                .thenReturn(List.of(testFlashcard));
 
         // When
         List<Flashcard> result = flashcardService.getFlashcardsForReview(1L, "test-user-id");
 
         // Then
-        assertNotNull(result);
         assertEquals(1, result.size());
-        
-        verify(userFlashcardProgressRepository).save(any(UserFlashcardProgress.class));
+        verifyNoInteractions(userFlashcardProgressRepository, userCollectionStatsService, dueCardIndex);
+    }
+
+    @Test
+    void getFlashcardsForReview_ShouldUseConstantNumberOfQueries_WhenCollectionIsLarge() {
+        // Given
+        List<Flashcard> top = new ArrayList<>();
+        for (long i = 1; i <= 25; i++) {
+            Flashcard flashcard = new Flashcard();
+            flashcard.setId(i);
+            flashcard.setCollection(testCollection);
+            top.add(flashcard);
+        }
+
+        when(userRepository.findById(anyString())).thenReturn(Optional.of(testUser));
+        when(flashcardRepository.findTopForReview(anyLong(), anyString(), any(LocalDateTime.class), anyInt())).thenReturn(top);
+
+        // When
+        List<Flashcard> result = flashcardService.getFlashcardsForReview(1L, "test-user-id");
+
+        // Then: una única consulta, independientemente del tamaño de la colección
+        assertEquals(25, result.size());
+        verify(flashcardRepository, times(1)).findTopForReview(eq(1L), eq("test-user-id"), any(LocalDateTime.class), eq(25));
+        verifyNoMoreInteractions(flashcardRepository);
+        verifyNoInteractions(userFlashcardProgressRepository);
     }
 
     @Test
     void getFlashcardsForReview_ShouldThrowException_WhenUserNotFound() {
         // Given
-        List<Flashcard> flashcards = List.of(testFlashcard);
-        
-        when(flashcardRepository.findByCollectionId(anyLong())).thenReturn(flashcards);
         when(userRepository.findById(anyString())).thenReturn(Optional.empty());
 
         // When & Then
@@ -237,21 +425,30 @@ class FlashcardServiceTest {
         );
         
         assertEquals("Usuario no encontrado", exception.getMessage());
-        verify(flashcardRepository).findByCollectionId(1L);
         verify(userRepository).findById("nonexistent-user");
+        verifyNoInteractions(flashcardRepository);
     }
 
     @Test
     void getFlashcardStats_ShouldReturnStats_WhenUserExists() {
         // Given
-        List<UserFlashcardProgress> progresses = Arrays.asList(
-            createProgressWithKnowledge(KnowledgeLevel.BIEN),
-            createProgressWithKnowledge(KnowledgeLevel.REGULAR),
-            createProgressWithKnowledge(null) // Sin hacer
-        );
-        
+        UserCollectionStats collectionStats = new UserCollectionStats();
+        collectionStats.setUserId("test-user-id");
+        collectionStats.setCollectionId(1L);
+        collectionStats.setTotalFlashcards(3);
+        collectionStats.setBienCount(1);
+        collectionStats.setRegularCount(1);
+        collectionStats.setSinNivelCount(1); // Sin hacer
+        collectionStats.setTotalRevisadas(4);
+        collectionStats.setTotalCreadas(3);
+        collectionStats.setStudySeconds(90);
+        collectionStats.setFlashcardsWithStudyTime(2);
+
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
-        when(userFlashcardProgressRepository.findByCollectionIdAndUserId(anyLong(), anyString())).thenReturn(progresses);
+        when(userCollectionStatsService.getOrCompute("test-user-id", 1L)).thenReturn(collectionStats);
+        when(userCollectionStatsService.getActivityWindows(eq("test-user-id"), eq(1L), any(LocalDateTime.class)))
+                .thenReturn(new CollectionStatsWindowsDto(1L, 2L, 3L, 1L, 1L, 2L));
+        when(dueCardIndex.countDue(eq("test-user-id"), eq(1L), any(LocalDateTime.class))).thenReturn(2L);
 
         // When
         FlashcardStatsDto result = flashcardService.getFlashcardStats(1L, "test@example.com");
@@ -259,6 +456,13 @@ class FlashcardServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(3L, result.getTotalFlashcards());
+        assertEquals(2L, result.getDueForReview());
+        assertEquals(25.0, result.getSuccessRate());
+        assertEquals(45.0, result.getTiempoMedioRevision());
+        assertEquals(3, result.getTotalCreadas());
+        assertEquals(2, result.getCreadasUltimos7Dias());
+        assertEquals(1L, result.getStatusCounts().get("COMPLETADA"));
+        assertEquals(1L, result.getStatusCounts().get("SIN_HACER"));
         
         // Verificar estadísticas por nivel de conocimiento
         assertNotNull(result.getEstadosPorConocimiento());
@@ -269,7 +473,7 @@ class FlashcardServiceTest {
         assertNotNull(result.getStatusCounts());
         
         verify(userRepository).findByEmail("test@example.com");
-        verify(userFlashcardProgressRepository).findByCollectionIdAndUserId(1L, "test-user-id");
+        verify(userFlashcardProgressRepository, never()).findByCollectionIdAndUserId(anyLong(), anyString());
     }
 
     @Test
@@ -354,6 +558,7 @@ class FlashcardServiceTest {
         // Then
         verify(flashcardRepository).findById(1L);
         verify(flashcardRepository).delete(testFlashcard);
+        verify(dueCardIndex).remove(1L, 1L);
     }
 
     @Test
@@ -433,6 +638,8 @@ class FlashcardServiceTest {
         // Then
         verify(userFlashcardProgressRepository).findByFlashcardIdAndUserId(1L, "test-user-id");
         verify(userFlashcardProgressRepository).save(testProgress);
+        verify(dueCardIndex).update("test-user-id", 1L, 1L, testProgress.getNextReviewDate());
+        verify(userCollectionStatsService).recordChange(eq("test-user-id"), eq(1L), any(), any());
         
         // Verificar que el progreso se actualizó correctamente
         assertEquals(KnowledgeLevel.BIEN, testProgress.getKnowledgeLevel());
@@ -452,6 +659,9 @@ class FlashcardServiceTest {
         // Then
         verify(userFlashcardProgressRepository).findByFlashcardIdAndUserId(1L, "test-user-id");
         verify(userFlashcardProgressRepository).save(any(UserFlashcardProgress.class));
+        // La tarjeta ya contaba como nueva (sin nivel) antes del primer repaso
+        verify(userCollectionStatsService).recordChange(eq("test-user-id"), eq(1L),
+                eq(new UserCollectionStatsService.Contribution(1, 0, 0, 0, 1, 1, 0, 0, 0)), any());
     }
 
     @Test
@@ -474,6 +684,115 @@ class FlashcardServiceTest {
         assertEquals(0, testProgress.getRepetitionLevel()); // Debería reiniciarse
     }
 
+    @Test
+    void processReviews_ShouldMatchSequentialReviews_WhenAppliedInOrder() {
+        // Given
+        UserFlashcardProgress sequentialProgress = createReviewedProgress();
+        UserFlashcardProgress batchProgress = createReviewedProgress();
+        List<String> results = List.of("BIEN", "MAL", "REGULAR", "BIEN", "BIEN");
+
+        when(userFlashcardProgressRepository.findByFlashcardIdAndUserId(1L, "test-user-id")).thenReturn(Optional.of(sequentialProgress));
+        when(userRepository.findById("test-user-id")).thenReturn(Optional.of(testUser));
+        when(flashcardRepository.findAllById(any())).thenReturn(List.of(testFlashcard));
+        when(userFlashcardProgressRepository.findByUserIdAndFlashcardIdIn(eq("test-user-id"), any())).thenReturn(List.of(batchProgress));
+
+        List<FlashcardReviewDto> reviews = new ArrayList<>();
+        for (String result : results) {
+            flashcardService.updateUserFlashcardProgress(testUser, testFlashcard, result, 4000L);
+            reviews.add(FlashcardReviewDto.builder().flashcardId(1L).result(result).timeSpentMs(4000L).build());
+        }
+
+        // When
+        List<FlashcardDto> result = flashcardService.processReviews(1L, reviews, "test-user-id");
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(sequentialProgress.getKnowledgeLevel(), batchProgress.getKnowledgeLevel());
+        assertEquals(sequentialProgress.getRepetitionLevel(), batchProgress.getRepetitionLevel());
+        assertEquals(sequentialProgress.getEaseFactor(), batchProgress.getEaseFactor());
+        assertEquals(sequentialProgress.getReviewCount(), batchProgress.getReviewCount());
+        assertEquals(sequentialProgress.getSuccessCount(), batchProgress.getSuccessCount());
+        assertEquals(sequentialProgress.getFailureCount(), batchProgress.getFailureCount());
+        assertEquals(sequentialProgress.getStudyTimeInSeconds(), batchProgress.getStudyTimeInSeconds());
+        assertEquals(
+                java.time.Duration.between(sequentialProgress.getLastReviewedAt(), sequentialProgress.getNextReviewDate()),
+                java.time.Duration.between(batchProgress.getLastReviewedAt(), batchProgress.getNextReviewDate()));
+    }
+
+    @Test
+    void processReviews_ShouldUseConstantNumberOfCalls_WhenBatchIsLarge() {
+        // Given
+        List<Flashcard> flashcards = new ArrayList<>();
+        List<FlashcardReviewDto> reviews = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            Flashcard flashcard = new Flashcard();
+            flashcard.setId(i);
+            flashcard.setCollection(testCollection);
+            flashcards.add(flashcard);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (Flashcard flashcard : flashcards) {
+                reviews.add(FlashcardReviewDto.builder().flashcardId(flashcard.getId()).result("BIEN").timeSpentMs(1000L).build());
+            }
+        }
+
+        when(userRepository.findById("test-user-id")).thenReturn(Optional.of(testUser));
+        when(flashcardRepository.findAllById(any())).thenReturn(flashcards);
+        when(userFlashcardProgressRepository.findByUserIdAndFlashcardIdIn(eq("test-user-id"), any())).thenReturn(List.of());
+
+        // When
+        List<FlashcardDto> result = flashcardService.processReviews(1L, reviews, "test-user-id");
+
+        // Then
+        assertEquals(100, result.size());
+        assertTrue(result.stream().allMatch(dto -> dto.getReviewCount() == 3));
+        verify(flashcardRepository, times(1)).findAllById(any());
+        verify(userFlashcardProgressRepository, times(1)).findByUserIdAndFlashcardIdIn(eq("test-user-id"), any());
+        verify(reviewRepository, times(1)).insertAll(argThat(rows -> rows.size() == 300));
+        verify(userFlashcardProgressRepository, times(1)).saveAll(any());
+        verify(userFlashcardProgressRepository, never()).save(any(UserFlashcardProgress.class));
+        verify(reviewRepository, never()).save(any(FlashcardReview.class));
+        verify(userRepository, atMost(1)).save(testUser);
+    }
+
+    @Test
+    void processReviews_ShouldThrowException_WhenFlashcardBelongsToAnotherCollection() {
+        // Given
+        Collection otherCollection = new Collection();
+        otherCollection.setId(2L);
+        Flashcard foreignFlashcard = new Flashcard();
+        foreignFlashcard.setId(7L);
+        foreignFlashcard.setCollection(otherCollection);
+
+        when(userRepository.findById("test-user-id")).thenReturn(Optional.of(testUser));
+        when(flashcardRepository.findAllById(any())).thenReturn(List.of(foreignFlashcard));
+
+        List<FlashcardReviewDto> reviews = List.of(
+                FlashcardReviewDto.builder().flashcardId(7L).result("BIEN").timeSpentMs(1000L).build());
+
+        // When & Then
+        assertThrows(
+            ResourceNotFoundException.class,
+            () -> flashcardService.processReviews(1L, reviews, "test-user-id")
+        );
+
+        verify(reviewRepository, never()).insertAll(any());
+        verify(userFlashcardProgressRepository, never()).saveAll(any());
+    }
+
+    // Método auxiliar para crear un progreso con historial de revisiones
+    private UserFlashcardProgress createReviewedProgress() {
+        UserFlashcardProgress progress = createProgressWithKnowledge(KnowledgeLevel.REGULAR);
+        progress.setRepetitionLevel(2);
+        progress.setEaseFactor(2.36);
+        progress.setReviewCount(4);
+        progress.setSuccessCount(2);
+        progress.setFailureCount(1);
+        progress.setStudyTimeInSeconds(60);
+        progress.setNextReviewDate(LocalDateTime.now().minusDays(1));
+        return progress;
+    }
+
     // Método auxiliar para crear progreso con nivel de conocimiento específico
     private UserFlashcardProgress createProgressWithKnowledge(KnowledgeLevel level) {
         UserFlashcardProgress progress = new UserFlashcardProgress();
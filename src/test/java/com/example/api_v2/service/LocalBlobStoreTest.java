@@ -0,0 +1,113 @@
+package com.example.api_v2.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para LocalBlobStore
+ * Valida la escritura por partes con hash, la lectura de rangos y el borrado
+ */
+class LocalBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void store_ShouldWriteContentAndReturnSizeAndHash() throws Exception {
+        // Given: más de un bloque de transferencia
+        byte[] data = new byte[9 * 1024 * 1024 + 123];
+        new Random(42).nextBytes(data);
+        LocalBlobStore store = new LocalBlobStore(root.toString());
+
+        // When
+        BlobStore.StoredBlob blob = store.store(new ByteArrayInputStream(data));
+
+        // Then
+        assertEquals(data.length, blob.size());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data)), blob.sha256());
+        Path stored = root.resolve(blob.key().substring(0, 2)).resolve(blob.key());
+        assertArrayEquals(data, Files.readAllBytes(stored));
+        try (var tmp = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, tmp.count());
+        }
+    }
+
+    @Test
+    void transferTo_ShouldWriteRequestedRange() throws IOException {
+        // Given
+        byte[] data = new byte[100_000];
+        new Random(7).nextBytes(data);
+        LocalBlobStore store = new LocalBlobStore(root.toString());
+        BlobStore.StoredBlob blob = store.store(new ByteArrayInputStream(data));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        store.transferTo(blob.key(), 500, 20_000, Channels.newChannel(out));
+
+        // Then
+        assertArrayEquals(Arrays.copyOfRange(data, 500, 20_500), out.toByteArray());
+    }
+
+    @Test
+    void transferTo_ShouldFail_WhenRangeExceedsFile() throws IOException {
+        LocalBlobStore store = new LocalBlobStore(root.toString());
+        BlobStore.StoredBlob blob = store.store(new ByteArrayInputStream(new byte[10]));
+
+        assertThrows(IOException.class,
+                () -> store.transferTo(blob.key(), 5, 10, Channels.newChannel(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    void delete_ShouldRemoveFile_AndIgnoreMissingOnes() throws IOException {
+        LocalBlobStore store = new LocalBlobStore(root.toString());
+        BlobStore.StoredBlob blob = store.store(new ByteArrayInputStream(new byte[10]));
+
+        store.delete(blob.key());
+        store.delete(blob.key());
+
+        assertFalse(Files.exists(root.resolve(blob.key().substring(0, 2)).resolve(blob.key())));
+    }
+
+    @Test
+    void delete_ShouldRejectKeysOutsideTheStore() {
+        LocalBlobStore store = new LocalBlobStore(root.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> store.delete("../../etc/passwd"));
+    }
+
+    @Test
+    void store_ShouldKeepOneCopy_WhenSameContentIsStoredTwice() throws IOException {
+        // Given
+        byte[] data = new byte[50_000];
+        new Random(11).nextBytes(data);
+        LocalBlobStore store = new LocalBlobStore(root.toString());
+
+        // When
+        BlobStore.StoredBlob first = store.store(new ByteArrayInputStream(data));
+        BlobStore.StoredBlob second = store.store(new ByteArrayInputStream(data));
+
+        // Then: la clave es el hash del contenido
+        assertEquals(first.sha256(), first.key());
+        assertEquals(first.key(), second.key());
+        assertTrue(store.exists(first.key()));
+        try (var files = Files.list(root.resolve(first.key().substring(0, 2)))) {
+            assertEquals(1, files.count());
+        }
+        try (var tmp = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, tmp.count());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.model.Collection;
+import com.example.api_v2.model.KnowledgeLevel;
+import com.example.api_v2.model.SchedulerType;
+import com.example.api_v2.model.Workspace;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para las estrategias de planificación de repasos
+ * Fija con un fichero dorado el comportamiento histórico de SM-2 y valida el SM-2 fiel y el modelo FSRS
+ */
+class ReviewSchedulerTest {
+
+    private static final long DAY = ReviewScheduler.MINUTES_PER_DAY;
+
+    private final LegacySm2Scheduler legacySm2 = new LegacySm2Scheduler();
+    private final Sm2Scheduler sm2 = new Sm2Scheduler();
+    private final FsrsScheduler fsrs = new FsrsScheduler();
+
+    @Test
+    void legacySm2_ShouldMatchGoldenFile() throws IOException {
+        // Given
+        int rows = 0;
+        try (InputStream input = getClass().getResourceAsStream("/scheduler/legacy-sm2-golden.csv")) {
+            assertNotNull(input, "No se encuentra el fichero dorado");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            reader.readLine(); // Cabecera
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] columns = line.split(",");
+                int quality = Integer.parseInt(columns[0]);
+                int repetitionLevel = Integer.parseInt(columns[1]);
+                double easeFactor = Double.parseDouble(columns[2]);
+
+                // When & Then
+                assertEquals(Integer.parseInt(columns[3]), legacySm2.nextRepetitionLevel(quality, repetitionLevel), line);
+                assertEquals(Double.parseDouble(columns[4]), legacySm2.nextEaseFactor(quality, repetitionLevel, easeFactor), line);
+                assertEquals(Long.parseLong(columns[5]),
+                        legacySm2.nextIntervalMinutes(quality, repetitionLevel, easeFactor, 0, 0), line);
+                rows++;
+            }
+        }
+        assertTrue(rows > 0);
+    }
+
+    @Test
+    void sm2_ShouldMultiplyPreviousInterval_WhenRecalled() {
+        // Given
+        int repetitionLevel = 0;
+        double easeFactor = 2.5;
+        long interval = 0;
+        long[] expectedDays = { 1, 6, 17, 49 };
+
+        // When & Then
+        for (long expected : expectedDays) {
+            long next = sm2.nextIntervalMinutes(ReviewScheduler.QUALITY_BIEN, repetitionLevel, easeFactor, interval, interval);
+            easeFactor = sm2.nextEaseFactor(ReviewScheduler.QUALITY_BIEN, repetitionLevel, easeFactor);
+            repetitionLevel = sm2.nextRepetitionLevel(ReviewScheduler.QUALITY_BIEN, repetitionLevel);
+            interval = next;
+            assertEquals(expected * DAY, next);
+        }
+        assertEquals(4, repetitionLevel);
+        assertEquals(2.9, easeFactor, 1e-9);
+    }
+
+    @Test
+    void sm2_ShouldRestartWithoutChangingEaseFactor_WhenForgotten() {
+        // When & Then
+        assertEquals(0, sm2.nextRepetitionLevel(ReviewScheduler.QUALITY_MAL, 5));
+        assertEquals(2.2, sm2.nextEaseFactor(ReviewScheduler.QUALITY_MAL, 5, 2.2));
+        assertEquals(DAY, sm2.nextIntervalMinutes(ReviewScheduler.QUALITY_MAL, 5, 2.2, 30 * DAY, 30 * DAY));
+    }
+
+    @Test
+    void fsrs_ShouldGrowIntervals_WhenRecalledOnTime() {
+        // Given
+        double easeFactor = 2.5;
+        long interval = 0;
+        int repetitionLevel = 0;
+
+        // When & Then
+        for (int i = 0; i < 5; i++) {
+            long next = fsrs.nextIntervalMinutes(ReviewScheduler.QUALITY_BIEN, repetitionLevel, easeFactor, interval, interval);
+            assertTrue(next > interval, "El intervalo debe crecer tras un acierto");
+            easeFactor = fsrs.nextEaseFactor(ReviewScheduler.QUALITY_BIEN, repetitionLevel, easeFactor);
+            repetitionLevel = fsrs.nextRepetitionLevel(ReviewScheduler.QUALITY_BIEN, repetitionLevel);
+            interval = next;
+        }
+        assertTrue(easeFactor >= 1.3);
+    }
+
+    @Test
+    void fsrs_ShouldShortenIntervalAndLowerEase_WhenForgotten() {
+        // Given
+        long interval = 20 * DAY;
+
+        // When
+        long next = fsrs.nextIntervalMinutes(ReviewScheduler.QUALITY_MAL, 4, 2.5, interval, interval);
+        double easeFactor = fsrs.nextEaseFactor(ReviewScheduler.QUALITY_MAL, 4, 2.5);
+
+        // Then
+        assertTrue(next < interval);
+        assertTrue(next >= 10);
+        assertTrue(easeFactor < 2.5);
+        assertEquals(0, fsrs.nextRepetitionLevel(ReviewScheduler.QUALITY_MAL, 4));
+    }
+
+    @Test
+    void registry_ShouldResolveWorkspaceScheduler_AndDefaultToLegacy() {
+        // Given
+        ReviewSchedulerRegistry registry = new ReviewSchedulerRegistry(List.of(legacySm2, sm2, fsrs));
+        Workspace workspace = new Workspace();
+        workspace.setSchedulerType(SchedulerType.FSRS);
+        Collection collection = new Collection();
+        collection.setWorkspace(workspace);
+
+        // When & Then
+        assertSame(fsrs, registry.forCollection(collection));
+        assertSame(legacySm2, registry.forCollection(new Collection()));
+        assertSame(legacySm2, registry.forType(null));
+        assertEquals(ReviewScheduler.QUALITY_REGULAR, ReviewScheduler.quality(KnowledgeLevel.REGULAR));
+    }
+}
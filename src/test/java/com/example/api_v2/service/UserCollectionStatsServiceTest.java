@@ -0,0 +1,204 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.CollectionStatsTotalsDto;
+import com.example.api_v2.model.Flashcard;
+import com.example.api_v2.model.KnowledgeLevel;
+import com.example.api_v2.model.User;
+import com.example.api_v2.model.UserCollectionStats;
+import com.example.api_v2.model.UserFlashcardProgress;
+import com.example.api_v2.repository.UserCollectionStatsRepository;
+import com.example.api_v2.repository.UserFlashcardProgressRepository;
+import com.example.api_v2.service.UserCollectionStatsService.Contribution;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para UserCollectionStatsService
+ * Valida el mantenimiento incremental de las estadísticas y su conciliación
+ */
+@ExtendWith(MockitoExtension.class)
+class UserCollectionStatsServiceTest {
+
+    @Mock
+    private UserCollectionStatsRepository userCollectionStatsRepository;
+
+    @Mock
+    private UserFlashcardProgressRepository userFlashcardProgressRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private UserCollectionStatsService userCollectionStatsService;
+
+    private User testUser;
+    private Flashcard testFlashcard;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setId("test-user-id");
+
+        testFlashcard = new Flashcard();
+        testFlashcard.setId(1L);
+        testFlashcard.setCreatedBy(testUser);
+    }
+
+    @Test
+    void recordChange_ShouldApplyOnlyTheDifference_WhenProgressIsReviewed() {
+        // Given
+        UserFlashcardProgress progress = createProgress(null, 0, 0);
+        Contribution before = Contribution.of(progress);
+        progress.setKnowledgeLevel(KnowledgeLevel.BIEN);
+        progress.setReviewCount(1);
+        progress.setStudyTimeInSeconds(12);
+
+        // When
+        userCollectionStatsService.recordChange("test-user-id", 1L, before, Contribution.of(progress));
+
+        // Then
+        verify(userCollectionStatsRepository).applyDelta("test-user-id", 1L,
+                0, 1, 0, 0, -1, 0, 1, 12, 1);
+    }
+
+    @Test
+    void recordChange_ShouldCountNewFlashcard_WhenProgressIsCreated() {
+        // Given
+        UserFlashcardProgress progress = createProgress(null, 0, 0);
+
+        // When
+        userCollectionStatsService.recordChange("test-user-id", 1L, Contribution.NONE, Contribution.of(progress));
+
+        // Then
+        verify(userCollectionStatsRepository).applyDelta("test-user-id", 1L,
+                1, 0, 0, 0, 1, 1, 0, 0, 0);
+    }
+
+    @Test
+    void recordChange_ShouldSkipUpdate_WhenNothingChanged() {
+        // Given
+        Contribution contribution = Contribution.of(createProgress(KnowledgeLevel.MAL, 3, 40));
+
+        // When
+        userCollectionStatsService.recordChange("test-user-id", 1L, contribution, contribution);
+
+        // Then
+        verifyNoInteractions(userCollectionStatsRepository);
+    }
+
+    @Test
+    void getOrCompute_ShouldReturnStoredRow_WithoutScanningProgress() {
+        // Given
+        UserCollectionStats stored = new UserCollectionStats();
+        stored.setTotalFlashcards(10);
+        when(userCollectionStatsRepository.findByUserIdAndCollectionId("test-user-id", 1L)).thenReturn(Optional.of(stored));
+
+        // When
+        UserCollectionStats result = userCollectionStatsService.getOrCompute("test-user-id", 1L);
+
+        // Then
+        assertSame(stored, result);
+        verifyNoInteractions(userFlashcardProgressRepository);
+    }
+
+    @Test
+    void getOrCompute_ShouldComputeAndStoreRow_WhenMissing() {
+        // Given
+        when(userCollectionStatsRepository.findByUserIdAndCollectionId("test-user-id", 1L)).thenReturn(Optional.empty());
+        when(userFlashcardProgressRepository.computeStatsTotals(1L, "test-user-id"))
+                .thenReturn(new CollectionStatsTotalsDto(5L, 2L, 1L, 1L, 1L, 4L, 9L, 300L, 3L));
+        when(userCollectionStatsRepository.save(any(UserCollectionStats.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        UserCollectionStats result = userCollectionStatsService.getOrCompute("test-user-id", 1L);
+
+        // Then
+        assertEquals("test-user-id", result.getUserId());
+        assertEquals(1L, result.getCollectionId());
+        assertEquals(5, result.getTotalFlashcards());
+        assertEquals(2, result.getBienCount());
+        assertEquals(9, result.getTotalRevisadas());
+        assertEquals(300, result.getStudySeconds());
+    }
+
+    @Test
+    void reconcileAll_ShouldFixAndReportDriftedRows() {
+        // Given
+        UserCollectionStats accurate = createStats(1L, 5);
+        UserCollectionStats drifted = createStats(2L, 7);
+        when(userCollectionStatsRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(accurate, drifted)));
+        when(userCollectionStatsRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(accurate));
+        when(userCollectionStatsRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(drifted));
+        when(userFlashcardProgressRepository.computeStatsTotals(1L, "test-user-id"))
+                .thenReturn(new CollectionStatsTotalsDto(5L, 0L, 0L, 0L, 5L, 0L, 0L, 0L, 0L));
+        when(userFlashcardProgressRepository.computeStatsTotals(2L, "test-user-id"))
+                .thenReturn(new CollectionStatsTotalsDto(6L, 0L, 0L, 0L, 6L, 0L, 0L, 0L, 0L));
+
+        // When
+        int result = userCollectionStatsService.reconcileAll();
+
+        // Then
+        assertEquals(1, result);
+        assertEquals(6, drifted.getTotalFlashcards());
+        assertEquals(6, drifted.getSinNivelCount());
+        verify(userCollectionStatsRepository).save(drifted);
+        verify(userCollectionStatsRepository, never()).save(accurate);
+        // La fila se bloquea antes de recalcular, para no perder incrementos concurrentes
+        InOrder inOrder = inOrder(userCollectionStatsRepository, userFlashcardProgressRepository);
+        inOrder.verify(userCollectionStatsRepository).findByIdForUpdate(2L);
+        inOrder.verify(userFlashcardProgressRepository).computeStatsTotals(2L, "test-user-id");
+        inOrder.verify(userCollectionStatsRepository).save(drifted);
+    }
+
+    @Test
+    void reconcile_ShouldSkipRow_WhenItWasInvalidatedMeanwhile() {
+        // Given
+        UserCollectionStats stats = createStats(1L, 5);
+        when(userCollectionStatsRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
+
+        // When
+        boolean result = userCollectionStatsService.reconcile(stats);
+
+        // Then
+        assertFalse(result);
+        verifyNoInteractions(userFlashcardProgressRepository);
+        verify(userCollectionStatsRepository, never()).save(any());
+    }
+
+    // Método auxiliar para crear progreso
+    private UserFlashcardProgress createProgress(KnowledgeLevel level, int reviewCount, int studyTime) {
+        UserFlashcardProgress progress = new UserFlashcardProgress();
+        progress.setUser(testUser);
+        progress.setFlashcard(testFlashcard);
+        progress.setKnowledgeLevel(level);
+        progress.setReviewCount(reviewCount);
+        progress.setStudyTimeInSeconds(studyTime);
+        return progress;
+    }
+
+    // Método auxiliar para crear una fila de estadísticas con flashcards sin nivel
+    private UserCollectionStats createStats(Long collectionId, long flashcards) {
+        UserCollectionStats stats = new UserCollectionStats();
+        stats.setId(collectionId);
+        stats.setUserId("test-user-id");
+        stats.setCollectionId(collectionId);
+        stats.setTotalFlashcards(flashcards);
+        stats.setSinNivelCount(flashcards);
+        return stats;
+    }
+}
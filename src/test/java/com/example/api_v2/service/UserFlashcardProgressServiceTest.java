@@ -0,0 +1,72 @@
+package com.example.api_v2.service;
+
+import com.example.api_v2.dto.UserFlashcardProgressDto;
+import com.example.api_v2.exception.ApiError;
+import com.example.api_v2.exception.ErrorCode;
+import com.example.api_v2.repository.FlashcardRepository;
+import com.example.api_v2.repository.UserFlashcardProgressRepository;
+import com.example.api_v2.repository.UserRepository;
+import com.example.api_v2.repository.UserStatsRepository;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para UserFlashcardProgressService
+ * Valida el rechazo de resultados de repaso no válidos
+ */
+@ExtendWith(MockitoExtension.class)
+class UserFlashcardProgressServiceTest {
+
+    @Mock
+    private UserFlashcardProgressRepository userFlashcardProgressRepository;
+
+    @Mock
+    private FlashcardRepository flashcardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserStatsRepository userStatsRepository;
+
+    @Mock
+    private DueCardIndex dueCardIndex;
+
+    @Mock
+    private ReviewSchedulerRegistry reviewSchedulerRegistry;
+
+    @Mock
+    private UserCollectionStatsService userCollectionStatsService;
+
+    @InjectMocks
+    private UserFlashcardProgressService userFlashcardProgressService;
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = { "", "PERFECTO", "5" })
+    void updateProgress_ShouldRejectWithValidationError_WhenReviewResultIsInvalid(String reviewResult) {
+        // Given
+        UserFlashcardProgressDto progressDto = new UserFlashcardProgressDto();
+        progressDto.setUserId("test-user-id");
+        progressDto.setFlashcardId(1L);
+        progressDto.setReviewResult(reviewResult);
+
+        // When
+        ApiError error = assertThrows(ApiError.class,
+                () -> userFlashcardProgressService.updateProgress(progressDto));
+
+        // Then: 400 de validación y ningún cambio en el progreso ni en las estadísticas
+        assertEquals(ErrorCode.VALIDATION_ERROR, error.getErrorCode());
+        verify(userFlashcardProgressRepository, never()).save(any());
+        verifyNoInteractions(userStatsRepository, dueCardIndex, userCollectionStatsService);
+    }
+}
@@ -266,6 +266,8 @@ class WorkspaceServiceTest {
         verify(workspaceUserRepository).findByUserIdAndWorkspaceId("test-user-id", 1L);
         verify(workspaceUserRepository).save(any(WorkspaceUser.class));
         verify(workspaceRepository).save(testWorkspace);
+        // El progreso se crea en el primer repaso, no al unirse
+        verifyNoInteractions(userFlashcardProgressRepository);
     }
 
     @Test
@@ -0,0 +1,96 @@
+package com.example.api_v2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para PgVectorCodec
+ * Valida que el formato de texto de pgvector conserva exactamente cada float
+ */
+class PgVectorCodecTest {
+
+    private static final float[] SPECIAL_VALUES = {
+            0.0f, -0.0f, Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY,
+            Float.MIN_VALUE, -Float.MIN_VALUE, Float.MIN_NORMAL, Math.nextDown(Float.MIN_NORMAL),
+            Float.MAX_VALUE, -Float.MAX_VALUE, 1.0f, -1.0f, 0.1f, 1e-5f, 1e9f, 123456789f, 16777217f };
+
+    @Test
+    void roundTrip_ShouldPreserveBits_ForSpecialValues() {
+        assertRoundTrip(SPECIAL_VALUES);
+    }
+
+    @Test
+    void roundTrip_ShouldPreserveBits_ForRandomBitPatterns() {
+        // Todos los exponentes por igual: subnormales, NaN e infinitos incluidos
+        Random random = new Random(42);
+        float[] vector = new float[384];
+        for (int round = 0; round < 500; round++) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = Float.intBitsToFloat(random.nextInt());
+            }
+            assertRoundTrip(vector);
+        }
+    }
+
+    @Test
+    void roundTrip_ShouldPreserveBits_ForEmbeddingLikeValues() {
+        Random random = new Random(7);
+        float[] vector = new float[384];
+        for (int round = 0; round < 500; round++) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) (random.nextGaussian() * 0.05);
+            }
+            assertRoundTrip(vector);
+        }
+    }
+
+    @Test
+    void parse_ShouldMatchFloatParseFloat_ForAnyDecimalText() {
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            String text = switch (i % 3) {
+                case 0 -> Float.toString(Float.intBitsToFloat(random.nextInt()));
+                case 1 -> Double.toString(random.nextGaussian());
+                default -> String.format("%.25f", random.nextDouble() * 1e-3);
+            };
+            float expected = Float.parseFloat(text);
+            float actual = PgVectorCodec.parse("[" + text + "]")[0];
+            assertEquals(Float.floatToIntBits(expected), Float.floatToIntBits(actual), text);
+        }
+    }
+
+    @Test
+    void format_ShouldUseShortestDecimal() {
+        assertEquals("[0,-0,1,-2.5,0.1,100,0.0001,1e-5,1e9,NaN,-Infinity]", PgVectorCodec.format(new float[] {
+                0.0f, -0.0f, 1.0f, -2.5f, 0.1f, 100f, 0.0001f, 1e-5f, 1e9f, Float.NaN, Float.NEGATIVE_INFINITY }));
+        assertEquals("[]", PgVectorCodec.format(new float[0]));
+    }
+
+    @Test
+    void parse_ShouldAcceptPgvectorOutput() {
+        assertArrayEquals(new float[] { 1.0f, -2.5f, 0.003f, 1e-5f },
+                PgVectorCodec.parse(" [1, -2.5 ,3e-3,1e-05] "));
+        assertEquals(0, PgVectorCodec.parse("[]").length);
+    }
+
+    @Test
+    void parse_ShouldRejectMalformedText() {
+        for (String text : new String[] { "1,2", "[1,,2]", "[abc]", "[1e]", "[1.2.3]", "[", "[-]" }) {
+            assertThrows(IllegalArgumentException.class, () -> PgVectorCodec.parse(text), text);
+        }
+    }
+
+    private static void assertRoundTrip(float[] vector) {
+        String text = PgVectorCodec.format(vector);
+        float[] parsed = PgVectorCodec.parse(text);
+        assertEquals(vector.length, parsed.length);
+        for (int i = 0; i < vector.length; i++) {
+            // floatToIntBits distingue -0 de 0 y unifica todos los NaN
+            assertEquals(Float.floatToIntBits(vector[i]), Float.floatToIntBits(parsed[i]),
+                    () -> "Elemento alterado en " + text);
+        }
+    }
+}